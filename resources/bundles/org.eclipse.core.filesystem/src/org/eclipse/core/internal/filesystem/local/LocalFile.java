@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,7 +20,11 @@ package org.eclipse.core.internal.filesystem.local;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -49,6 +53,14 @@ public class LocalFile extends FileStore {
 	 */
 	private URI uri;
 
+	private static final IFileInfo[] EMPTY_FILE_INFO_ARRAY = {};
+
+	/**
+	 * The number of bytes transferred between progress and cancellation checks
+	 * when copying a file.
+	 */
+	private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
 	private static int attributes(File aFile) {
 		if (!aFile.exists() || aFile.canWrite())
 			return EFS.NONE;
@@ -98,6 +110,20 @@ public class LocalFile extends FileStore {
 		}
 	}
 
+	/**
+	 * Reads the names and attributes of all children in one pass over the
+	 * directory, instead of fetching the info of every child store separately.
+	 */
+	@Override
+	public IFileInfo[] childInfos(int options, IProgressMonitor monitor) {
+		try {
+			return LocalFileNativesManager.fetchChildInfos(filePath);
+		} catch (IOException e) {
+			//consistent with childNames, a directory that cannot be read has no children
+			return EMPTY_FILE_INFO_ARRAY;
+		}
+	}
+
 	@Override
 	public String[] childNames(int options, IProgressMonitor monitor) {
 		String[] names = file.list();
@@ -126,6 +152,105 @@ public class LocalFile extends FileStore {
 		super.copy(destFile, options, monitor);
 	}
 
+	/**
+	 * Copies the children of a directory to another local directory in
+	 * parallel. Falls back to the sequential implementation for shallow copies
+	 * and destinations in other file systems.
+	 */
+	@Override
+	protected void copyDirectory(IFileInfo sourceInfo, IFileStore destination, int options, IProgressMonitor monitor) throws CoreException {
+		if (!(destination instanceof LocalFile) || (options & EFS.SHALLOW) != 0) {
+			super.copyDirectory(sourceInfo, destination, options, monitor);
+			return;
+		}
+		IFileStore[] children = childStores(EFS.NONE, null);
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 1 + children.length);
+		subMonitor.subTask(NLS.bind(Messages.copying, toString()));
+		// create directory
+		destination.mkdir(EFS.NONE, subMonitor.newChild(1));
+		// copy attributes
+		destination.putInfo(sourceInfo, EFS.SET_ATTRIBUTES | EFS.SET_LAST_MODIFIED, null);
+		if (children.length == 0)
+			return;
+		// copy children, progress monitors are not thread safe so only cancellation is checked
+		Queue<CoreException> failures = new ConcurrentLinkedQueue<>();
+		List<ForkJoinTask<?>> copies = new ArrayList<>(children.length);
+		for (IFileStore child : children) {
+			copies.add(ForkJoinTask.adapt(() -> {
+				// like the sequential copy, stop at the first failure
+				if (subMonitor.isCanceled() || !failures.isEmpty())
+					return;
+				try {
+					child.copy(destination.getChild(child.getName()), options, null);
+				} catch (CoreException e) {
+					failures.add(e);
+				}
+			}));
+		}
+		if (ForkJoinTask.inForkJoinPool())
+			ForkJoinTask.invokeAll(copies);
+		else
+			LocalFileSystem.getPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(copies)));
+		if (subMonitor.isCanceled())
+			throw new OperationCanceledException();
+		CoreException failure = failures.poll();
+		if (failure != null) {
+			for (CoreException other : failures)
+				failure.addSuppressed(other);
+			throw failure;
+		}
+		subMonitor.worked(children.length);
+	}
+
+	/**
+	 * Copies a file to another local file by transferring the contents between
+	 * file channels, which lets the operating system copy without moving the
+	 * data through the Java heap (<code>sendfile</code> or <code>copy_file_range</code>
+	 * on Linux). Falls back to the stream based implementation for destinations
+	 * in other file systems.
+	 */
+	@Override
+	protected void copyFile(IFileInfo sourceInfo, IFileStore destination, int options, IProgressMonitor monitor) throws CoreException {
+		if (!(destination instanceof LocalFile)) {
+			super.copyFile(sourceInfo, destination, options, monitor);
+			return;
+		}
+		if ((options & EFS.OVERWRITE) == 0 && destination.fetchInfo().exists())
+			Policy.error(EFS.ERROR_EXISTS, NLS.bind(Messages.fileExists, destination));
+		SubMonitor subMonitor = SubMonitor.convert(monitor, NLS.bind(Messages.copying, filePath), 100);
+		try {
+			// open through the store API, so failures are reported with the usual error codes
+			try (FileInputStream in = (FileInputStream) openInputStream(EFS.NONE, subMonitor.newChild(1)); FileOutputStream out = (FileOutputStream) destination.openOutputStream(EFS.NONE, subMonitor.newChild(1))) {
+				transferChannels(in.getChannel(), out.getChannel(), subMonitor.newChild(98));
+			} catch (IOException e) {
+				String message = NLS.bind(Messages.couldNotWrite, filePath);
+				Policy.error(EFS.ERROR_WRITE, message, e);
+			}
+			destination.putInfo(sourceInfo, EFS.SET_ATTRIBUTES | EFS.SET_LAST_MODIFIED, null);
+		} catch (CoreException e) {
+			//if we failed to write, try to cleanup the half written file
+			if (!destination.fetchInfo(0, null).exists())
+				destination.delete(EFS.NONE, null);
+			throw e;
+		}
+	}
+
+	private static void transferChannels(FileChannel source, FileChannel target, IProgressMonitor monitor) throws IOException {
+		long size = source.size();
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 1 + (int) (size / TRANSFER_CHUNK_SIZE));
+		long position = 0;
+		while (position < size) {
+			if (subMonitor.isCanceled())
+				throw new OperationCanceledException();
+			long transferred = source.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), target);
+			// the source was truncated while copying
+			if (transferred <= 0)
+				break;
+			position += transferred;
+			subMonitor.worked(1);
+		}
+	}
+
 	@Override
 	public void delete(int options, IProgressMonitor monitor) throws CoreException {
 		if (monitor == null)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.core.internal.filesystem.local;
 
+import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.util.Set;
 import org.eclipse.core.filesystem.IFileInfo;
@@ -65,6 +66,10 @@ public class LocalFileNativesManager {
 		return HANDLER.fetchFileInfo(fileName);
 	}
 
+	public static FileInfo[] fetchChildInfos(String directory) throws IOException {
+		return HANDLER.fetchChildInfos(directory);
+	}
+
 	public static boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return HANDLER.putFileInfo(fileName, info, options);
 	}
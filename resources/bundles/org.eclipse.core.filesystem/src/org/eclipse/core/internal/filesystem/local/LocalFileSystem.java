@@ -19,9 +19,11 @@ package org.eclipse.core.internal.filesystem.local;
 
 import java.io.File;
 import java.net.URI;
+import java.util.concurrent.ForkJoinPool;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.provider.FileSystem;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.osgi.service.environment.Constants;
 
 /**
@@ -39,6 +41,13 @@ public class LocalFileSystem extends FileSystem {
 	 */
 	private static final boolean caseSensitive = MACOSX ? false : new java.io.File("a").compareTo(new java.io.File("A")) != 0; //$NON-NLS-1$ //$NON-NLS-2$
 
+	/**
+	 * Whether {@link #fetchFileTree(IFileStore, IProgressMonitor)} takes a snapshot
+	 * of the tree. Can be disabled by adding -Declipse.filesystem.fetchFileTree=false
+	 * to VM arguments.
+	 */
+	private static final boolean FETCH_FILE_TREE = Boolean.parseBoolean(System.getProperty("eclipse.filesystem.fetchFileTree", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
 	/**
 	 * The attributes of this file system. The initial value of -1 is used
 	 * to indicate that the attributes have not yet been computed.
@@ -49,6 +58,12 @@ public class LocalFileSystem extends FileSystem {
 	 */
 	private static IFileSystem instance;
 
+	/**
+	 * The pool shared by operations that access independent parts of a
+	 * directory tree in parallel. Its threads terminate when idle.
+	 */
+	private static ForkJoinPool pool;
+
 	/**
 	 * Returns the instance of this file system
 	 *
@@ -58,6 +73,16 @@ public class LocalFileSystem extends FileSystem {
 		return instance;
 	}
 
+	/**
+	 * Returns the pool for parallel tree operations, creating it on first use.
+	 * Also used by the resources plug-in to read the locations of a refresh.
+	 */
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null)
+			pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		return pool;
+	}
+
 	/**
 	 * Returns the current OS.  This is equivalent to Platform.getOS(), but
 	 * is tolerant of the platform runtime not being present.
@@ -113,6 +138,18 @@ public class LocalFileSystem extends FileSystem {
 		return true;
 	}
 
+	/**
+	 * Returns a snapshot of the directory tree rooted at the given store, read in
+	 * parallel. Returns <code>null</code> if the store is not an existing local
+	 * directory, in which case callers fall back to per-store queries.
+	 */
+	@Override
+	public IFileTree fetchFileTree(IFileStore root, IProgressMonitor monitor) {
+		if (!FETCH_FILE_TREE || !(root instanceof LocalFile))
+			return null;
+		return LocalFileTree.fetch(root, monitor);
+	}
+
 	@Override
 	public IFileStore fromLocalFile(File file) {
 		return new LocalFile(file);
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.filesystem.local;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.core.filesystem.*;
+import org.eclipse.core.filesystem.provider.FileTree;
+import org.eclipse.core.runtime.*;
+
+/**
+ * A snapshot of a local directory tree. The tree is read in one pass, where
+ * independent subdirectories are scanned in parallel on the fork-join pool
+ * shared by the local file system. This
+ * replaces the sequence of <code>childInfos</code> calls otherwise issued while
+ * traversing a large tree, and hides most of the latency of the per-file stat
+ * calls. Directories of other file systems can be read the same way, through
+ * their <code>childInfos</code>.
+ * <p>
+ * Symbolic links to directories are not followed during the scan, which also
+ * prevents cycles. Stores that are not part of the snapshot, like the children
+ * of such links or directories that could not be read, are answered by
+ * querying the file system directly.
+ * </p>
+ */
+public class LocalFileTree extends FileTree {
+	private static final IFileInfo[] EMPTY_FILE_INFO_ARRAY = {};
+
+	/**
+	 * Mapping of directories to the infos of their children.
+	 */
+	private final Map<IFileStore, IFileInfo[]> children = new ConcurrentHashMap<>();
+	/**
+	 * Mapping of directories to the infos of their children by name.
+	 */
+	private final Map<IFileStore, Map<String, IFileInfo>> childrenByName = new ConcurrentHashMap<>();
+	private final IFileInfo rootInfo;
+
+	/**
+	 * Scans the contents of one directory and forks a scan for each subdirectory.
+	 */
+	private final class DirectoryScan extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final IFileStore directory;
+		private final IProgressMonitor monitor;
+
+		DirectoryScan(IFileStore directory, IProgressMonitor monitor) {
+			this.directory = directory;
+			this.monitor = monitor;
+		}
+
+		@Override
+		protected void compute() {
+			if (monitor.isCanceled())
+				return;
+			IFileInfo[] infos;
+			try {
+				if (directory instanceof LocalFile)
+					infos = LocalFileNativesManager.fetchChildInfos(((LocalFile) directory).filePath);
+				else
+					infos = directory.childInfos(EFS.NONE, null);
+			} catch (IOException | CoreException e) {
+				// leave the directory out of the snapshot, it is queried again on access
+				return;
+			}
+			Map<String, IFileInfo> byName = new HashMap<>(infos.length * 4 / 3 + 1);
+			List<DirectoryScan> scans = new ArrayList<>();
+			for (IFileInfo info : infos) {
+				byName.put(info.getName(), info);
+				if (info.isDirectory() && !info.getAttribute(EFS.ATTRIBUTE_SYMLINK))
+					scans.add(new DirectoryScan(directory.getChild(info.getName()), monitor));
+			}
+			childrenByName.put(directory, byName);
+			children.put(directory, infos);
+			invokeAll(scans);
+		}
+	}
+
+	/**
+	 * Reads the tree below the given root, which may belong to any file
+	 * system. Returns <code>null</code> if the root is not an existing
+	 * directory.
+	 *
+	 * @throws OperationCanceledException if the monitor is canceled during the scan
+	 */
+	public static LocalFileTree fetch(IFileStore root, IProgressMonitor monitor) {
+		IFileInfo rootInfo = root.fetchInfo();
+		if (!rootInfo.isDirectory())
+			return null;
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 1);
+		LocalFileTree tree = new LocalFileTree(root, rootInfo);
+		LocalFileSystem.getPool().invoke(tree.new DirectoryScan(root, subMonitor));
+		if (subMonitor.isCanceled())
+			throw new OperationCanceledException();
+		subMonitor.worked(1);
+		return tree;
+	}
+
+	private LocalFileTree(IFileStore root, IFileInfo rootInfo) {
+		super(root);
+		this.rootInfo = rootInfo;
+	}
+
+	@Override
+	public IFileInfo[] getChildInfos(IFileStore store) {
+		IFileInfo[] infos = children.get(store);
+		if (infos != null)
+			return infos;
+		try {
+			return store.childInfos(EFS.NONE, null);
+		} catch (CoreException e) {
+			return EMPTY_FILE_INFO_ARRAY;
+		}
+	}
+
+	@Override
+	public IFileStore[] getChildStores(IFileStore store) {
+		IFileInfo[] infos = getChildInfos(store);
+		IFileStore[] stores = new IFileStore[infos.length];
+		for (int i = 0; i < infos.length; i++)
+			stores[i] = store.getChild(infos[i].getName());
+		return stores;
+	}
+
+	@Override
+	public IFileInfo getFileInfo(IFileStore store) {
+		if (store.equals(treeRoot))
+			return rootInfo;
+		IFileStore parent = store.getParent();
+		Map<String, IFileInfo> siblings = parent != null ? childrenByName.get(parent) : null;
+		IFileInfo info = siblings != null ? siblings.get(store.getName()) : null;
+		return info != null ? info : store.fetchInfo();
+	}
+}
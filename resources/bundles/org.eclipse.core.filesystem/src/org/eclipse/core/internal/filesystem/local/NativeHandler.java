@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 IBM Corporation and others.
+ * Copyright (c) 2012, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,10 @@
  *******************************************************************************/
 package org.eclipse.core.internal.filesystem.local;
 
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
 
@@ -25,4 +29,31 @@ public abstract class NativeHandler {
 	public abstract FileInfo fetchFileInfo(String fileName);
 
 	public abstract boolean putFileInfo(String fileName, IFileInfo info, int options);
+
+	/**
+	 * Returns the file info of every child of the given directory. The directory
+	 * is listed once and the info of each child is fetched while iterating over
+	 * the listing. Subclasses may override if attributes can be read more
+	 * efficiently relative to the open directory.
+	 *
+	 * @param directory the absolute path of the directory
+	 * @return the infos of the children, named like the directory entries
+	 * @throws IOException if the directory does not exist or cannot be read
+	 */
+	public FileInfo[] fetchChildInfos(String directory) throws IOException {
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory))) {
+			for (Path entry : stream) {
+				String name = entry.getFileName().toString();
+				FileInfo info = fetchFileInfo(entry.toString());
+				//natives don't set the file name on all platforms
+				if (info.getName().isEmpty())
+					info.setName(name);
+				infos.add(info);
+			}
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 IBM Corporation and others.
+ * Copyright (c) 2013, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,8 +18,7 @@ package org.eclipse.core.internal.filesystem.local.nio;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -58,21 +57,7 @@ public class PosixHandler extends NativeHandler {
 				attrs = Files.readAttributes(path, PosixFileAttributes.class);
 			}
 
-			info.setExists(true);
-			info.setLastModified(attrs.lastModifiedTime().toMillis());
-			info.setLength(attrs.size());
-			info.setDirectory(attrs.isDirectory());
-
-			Set<PosixFilePermission> perms = attrs.permissions();
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+			fillFileInfo(info, attrs);
 		} catch (NoSuchFileException e) {
 			// A non-existing file is not considered an error.
 		} catch (IOException e) {
@@ -82,6 +67,63 @@ public class PosixHandler extends NativeHandler {
 		return info;
 	}
 
+	/**
+	 * Reads the infos of all children relative to the open directory, if the
+	 * platform provides a secure directory stream, which saves resolving the
+	 * full path of every child.
+	 */
+	@Override
+	public FileInfo[] fetchChildInfos(String directory) throws IOException {
+		Path dir = Paths.get(directory);
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			if (!(stream instanceof SecureDirectoryStream))
+				return super.fetchChildInfos(directory);
+			SecureDirectoryStream<Path> secureStream = (SecureDirectoryStream<Path>) stream;
+			for (Path entry : stream) {
+				Path name = entry.getFileName();
+				FileInfo info = new FileInfo(name.toString());
+				try {
+					PosixFileAttributeView view = secureStream.getFileAttributeView(name, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+					PosixFileAttributes attrs = view != null ? view.readAttributes() : Files.readAttributes(entry, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					if (attrs.isSymbolicLink()) {
+						info.setAttribute(EFS.ATTRIBUTE_SYMLINK, true);
+						info.setStringAttribute(EFS.ATTRIBUTE_LINK_TARGET, Files.readSymbolicLink(entry).toString());
+						attrs = Files.readAttributes(entry, PosixFileAttributes.class);
+					}
+					fillFileInfo(info, attrs);
+				} catch (NoSuchFileException e) {
+					// A non-existing file (or the target of a broken link) is not considered an error.
+				} catch (IOException e) {
+					// Leave alone and continue.
+					info.setError(IFileInfo.IO_ERROR);
+				}
+				infos.add(info);
+			}
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
+	private static void fillFileInfo(FileInfo info, PosixFileAttributes attrs) {
+		info.setExists(true);
+		info.setLastModified(attrs.lastModifiedTime().toMillis());
+		info.setLength(attrs.size());
+		info.setDirectory(attrs.isDirectory());
+
+		Set<PosixFilePermission> perms = attrs.permissions();
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+	}
+
 	@Override
 	public int getSupportedAttributes() {
 		return ATTRIBUTES;
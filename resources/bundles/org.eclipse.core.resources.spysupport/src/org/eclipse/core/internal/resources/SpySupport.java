@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 IBM Corporation and others.
+ * Copyright (c) 2002, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -49,10 +49,13 @@ public class SpySupport {
 	}
 	@SuppressWarnings("unchecked")
 	public static Map<QualifiedName, Object> getSessionProperties(ResourceInfo info) {
-		return info.sessionProperties == null ? null : (Map<QualifiedName, Object>) info.sessionProperties.clone();
+		ResourceInfo.Attachments attachments = info.attachments;
+		if (attachments == null || attachments.sessionProperties == null)
+			return null;
+		return (Map<QualifiedName, Object>) attachments.sessionProperties.clone();
 	}
 	public static Map<QualifiedName, Object> getSyncInfo(ResourceInfo info) {
-		return info.syncInfo;
+		return info.getSyncInfo(false);
 	}
 	public static ElementTree getOldestTree() {
 		return ((Workspace) ResourcesPlugin.getWorkspace()).getSaveManager().lastSnap;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,7 @@ package org.eclipse.core.internal.dtree;
 
 import java.util.Arrays;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.StringPool;
 import org.eclipse.core.runtime.IPath;
@@ -31,6 +32,18 @@ public abstract class AbstractDataTreeNode {
 	 * Singleton indicating no children.
 	 */
 	static final AbstractDataTreeNode[] NO_CHILDREN = new AbstractDataTreeNode[0];
+
+	/**
+	 * The number of nodes above which the subtrees of the top levels of a
+	 * tree are compared concurrently. Only changed by tests.
+	 */
+	static volatile int parallelThreshold = 2000;
+
+	/**
+	 * The number of top levels of a tree whose subtrees may be compared
+	 * concurrently, that is the projects and their direct members.
+	 */
+	static final int PARALLEL_DEPTH = 2;
 	protected AbstractDataTreeNode children[];
 	protected String name;
 
@@ -87,6 +100,11 @@ public abstract class AbstractDataTreeNode {
 		if (newNodes.length == 0)
 			return oldNodes;
 
+		// Optimize the case of a single changed child, which is what every
+		// single create, delete or data change of a tree assembles.
+		if (newNodes.length == 1)
+			return assembleWith(oldNodes, newNodes[0], keepDeleted);
+
 		// Can't just return newNodes if oldNodes has length 0
 		// because newNodes may contain deleted nodes.
 
@@ -172,6 +190,61 @@ public abstract class AbstractDataTreeNode {
 		return resultNodes;
 	}
 
+	/**
+	 * Returns the result of assembling nodes with a single forward delta node.
+	 * This is {@link #assembleWith(AbstractDataTreeNode[], AbstractDataTreeNode[], boolean)}
+	 * for one new node, which locates the node by binary search and builds the
+	 * result with bulk copies. This keeps the cost of changing one child of a
+	 * very wide node to a single copy of its children array.
+	 */
+	private static AbstractDataTreeNode[] assembleWith(AbstractDataTreeNode[] oldNodes, AbstractDataTreeNode newNode, boolean keepDeleted) {
+		int index = binarySearch(oldNodes, newNode.name);
+		if (index >= 0) {
+			AbstractDataTreeNode node = oldNodes[index].assembleWith(newNode);
+			if (node != null && (!node.isDeleted() || keepDeleted)) {
+				AbstractDataTreeNode[] resultNodes = oldNodes.clone();
+				resultNodes[index] = node;
+				return resultNodes;
+			}
+			if (oldNodes.length == 1)
+				return NO_CHILDREN;
+			AbstractDataTreeNode[] resultNodes = new AbstractDataTreeNode[oldNodes.length - 1];
+			System.arraycopy(oldNodes, 0, resultNodes, 0, index);
+			System.arraycopy(oldNodes, index + 1, resultNodes, index, resultNodes.length - index);
+			return resultNodes;
+		}
+		if (newNode.isDeleted() && !keepDeleted)
+			return oldNodes;
+		index = -(index + 1);
+		AbstractDataTreeNode[] resultNodes = new AbstractDataTreeNode[oldNodes.length + 1];
+		System.arraycopy(oldNodes, 0, resultNodes, 0, index);
+		resultNodes[index] = newNode;
+		System.arraycopy(oldNodes, index, resultNodes, index + 1, oldNodes.length - index);
+		return resultNodes;
+	}
+
+	/**
+	 * Returns the index of the node with the given name in the given nodes,
+	 * which must be sorted by name. If there is no such node, returns
+	 * <code>-(insertion point) - 1</code>, like {@link Arrays#binarySearch(Object[], Object)}.
+	 */
+	static int binarySearch(AbstractDataTreeNode[] nodes, String localName) {
+		int left = 0;
+		int right = nodes.length - 1;
+		while (left <= right) {
+			int mid = (left + right) >>> 1;
+			int compare = localName.compareTo(nodes[mid].name);
+			if (compare < 0) {
+				right = mid - 1;
+			} else if (compare > 0) {
+				left = mid + 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(left + 1);
+	}
+
 	/**
 	 * Returns the result of assembling this node with the given forward delta node.
 	 */
@@ -354,9 +427,16 @@ public abstract class AbstractDataTreeNode {
 	protected static AbstractDataTreeNode[] compareWithParent(AbstractDataTreeNode[] nodes, IPath key, DeltaDataTree parent, IComparator comparator) {
 
 		AbstractDataTreeNode[] comparedNodes = new AbstractDataTreeNode[nodes.length];
+		if (key.segmentCount() < PARALLEL_DEPTH && nodes.length > 1 && isLarge(nodes)) {
+			// large changes near the root: compare the subtrees concurrently, the
+			// comparators and the lookups in the parent tree are free of side effects
+			IntStream.range(0, nodes.length).parallel().forEach(i -> comparedNodes[i] = nodes[i].compareWithParent(key.append(nodes[i].getName()), parent, comparator));
+		} else {
+			for (int i = 0; i < nodes.length; i++)
+				comparedNodes[i] = nodes[i].compareWithParent(key.append(nodes[i].getName()), parent, comparator);
+		}
 		int count = 0;
-		for (AbstractDataTreeNode node : nodes) {
-			AbstractDataTreeNode comparedNode = node.compareWithParent(key.append(node.getName()), parent, comparator);
+		for (AbstractDataTreeNode comparedNode : comparedNodes) {
 			NodeComparison comparison = (NodeComparison) comparedNode.getData();
 			// Skip it if it's an empty comparison (and no children).
 			if (!(comparison.isUnchanged() && comparedNode.size() == 0)) {
@@ -367,13 +447,33 @@ public abstract class AbstractDataTreeNode {
 			return NO_CHILDREN;
 		}
 		if (count < comparedNodes.length) {
-			System.arraycopy(comparedNodes, 0, comparedNodes = new AbstractDataTreeNode[count], 0, count);
+			return Arrays.copyOf(comparedNodes, count);
 		}
 		return comparedNodes;
 	}
 
 	abstract AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator);
 
+	/**
+	 * Returns whether there are more nodes than the parallel threshold in the
+	 * given subtrees.
+	 */
+	static boolean isLarge(AbstractDataTreeNode[] nodes) {
+		int threshold = parallelThreshold;
+		return countNodes(nodes, threshold) > threshold;
+	}
+
+	/**
+	 * Returns the number of nodes in the subtrees rooted at the given nodes,
+	 * counting at most slightly more than the given limit.
+	 */
+	static int countNodes(AbstractDataTreeNode[] nodes, int limit) {
+		int count = nodes.length;
+		for (int i = 0; i < nodes.length && count <= limit; i++)
+			count += countNodes(nodes[i].children, limit - count);
+		return count;
+	}
+
 	static AbstractDataTreeNode convertToAddedComparisonNode(AbstractDataTreeNode newNode, int userComparison) {
 		AbstractDataTreeNode[] children = newNode.getChildren();
 		int n = children.length;
@@ -409,18 +509,6 @@ public abstract class AbstractDataTreeNode {
 	 */
 	abstract AbstractDataTreeNode copy();
 
-	/**
-	 * Replaces the receiver's children between "from" and "to", with the children
-	 * in otherNode starting at "start".  This method replaces the Smalltalk
-	 * #replaceFrom:to:with:startingAt: method for copying children in data nodes
-	 */
-	protected void copyChildren(int from, int to, AbstractDataTreeNode otherNode, int start) {
-		int other = start;
-		for (int i = from; i <= to; i++, other++) {
-			this.children[i] = otherNode.children[other];
-		}
-	}
-
 	/**
 	 * Returns an array of the node's children
 	 */
@@ -461,21 +549,8 @@ public abstract class AbstractDataTreeNode {
 	 * Returns the index of the specified child's name in the receiver.
 	 */
 	protected int indexOfChild(String localName) {
-		AbstractDataTreeNode[] nodes = this.children;
-		int left = 0;
-		int right = nodes.length - 1;
-		while (left <= right) {
-			int mid = (left + right) / 2;
-			int compare = localName.compareTo(nodes[mid].name);
-			if (compare < 0) {
-				right = mid - 1;
-			} else if (compare > 0) {
-				left = mid + 1;
-			} else {
-				return mid;
-			}
-		}
-		return -1;
+		int index = binarySearch(children, localName);
+		return index >= 0 ? index : -1;
 	}
 
 	/**
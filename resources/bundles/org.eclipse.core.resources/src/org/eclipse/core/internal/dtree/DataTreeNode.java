@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -145,19 +145,11 @@ public class DataTreeNode extends AbstractDataTreeNode {
 	DataTreeNode copyWithNewChild(String localName, DataTreeNode childNode) {
 
 		AbstractDataTreeNode[] children = this.children;
-		int left = 0;
-		int right = children.length - 1;
-		while (left <= right) {
-			int mid = (left + right) / 2;
-			int compare = localName.compareTo(children[mid].name);
-			if (compare < 0) {
-				right = mid - 1;
-			} else if (compare > 0) {
-				left = mid + 1;
-			} else {
-				throw new Error(); // it shouldn't have been here yet
-			}
+		int left = binarySearch(children, localName);
+		if (left >= 0) {
+			throw new Error(); // it shouldn't have been here yet
 		}
+		left = -(left + 1);
 
 		AbstractDataTreeNode[] newChildren = new AbstractDataTreeNode[children.length + 1];
 		System.arraycopy(children, 0, newChildren, 0, left);
@@ -186,9 +178,9 @@ public class DataTreeNode extends AbstractDataTreeNode {
 		} else {
 			newSize = this.size() - 1;
 			children = new AbstractDataTreeNode[newSize];
+			System.arraycopy(this.children, 0, children, 0, index);
+			System.arraycopy(this.children, index + 1, children, index, newSize - index);
 			newNode = new DataTreeNode(this.getName(), this.getData(), children);
-			newNode.copyChildren(0, index - 1, this, 0); //#from:to:with:startingAt:
-			newNode.copyChildren(index, newSize - 1, this, index + 1);
 		}
 		return newNode;
 	}
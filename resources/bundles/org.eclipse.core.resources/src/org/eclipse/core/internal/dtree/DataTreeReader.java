@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -149,4 +149,41 @@ public class DataTreeReader {
 		AbstractDataTreeNode root = readNode(Path.ROOT, newProjectName);
 		return new DeltaDataTree(root, parent);
 	}
+
+	/**
+	 * Reads the subtrees below a top-level node, as written by
+	 * {@link DataTreeWriter#writeBelowTopLevel(DeltaDataTree, String, DataOutput)}.
+	 *
+	 * @return the children of the top-level node, or <code>null</code> if the
+	 * written tree did not have such a node
+	 */
+	public AbstractDataTreeNode[] readBelowTopLevel(String name, DataInput input) throws IOException {
+		this.input = input;
+		if (readNumber() == 0) {
+			return null;
+		}
+		int childCount = readNumber();
+		if (childCount == 0) {
+			return AbstractDataTreeNode.NO_CHILDREN;
+		}
+		IPath path = Path.ROOT.append(name);
+		AbstractDataTreeNode[] children = new AbstractDataTreeNode[childCount];
+		for (int i = 0; i < childCount; i++) {
+			children[i] = readNode(path, ""); //$NON-NLS-1$
+		}
+		return children;
+	}
+
+	/**
+	 * Sets the children of a top-level node of a tree that was read without
+	 * them, as returned by {@link #readBelowTopLevel(String, DataInput)}. Does
+	 * nothing if the tree does not have a top-level node with the given name.
+	 * This must be done before the tree is used.
+	 */
+	public static void setChildrenOfTopLevelNode(DeltaDataTree tree, String name, AbstractDataTreeNode[] children) {
+		AbstractDataTreeNode node = tree.getRootNode().childAtOrNull(name);
+		if (node != null && !node.isDeleted() && children.length > 0) {
+			node.setChildren(children);
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,7 @@ package org.eclipse.core.internal.dtree;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Collection;
 import org.eclipse.core.runtime.*;
 
 /**
@@ -182,4 +183,39 @@ public class DataTreeWriter {
 		/* recursively write the subtree we're interested in */
 		writeNode(node, path, depth);
 	}
+
+	/**
+	 * Writes the subtrees below the top-level node with the given name, that
+	 * is the children of that node with all of their descendants. Together with
+	 * <code>writeTree(tree, Path.ROOT, 1, output)</code> for the root and the
+	 * top-level nodes, this splits a tree into parts that can be written
+	 * independently of each other.
+	 *
+	 * @see DataTreeReader#readBelowTopLevel(String, DataInput)
+	 */
+	public void writeBelowTopLevel(DeltaDataTree tree, String name, DataOutput output) throws IOException {
+		this.output = output;
+		AbstractDataTreeNode node = tree.getRootNode().childAtOrNull(name);
+		if (node == null) {
+			writeNumber(0);
+			return;
+		}
+		writeNumber(1);
+		IPath path = Path.ROOT.append(name);
+		AbstractDataTreeNode[] children = node.getChildren();
+		writeNumber(children.length);
+		for (AbstractDataTreeNode child : children) {
+			writeNode(child, path.append(child.getName()), D_INFINITE);
+		}
+	}
+
+	/**
+	 * Adds the names of the top-level nodes of the given tree to the given
+	 * collection. Parent trees are not consulted.
+	 */
+	public static void collectTopLevelNames(DeltaDataTree tree, Collection<String> names) {
+		for (AbstractDataTreeNode child : tree.getRootNode().getChildren()) {
+			names.add(child.getName());
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,11 +13,13 @@
  *******************************************************************************/
 package org.eclipse.core.internal.dtree;
 
+import java.util.Collection;
 import java.util.Objects;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.StringPool;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 
 /**
  * Externally, a <code>DeltaDataTree</code> appears to have the same content as
@@ -379,6 +381,32 @@ public class DeltaDataTree extends AbstractDataTree {
 		assembleNode(parentKey, new NoDataDeltaNode(parentKey.lastSegment(), new DeletedNode(localName)));
 	}
 
+	/**
+	 * Returns whether the children of the node at the given key are near the
+	 * root of the tree and have enough nodes below them to be processed
+	 * concurrently, like the comparison in
+	 * {@link AbstractDataTreeNode#compareWithParent(AbstractDataTreeNode[], IPath, DeltaDataTree, IComparator)}.
+	 */
+	public boolean isLargeNearRoot(IPath key) {
+		if (key.segmentCount() >= AbstractDataTreeNode.PARALLEL_DEPTH)
+			return false;
+		AbstractDataTreeNode node = findNodeAt(key);
+		if (node == null || node.children.length < 2)
+			return false;
+		return AbstractDataTreeNode.isLarge(node.children);
+	}
+
+	/**
+	 * Sets the number of nodes above which the subtrees of the top levels of
+	 * a tree are compared concurrently, and returns the previous number. Used
+	 * by tests.
+	 */
+	public static int setParallelThreshold(int threshold) {
+		int previous = AbstractDataTreeNode.parallelThreshold;
+		AbstractDataTreeNode.parallelThreshold = threshold;
+		return previous;
+	}
+
 	/**
 	 * Returns a node of the tree if it is present, otherwise returns null
 	 *
@@ -597,6 +625,38 @@ public class DeltaDataTree extends AbstractDataTree {
 		return namesOfChildren;
 	}
 
+	/**
+	 * Collects the keys of all nodes in the deltas between this tree and the
+	 * given tree, which must be reachable through the parent chain of this
+	 * tree. Keys of deleted nodes are collected separately: an entire subtree
+	 * may exist below them in the given tree.
+	 *
+	 * @param changed the collection to add the keys of all other nodes to
+	 * @param deleted the collection to add the keys of deleted nodes to
+	 * @return <code>false</code> if the given tree is not reachable, in which
+	 * case the collections may have been partially filled
+	 */
+	public boolean collectChangedKeys(DeltaDataTree newer, Collection<IPath> changed, Collection<IPath> deleted) {
+		for (DeltaDataTree tree = this; tree != newer; tree = tree.parent) {
+			if (tree == null)
+				return false;
+			collectKeys(tree.rootNode, Path.ROOT, changed, deleted);
+		}
+		return true;
+	}
+
+	private static void collectKeys(AbstractDataTreeNode node, IPath key, Collection<IPath> changed, Collection<IPath> deleted) {
+		for (AbstractDataTreeNode child : node.getChildren()) {
+			IPath childKey = key.append(child.getName());
+			if (child.isDeleted()) {
+				deleted.add(childKey);
+			} else {
+				changed.add(childKey);
+				collectKeys(child, childKey, changed, deleted);
+			}
+		}
+	}
+
 	/**
 	 * Returns the parent of the tree.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2015 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -302,6 +302,8 @@ class AutoBuildJob extends Job implements Preferences.IPropertyChangeListener {
 	 * Sets or clears the interrupted flag.
 	 */
 	private synchronized void setInterrupted(boolean value) {
+		if (value && !interrupted && getState() == RUNNING)
+			workspace.getBuildManager().getStatistics().autoBuildInterrupted();
 		interrupted = value;
 		// we do not "cancel" in case of interrupt but let the builder decide because
 		// for example JDT builder can not resume from canceled autobuild but requires full build
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2021 IBM Corporation and others.
+ *  Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -19,8 +19,10 @@
  *******************************************************************************/
 package org.eclipse.core.internal.events;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.eclipse.core.internal.resources.*;
@@ -118,6 +120,15 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	private ElementTree currentLastBuiltTree;
 	private ElementTree currentTree;
 
+	/**
+	 * The last built tree and the current tree of a builder that runs
+	 * concurrently with other builders of its project, see
+	 * {@link #basicBuildConcurrently}. Set for the threads running such
+	 * builders, where it replaces {@link #currentLastBuiltTree} and
+	 * {@link #currentTree}.
+	 */
+	private final ThreadLocal<ElementTree[]> concurrentTrees = new ThreadLocal<>();
+
 	/**
 	 * Caches the IResourceDelta for a pair of trees
 	 */
@@ -160,8 +171,10 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	// protects against concurrent access of session stored builders during builder initialization
 	private Object builderInitializationLock = new Object();
 
-	//used for debug/trace timing
-	private long timeStamp = -1;
+	private final BuildStatistics statistics = new BuildStatistics();
+
+	//used for debug/trace timing, per thread as builders may run concurrently
+	private final ThreadLocal<Long> timeStamp = new ThreadLocal<>();
 	private long overallTimeStamp = -1;
 	private Workspace workspace;
 
@@ -185,13 +198,13 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			currentBuilder.clearLastBuiltStateRequests();
 			// Figure out want kind of build is needed
 			boolean clean = trigger == IncrementalProjectBuilder.CLEAN_BUILD;
-			currentLastBuiltTree = currentBuilder.getLastBuiltTree();
+			setCurrentLastBuiltTree(currentBuilder.getLastBuiltTree());
 
 			// Does the build command respond to this trigger?
 			boolean isBuilding = builder.getCommand().isBuilding(trigger);
 
 			// If no tree is available we have to do a full build
-			if (!clean && currentLastBuiltTree == null) {
+			if (!clean && getCurrentLastBuiltTree() == null) {
 				// Bug 306746 - Don't promote build to FULL_BUILD if builder doesn't AUTO_BUILD
 				if (trigger == IncrementalProjectBuilder.AUTO_BUILD && !isBuilding)
 					return;
@@ -208,7 +221,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			}
 
 			// For incremental builds, grab a pointer to the current state before computing the delta
-			currentTree = ((trigger == IncrementalProjectBuilder.FULL_BUILD) || clean) ? null : workspace.getElementTree();
+			setCurrentTree(((trigger == IncrementalProjectBuilder.FULL_BUILD) || clean) ? null : workspace.getElementTree());
 			int depth = -1;
 			ISchedulingRule rule = null;
 			try {
@@ -230,7 +243,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 				monitor.subTask(message);
 				hookStartBuild(builder, trigger);
 				// Make the current tree immutable before releasing the WS lock
-				if (rule != null && currentTree != null) {
+				if (rule != null && getCurrentTree() != null) {
 					workspace.newWorkingTree();
 				}
 				//release workspace lock while calling builders
@@ -240,8 +253,8 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 					Job.getJobManager().beginRule(rule, monitor);
 					// Now that we've acquired the rule, changes may have been made concurrently, ensure we're pointing at the
 					// correct currentTree so delta contains concurrent changes made in areas guarded by the scheduling rule
-					if (currentTree != null)
-						currentTree = workspace.getElementTree();
+					if (getCurrentTree() != null)
+						setCurrentTree(workspace.getElementTree());
 				}
 				//do the build
 				SafeRunner.run(getSafeRunnable(currentBuilder, trigger, args, status, monitor));
@@ -269,12 +282,12 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 					lastTree.immutable();
 					currentBuilder.setLastBuiltTree(lastTree);
 				}
-				hookEndBuild(builder);
+				hookEndBuild(builder, trigger, monitor.isCanceled());
 			}
 		} finally {
 			currentBuilders.remove(currentBuilder);
-			currentTree = null;
-			currentLastBuiltTree = null;
+			setCurrentTree(null);
+			setCurrentLastBuiltTree(null);
 		}
 	}
 
@@ -297,10 +310,16 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 					int currentTrigger = triggers[i];
 					checkCanceled(currentTrigger, monitor);
 					BuildCommand command = (BuildCommand) commands[i];
-					IProgressMonitor sub = Policy.subMonitorFor(monitor, 1);
 					IncrementalProjectBuilder builder = getBuilder(buildConfiguration, command, i, status, context);
 					if (builder != null) {
-						basicBuild(currentTrigger, builder, command.getArguments(false), status, sub);
+						int count = countConcurrentBuilders(buildConfiguration, commands, i, status, context);
+						if (count > 1) {
+							basicBuildConcurrently(buildConfiguration, commands, triggers, i, count, status, context, Policy.subMonitorFor(monitor, count));
+							// continue after the last builder that was run
+							i += count - 1;
+						} else {
+							basicBuild(currentTrigger, builder, command.getArguments(false), status, Policy.subMonitorFor(monitor, 1));
+						}
 
 						// Check if the builder requested rebuild
 						IProject project = builder.getProject();
@@ -343,6 +362,178 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		}
 	}
 
+	/**
+	 * Returns whether some builders of the given project config may run
+	 * concurrently, see {@link #basicBuildConcurrently}. These builders acquire
+	 * their own scheduling rules on other threads, so the config must be built
+	 * without an enclosing rule for them to run concurrently.
+	 */
+	public boolean hasConcurrentBuilders(IBuildConfiguration buildConfiguration) {
+		IProject project = buildConfiguration.getProject();
+		if (workspace.getDescription().getMaxConcurrentBuilds() <= 1 || !project.isAccessible())
+			return false;
+		ICommand[] commands = ((Project) project).internalGetDescription().getBuildSpec(false);
+		MultiStatus status = new MultiStatus(ResourcesPlugin.PI_RESOURCES, IResourceStatus.INTERNAL_ERROR, Messages.events_errors, null);
+		BuildContext context = new BuildContext(buildConfiguration);
+		boolean previous = false;
+		for (int i = 0; i < commands.length; i++) {
+			boolean concurrent = false;
+			try {
+				IncrementalProjectBuilder builder = getBuilder(buildConfiguration, commands[i], i, status, context);
+				concurrent = builder != null && ((InternalBuilder) builder).supportsParallelBuild();
+			} catch (CoreException e) {
+				// the builder will fail when the project is built
+			}
+			if (concurrent && previous)
+				return true;
+			previous = concurrent;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of builders, starting with the builder of the given
+	 * command, that declare they can run concurrently with the builders next to
+	 * them in the build spec. Returns 1 if builders can't run concurrently in
+	 * the current build.
+	 */
+	private int countConcurrentBuilders(IBuildConfiguration buildConfiguration, ICommand[] commands, int start, MultiStatus status, IBuildContext context) throws CoreException {
+		// builders acquire their own rules, so the calling thread must not hold one
+		if (workspace.getDescription().getMaxConcurrentBuilds() <= 1 || Job.getJobManager().currentRule() != null)
+			return 1;
+		int count = 0;
+		while (start + count < commands.length) {
+			IncrementalProjectBuilder builder = getBuilder(buildConfiguration, commands[start + count], start + count, status, context);
+			if (builder == null || !((InternalBuilder) builder).supportsParallelBuild())
+				break;
+			count++;
+		}
+		return Math.max(1, count);
+	}
+
+	/**
+	 * Runs the builders of the given commands concurrently, each in a job of
+	 * its own. At most {@link IWorkspaceDescription#getMaxConcurrentBuilds()}
+	 * builders run at the same time. Builders with conflicting scheduling rules
+	 * still run one after the other, since every job acquires the rule of its
+	 * builder. The workspace lock is released while waiting for the jobs.
+	 */
+	private void basicBuildConcurrently(IBuildConfiguration buildConfiguration, ICommand[] commands, int[] triggers, int start, int count, MultiStatus status, IBuildContext context, IProgressMonitor monitor) throws CoreException {
+		IProject project = buildConfiguration.getProject();
+		monitor.beginTask("", count); //$NON-NLS-1$
+		try {
+			int maxThreads = Math.min(count, workspace.getDescription().getMaxConcurrentBuilds());
+			JobGroup group = new JobGroup(NLS.bind(Messages.events_building_1, project.getFullPath()), maxThreads, count);
+			MultiStatus[] statuses = new MultiStatus[count];
+			AtomicBoolean canceled = new AtomicBoolean();
+			for (int k = 0; k < count; k++) {
+				int index = start + k;
+				BuildCommand command = (BuildCommand) commands[index];
+				IncrementalProjectBuilder builder = getBuilder(buildConfiguration, command, index, status, context);
+				int trigger = triggers[index];
+				MultiStatus builderStatus = new MultiStatus(ResourcesPlugin.PI_RESOURCES, IResourceStatus.INTERNAL_ERROR, Messages.events_errors, null);
+				statuses[k] = builderStatus;
+				String name = builder.getLabel();
+				String message = name != null ? NLS.bind(Messages.events_invoking_2, name, project.getFullPath()) : NLS.bind(Messages.events_invoking_1, project.getFullPath());
+				Job job = Job.create(message, jobMonitor -> {
+					long startTime = System.currentTimeMillis();
+					concurrentTrees.set(new ElementTree[2]);
+					try {
+						try {
+							workspace.prepareOperation(null, jobMonitor);
+							workspace.beginOperation(false);
+							basicBuild(trigger, builder, command.getArguments(false), builderStatus, jobMonitor);
+						} finally {
+							workspace.endOperation(null, false);
+						}
+					} catch (CoreException e) {
+						builderStatus.add(e.getStatus());
+					} catch (OperationCanceledException e) {
+						canceled.set(true);
+						return Status.CANCEL_STATUS;
+					} finally {
+						concurrentTrees.remove();
+						if (Policy.DEBUG_BUILD_INVOKING)
+							Policy.debug("Concurrent builder finished: " + toString(builder) + " time: " + (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					}
+					return Status.OK_STATUS;
+				});
+				job.setSystem(true);
+				job.setJobGroup(group);
+				job.schedule();
+			}
+			// the jobs need the workspace lock to start and finish their builders
+			int depth = getWorkManager().beginUnprotected();
+			try {
+				join(group, monitor);
+			} finally {
+				getWorkManager().endUnprotected(depth);
+			}
+			for (MultiStatus builderStatus : statuses) {
+				if (!builderStatus.isOK())
+					status.addAll(builderStatus);
+			}
+			if (canceled.get())
+				throw new OperationCanceledException();
+			monitor.worked(count);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Waits until all jobs of the given group are done. If the monitor is
+	 * canceled, the jobs are canceled and still waited for, so that no builder
+	 * runs after the build.
+	 */
+	private static void join(JobGroup group, IProgressMonitor monitor) {
+		boolean canceled = false;
+		boolean interrupted = false;
+		while (true) {
+			try {
+				group.join(0, canceled ? null : monitor);
+				break;
+			} catch (OperationCanceledException e) {
+				canceled = true;
+				group.cancel();
+			} catch (InterruptedException e) {
+				interrupted = true;
+				canceled = true;
+				group.cancel();
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (canceled)
+			throw new OperationCanceledException();
+	}
+
+	private ElementTree getCurrentLastBuiltTree() {
+		ElementTree[] trees = concurrentTrees.get();
+		return trees == null ? currentLastBuiltTree : trees[0];
+	}
+
+	private void setCurrentLastBuiltTree(ElementTree tree) {
+		ElementTree[] trees = concurrentTrees.get();
+		if (trees == null)
+			currentLastBuiltTree = tree;
+		else
+			trees[0] = tree;
+	}
+
+	private ElementTree getCurrentTree() {
+		ElementTree[] trees = concurrentTrees.get();
+		return trees == null ? currentTree : trees[1];
+	}
+
+	private void setCurrentTree(ElementTree tree) {
+		ElementTree[] trees = concurrentTrees.get();
+		if (trees == null)
+			currentTree = tree;
+		else
+			trees[1] = tree;
+	}
+
 	/**
 	 * Runs all builders on the given project config.
 	 * @return A status indicating if the build succeeded or failed
@@ -593,7 +784,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			} catch (CoreException ex) {
 				status.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, ex.getMessage(), ex));
 			}
-		}, config -> getRule(config, trigger, null, Collections.emptyMap()), buildJobGroup);
+		}, config -> hasConcurrentBuilders(config) ? null : getRule(config, trigger, null, Collections.emptyMap()), buildJobGroup);
 		graphProcessor.processGraphWithParallelJobs();
 		try {
 			Job.getJobManager().join(graphProcessor, monitor);
@@ -707,6 +898,27 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return "[" + currentBuilders.stream().map(builder -> builder.getProject().getFullPath().toString()).collect(Collectors.joining(",")) + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 
+	/**
+	 * Returns the id of the given builder, as used in the build statistics.
+	 */
+	private static String getBuilderId(InternalBuilder builder) {
+		if (builder instanceof MissingBuilder)
+			return ((MissingBuilder) builder).getName();
+		ICommand command = builder.getCommand();
+		return command != null ? command.getBuilderName() : builder.getClass().getName();
+	}
+
+	/**
+	 * Returns the number of nodes of the given delta, including itself.
+	 */
+	private static int countNodes(ResourceDelta delta) {
+		int count = 1;
+		if (delta.children != null)
+			for (ResourceDelta child : delta.children)
+				count += countNodes(child);
+		return count;
+	}
+
 	/**
 	 * Returns a string representation of a build trigger for debugging purposes.
 	 * @param trigger The trigger to compute a representation of
@@ -725,6 +937,13 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		}
 	}
 
+	/**
+	 * Returns the statistics of the builders run by this build manager.
+	 */
+	public BuildStatistics getStatistics() {
+		return statistics;
+	}
+
 	/**
 	 * The outermost workspace operation has finished.  Do an autobuild if necessary.
 	 */
@@ -934,7 +1153,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	IResourceDelta getDelta(IProject project) {
 		try {
 			lock.acquire();
-			if (currentTree == null) {
+			if (getCurrentTree() == null) {
 				if (Policy.DEBUG_BUILD_FAILURE)
 					Policy.debug("Build: no tree for delta " + debugBuilder() + " [" + debugProject() + "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 				return null;
@@ -948,7 +1167,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			}
 
 			//now check against the cache
-			return getDeltaCached(project, currentLastBuiltTree, currentTree);
+			return getDeltaCached(project, getCurrentLastBuiltTree(), getCurrentTree());
 		} finally {
 			lock.release();
 		}
@@ -1071,13 +1290,15 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	 * Hook for adding trace options and debug information at the end of a build.
 	 * This hook is called after each builder instance is called.
 	 */
-	private void hookEndBuild(IncrementalProjectBuilder builder) {
+	private void hookEndBuild(IncrementalProjectBuilder builder, int trigger, boolean canceled) {
 		if (ResourceStats.TRACE_BUILDERS)
 			ResourceStats.endBuild();
-		if (!Policy.DEBUG_BUILD_INVOKING || timeStamp == -1)
+		statistics.endBuild(getBuilderId(builder), builder.getProject().getName(), BuildStatistics.triggerName(trigger), canceled);
+		Long start = timeStamp.get();
+		if (!Policy.DEBUG_BUILD_INVOKING || start == null)
 			return; //builder wasn't called or we are not debugging
-		Policy.debug("Builder finished: " + toString(builder) + " time: " + (System.currentTimeMillis() - timeStamp) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		timeStamp = -1;
+		Policy.debug("Builder finished: " + toString(builder) + " time: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		timeStamp.remove();
 	}
 
 	/**
@@ -1104,8 +1325,9 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	private void hookStartBuild(IncrementalProjectBuilder builder, int trigger) {
 		if (ResourceStats.TRACE_BUILDERS)
 			ResourceStats.startBuild(builder);
+		statistics.startBuild();
 		if (Policy.DEBUG_BUILD_INVOKING) {
-			timeStamp = System.currentTimeMillis();
+			timeStamp.set(System.currentTimeMillis());
 			Policy.debug("Invoking (" + debugTrigger(trigger) + ") on builder: " + toString(builder)); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 	}
@@ -1205,6 +1427,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		builder.setLabel(extension.getLabel());
 		builder.setNatureId(natureId);
 		builder.setCallOnEmptyDelta(getBooleanAttribute(configs[0], "callOnEmptyDelta")); //$NON-NLS-1$
+		builder.setSupportsParallelBuild(getBooleanAttribute(configs[0], "supportsParallelBuild")); //$NON-NLS-1$
 		return (IncrementalProjectBuilder) builder;
 	}
 
@@ -1282,7 +1505,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		ElementTree newTree = workspace.getElementTree();
 
 		//search for the builder's project
-		if (hasDelta(builder, builder.getProject(), oldTree, newTree)) {
+		if (hasDelta(builder, trigger, builder.getProject(), oldTree, newTree)) {
 			return true;
 		}
 
@@ -1290,18 +1513,20 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		IProject[] projects = builder.getInterestingProjects();
 		for (IProject project : projects) {
 			if (project != builder.getProject() // was already checked.
-					&& hasDelta(builder, project, oldTree, newTree)) {
+					&& hasDelta(builder, trigger, project, oldTree, newTree)) {
 				return true;
 			}
 		}
 		return false;
 	}
 
-	private boolean hasDelta(InternalBuilder builder, IProject project, ElementTree oldTree, ElementTree newTree) {
-		IResourceDelta delta = getDeltaCached(project, currentLastBuiltTree, currentTree);
+	private boolean hasDelta(InternalBuilder builder, int trigger, IProject project, ElementTree oldTree, ElementTree newTree) {
+		IResourceDelta delta = getDeltaCached(project, getCurrentLastBuiltTree(), getCurrentTree());
 		if (delta == null) {
 			return false;
 		}
+		if (project == builder.getProject())
+			statistics.deltaComputed(getBuilderId(builder), project.getName(), BuildStatistics.triggerName(trigger), countNodes((ResourceDelta) delta) - 1);
 		IResourceDelta[] children = delta.getAffectedChildren();
 		boolean hasDelta = delta.getKind() != IResourceDelta.NO_CHANGE || children.length > 0;
 		if (hasDelta && Policy.DEBUG_BUILD_NEEDED) {
@@ -1462,6 +1687,14 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	@Override
 	public void shutdown(IProgressMonitor monitor) {
 		autoBuildJob.cancel();
+		if (BuildStatistics.STATISTICS_FILE != null) {
+			try {
+				statistics.writeJson(new java.io.File(BuildStatistics.STATISTICS_FILE));
+			} catch (IOException e) {
+				String message = NLS.bind(Messages.resources_writeMeta, BuildStatistics.STATISTICS_FILE);
+				Policy.log(new ResourceStatus(IResourceStatus.FAILED_WRITE_METADATA, null, message, e));
+			}
+		}
 	}
 
 	@Override
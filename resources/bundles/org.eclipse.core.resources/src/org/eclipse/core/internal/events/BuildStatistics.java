@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+import org.eclipse.core.resources.*;
+
+/**
+ * Collects statistics about the builders run by the build manager: the wall
+ * and CPU time of every builder invocation by builder, project and trigger,
+ * the sizes of the resource deltas computed for builders, the number of
+ * canceled builder invocations and the number of times the autobuild was
+ * interrupted.
+ * <p>
+ * The statistics are always collected. Recording only updates counters and
+ * histograms without any locking, so that it does not slow down builds. The
+ * statistics can be read through {@link IWorkspace#getBuildStatistics()},
+ * or exported as JSON with {@link #writeJson(Writer)}. If the
+ * <code>org.eclipse.core.resources.buildStatistics</code> system property is
+ * set to a file name, they are written to that file when the workspace shuts
+ * down, so that they can also be collected from headless applications.
+ * </p>
+ */
+public class BuildStatistics implements IBuildStatistics {
+	/**
+	 * The file to write the statistics to on shutdown, or <code>null</code>.
+	 */
+	static final String STATISTICS_FILE = System.getProperty("org.eclipse.core.resources.buildStatistics"); //$NON-NLS-1$
+
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+	private static final boolean CPU_TIME_SUPPORTED = THREAD_BEAN.isCurrentThreadCpuTimeSupported();
+
+	/**
+	 * A histogram of non-negative values, with one bucket for every power of
+	 * two. Values may be recorded concurrently.
+	 */
+	public static final class Histogram implements IBuildStatistics.Histogram {
+		private final AtomicLongArray buckets = new AtomicLongArray(64);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		void record(long value) {
+			if (value < 0)
+				value = 0;
+			buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(value | 1));
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public long getSum() {
+			return sum.sum();
+		}
+
+		@Override
+		public long getMax() {
+			return max.get();
+		}
+
+		/**
+		 * Returns an upper bound of the given percentile of the recorded
+		 * values, which is exact up to a factor of two.
+		 *
+		 * @param percentile a percentile between 0 and 100
+		 */
+		@Override
+		public long getPercentile(double percentile) {
+			long total = getCount();
+			if (total == 0)
+				return 0;
+			long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+			long seen = 0;
+			for (int i = 0; i < 64; i++) {
+				seen += buckets.get(i);
+				if (seen >= rank)
+					return Math.min(getMax(), i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+			}
+			return getMax();
+		}
+
+		void appendJson(StringBuilder json, long unit) {
+			json.append("{\"count\":").append(getCount()); //$NON-NLS-1$
+			json.append(",\"total\":").append(getSum() / unit); //$NON-NLS-1$
+			json.append(",\"p50\":").append(getPercentile(50) / unit); //$NON-NLS-1$
+			json.append(",\"p90\":").append(getPercentile(90) / unit); //$NON-NLS-1$
+			json.append(",\"p99\":").append(getPercentile(99) / unit); //$NON-NLS-1$
+			json.append(",\"max\":").append(getMax() / unit).append('}'); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * The statistics of the builder invocations of a builder, a project or a
+	 * trigger.
+	 */
+	public static final class Entry implements IBuildStatistics.Entry {
+		private final Histogram wallTime = new Histogram();
+		private final Histogram cpuTime = new Histogram();
+		private final Histogram deltaSize = new Histogram();
+		private final LongAdder cancellations = new LongAdder();
+
+		/**
+		 * Returns the wall time of the builder invocations, in nanoseconds.
+		 */
+		@Override
+		public Histogram getWallTime() {
+			return wallTime;
+		}
+
+		/**
+		 * Returns the CPU time the builders used in the thread they were
+		 * invoked in, in nanoseconds. Empty if the VM can't measure it.
+		 */
+		@Override
+		public Histogram getCpuTime() {
+			return cpuTime;
+		}
+
+		/**
+		 * Returns the number of changed resources in the deltas computed for the
+		 * builders.
+		 */
+		@Override
+		public Histogram getDeltaSize() {
+			return deltaSize;
+		}
+
+		@Override
+		public long getCancellations() {
+			return cancellations.sum();
+		}
+
+		void appendJson(StringBuilder json) {
+			json.append("{\"invocations\":").append(wallTime.getCount()); //$NON-NLS-1$
+			json.append(",\"cancellations\":").append(getCancellations()); //$NON-NLS-1$
+			json.append(",\"wallTimeMs\":"); //$NON-NLS-1$
+			wallTime.appendJson(json, 1_000_000);
+			json.append(",\"cpuTimeMs\":"); //$NON-NLS-1$
+			cpuTime.appendJson(json, 1_000_000);
+			json.append(",\"deltaSize\":"); //$NON-NLS-1$
+			deltaSize.appendJson(json, 1);
+			json.append('}');
+		}
+	}
+
+	/**
+	 * The start of a builder invocation in the current thread: wall time and
+	 * CPU time, in nanoseconds.
+	 */
+	private final ThreadLocal<long[]> start = new ThreadLocal<>();
+
+	private final Map<String, Entry> byBuilder = new ConcurrentHashMap<>();
+	private final Map<String, Entry> byProject = new ConcurrentHashMap<>();
+	private final Map<String, Entry> byTrigger = new ConcurrentHashMap<>();
+	private final LongAdder autoBuildInterruptions = new LongAdder();
+
+	/**
+	 * Returns the name of the given build trigger, as used in the statistics.
+	 */
+	static String triggerName(int trigger) {
+		switch (trigger) {
+			case IncrementalProjectBuilder.FULL_BUILD :
+				return "FULL_BUILD"; //$NON-NLS-1$
+			case IncrementalProjectBuilder.CLEAN_BUILD :
+				return "CLEAN_BUILD"; //$NON-NLS-1$
+			case IncrementalProjectBuilder.AUTO_BUILD :
+				return "AUTO_BUILD"; //$NON-NLS-1$
+			case IncrementalProjectBuilder.INCREMENTAL_BUILD :
+			default :
+				return "INCREMENTAL_BUILD"; //$NON-NLS-1$
+		}
+	}
+
+	private static Entry entry(Map<String, Entry> entries, String key) {
+		Entry entry = entries.get(key);
+		return entry != null ? entry : entries.computeIfAbsent(key, k -> new Entry());
+	}
+
+	private static long cpuTime() {
+		return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : -1;
+	}
+
+	/**
+	 * Records the start of a builder invocation in the current thread.
+	 */
+	void startBuild() {
+		start.set(new long[] {System.nanoTime(), cpuTime()});
+	}
+
+	/**
+	 * Records the end of the builder invocation started last in the current
+	 * thread, if any.
+	 */
+	void endBuild(String builder, String project, String trigger, boolean canceled) {
+		long[] times = start.get();
+		if (times == null)
+			return;
+		start.remove();
+		long wallTime = System.nanoTime() - times[0];
+		long cpuTime = times[1] < 0 ? -1 : cpuTime() - times[1];
+		for (Entry entry : new Entry[] {entry(byBuilder, builder), entry(byProject, project), entry(byTrigger, trigger)}) {
+			entry.wallTime.record(wallTime);
+			if (cpuTime >= 0)
+				entry.cpuTime.record(cpuTime);
+			if (canceled)
+				entry.cancellations.increment();
+		}
+	}
+
+	/**
+	 * Records the size of a resource delta computed for a builder.
+	 */
+	void deltaComputed(String builder, String project, String trigger, int size) {
+		entry(byBuilder, builder).deltaSize.record(size);
+		entry(byProject, project).deltaSize.record(size);
+		entry(byTrigger, trigger).deltaSize.record(size);
+	}
+
+	void autoBuildInterrupted() {
+		autoBuildInterruptions.increment();
+	}
+
+	/**
+	 * Returns the statistics by builder id.
+	 */
+	@Override
+	public Map<String, Entry> getBuilderStatistics() {
+		return Collections.unmodifiableMap(byBuilder);
+	}
+
+	/**
+	 * Returns the statistics by project name.
+	 */
+	@Override
+	public Map<String, Entry> getProjectStatistics() {
+		return Collections.unmodifiableMap(byProject);
+	}
+
+	/**
+	 * Returns the statistics by build trigger, such as <code>FULL_BUILD</code>.
+	 */
+	@Override
+	public Map<String, Entry> getTriggerStatistics() {
+		return Collections.unmodifiableMap(byTrigger);
+	}
+
+	@Override
+	public long getAutoBuildInterruptions() {
+		return autoBuildInterruptions.sum();
+	}
+
+	/**
+	 * Discards all statistics collected so far.
+	 */
+	@Override
+	public void reset() {
+		byBuilder.clear();
+		byProject.clear();
+		byTrigger.clear();
+		autoBuildInterruptions.reset();
+	}
+
+	private static void appendJson(StringBuilder json, Map<String, Entry> entries) {
+		json.append('{');
+		boolean first = true;
+		for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+			if (!first)
+				json.append(',');
+			first = false;
+			appendString(json, e.getKey());
+			json.append(':');
+			e.getValue().appendJson(json);
+		}
+		json.append('}');
+	}
+
+	private static void appendString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if (c < 0x20)
+				json.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+			else
+				json.append(c);
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Returns the statistics as a JSON object.
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"autoBuildInterruptions\":").append(getAutoBuildInterruptions()); //$NON-NLS-1$
+		json.append(",\"builders\":"); //$NON-NLS-1$
+		appendJson(json, byBuilder);
+		json.append(",\"projects\":"); //$NON-NLS-1$
+		appendJson(json, byProject);
+		json.append(",\"triggers\":"); //$NON-NLS-1$
+		appendJson(json, byTrigger);
+		json.append('}');
+		return json.toString();
+	}
+
+	/**
+	 * Writes the statistics as a JSON object to the given writer.
+	 */
+	@Override
+	public void writeJson(Writer writer) throws IOException {
+		writer.write(toJson());
+		writer.flush();
+	}
+
+	/**
+	 * Writes the statistics as a JSON object to the given file.
+	 */
+	void writeJson(File file) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writeJson(writer);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+}
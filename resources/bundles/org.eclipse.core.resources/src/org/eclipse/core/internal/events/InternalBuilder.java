@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -61,6 +61,11 @@ public abstract class InternalBuilder {
 	 */
 	private boolean callOnEmptyDelta = false;
 
+	/**
+	 * The value of the supportsParallelBuild builder extension attribute.
+	 */
+	private boolean supportsParallelBuild = false;
+
 	/*
 	 *  @see IncrementalProjectBuilder#build
 	 */
@@ -200,6 +205,10 @@ public abstract class InternalBuilder {
 		this.callOnEmptyDelta = value;
 	}
 
+	final void setSupportsParallelBuild(boolean value) {
+		this.supportsParallelBuild = value;
+	}
+
 	final void setCommand(ICommand value) {
 		this.command = value;
 	}
@@ -248,6 +257,13 @@ public abstract class InternalBuilder {
 	 */
 	protected abstract void startupOnInitialize();
 
+	/**
+	 * Returns the value of the supportsParallelBuild builder extension attribute.
+	 */
+	final boolean supportsParallelBuild() {
+		return supportsParallelBuild;
+	}
+
 	/**
 	 * Returns true if the builder requested that its last built state be
 	 * forgotten, and false otherwise.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,9 @@
 package org.eclipse.core.internal.events;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 import org.eclipse.core.internal.dtree.DeltaDataTree;
 import org.eclipse.core.internal.dtree.NodeComparison;
 import org.eclipse.core.internal.resources.*;
@@ -34,6 +37,11 @@ public class ResourceDeltaFactory {
 	 */
 	protected static final ResourceDelta[] NO_CHILDREN = new ResourceDelta[0];
 
+	/**
+	 * The number of delta nodes whose children were created concurrently.
+	 */
+	private static final AtomicLong concurrentNodes = new AtomicLong();
+
 	/**
 	 * Returns the resource delta representing the changes made between the given old and new trees,
 	 * starting from the given root element.
@@ -61,7 +69,7 @@ public class ResourceDeltaFactory {
 
 		//recursively walk the delta and create a tree of ResourceDelta objects.
 		ResourceDeltaInfo deltaInfo = new ResourceDeltaInfo(workspace, allMarkerDeltas, comparator);
-		ResourceDelta result = createDelta(workspace, delta, deltaInfo, pathInTree, pathInDelta);
+		ResourceDelta result = createDelta(workspace, newTree.getDataTree(), delta, deltaInfo, pathInTree, pathInDelta);
 
 		//compute node ID map and fix up moves
 		deltaInfo.setNodeIDMap(computeNodeIDMap(result, new NodeIDMap()));
@@ -127,9 +135,12 @@ public class ResourceDeltaFactory {
 
 	/**
 	 * Recursively creates the tree of ResourceDelta objects rooted at
-	 * the given path.
+	 * the given path. If the delta is large, the children of the top levels,
+	 * like the projects, are created concurrently. The children keep the order
+	 * of the delta tree. Below the root, the infos are only read from the
+	 * immutable compared trees, never from the workspace tree.
 	 */
-	protected static ResourceDelta createDelta(Workspace workspace, DeltaDataTree delta, ResourceDeltaInfo deltaInfo, IPath pathInTree, IPath pathInDelta) {
+	protected static ResourceDelta createDelta(Workspace workspace, DeltaDataTree newTree, DeltaDataTree delta, ResourceDeltaInfo deltaInfo, IPath pathInTree, IPath pathInDelta) {
 		// create the delta and fill it with information
 		ResourceDelta result = new ResourceDelta(pathInTree, deltaInfo);
 
@@ -137,10 +148,18 @@ public class ResourceDeltaFactory {
 		NodeComparison compare = (NodeComparison) delta.getData(pathInDelta);
 		int comparison = compare.getUserComparison();
 		result.setStatus(comparison);
-		if (comparison == IResourceDelta.NO_CHANGE || Path.ROOT.equals(pathInTree)) {
+		if (Path.ROOT.equals(pathInTree)) {
 			ResourceInfo info = workspace.getResourceInfo(pathInTree, true, false);
 			result.setOldInfo(info);
 			result.setNewInfo(info);
+		} else if (comparison == IResourceDelta.NO_CHANGE) {
+			// unchanged nodes carry the data of the new tree, unless they are missing in it
+			Object data = compare.getNewData();
+			if (data == null)
+				data = newTree.lookup(pathInTree).data;
+			ResourceInfo info = (ResourceInfo) data;
+			result.setOldInfo(info);
+			result.setNewInfo(info);
 		} else {
 			result.setOldInfo((ResourceInfo) compare.getOldData());
 			result.setNewInfo((ResourceInfo) compare.getNewData());
@@ -152,10 +171,18 @@ public class ResourceDeltaFactory {
 			result.setChildren(NO_CHILDREN);
 		} else {
 			ResourceDelta[] children = new ResourceDelta[numChildren];
-			for (int i = 0; i < numChildren; i++) {
+			IntConsumer createChild = i -> {
 				//reuse the delta path if tree-relative and delta-relative are the same
 				IPath newTreePath = pathInTree == pathInDelta ? childKeys[i] : pathInTree.append(childKeys[i].lastSegment());
-				children[i] = createDelta(workspace, delta, deltaInfo, newTreePath, childKeys[i]);
+				children[i] = createDelta(workspace, newTree, delta, deltaInfo, newTreePath, childKeys[i]);
+			};
+			if (delta.isLargeNearRoot(pathInDelta)) {
+				// the compared trees are immutable, so the children can be created concurrently
+				concurrentNodes.incrementAndGet();
+				IntStream.range(0, numChildren).parallel().forEach(createChild);
+			} else {
+				for (int i = 0; i < numChildren; i++)
+					createChild.accept(i);
 			}
 			result.setChildren(children);
 		}
@@ -169,6 +196,14 @@ public class ResourceDeltaFactory {
 		return result;
 	}
 
+	/**
+	 * Returns the number of delta nodes whose children were created
+	 * concurrently so far. Used by tests.
+	 */
+	public static long getConcurrentNodeCount() {
+		return concurrentNodes.get();
+	}
+
 	/**
 	 * Returns an empty build delta describing the fact that no
 	 * changes occurred in the given project.  The returned delta
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,22 +13,58 @@
  *******************************************************************************/
 package org.eclipse.core.internal.localstore;
 
-import java.io.InputStream;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.internal.resources.ResourceException;
+import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
+import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * Blob store which maps UUIDs to blobs on disk. The UUID is mapped
  * to a file in the file-system and the blob is the file contents. For scalability,
  * the blobs are split among 255 directories with the names 00 to FF.
+ * <p>
+ * In content-addressed mode the identifier of a blob is not random but derived
+ * from a SHA-256 hash of its contents. Adding identical contents again yields the
+ * identifier of the existing blob without copying anything, so a blob may be
+ * referenced by several history entries and must only be deleted once no entry
+ * refers to it any more. The identifier keeps the 16 byte format of a
+ * {@link UniversalUniqueIdentifier}, so the history index is not affected.
+ * </p><p>
+ * Blobs can optionally be stored compressed, in which case the blob file name
+ * carries a <code>.gz</code> suffix. Both forms are always readable, regardless
+ * of the current settings.
+ * </p>
  */
 public class BlobStore {
+	/**
+	 * System property enabling content-addressed storage of new blobs.
+	 */
+	private static final boolean CONTENT_ADDRESSED = Boolean.getBoolean("org.eclipse.core.resources.history.contentAddressed"); //$NON-NLS-1$
+	/**
+	 * System property enabling compression of new blobs.
+	 */
+	private static final boolean COMPRESS = Boolean.getBoolean("org.eclipse.core.resources.history.compress"); //$NON-NLS-1$
+
+	private static final String COMPRESSED_SUFFIX = ".gz"; //$NON-NLS-1$
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+	private static final int BUFFER_SIZE = 8192;
+
 	protected IFileStore localStore;
 
+	private final boolean contentAddressed;
+	private final boolean compress;
+
 	/** Limits the range of directories' names. */
 	protected byte mask;
 
@@ -42,24 +78,100 @@ public class BlobStore {
 	 * should be an existing valid directory.
 	 */
 	public BlobStore(IFileStore store, int limit) {
+		this(store, limit, CONTENT_ADDRESSED, COMPRESS);
+	}
+
+	/**
+	 * Creates a blob store with explicit storage settings.
+	 *
+	 * @see #BlobStore(IFileStore, int)
+	 */
+	public BlobStore(IFileStore store, int limit, boolean contentAddressed, boolean compress) {
 		Assert.isNotNull(store);
 		localStore = store;
 		Assert.isTrue(localStore.fetchInfo().isDirectory());
 		Assert.isTrue(limit == 256 || limit == 128 || limit == 64 || limit == 32 || limit == 16 || limit == 8 || limit == 4 || limit == 2 || limit == 1);
 		mask = (byte) (limit - 1);
+		this.contentAddressed = contentAddressed;
+		this.compress = compress;
 	}
 
 	public UniversalUniqueIdentifier addBlob(IFileStore target, boolean moveContents) throws CoreException {
+		if (contentAddressed)
+			return addContentAddressedBlob(target, moveContents);
 		UniversalUniqueIdentifier uuid = new UniversalUniqueIdentifier();
 		folderFor(uuid).mkdir(EFS.NONE, null);
-		IFileStore destination = fileFor(uuid);
-		if (moveContents)
-			target.move(destination, EFS.NONE, null);
-		else
-			target.copy(destination, EFS.NONE, null);
+		IFileStore destination = compress ? compressedFileFor(uuid) : fileFor(uuid);
+		write(target, destination, moveContents, EFS.NONE);
 		return uuid;
 	}
 
+	/**
+	 * Adds a blob keyed by the hash of its contents. The contents are only
+	 * written if there is no blob for that hash yet.
+	 */
+	private UniversalUniqueIdentifier addContentAddressedBlob(IFileStore target, boolean moveContents) throws CoreException {
+		UniversalUniqueIdentifier uuid = new UniversalUniqueIdentifier(digest(target));
+		if (exists(uuid)) {
+			if (moveContents)
+				target.delete(EFS.NONE, null);
+			return uuid;
+		}
+		folderFor(uuid).mkdir(EFS.NONE, null);
+		IFileStore destination = compress ? compressedFileFor(uuid) : fileFor(uuid);
+		// a partially written blob must never become visible under its hash,
+		// later states with the same contents would silently reuse it
+		IFileStore temp = destination.getParent().getChild(destination.getName() + TEMP_SUFFIX);
+		write(target, temp, moveContents, EFS.OVERWRITE);
+		temp.move(destination, EFS.OVERWRITE, null);
+		return uuid;
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the contents of the given store.
+	 */
+	private byte[] digest(IFileStore target) throws CoreException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		try (InputStream in = target.openInputStream(EFS.NONE, null)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) >= 0)
+				digest.update(buffer, 0, read);
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.localstore_couldNotRead, target);
+			throw new ResourceException(IResourceStatus.FAILED_READ_LOCAL, null, message, e);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Copies or moves the contents of the target to the destination, compressing
+	 * them if this store is configured to do so.
+	 */
+	private void write(IFileStore target, IFileStore destination, boolean moveContents, int options) throws CoreException {
+		if (!compress) {
+			if (moveContents)
+				target.move(destination, options, null);
+			else
+				target.copy(destination, options, null);
+			return;
+		}
+		try (InputStream in = target.openInputStream(EFS.NONE, null); OutputStream out = new GZIPOutputStream(destination.openOutputStream(EFS.NONE, null), BUFFER_SIZE)) {
+			in.transferTo(out);
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.localstore_couldNotWrite, destination);
+			throw new ResourceException(IResourceStatus.FAILED_WRITE_LOCAL, null, message, e);
+		}
+		if (moveContents)
+			target.delete(EFS.NONE, null);
+	}
+
 	/**
 	 * @see UniversalUniqueIdentifier#appendByteString(StringBuilder, byte)
 	 */
@@ -94,6 +206,7 @@ public class BlobStore {
 		Assert.isNotNull(uuid);
 		try {
 			fileFor(uuid).delete(EFS.NONE, null);
+			compressedFileFor(uuid).delete(EFS.NONE, null);
 		} catch (CoreException e) {
 			//ignore
 		}
@@ -107,11 +220,26 @@ public class BlobStore {
 			deleteBlob(id);
 	}
 
+	/**
+	 * Returns whether a blob, compressed or not, exists for the given UUID.
+	 */
+	public boolean exists(UniversalUniqueIdentifier uuid) {
+		return fileFor(uuid).fetchInfo().exists() || compressedFileFor(uuid).fetchInfo().exists();
+	}
+
 	public IFileStore fileFor(UniversalUniqueIdentifier uuid) {
 		IFileStore root = folderFor(uuid);
 		return root.getChild(bytesToHexString(uuid.toBytes()));
 	}
 
+	/**
+	 * Returns the file holding the compressed form of the blob with the given UUID.
+	 */
+	IFileStore compressedFileFor(UniversalUniqueIdentifier uuid) {
+		IFileStore root = folderFor(uuid);
+		return root.getChild(bytesToHexString(uuid.toBytes()) + COMPRESSED_SUFFIX);
+	}
+
 	/**
 	 * Find out the name of the directory that fits better to this UUID.
 	 */
@@ -123,8 +251,31 @@ public class BlobStore {
 	}
 
 	public InputStream getBlob(UniversalUniqueIdentifier uuid) throws CoreException {
-		IFileStore blobFile = fileFor(uuid);
-		return blobFile.openInputStream(EFS.NONE, null);
+		IFileStore compressedFile = compressedFileFor(uuid);
+		if (!compressedFile.fetchInfo().exists()) {
+			IFileStore blobFile = fileFor(uuid);
+			return blobFile.openInputStream(EFS.NONE, null);
+		}
+		InputStream in = compressedFile.openInputStream(EFS.NONE, null);
+		try {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		} catch (IOException e) {
+			try {
+				in.close();
+			} catch (IOException closeException) {
+				e.addSuppressed(closeException);
+			}
+			String message = NLS.bind(Messages.localstore_couldNotRead, compressedFile);
+			throw new ResourceException(IResourceStatus.FAILED_READ_LOCAL, null, message, e);
+		}
+	}
+
+	/**
+	 * Returns whether blobs are keyed by the hash of their contents, in which
+	 * case a blob can be shared by several history states.
+	 */
+	public boolean isContentAddressed() {
+		return contentAddressed;
 	}
 
 	/**
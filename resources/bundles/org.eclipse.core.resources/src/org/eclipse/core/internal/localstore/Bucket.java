@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2021 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ package org.eclipse.core.internal.localstore;
 
 import java.io.*;
 import java.lang.ref.SoftReference;
+import java.nio.file.Files;
 import java.util.*;
 import org.eclipse.core.internal.resources.ResourceException;
 import org.eclipse.core.internal.resources.ResourceStatus;
@@ -151,13 +152,43 @@ public abstract class Bucket {
 	 */
 	static final String INDEXES_DIR_NAME = ".indexes"; //$NON-NLS-1$
 
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Immutable copy of the entries of a bucket, as kept in the cache.
+	 */
+	private static final class Snapshot {
+		final String[] keys;
+		final Object[] values;
+
+		Snapshot(String[] keys, Object[] values) {
+			this.keys = keys;
+			this.values = values;
+		}
+	}
+
+	/**
+	 * The paths of the entries in this bucket, sorted so lookups can use binary
+	 * search and visits with a filter only touch the matching range. Together with
+	 * {@link #values} this replaces a map, so the arrays can be reused when
+	 * switching buckets instead of allocating a new map for every bucket.
+	 */
+	private String[] keys = new String[INITIAL_CAPACITY];
+	/**
+	 * The values of the entries in this bucket, at the same index as their key.
+	 * The values are (byte[][] or String[][]), for instance the history entry data
+	 * (UUID,timestamp) pairs.
+	 */
+	private Object[] values = new Object[INITIAL_CAPACITY];
 	/**
-	 * Map of the history entries in this bucket. Maps (String -&gt; byte[][] or String[][]),
-	 * where the key is the path of the object we are storing history for, and
-	 * the value is the history entry data (UUID,timestamp) pairs.
+	 * The number of entries in this bucket.
 	 */
-	private final Map<String, Object> entries;
-	private SoftReference<Map<Object, Map<String, Object>>> entriesCache;
+	private int size;
+	/**
+	 * Counts structural modifications, to detect changes during a visit.
+	 */
+	private int modCount;
+	private SoftReference<Map<Object, Snapshot>> entriesCache;
 
 	/**
 	 * The file system location of this bucket index file.
@@ -177,7 +208,6 @@ public abstract class Bucket {
 	}
 
 	public Bucket(boolean cacheEntries) {
-		this.entries = new HashMap<>();
 		if (cacheEntries) {
 			entriesCache = new SoftReference<>(null);
 		}
@@ -194,34 +224,50 @@ public abstract class Bucket {
 	 * @exception CoreException thrown by the visitor or from a failed save
 	 */
 	public final int accept(Visitor visitor, IPath filter, int depth) throws CoreException {
-		if (entries.isEmpty())
+		if (size == 0)
 			return Visitor.CONTINUE;
+		boolean removed = false;
 		try {
-			for (Iterator<Map.Entry<String, Object>> i = entries.entrySet().iterator(); i.hasNext();) {
-				Map.Entry<String, Object> mapEntry = i.next();
-				IPath path = new Path(mapEntry.getKey());
+			// all paths below the filter share its string form as prefix,
+			// and so are found in one contiguous range of the sorted keys
+			String prefix = filter.removeTrailingSeparator().toString();
+			int start = indexOf(prefix);
+			if (start < 0)
+				start = -(start + 1);
+			int expectedModCount = modCount;
+			for (int i = start; i < size; i++) {
+				String key = keys[i];
+				if (!key.startsWith(prefix))
+					break;
+				IPath path = new Path(key);
 				// check whether the filter applies
 				int matchingSegments = filter.matchingFirstSegments(path);
 				if (!filter.isPrefixOf(path) || path.segmentCount() - matchingSegments > depth)
 					continue;
 				// apply visitor
-				Entry bucketEntry = createEntry(path, mapEntry.getValue());
+				Entry bucketEntry = createEntry(path, values[i]);
 				// calls the visitor passing all uuids for the entry
 				int outcome = visitor.visit(bucketEntry);
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
 				// notify the entry it has been visited
 				bucketEntry.visited();
 				if (bucketEntry.isDeleted()) {
 					needSaving = true;
-					i.remove();
+					// removed from the arrays once the iteration is over
+					values[i] = null;
+					removed = true;
 				} else if (bucketEntry.isDirty()) {
 					needSaving = true;
-					mapEntry.setValue(bucketEntry.getValue());
+					values[i] = bucketEntry.getValue();
 				}
 				if (outcome != Visitor.CONTINUE)
 					return outcome;
 			}
 			return Visitor.CONTINUE;
 		} finally {
+			if (removed)
+				removeDeletedEntries();
 			visitor.beforeSaving(this);
 			save();
 			visitor.afterSaving(this);
@@ -257,22 +303,66 @@ public abstract class Bucket {
 		}
 		projectName = null;
 		location = null;
-		entries.clear();
+		clearEntries();
 		needSaving = false;
 	}
 
+	private void clearEntries() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
 	/**
 	 * Returns how many entries there are in this bucket.
 	 */
 	public final int getEntryCount() {
-		return entries.size();
+		return size;
 	}
 
 	/**
 	 * Returns the value for entry corresponding to the given path (null if none found).
 	 */
 	public final Object getEntryValue(String path) {
-		return entries.get(path);
+		int index = indexOf(path);
+		return index < 0 ? null : values[index];
+	}
+
+	/**
+	 * Returns the index of the given path in the sorted keys, or
+	 * <code>-(insertion point + 1)</code> if there is no entry for it.
+	 */
+	private int indexOf(String path) {
+		return Arrays.binarySearch(keys, 0, size, path);
+	}
+
+	/**
+	 * Makes room for at least the given number of entries.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity <= keys.length)
+			return;
+		int newCapacity = Math.max(capacity, keys.length * 2);
+		keys = Arrays.copyOf(keys, newCapacity);
+		values = Arrays.copyOf(values, newCapacity);
+	}
+
+	/**
+	 * Removes the entries whose value has been cleared during a visit.
+	 */
+	private void removeDeletedEntries() {
+		int remaining = 0;
+		for (int i = 0; i < size; i++) {
+			if (values[i] == null)
+				continue;
+			keys[remaining] = keys[i];
+			values[remaining++] = values[i];
+		}
+		Arrays.fill(keys, remaining, size, null);
+		Arrays.fill(values, remaining, size, null);
+		size = remaining;
+		modCount++;
 	}
 
 	/**
@@ -313,24 +403,24 @@ public abstract class Bucket {
 			save();
 			this.projectName = newProjectName;
 			this.location = new File(baseLocation, getIndexFileName());
-			Map<String, Object> loadedEntries = null;
-			this.entries.clear();
-			if (force) {
-				loadedEntries = loadEntries(this.location);
-			} else {
-				if (isCachingEnabled()) {
-					Map<Object, Map<String, Object>> cache = entriesCache.get();
-					if (cache != null) {
-						loadedEntries = cache.get(createBucketKey());
-					}
-				}
-				// errors are not cached, so
-				// loadedEntries == null means cached value is not present:
-				if (loadedEntries == null) {
-					loadedEntries = loadEntries(this.location);
+			clearEntries();
+			Snapshot cached = null;
+			if (!force && isCachingEnabled()) {
+				Map<Object, Snapshot> cache = entriesCache.get();
+				if (cache != null) {
+					cached = cache.get(createBucketKey());
 				}
 			}
-			this.entries.putAll(loadedEntries);
+			// errors are not cached, so
+			// cached == null means cached value is not present:
+			if (cached == null) {
+				loadEntries(this.location);
+			} else {
+				ensureCapacity(cached.keys.length);
+				System.arraycopy(cached.keys, 0, keys, 0, cached.keys.length);
+				System.arraycopy(cached.values, 0, values, 0, cached.values.length);
+				size = cached.keys.length;
+			}
 		} catch (IOException ioe) {
 			String message = NLS.bind(Messages.resources_readMeta, location.getAbsolutePath());
 			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, null, message, ioe);
@@ -346,13 +436,17 @@ public abstract class Bucket {
 		return this.location == null ? null : this.location.getAbsolutePath();
 	}
 
-	private Map<String, Object> loadEntries(File indexFile) throws CoreException, IOException {
+	/**
+	 * Reads the entries from the given index file, which is read with a single
+	 * call. Files written by this class are sorted already, files written by
+	 * older versions are sorted once after reading.
+	 */
+	private void loadEntries(File indexFile) throws CoreException, IOException {
 		if (!indexFile.isFile()) {
-			return Collections.EMPTY_MAP; // remember file does not exist
+			return; // remember file does not exist
 		}
-		Map<String, Object> resultEntries = new HashMap<>();
-		try (DataInputStream source = new DataInputStream(
-				new BufferedInputStream(new FileInputStream(indexFile), 8192))) {
+		byte[] contents = Files.readAllBytes(indexFile.toPath());
+		try (DataInputStream source = new DataInputStream(new ByteArrayInputStream(contents))) {
 			int version = source.readByte();
 			if (version != getVersion()) {
 				// unknown version
@@ -361,10 +455,43 @@ public abstract class Bucket {
 				throw new ResourceException(status);
 			}
 			int entryCount = source.readInt();
-			for (int i = 0; i < entryCount; i++) {
-				resultEntries.put(readEntryKey(source), readEntryValue(source));
+			// do not trust the count of a corrupt file for the allocation
+			ensureCapacity(Math.min(entryCount, contents.length));
+			boolean sorted = true;
+			boolean success = false;
+			try {
+				for (int i = 0; i < entryCount; i++) {
+					ensureCapacity(i + 1);
+					keys[i] = readEntryKey(source);
+					values[i] = readEntryValue(source);
+					if (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0)
+						sorted = false;
+					size++;
+				}
+				success = true;
+			} finally {
+				// never leave a partially loaded bucket behind
+				if (!success)
+					clearEntries();
 			}
-			return resultEntries;
+			if (!sorted)
+				sortEntries();
+		}
+	}
+
+	/**
+	 * Sorts the entries by key, needed for index files written in hash order.
+	 */
+	private void sortEntries() {
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++)
+			order[i] = Integer.valueOf(i);
+		final String[] unsortedKeys = Arrays.copyOf(keys, size);
+		Arrays.sort(order, (i1, i2) -> unsortedKeys[i1].compareTo(unsortedKeys[i2]));
+		Object[] unsortedValues = Arrays.copyOf(values, size);
+		for (int i = 0; i < size; i++) {
+			keys[i] = unsortedKeys[order[i]];
+			values[i] = unsortedValues[order[i]];
 		}
 	}
 
@@ -386,11 +513,9 @@ public abstract class Bucket {
 		if (isCachingEnabled()) {
 			Object key = createBucketKey();
 			if (key != null) {
-				// we do need to make a copy from this.entries because that instance is reused
-				@SuppressWarnings("unchecked")
-				java.util.Map.Entry<String, Object>[] a = new java.util.Map.Entry[0];
-				java.util.Map<String, Object> denseCopy = java.util.Map.ofEntries(this.entries.entrySet().toArray(a));
-				Map<Object, Map<String, Object>> cache = entriesCache.get();
+				// we do need to make a copy because the arrays are reused
+				Snapshot denseCopy = new Snapshot(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+				Map<Object, Snapshot> cache = entriesCache.get();
 				if (cache == null) {
 					cache = new WeakHashMap<>();
 					entriesCache = new SoftReference<>(cache);
@@ -401,7 +526,7 @@ public abstract class Bucket {
 		if (!needSaving)
 			return;
 		try {
-			if (entries.isEmpty()) {
+			if (size == 0) {
 				needSaving = false;
 				cleanUp(location);
 				return;
@@ -413,10 +538,11 @@ public abstract class Bucket {
 			parent.mkdirs();
 			try (DataOutputStream destination = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(location), 8192))) {
 				destination.write(getVersion());
-				destination.writeInt(entries.size());
-				for (java.util.Map.Entry<String, Object> entry : entries.entrySet()) {
-					writeEntryKey(destination, entry.getKey());
-					writeEntryValue(destination, entry.getValue());
+				destination.writeInt(size);
+				// written in sorted order, so loading does not need to sort again
+				for (int i = 0; i < size; i++) {
+					writeEntryKey(destination, keys[i]);
+					writeEntryValue(destination, values[i]);
 				}
 			}
 			needSaving = false;
@@ -432,10 +558,31 @@ public abstract class Bucket {
 	 * removes the entry.
 	 */
 	public final void setEntryValue(String path, Object value) {
-		if (value == null)
-			entries.remove(path);
-		else
-			entries.put(path, value);
+		int index = indexOf(path);
+		if (index >= 0) {
+			if (value == null) {
+				// remove
+				System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+				System.arraycopy(values, index + 1, values, index, size - index - 1);
+				size--;
+				keys[size] = null;
+				values[size] = null;
+				modCount++;
+			} else {
+				// replace in place
+				values[index] = value;
+			}
+		} else if (value != null) {
+			// insert at the right position to keep the keys sorted
+			int insertPosition = -(index + 1);
+			ensureCapacity(size + 1);
+			System.arraycopy(keys, insertPosition, keys, insertPosition + 1, size - insertPosition);
+			System.arraycopy(values, insertPosition, values, insertPosition + 1, size - insertPosition);
+			keys[insertPosition] = path;
+			values[insertPosition] = value;
+			size++;
+			modCount++;
+		}
 		needSaving = true;
 	}
 
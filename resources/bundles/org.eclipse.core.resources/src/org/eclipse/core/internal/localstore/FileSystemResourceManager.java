@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -967,10 +967,16 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		String title = NLS.bind(Messages.localstore_refreshing, target.getFullPath());
 		SubMonitor subMonitor = SubMonitor.convert(monitor, title, 100);
 		IFileTree fileTree = null;
-		// If there can be more than one resource to refresh, try to get the whole tree in one shot, if the file system supports it.
-		if (depth != IResource.DEPTH_ZERO) {
-			IFileStore fileStore = ((Resource) target).getStore();
-			fileTree = fileStore.getFileSystem().fetchFileTree(fileStore, subMonitor.newChild(2));
+		// If the refresh goes deeper than the immediate children, try to get the whole tree in one shot, if the file system supports it.
+		// Fetching the whole tree for a DEPTH_ONE refresh would read far more than is visited.
+		if (depth != IResource.DEPTH_ZERO && depth != IResource.DEPTH_ONE) {
+			// the traversal below reports the progress, also after a parallel scan
+			if (ParallelFileTree.ENABLED && target.getType() != IResource.FILE) {
+				fileTree = ParallelFileTree.fetch((Resource) target, subMonitor.newChild(2));
+			} else {
+				IFileStore fileStore = ((Resource) target).getStore();
+				fileTree = fileStore.getFileSystem().fetchFileTree(fileStore, subMonitor.newChild(2));
+			}
 		}
 		UnifiedTree tree = fileTree == null ? new UnifiedTree(target) : new UnifiedTree(target, fileTree);
 		SubMonitor refreshMonitor = subMonitor.newChild(98);
@@ -1179,7 +1185,14 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 			} else {
 				subMonitor.split(1);
 			}
-			FileUtil.transferStreams(content, out, store.toString(), subMonitor.split(1));
+			// other projects may be modified while the contents are transferred
+			WorkManager workManager = workspace.getWorkManager();
+			int depth = workManager.beginUnprotectedWrite(target);
+			try {
+				FileUtil.transferStreams(content, out, store.toString(), subMonitor.split(1));
+			} finally {
+				workManager.endUnprotectedWrite(depth);
+			}
 			// get the new last modified time and stash in the info
 			lastModified = store.fetchInfo().getLastModified();
 			ResourceInfo info = ((Resource) target).getResourceInfo(false, true);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -164,6 +164,8 @@ public class HistoryStore2 implements IHistoryStore {
 			final long minimumTimestamp = System.currentTimeMillis() - description.getFileStateLongevity();
 			final int maxStates = description.getMaxFileStates();
 			final int[] entryCount = new int[1];
+			// shared blobs can only be deleted once all entries have been seen
+			final Set<UniversalUniqueIdentifier> referenced = blobStore.isContentAddressed() ? new HashSet<>() : null;
 			if (description.isApplyFileStatePolicy()) {
 				tree.accept(new Bucket.Visitor() {
 					@Override
@@ -172,8 +174,11 @@ public class HistoryStore2 implements IHistoryStore {
 							return STOP;
 						entryCount[0] += fileEntry.getOccurrences();
 						applyPolicy((HistoryEntry) fileEntry, maxStates, minimumTimestamp);
-						// remove unreferenced blobs, when blobsToRemove size is greater than 100
-						removeUnreferencedBlobs(100);
+						if (referenced != null)
+							collectReferences((HistoryEntry) fileEntry, referenced);
+						else
+							// remove unreferenced blobs, when blobsToRemove size is greater than 100
+							removeUnreferencedBlobs(100);
 						return monitor.isCanceled() ? STOP : CONTINUE;
 					}
 				}, Path.ROOT, BucketTree.DEPTH_INFINITE);
@@ -182,8 +187,15 @@ public class HistoryStore2 implements IHistoryStore {
 				Policy.debug("Time to apply history store policies: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$ //$NON-NLS-2$
 				Policy.debug("Total number of history store entries: " + entryCount[0]); //$NON-NLS-1$
 			}
-			// remove all remaining unreferenced blobs
-			removeUnreferencedBlobs(0);
+			if (referenced == null) {
+				// remove all remaining unreferenced blobs
+				removeUnreferencedBlobs(0);
+			} else if (description.isApplyFileStatePolicy() && !monitor.isCanceled()) {
+				// the whole tree was visited, anything not referenced by now is garbage
+				blobsToRemove.removeAll(referenced);
+				removeUnreferencedBlobs(0);
+			}
+			// otherwise the candidates are kept for removeGarbage
 		} catch (Exception e) {
 			String message = Messages.history_problemsCleaning;
 			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_DELETE_LOCAL, null, message, e);
@@ -193,6 +205,17 @@ public class HistoryStore2 implements IHistoryStore {
 		}
 	}
 
+	/**
+	 * Adds the blobs still referenced by the given entry to the given set. States
+	 * deleted during the current visit are skipped.
+	 */
+	static void collectReferences(HistoryEntry entry, Set<UniversalUniqueIdentifier> referenced) {
+		byte[][] states = entry.getData();
+		for (byte[] state : states)
+			if (state != null)
+				referenced.add(new UniversalUniqueIdentifier(state));
+	}
+
 	/*
 	 * Remove blobs from the blobStore. When the size of blobsToRemove exceeds the limit,
 	 * remove the given blobs from blobStore. If the limit is zero or negative, remove blobs
@@ -263,7 +286,7 @@ public class HistoryStore2 implements IHistoryStore {
 
 	@Override
 	public boolean exists(IFileState target) {
-		return blobStore.fileFor(((FileState) target).getUUID()).fetchInfo().exists();
+		return blobStore.exists(((FileState) target).getUUID());
 	}
 
 	@Override
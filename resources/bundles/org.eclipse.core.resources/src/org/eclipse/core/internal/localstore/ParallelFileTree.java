@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.localstore;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import org.eclipse.core.filesystem.*;
+import org.eclipse.core.filesystem.provider.FileTree;
+import org.eclipse.core.internal.filesystem.local.LocalFileSystem;
+import org.eclipse.core.internal.filesystem.local.LocalFileTree;
+import org.eclipse.core.internal.resources.*;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.*;
+
+/**
+ * A snapshot of the file system below the root of a refresh, read before the
+ * unified tree is traversed. The location of the root and the locations of
+ * the linked folders below it are read concurrently on the pool of the local
+ * file system, each with the file tree of its file system if it provides one,
+ * and otherwise with the parallel directory scan of {@link LocalFileTree}. The
+ * traversal then only compares the snapshot with the workspace tree and
+ * applies the changes in one pass, so the visitors stay unchanged and report
+ * the progress of the refresh.
+ * <p>
+ * Symbolic links to directories are not followed during the scan. Stores that
+ * are not part of the snapshot, like the children of such links or directories
+ * that could not be read, are answered by querying the file system directly.
+ * </p>
+ * <p>
+ * Refreshes only read a snapshot if the system property
+ * <code>org.eclipse.core.resources.refresh.parallel</code> is set to
+ * <code>true</code>.
+ * </p>
+ */
+public class ParallelFileTree extends FileTree {
+	static final boolean ENABLED = Boolean.getBoolean("org.eclipse.core.resources.refresh.parallel"); //$NON-NLS-1$
+
+	private static final IFileInfo[] NO_CHILDREN = {};
+
+	/**
+	 * The snapshots of the scanned locations, by the URI of the location.
+	 */
+	private final Map<URI, IFileTree> trees = new ConcurrentHashMap<>();
+
+	private volatile boolean canceled;
+
+	/**
+	 * Reads the snapshot of one location.
+	 */
+	private final class LocationScan extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final IFileStore location;
+
+		LocationScan(IFileStore location) {
+			this.location = location;
+		}
+
+		@Override
+		protected void compute() {
+			if (canceled)
+				return;
+			IProgressMonitor monitor = new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return canceled;
+				}
+			};
+			IFileTree tree = null;
+			try {
+				tree = location.getFileSystem().fetchFileTree(location, monitor);
+			} catch (CoreException e) {
+				// scan the location below
+			}
+			if (tree == null)
+				tree = LocalFileTree.fetch(location, monitor);
+			if (tree != null)
+				trees.put(location.toURI(), tree);
+		}
+	}
+
+	/**
+	 * Returns the locations of the linked folders below the given resource.
+	 */
+	private static List<IFileStore> getLinkedLocations(Resource target) {
+		ProjectDescription description = ((Project) target.getProject()).internalGetDescription();
+		HashMap<IPath, LinkDescription> links = description == null ? null : description.getLinks();
+		if (links == null)
+			return Collections.emptyList();
+		List<IFileStore> locations = new ArrayList<>();
+		IPath targetPath = target.getProjectRelativePath();
+		for (IPath linkPath : links.keySet()) {
+			if (linkPath.equals(targetPath) || !targetPath.isPrefixOf(linkPath))
+				continue;
+			IResource link = target.getProject().findMember(linkPath);
+			IFileStore location = link != null && link.getType() == IResource.FOLDER ? ((Resource) link).getStore() : null;
+			if (location != null)
+				locations.add(location);
+		}
+		return locations;
+	}
+
+	/**
+	 * Reads the file system below the given folder or project. Returns
+	 * <code>null</code> if its location is not an existing directory.
+	 *
+	 * @throws OperationCanceledException if the monitor is canceled during the scan
+	 */
+	public static ParallelFileTree fetch(Resource target, IProgressMonitor monitor) {
+		IFileStore root = target.getStore();
+		ParallelFileTree tree = new ParallelFileTree(root);
+		List<LocationScan> scans = new ArrayList<>();
+		scans.add(tree.new LocationScan(root));
+		for (IFileStore location : getLinkedLocations(target))
+			scans.add(tree.new LocationScan(location));
+		tree.scan(scans, monitor);
+		return tree.trees.containsKey(root.toURI()) ? tree : null;
+	}
+
+	private ParallelFileTree(IFileStore root) {
+		super(root);
+	}
+
+	/**
+	 * Runs the given scans on the pool of the local file system and waits for
+	 * them, checking for cancelation while they run.
+	 */
+	private void scan(List<LocationScan> scans, IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 1);
+		ForkJoinTask<?> task = LocalFileSystem.getPool().submit(() -> ForkJoinTask.invokeAll(scans));
+		try {
+			while (true) {
+				try {
+					task.get(100, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException e) {
+					if (subMonitor.isCanceled())
+						canceled = true;
+				}
+			}
+		} catch (InterruptedException e) {
+			canceled = true;
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OperationCanceledException)
+				canceled = true;
+			else if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			else if (cause instanceof Error)
+				throw (Error) cause;
+		}
+		if (canceled)
+			throw new OperationCanceledException();
+		subMonitor.worked(1);
+	}
+
+	/**
+	 * Returns the snapshot containing the given store, or <code>null</code>.
+	 */
+	private IFileTree getTree(IFileStore store) {
+		for (IFileTree tree : trees.values()) {
+			IFileStore root = tree.getTreeRoot();
+			if (root.equals(store) || root.isParentOf(store))
+				return tree;
+		}
+		return null;
+	}
+
+	@Override
+	public IFileInfo[] getChildInfos(IFileStore store) {
+		IFileTree tree = getTree(store);
+		if (tree != null)
+			return tree.getChildInfos(store);
+		try {
+			return store.childInfos(EFS.NONE, null);
+		} catch (CoreException e) {
+			return NO_CHILDREN;
+		}
+	}
+
+	@Override
+	public IFileStore[] getChildStores(IFileStore store) {
+		IFileTree tree = getTree(store);
+		if (tree != null)
+			return tree.getChildStores(store);
+		try {
+			return store.childStores(EFS.NONE, null);
+		} catch (CoreException e) {
+			return new IFileStore[0];
+		}
+	}
+
+	@Override
+	public IFileInfo getFileInfo(IFileStore store) {
+		IFileTree tree = getTree(store);
+		return tree != null ? tree.getFileInfo(store) : store.fetchInfo();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -280,7 +280,8 @@ public class UnifiedTree {
 	 */
 	protected UnifiedTreeNode createChildForLinkedResource(IResource target) {
 		IFileStore store = ((Resource) target).getStore();
-		return createNode(target, store, store.fetchInfo(), true);
+		IFileInfo info = isInFileTree(store) ? fileTree.getFileInfo(store) : store.fetchInfo();
+		return createNode(target, store, info, true);
 	}
 
 	/**
@@ -354,7 +355,7 @@ public class UnifiedTree {
 		try {
 			final IFileStore store = node.getStore();
 			IFileInfo[] list;
-			if (fileTree != null && (fileTree.getTreeRoot().equals(store) || fileTree.getTreeRoot().isParentOf(store)))
+			if (isInFileTree(store))
 				list = fileTree.getChildInfos(store);
 			else
 				list = store.childInfos(EFS.NONE, null);
@@ -391,6 +392,16 @@ public class UnifiedTree {
 		addElementToQueue(levelMarker);
 	}
 
+	/**
+	 * Returns whether the file tree can answer queries for the given store. A
+	 * {@link ParallelFileTree} also covers the locations of linked folders.
+	 */
+	private boolean isInFileTree(IFileStore store) {
+		if (fileTree == null || store == null)
+			return false;
+		return fileTree instanceof ParallelFileTree || fileTree.getTreeRoot().equals(store) || fileTree.getTreeRoot().isParentOf(store);
+	}
+
 	protected boolean isChildrenMarker(UnifiedTreeNode node) {
 		return node == childrenMarker;
 	}
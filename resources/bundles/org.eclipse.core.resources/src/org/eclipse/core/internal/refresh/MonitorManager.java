@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -193,6 +193,21 @@ class MonitorManager implements ILifecycleListener, IPathVariableChangeListener,
 		}
 	}
 
+	/**
+	 * Returns the monitors that are installed on the given resource.
+	 */
+	List<IRefreshMonitor> getMonitors(IResource resource) {
+		List<IRefreshMonitor> result = new ArrayList<>();
+		// synchronized: protect the collection during iteration
+		synchronized (registeredMonitors) {
+			for (Map.Entry<IRefreshMonitor, List<IResource>> entry : registeredMonitors.entrySet()) {
+				if (entry.getValue().contains(resource))
+					result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * @see IPathVariableChangeListener#pathVariableChanged(IPathVariableChangeEvent)
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2022 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@
  *******************************************************************************/
 package org.eclipse.core.internal.refresh;
 
+import java.util.Collections;
+import java.util.List;
 import org.eclipse.core.internal.resources.IManager;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.internal.utils.Messages;
@@ -91,6 +93,15 @@ public class RefreshManager implements IRefreshResult, IManager, Preferences.IPr
 		}
 	}
 
+	/**
+	 * Returns the monitors that are installed on the given resource. Used by
+	 * tests.
+	 */
+	public List<IRefreshMonitor> getMonitors(IResource resource) {
+		MonitorManager manager = monitors;
+		return manager == null ? Collections.emptyList() : manager.getMonitors(resource);
+	}
+
 	@Override
 	public void refresh(IResource resource) {
 		//do nothing if we have already shutdown
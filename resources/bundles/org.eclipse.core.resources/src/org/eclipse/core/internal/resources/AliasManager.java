@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,8 +20,8 @@ package org.eclipse.core.internal.resources;
 
 import java.net.URI;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
@@ -109,37 +109,156 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 	/**
 	 * Maintains a mapping of FileStore-&gt;IResource, such that multiple resources
 	 * mapped from the same location are tolerated.
+	 * <p>
+	 * The locations are kept in a trie of their segments: the URI of the root
+	 * store of a location, followed by the names of the stores below it. Every
+	 * node knows the number of resources in its subtree, so looking up a
+	 * location, the resources at its ancestors or whether it has descendants
+	 * only walks the segments of the location, independent of the number of
+	 * locations in the map.
+	 * </p>
 	 */
 	class LocationMap {
+		private final class Node {
+			final Node parent;
+			final String key;
+			Map<String, Node> children;
+			/**
+			 * IResource OR ArrayList of (IResource), or <code>null</code> if no
+			 * resource is rooted at this location
+			 */
+			Object value;
+			/**
+			 * The number of resources at this node and below it
+			 */
+			int count;
+
+			Node(Node parent, String key) {
+				this.parent = parent;
+				this.key = key;
+			}
+		}
+
 		/**
-		 * Map of FileStore-&gt;IResource OR FileStore-&gt;ArrayList of (IResource)
+		 * Map of the URI of a root store -&gt; Node
 		 */
-		private final SortedMap<IFileStore, Object> map = new TreeMap<>(IFileStore::compareTo);
+		private final Map<String, Node> roots = new HashMap<>();
+
+		/**
+		 * Returns the keys of the given location in the trie.
+		 */
+		private String[] segmentsOf(IFileStore location) {
+			ArrayList<String> segments = new ArrayList<>();
+			IFileStore store = location;
+			for (IFileStore parent = store.getParent(); parent != null; parent = store.getParent()) {
+				segments.add(store.getName());
+				store = parent;
+			}
+			segments.add(store.toURI().toString());
+			Collections.reverse(segments);
+			return segments.toArray(new String[segments.size()]);
+		}
+
+		/**
+		 * Returns the node for the given segments, or <code>null</code> if there
+		 * is none and none should be created.
+		 */
+		private Node find(String[] segments, boolean create) {
+			Node node = roots.get(segments[0]);
+			if (node == null) {
+				if (!create)
+					return null;
+				node = new Node(null, segments[0]);
+				roots.put(segments[0], node);
+			}
+			for (int i = 1; i < segments.length; i++) {
+				Node child = node.children == null ? null : node.children.get(segments[i]);
+				if (child == null) {
+					if (!create)
+						return null;
+					child = new Node(node, segments[i]);
+					if (node.children == null)
+						node.children = new HashMap<>(4);
+					node.children.put(segments[i], child);
+				}
+				node = child;
+			}
+			return node;
+		}
+
+		/**
+		 * Adds the given amount to the resource count of the given node and its
+		 * ancestors, and removes the nodes that became empty.
+		 */
+		private void updateCount(Node node, int delta) {
+			for (Node current = node; current != null; current = current.parent)
+				current.count += delta;
+			prune(node);
+		}
+
+		private void prune(Node node) {
+			for (Node current = node; current != null && current.count == 0; current = current.parent) {
+				if (current.parent == null)
+					roots.remove(current.key);
+				else
+					current.parent.children.remove(current.key);
+			}
+		}
+
+		/**
+		 * Returns the number of resources at the given node.
+		 */
+		private int sizeOf(Object value) {
+			if (value == null)
+				return 0;
+			return value instanceof List ? ((List<?>) value).size() : 1;
+		}
+
+		private void valueDo(Object value, Consumer<IResource> doit) {
+			if (value == null)
+				return;
+			if (value instanceof List) {
+				for (Object element : ((List<?>) value)) {
+					if (element instanceof IResource) {
+						doit.accept((IResource) element);
+					}
+				}
+			} else {
+				doit.accept((IResource) value);
+			}
+		}
+
+		private void subtreeDo(Node node, Consumer<IResource> doit) {
+			valueDo(node.value, doit);
+			if (node.children != null)
+				for (Node child : node.children.values())
+					subtreeDo(child, doit);
+		}
 
 		/**
 		 * Adds the given resource to the map, keyed by the given location.
 		 * Returns true if a new entry was added, and false otherwise.
 		 */
 		public boolean add(IFileStore location, IResource resource) {
-			Object oldValue = map.get(location);
+			Node node = find(segmentsOf(location), true);
+			Object oldValue = node.value;
 			if (oldValue == null) {
-				map.put(location, resource);
-				return true;
-			}
-			if (oldValue instanceof IResource) {
+				node.value = resource;
+			} else if (oldValue instanceof IResource) {
 				if (resource.equals(oldValue))
 					return false;//duplicate
 				ArrayList<Object> newValue = new ArrayList<>(2);
 				newValue.add(oldValue);
 				newValue.add(resource);
-				map.put(location, newValue);
-				return true;
+				node.value = newValue;
+			} else {
+				@SuppressWarnings("unchecked")
+				ArrayList<IResource> list = (ArrayList<IResource>) oldValue;
+				if (list.contains(resource))
+					return false;//duplicate
+				list.add(resource);
 			}
-			@SuppressWarnings("unchecked")
-			ArrayList<IResource> list = (ArrayList<IResource>) oldValue;
-			if (list.contains(resource))
-				return false;//duplicate
-			list.add(resource);
+			updateCount(node, 1);
 			return true;
 		}
 
@@ -147,7 +266,7 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * Method clear.
 		 */
 		public void clear() {
-			map.clear();
+			roots.clear();
 		}
 
 		/**
@@ -155,29 +274,14 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * given location as a prefix.
 		 */
 		public void matchingPrefixDo(IFileStore prefix, Consumer<IResource> doit) {
-			SortedMap<IFileStore, Object> matching;
-			IFileStore prefixParent = prefix.getParent();
-			if (prefixParent != null) {
-				//endPoint is the smallest possible path greater than the prefix that doesn't
-				//match the prefix
-				IFileStore endPoint = prefixParent.getChild(prefix.getName() + "\0"); //$NON-NLS-1$
-				matching = map.subMap(prefix, endPoint);
-			} else {
-				matching = map;
-			}
-			for (Object value : matching.values()) {
-				if (value == null)
-					return;
-				if (value instanceof List) {
-					for (Object element : ((List<?>) value)) {
-						if (element instanceof IResource) {
-							doit.accept((IResource) element);
-						}
-					}
-				} else {
-					doit.accept((IResource) value);
-				}
+			if (prefix.getParent() == null) {
+				for (Node root : new ArrayList<>(roots.values()))
+					subtreeDo(root, doit);
+				return;
 			}
+			Node node = find(segmentsOf(prefix), false);
+			if (node != null)
+				subtreeDo(node, doit);
 		}
 
 		/**
@@ -185,17 +289,36 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * location.
 		 */
 		public void matchingResourcesDo(IFileStore location, Consumer<IResource> doit) {
-			Object value = map.get(location);
-			if (value == null)
-				return;
-			if (value instanceof List) {
-				for (Object element : ((List<?>) value)) {
-					if (element instanceof IResource) {
-						doit.accept((IResource) element);
-					}
-				}
-			} else {
-				doit.accept((IResource) value);
+			Node node = find(segmentsOf(location), false);
+			if (node != null)
+				valueDo(node.value, doit);
+		}
+
+		/**
+		 * Invoke the given doit for every resource whose location is the given
+		 * location or one of its ancestors, starting with the given location.
+		 * The doit is also passed the path of the given location relative to the
+		 * location of the resource.
+		 */
+		public void matchingAncestorsDo(IFileStore location, BiConsumer<IResource, IPath> doit) {
+			String[] segments = segmentsOf(location);
+			Node[] nodes = new Node[segments.length];
+			Node node = roots.get(segments[0]);
+			int depth = 0;
+			while (node != null) {
+				nodes[depth++] = node;
+				if (depth == segments.length || node.children == null)
+					break;
+				node = node.children.get(segments[depth]);
+			}
+			for (int i = depth - 1; i >= 0; i--) {
+				if (nodes[i].value == null)
+					continue;
+				IPath relative = Path.EMPTY;
+				for (int j = segments.length - 1; j > i; j--)
+					relative = new Path(segments[j]).append(relative);
+				IPath suffixPath = relative;
+				valueDo(nodes[i].value, resource -> doit.accept(resource, suffixPath));
 			}
 		}
 
@@ -204,43 +327,37 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * whose location overlaps another resource in the map.
 		 */
 		public void overLappingResourcesDo(Consumer<IResource> doit) {
-			IFileStore previousStore = null;
-			IResource previousResource = null;
-			for (Entry<IFileStore, Object> current : map.entrySet()) {
-				//value is either single resource or List of resources
-				IFileStore currentStore = current.getKey();
-				IResource currentResource = null;
-				Object value = current.getValue();
-				if (value instanceof List) {
-					for (Object element : ((List<?>) value)) {
-						if (element instanceof IResource) {
-							doit.accept(((IResource) element).getProject());
-						}
-					}
-				} else {
-					//value is a single resource
-					currentResource = (IResource) value;
-				}
-				if (previousStore != null) {
-					//check for overlap with previous
-					//Note: previous is always shorter due to map sorting rules
-					if (previousStore.isParentOf(currentStore)) {
-						//resources will be null if they were in a list, in which case
-						//they've already been passed to the doit
-						if (previousResource != null) {
-							doit.accept(previousResource.getProject());
-							//null out previous resource so we don't call doit twice with same resource
-							previousResource = null;
-						}
-						if (currentResource != null)
-							doit.accept(currentResource.getProject());
-						//keep iterating with the same previous store because there may be more overlaps
-						continue;
-					}
+			for (Node root : roots.values())
+				overLappingResourcesDo(root, false, doit);
+		}
+
+		private void overLappingResourcesDo(Node node, boolean ancestorHasResources, Consumer<IResource> doit) {
+			int size = sizeOf(node.value);
+			if (size > 0 && (ancestorHasResources || node.count > 1))
+				valueDo(node.value, resource -> doit.accept(resource.getProject()));
+			if (node.children != null)
+				for (Node child : node.children.values())
+					overLappingResourcesDo(child, ancestorHasResources || size > 0, doit);
+		}
+
+		/**
+		 * Calls the given doit with the project of every resource in the map
+		 * that overlaps the given location, including the resources at the given
+		 * location, if any resource overlaps it.
+		 */
+		public void overLappingResourcesDo(IFileStore location, Consumer<IResource> doit) {
+			Node node = find(segmentsOf(location), false);
+			if (node == null)
+				return;
+			boolean overlaps = node.count > 1;
+			for (Node ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+				if (ancestor.value != null) {
+					overlaps = true;
+					valueDo(ancestor.value, resource -> doit.accept(resource.getProject()));
 				}
-				previousStore = currentStore;
-				previousResource = currentResource;
 			}
+			if (overlaps)
+				subtreeDo(node, resource -> doit.accept(resource.getProject()));
 		}
 
 		/**
@@ -248,22 +365,24 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		 * was actually removed, and false otherwise.
 		 */
 		public boolean remove(IFileStore location, IResource resource) {
-			Object oldValue = map.get(location);
-			if (oldValue == null)
+			Node node = find(segmentsOf(location), false);
+			if (node == null || node.value == null)
 				return false;
+			Object oldValue = node.value;
 			if (oldValue instanceof IResource) {
-				if (resource.equals(oldValue)) {
-					map.remove(location);
-					return true;
-				}
-				return false;
+				if (!resource.equals(oldValue))
+					return false;
+				node.value = null;
+			} else {
+				@SuppressWarnings("unchecked")
+				ArrayList<IResource> list = (ArrayList<IResource>) oldValue;
+				if (!list.remove(resource))
+					return false;
+				if (list.isEmpty())
+					node.value = null;
 			}
-			@SuppressWarnings("unchecked")
-			ArrayList<IResource> list = (ArrayList<IResource>) oldValue;
-			boolean wasRemoved = list.remove(resource);
-			if (list.isEmpty())
-				map.remove(location);
-			return wasRemoved;
+			updateCount(node, -1);
+			return true;
 		}
 	}
 
@@ -291,6 +410,14 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 	 */
 	private volatile boolean changedProjects = false;
 
+	/**
+	 * This flag is true when links have been removed from the location map and
+	 * the set of aliased projects has not been recomputed accordingly. Added
+	 * links are processed incrementally, but a removal may make any project
+	 * alias-free.
+	 */
+	private volatile boolean removedLinks = false;
+
 	/**
 	 * This maps IFileStore -&gt; IResource, associating a file system location with
 	 * the projects and/or linked resources that are rooted at that location.
@@ -348,10 +475,13 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		}
 	}
 
-	private void addToLocationsMap(IResource link, IFileStore location) {
+	private boolean addToLocationsMap(IResource link, IFileStore location) {
 		if (location != null && !link.isVirtual())
-			if (locationsMap.add(location, link))
+			if (locationsMap.add(location, link)) {
 				nonDefaultResourceCount++;
+				return true;
+			}
+		return false;
 	}
 
 	/**
@@ -519,24 +649,24 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 		if (searchLocation == null)
 			return;
 
-		suffix = Path.EMPTY;
 		FindAliasesDoit findAliases = new FindAliasesDoit(resource);
 		/*
 		 * Walk up the location segments for this resource, looking for a
 		 * resource with a matching location.  All matches are then added to the
 		 * "aliases" set.
 		 */
-		do {
-			locationsMap.matchingResourcesDo(searchLocation, findAliases);
-			suffix = new Path(searchLocation.getName()).append(suffix);
-			searchLocation = searchLocation.getParent();
-		} while (searchLocation != null);
+		locationsMap.matchingAncestorsDo(searchLocation, (match, matchSuffix) -> {
+			suffix = matchSuffix;
+			findAliases.accept(match);
+		});
 	}
 
 	private void removeFromLocationsMap(IResource link, IFileStore location) {
 		if (location != null)
-			if (locationsMap.remove(location, link))
+			if (locationsMap.remove(location, link)) {
 				nonDefaultResourceCount--;
+				removedLinks = true;
+			}
 	}
 
 	@Override
@@ -638,21 +768,32 @@ public class AliasManager implements IManager, ILifecycleListener, IResourceChan
 			//if a project is added or removed, just recompute the whole world
 			changedProjects = false;
 			changedLinks.clear(); // buildLocationMaps will also process links
+			removedLinks = false;
 			hadChanges = true;
 			buildLocationsMap();
+			buildAliasedProjectsSet();
 		} else {
-			// incrementally update location map for changed links
+			// incrementally update location map for changed links, in one batch
 			Collection<IResource> changedLinksSnapshots = new HashSet<>(changedLinks);
 			changedLinks.removeAll(changedLinksSnapshots);
 			hadChanges = !changedLinksSnapshots.isEmpty();
+			boolean rebuild = removedLinks;
+			removedLinks = false;
+			List<IFileStore> added = new ArrayList<>();
 			for (IResource resource : changedLinksSnapshots) {
 				if (resource.isAccessible() && resource.isLinked()) {
-					addToLocationsMap(resource, ((Resource) resource).getStore());
+					IFileStore location = ((Resource) resource).getStore();
+					if (addToLocationsMap(resource, location))
+						added.add(location);
 				}
 			}
-		}
-		if (hadChanges) {
-			buildAliasedProjectsSet();
+			if (rebuild) {
+				buildAliasedProjectsSet();
+			} else if (nonDefaultResourceCount > 0) {
+				// only the added locations can introduce new overlaps
+				for (IFileStore location : added)
+					locationsMap.overLappingResourcesDo(location, aliasedProjects::add);
+			}
 		}
 		return hadChanges;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2022 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -36,6 +36,12 @@ import org.osgi.framework.Bundle;
 
 /**
  * Keeps a cache of recently read content descriptions.
+ * <p>
+ * Content descriptions read by describers are also kept in a
+ * {@link ContentDescriptionStore} that is saved with the workspace metadata,
+ * so that they do not need to be read again in the next session. A change of
+ * a content type only discards the stored descriptions it may affect.
+ * </p>
  *
  * @since 3.0
  * @see IFile#getContentDescription()
@@ -203,6 +209,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 	private Cache cache;
 
+	private ContentDescriptionStore store;
+
 	private volatile byte cacheState;
 
 	private FlushJob flushJob;
@@ -222,7 +230,14 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 	public void contentTypeChanged(ContentTypeChangeEvent event) {
 		if (Policy.DEBUG_CONTENT_TYPE)
 			Policy.debug("Content type settings changed for " + event.getContentType()); //$NON-NLS-1$
-		invalidateCache(true, null);
+		synchronized (this) {
+			IContentType contentType = event.getContentType();
+			if (contentType == null)
+				store.discardAll();
+			else
+				store.discard(contentType);
+			invalidate(true, null);
+		}
 	}
 
 	synchronized void doFlushCache(final IProgressMonitor monitor, Set<IPath> toClean) throws CoreException {
@@ -272,6 +287,9 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			ResourceInfo info = (ResourceInfo) elementContents;
 			if (info.getType() != IResource.FILE)
 				return true;
+			// avoid copying the infos that have nothing to clear
+			if ((info.getFlags() & ICoreConstants.M_CONTENT_CACHE) == 0)
+				return true;
 			info = workspace.getResourceInfo(requestor.requestPath(), false, true);
 			if (info == null)
 				return false;
@@ -371,6 +389,19 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				if (entry != null && entry.getTimestamp() == getTimestamp(info))
 					// there was a description in the cache, and it was up to date
 					return (IContentDescription) entry.getCached();
+				// tries to get a description that was read before, maybe in a previous session
+				IContentDescription stored = store.get(file.getFullPath(), getTimestamp(info));
+				if (stored != null) {
+					if (getCacheState() != ABOUT_TO_FLUSH)
+						setCacheState(USED_CACHE);
+					if (entry == null)
+						cache.addEntry(file.getFullPath(), stored, getTimestamp(info));
+					else {
+						entry.setTimestamp(getTimestamp(info));
+						entry.setCached(stored);
+					}
+					return stored;
+				}
 			}
 		}
 
@@ -404,6 +435,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				}
 			}
 			// we actually got a description filled by a describer (or a default description for a non-obvious type)
+			if (newDescription != null)
+				store.put(file.getFullPath(), getTimestamp(info), newDescription);
 			if (entry == null)
 				// there was no entry before - create one
 				entry = cache.addEntry(file.getFullPath(), newDescription, getTimestamp(info));
@@ -432,6 +465,19 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 	 * @see #doFlushCache(IProgressMonitor, Set)
 	 */
 	public synchronized void invalidateCache(boolean flush, IProject project) {
+		// the stored descriptions may be affected as well
+		if (project == null)
+			store.discardAll();
+		else
+			store.discard(project.getFullPath());
+		invalidate(flush, project);
+	}
+
+	/**
+	 * Marks the cache as invalid, like {@link #invalidateCache(boolean, IProject)},
+	 * but keeps the stored descriptions.
+	 */
+	private synchronized void invalidate(boolean flush, IProject project) {
 		if (getCacheState() == EMPTY_CACHE)
 			// cache has not been touched, nothing to do
 			return;
@@ -521,6 +567,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		if (getCacheState() != INVALID_CACHE)
 			// remember the platform timestamp for which we have a valid cache
 			setCacheTimeStamp(Platform.getStateStamp());
+		writeStore();
 		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
 		//tolerate missing services during shutdown because they might be already gone
 		if (contentTypeManager != null)
@@ -530,6 +577,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			registry.removeRegistryChangeListener(this);
 		cache.dispose();
 		cache = null;
+		store = null;
 		flushJob.cancel();
 		flushJob = null;
 		projectContentTypes = null;
@@ -538,6 +586,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 	@Override
 	public void startup(IProgressMonitor monitor) throws CoreException {
 		cache = new Cache(100, 1000, 0.1);
+		store = new ContentDescriptionStore();
 		projectContentTypes = new ProjectContentTypes(workspace);
 		getCacheState();
 		if (cacheState == FLUSHING_CACHE || cacheState == ABOUT_TO_FLUSH)
@@ -547,6 +596,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		// the cache is stale (plug-ins that might be contributing content types were added/removed)
 		if (getCacheTimestamp() != Platform.getStateStamp())
 			invalidateCache(false, null);
+		readStore();
 		// register a lifecycle listener
 		workspace.addLifecycleListener(this);
 		// register a content type change listener
@@ -555,6 +605,63 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		Platform.getExtensionRegistry().addRegistryChangeListener(this, Platform.PI_RUNTIME);
 	}
 
+	/**
+	 * Reads the descriptions stored in the previous session, if they were
+	 * stored for the current content type catalog.
+	 */
+	private synchronized void readStore() {
+		java.io.File location = workspace.getMetaArea().getContentDescriptionsLocation().toFile();
+		try {
+			store.read(location, Platform.getStateStamp());
+		} catch (IOException e) {
+			store.discardAll();
+			String message = NLS.bind(Messages.resources_readMeta, location);
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, null, message, e));
+		}
+		if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+			Policy.debug("Read " + store.size() + " stored content descriptions"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private synchronized void writeStore() {
+		// drop the descriptions of files that were deleted, moved or changed
+		store.prune((path, timestamp) -> {
+			ResourceInfo info = workspace.getResourceInfo(path, false, false);
+			return info != null && info.getType() == IResource.FILE && getTimestamp(info) == timestamp;
+		});
+		if (store.size() == 0)
+			return;
+		java.io.File location = workspace.getMetaArea().getContentDescriptionsLocation().toFile();
+		try {
+			location.getParentFile().mkdirs();
+			store.write(location, Platform.getStateStamp());
+		} catch (IOException e) {
+			String message = NLS.bind(Messages.resources_writeMeta, location);
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_WRITE_METADATA, null, message, e));
+		}
+	}
+
+	/**
+	 * Discards the stored descriptions of the given resource, which is being
+	 * deleted, or moved away. A project's descriptions are discarded when its
+	 * lifecycle event is handled.
+	 */
+	synchronized void resourceDeleted(IResource resource) {
+		if (store == null)
+			return;
+		if (resource.getType() == IResource.FILE)
+			store.discardFile(resource.getFullPath());
+		else if (resource.getType() == IResource.FOLDER)
+			store.discard(resource.getFullPath());
+	}
+
+	/**
+	 * Returns whether a description of the given file is stored to be reused in
+	 * later sessions. Used by tests.
+	 */
+	public synchronized boolean hasStoredDescription(IFile file) {
+		return store != null && store.contains(file.getFullPath());
+	}
+
 	public void projectPreferencesChanged(IProject project) {
 		if (Policy.DEBUG_CONTENT_TYPE)
 			Policy.debug("Project preferences changed for " + project); //$NON-NLS-1$
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.*;
+import java.util.*;
+import org.eclipse.core.internal.localstore.SafeFileInputStream;
+import org.eclipse.core.internal.localstore.SafeFileOutputStream;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.content.*;
+
+/**
+ * Keeps the essentials of the content descriptions read by describers, so
+ * that they survive the in-memory cache of the content description manager
+ * and the end of the session. For every file it records the content type,
+ * the charset and the byte order mark of its description, together with the
+ * timestamp of the file contents the description was read from.
+ * <p>
+ * The store keeps at most <code>MAX_ENTRIES</code> descriptions and drops
+ * the least recently used ones first. It is saved in the workspace metadata
+ * on shutdown, along with the generation of the content type catalog, and
+ * only read back if that generation is still the same. Descriptions of files
+ * that no longer exist or have changed are pruned before saving. The file is
+ * deleted once read, so that it is never used after a session that ended
+ * without saving it.
+ * </p>
+ * <p>
+ * This class is not thread safe, it is guarded by the content description
+ * manager.
+ * </p>
+ */
+class ContentDescriptionStore {
+	private static final int VERSION = 1;
+
+	/**
+	 * The maximum number of descriptions that are kept.
+	 */
+	static final int MAX_ENTRIES = 10000;
+
+	/**
+	 * The possible byte order marks, indexed by the value that is stored.
+	 */
+	private static final byte[][] BYTE_ORDER_MARKS = {null, IContentDescription.BOM_UTF_8, IContentDescription.BOM_UTF_16BE, IContentDescription.BOM_UTF_16LE};
+
+	private static final class Entry {
+		final long timestamp;
+		final String contentTypeId;
+		final String charset;
+		final byte byteOrderMark;
+
+		Entry(long timestamp, String contentTypeId, String charset, byte byteOrderMark) {
+			this.timestamp = timestamp;
+			this.contentTypeId = contentTypeId;
+			this.charset = charset;
+			this.byteOrderMark = byteOrderMark;
+		}
+	}
+
+	/**
+	 * A read-only content description restored from an entry. It only knows
+	 * the content type, the charset and the byte order mark.
+	 */
+	static final class StoredContentDescription implements IContentDescription {
+		private final IContentType contentType;
+		private final String charset;
+		private final byte[] byteOrderMark;
+
+		StoredContentDescription(IContentType contentType, String charset, byte[] byteOrderMark) {
+			this.contentType = contentType;
+			this.charset = charset;
+			this.byteOrderMark = byteOrderMark;
+		}
+
+		@Override
+		public boolean isRequested(QualifiedName key) {
+			return key == CHARSET || key == BYTE_ORDER_MARK;
+		}
+
+		@Override
+		public String getCharset() {
+			if (byteOrderMark == BOM_UTF_8)
+				return CHARSET_UTF_8;
+			if (byteOrderMark == BOM_UTF_16BE || byteOrderMark == BOM_UTF_16LE)
+				return CHARSET_UTF_16;
+			return charset;
+		}
+
+		@Override
+		public IContentType getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public Object getProperty(QualifiedName key) {
+			if (key == CHARSET)
+				return charset;
+			if (key == BYTE_ORDER_MARK)
+				return byteOrderMark;
+			return null;
+		}
+
+		@Override
+		public void setProperty(QualifiedName key, Object value) {
+			throw new IllegalStateException();
+		}
+
+		@Override
+		public String toString() {
+			return "StoredContentDescription(" + contentType.getId() + ", " + getCharset() + ')'; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Describes whether the description of a file is still valid.
+	 */
+	@FunctionalInterface
+	interface Validator {
+		boolean isValid(IPath path, long timestamp);
+	}
+
+	// in access order, so that the least recently used description is dropped first
+	private final Map<IPath, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private static byte indexOf(byte[] byteOrderMark) {
+		for (byte i = 1; i < BYTE_ORDER_MARKS.length; i++) {
+			if (Arrays.equals(BYTE_ORDER_MARKS[i], byteOrderMark))
+				return i;
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the stored description of the file at the given path, or
+	 * <code>null</code> if there is none for the given timestamp.
+	 */
+	IContentDescription get(IPath path, long timestamp) {
+		Entry entry = entries.get(path);
+		if (entry == null)
+			return null;
+		if (entry.timestamp != timestamp) {
+			// the file has changed, the description will be read again
+			entries.remove(path);
+			return null;
+		}
+		IContentType contentType = Platform.getContentTypeManager().getContentType(entry.contentTypeId);
+		if (contentType == null) {
+			entries.remove(path);
+			return null;
+		}
+		return new StoredContentDescription(contentType, entry.charset, BYTE_ORDER_MARKS[entry.byteOrderMark]);
+	}
+
+	/**
+	 * Stores the given description of the file at the given path.
+	 */
+	void put(IPath path, long timestamp, IContentDescription description) {
+		Object charset = description.getProperty(IContentDescription.CHARSET);
+		Object byteOrderMark = description.getProperty(IContentDescription.BYTE_ORDER_MARK);
+		entries.put(path, new Entry(timestamp, description.getContentType().getId(), charset instanceof String ? (String) charset : null, byteOrderMark instanceof byte[] ? indexOf((byte[]) byteOrderMark) : 0));
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	boolean contains(IPath path) {
+		return entries.containsKey(path);
+	}
+
+	void discardAll() {
+		entries.clear();
+	}
+
+	/**
+	 * Discards the descriptions of the files at or below the given path.
+	 */
+	void discard(IPath root) {
+		entries.keySet().removeIf(root::isPrefixOf);
+	}
+
+	/**
+	 * Discards the description of the file at the given path.
+	 */
+	void discardFile(IPath path) {
+		entries.remove(path);
+	}
+
+	/**
+	 * Discards the descriptions that the given validator rejects.
+	 */
+	void prune(Validator validator) {
+		entries.entrySet().removeIf(e -> !validator.isValid(e.getKey(), e.getValue().timestamp));
+	}
+
+	/**
+	 * Discards the descriptions that may be affected by a change of the given
+	 * content type: those of files with that content type or one of its
+	 * subtypes, and those of files the content type is associated with by name.
+	 */
+	void discard(IContentType changed) {
+		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
+		entries.entrySet().removeIf(e -> {
+			IContentType contentType = contentTypeManager.getContentType(e.getValue().contentTypeId);
+			return contentType == null || contentType.isKindOf(changed) || changed.isAssociatedWith(e.getKey().lastSegment());
+		});
+	}
+
+	/**
+	 * Reads the descriptions saved in the given file, if it was written for the
+	 * given generation of the content type catalog, and deletes the file.
+	 */
+	void read(java.io.File file, long generation) throws IOException {
+		if (!file.exists())
+			return;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new SafeFileInputStream(file)))) {
+			if (input.readInt() != VERSION || input.readLong() != generation)
+				return;
+			Map<String, String> contentTypeIds = new HashMap<>();
+			for (int i = input.readInt(); i > 0; i--) {
+				IPath path = Path.fromPortableString(input.readUTF());
+				long timestamp = input.readLong();
+				String contentTypeId = contentTypeIds.computeIfAbsent(input.readUTF(), id -> id);
+				String charset = input.readBoolean() ? input.readUTF() : null;
+				byte byteOrderMark = input.readByte();
+				if (byteOrderMark < 0 || byteOrderMark >= BYTE_ORDER_MARKS.length)
+					throw new IOException();
+				entries.put(path, new Entry(timestamp, contentTypeId, charset, byteOrderMark));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Saves the descriptions to the given file, for the given generation of the
+	 * content type catalog.
+	 */
+	void write(java.io.File file, long generation) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new SafeFileOutputStream(file)))) {
+			output.writeInt(VERSION);
+			output.writeLong(generation);
+			output.writeInt(entries.size());
+			for (Map.Entry<IPath, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				output.writeUTF(e.getKey().toPortableString());
+				output.writeLong(entry.timestamp);
+				output.writeUTF(entry.contentTypeId);
+				output.writeBoolean(entry.charset != null);
+				if (entry.charset != null)
+					output.writeUTF(entry.charset);
+				output.writeByte(entry.byteOrderMark);
+			}
+		}
+	}
+}
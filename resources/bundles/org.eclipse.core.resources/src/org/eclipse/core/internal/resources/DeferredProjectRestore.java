@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.internal.watson.ElementTreeIterator;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Restores the markers and the sync info of the open projects after the
+ * workspace has been opened, instead of while opening it. Startup then only
+ * reads the workspace tree and the project descriptions, and the markers and
+ * sync info of a project are read:
+ * <ul>
+ * <li>when they are first accessed through the marker manager or the
+ * synchronizer,</li>
+ * <li>when an operation that modifies the workspace acquires a scheduling
+ * rule that conflicts with the project,</li>
+ * <li>before the project or the workspace is saved,</li>
+ * <li>or by a low priority job that restores the remaining projects one at a
+ * time once the workspace is open.</li>
+ * </ul>
+ * Like the readers at startup, restoring sets the markers and sync info on the
+ * resource infos in place. It does not modify the tree, so it does not need a
+ * workspace operation and also works while the tree is locked, for example
+ * during a resource change notification. Restoring is serialized by a lock of
+ * its own, and a project stays pending until it is completely restored.
+ * Operations that modify a project restore it first, so no operation copies
+ * the resource infos of a project while it is restored. Restored markers are
+ * not reported in resource deltas, as they are the markers the project had
+ * when the workspace was opened.
+ * <p>
+ * Restoring is deferred only if the system property
+ * <code>org.eclipse.core.resources.lazyProjectRestore</code> is set to
+ * <code>true</code>.
+ * </p>
+ */
+class DeferredProjectRestore {
+	static final boolean ENABLED = Boolean.getBoolean("org.eclipse.core.resources.lazyProjectRestore"); //$NON-NLS-1$
+
+	private final Workspace workspace;
+
+	/**
+	 * The projects whose markers and sync info are not restored yet.
+	 */
+	private final Set<IProject> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Serializes restoring, so that a project is only restored once.
+	 */
+	private final Object lock = new Object();
+
+	private final Job job = new Job(Messages.resources_restoringProjects) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			if (!workspace.isOpen())
+				return Status.CANCEL_STATUS;
+			for (IProject project : pending.toArray(new IProject[0])) {
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				ensureRestored(project);
+			}
+			return Status.OK_STATUS;
+		}
+	};
+
+	DeferredProjectRestore(Workspace workspace) {
+		this.workspace = workspace;
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * Defers restoring the markers and sync info of the given project.
+	 */
+	void defer(IProject project) {
+		pending.add(project);
+	}
+
+	boolean isPending(IProject project) {
+		return !pending.isEmpty() && pending.contains(project);
+	}
+
+	/**
+	 * Starts restoring the deferred projects in the background.
+	 */
+	void schedule() {
+		if (!pending.isEmpty())
+			job.schedule();
+	}
+
+	void shutdown() {
+		job.cancel();
+		try {
+			job.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Restores the markers and sync info of the project of the given resource,
+	 * or of all projects if the resource is the workspace root, unless they
+	 * are already restored.
+	 */
+	void ensureRestored(IResource resource) {
+		if (pending.isEmpty())
+			return;
+		if (resource.getType() == IResource.ROOT) {
+			for (IProject project : pending.toArray(new IProject[0]))
+				restore(project);
+			return;
+		}
+		IProject project = resource.getProject();
+		if (pending.contains(project))
+			restore(project);
+	}
+
+	/**
+	 * Restores the deferred projects that conflict with the scheduling rule of
+	 * the current thread, before the operation that acquired it modifies them.
+	 */
+	void restoreConflictingWithCurrentRule() {
+		if (pending.isEmpty())
+			return;
+		ISchedulingRule rule = Job.getJobManager().currentRule();
+		if (rule == null)
+			return;
+		for (IProject project : pending.toArray(new IProject[0])) {
+			if (rule.isConflicting(project))
+				restore(project);
+		}
+	}
+
+	/**
+	 * Restores the markers and sync info of the given project, if they are not
+	 * restored yet. Waits if another thread is restoring the project.
+	 */
+	private void restore(IProject project) {
+		synchronized (lock) {
+			if (!pending.contains(project))
+				return;
+			try {
+				if (project.isAccessible())
+					read(project);
+			} finally {
+				// other threads only see the project as restored once it is
+				pending.remove(project);
+			}
+		}
+	}
+
+	private void read(IProject project) {
+		long start = System.currentTimeMillis();
+		try {
+			workspace.getMarkerManager().restore(project, false, null);
+		} catch (CoreException e) {
+			logFailure(project, e);
+		}
+		try {
+			((Synchronizer) workspace.getSynchronizer()).restore(project, null);
+		} catch (CoreException e) {
+			logFailure(project, e);
+		}
+		if (Policy.DEBUG_RESTORE)
+			Policy.debug("Deferred restore of " + project.getFullPath() + ": " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Forgets the markers and sync info of the given project, and defers
+	 * restoring them from the workspace metadata. The project must have been
+	 * saved, and must not be modified concurrently. Used by tests.
+	 * @see TestingSupport#deferRestore(IProject)
+	 */
+	void unload(IProject project) {
+		synchronized (lock) {
+			new ElementTreeIterator(workspace.getElementTree(), project.getFullPath()).iterate((tree, requestor, elementContents) -> {
+				ResourceInfo info = (ResourceInfo) elementContents;
+				info.setMarkers(null);
+				info.setSyncInfo(null);
+				return true;
+			});
+			workspace.getMarkerManager().reindex();
+			pending.add(project);
+		}
+	}
+
+	private static void logFailure(IProject project, CoreException e) {
+		String message = NLS.bind(Messages.resources_readMeta, project.getName());
+		Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, project.getFullPath(), message, e));
+	}
+}
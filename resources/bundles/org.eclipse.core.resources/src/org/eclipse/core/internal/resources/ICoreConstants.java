@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -119,6 +119,8 @@ public interface ICoreConstants {
 
 	int WORKSPACE_TREE_VERSION_1 = 67305985;
 	int WORKSPACE_TREE_VERSION_2 = 67305986;
+	/** Version 2 with the workspace trees split into project shards, see WorkspaceTreeShards */
+	int WORKSPACE_TREE_VERSION_3 = 67305987;
 
 	// helper constants for empty structures
 	IBuildConfiguration[] EMPTY_BUILD_CONFIG_ARRAY = new IBuildConfiguration[0];
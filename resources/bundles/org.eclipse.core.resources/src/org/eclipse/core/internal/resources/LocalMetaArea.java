@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2022 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -34,6 +34,7 @@ import org.eclipse.osgi.util.NLS;
 
 public class LocalMetaArea implements ICoreConstants {
 	/* package */static final String F_BACKUP_FILE_EXTENSION = ".bak"; //$NON-NLS-1$
+	/* package */static final String F_CONTENT_DESCRIPTIONS = ".contentdescriptions"; //$NON-NLS-1$
 	/* package */static final String F_DESCRIPTION = ".workspace"; //$NON-NLS-1$
 
 	/* package */static final String F_HISTORY_STORE = ".history"; //$NON-NLS-1$
@@ -116,6 +117,14 @@ public class LocalMetaArea implements ICoreConstants {
 		return file.removeLastSegments(1).append(file.lastSegment() + F_BACKUP_FILE_EXTENSION);
 	}
 
+	/**
+	 * Returns the path of the file in which to save the content descriptions
+	 * of the files in the workspace.
+	 */
+	public IPath getContentDescriptionsLocation() {
+		return locationFor(Path.ROOT).append(F_CONTENT_DESCRIPTIONS);
+	}
+
 	public IPath getHistoryStoreLocation() {
 		return metaAreaLocation.append(F_HISTORY_STORE);
 	}
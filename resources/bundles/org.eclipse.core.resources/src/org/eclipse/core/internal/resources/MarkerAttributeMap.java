@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2022 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,23 +21,208 @@ import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.core.internal.utils.IStringPoolParticipant;
 import org.eclipse.core.internal.utils.StringPool;
+import org.eclipse.core.resources.IMarker;
 
 /**
  * A specialized Map<String,Object> implementation that is optimized for a small
  * set of strings as keys. The keys will be interned() on insert.
  *
  * Unlike a java.util.HashMap nulls are neither allowed for key or value.
+ *
+ * The well known integer and boolean attributes of {@link IMarker}, like the
+ * severity or the line number, are stored as primitives as long as they have a
+ * value of that type. All other attributes are stored in two parallel arrays.
  */
 // the Map interface is not implemented as it would allow to insert null key or values
 // or non interned keys via the iterator if not a specific entrySet is implemented.
 public class MarkerAttributeMap implements IStringPoolParticipant {
 	// This implementation is a copy on write map.
-	private final AtomicReference<Map<String, Object>> mapRef;
+	private final AtomicReference<Attributes> ref;
 
 	// Typically contains 9 keys:
 	// "severity","sourceId","charStart","charEnd","arguments","id","message","lineNumber","categoryId"
 	protected static final int DEFAULT_SIZE = 9;
 
+	/**
+	 * The attributes that are stored as primitives. The first
+	 * <code>INT_COUNT</code> are integer attributes, the others are boolean
+	 * attributes.
+	 */
+	private static final String[] WELL_KNOWN = {IMarker.SEVERITY, IMarker.PRIORITY, IMarker.LINE_NUMBER, IMarker.CHAR_START, IMarker.CHAR_END, IMarker.DONE, IMarker.TRANSIENT, IMarker.USER_EDITABLE};
+	private static final int INT_COUNT = 5;
+	private static final int INT_MASK = (1 << INT_COUNT) - 1;
+
+	private static final int[] NO_INTS = new int[0];
+	private static final String[] NO_KEYS = new String[0];
+	private static final Object[] NO_VALUES = new Object[0];
+	private static final Attributes EMPTY = new Attributes(0, 0, NO_INTS, NO_KEYS, NO_VALUES);
+
+	/**
+	 * Returns the index of the given key in <code>WELL_KNOWN</code>, or -1.
+	 */
+	private static int wellKnownIndex(Object key) {
+		if (!(key instanceof String))
+			return -1;
+		switch ((String) key) {
+			case IMarker.SEVERITY :
+				return 0;
+			case IMarker.PRIORITY :
+				return 1;
+			case IMarker.LINE_NUMBER :
+				return 2;
+			case IMarker.CHAR_START :
+				return 3;
+			case IMarker.CHAR_END :
+				return 4;
+			case IMarker.DONE :
+				return 5;
+			case IMarker.TRANSIENT :
+				return 6;
+			case IMarker.USER_EDITABLE :
+				return 7;
+			default :
+				return -1;
+		}
+	}
+
+	/**
+	 * An immutable snapshot of the attributes.
+	 */
+	private static final class Attributes {
+		/** Bit i is set if the attribute <code>WELL_KNOWN[i]</code> is stored as a primitive. */
+		final int present;
+		/** Bit i is the value of the boolean attribute <code>WELL_KNOWN[i]</code>. */
+		final int booleans;
+		/** The values of the integer attributes, or an empty array if there are none. */
+		final int[] ints;
+		/** The interned keys of the other attributes. */
+		final String[] keys;
+		/** The values of the other attributes. */
+		final Object[] values;
+
+		Attributes(int present, int booleans, int[] ints, String[] keys, Object[] values) {
+			this.present = present;
+			this.booleans = booleans;
+			this.ints = ints;
+			this.keys = keys;
+			this.values = values;
+		}
+
+		Object get(Object key) {
+			int index = wellKnownIndex(key);
+			if (index >= 0 && (present & (1 << index)) != 0) {
+				if (index < INT_COUNT)
+					return Integer.valueOf(ints[index]);
+				return Boolean.valueOf((booleans & (1 << index)) != 0);
+			}
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key || keys[i].equals(key))
+					return values[i];
+			}
+			return null;
+		}
+
+		int size() {
+			return Integer.bitCount(present) + keys.length;
+		}
+
+		<E extends Exception> void forEach(AttributeVisitor<E> visitor) throws E {
+			for (int i = 0; i < WELL_KNOWN.length; i++) {
+				if ((present & (1 << i)) != 0) {
+					if (i < INT_COUNT)
+						visitor.visit(WELL_KNOWN[i], Integer.valueOf(ints[i]));
+					else
+						visitor.visit(WELL_KNOWN[i], Boolean.valueOf((booleans & (1 << i)) != 0));
+				}
+			}
+			for (int i = 0; i < keys.length; i++)
+				visitor.visit(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * Visits the attributes of a marker attribute map.
+	 *
+	 * @param <E> the type of exception the visitor may throw
+	 * @see MarkerAttributeMap#forEach(AttributeVisitor)
+	 */
+	@FunctionalInterface
+	public interface AttributeVisitor<E extends Exception> {
+		void visit(String key, Object value) throws E;
+	}
+
+	/**
+	 * Creates a new snapshot from an existing one and some changes.
+	 */
+	private static final class Builder {
+		private int present;
+		private int booleans;
+		private int[] ints;
+		private boolean intsCopied;
+		private String[] keys;
+		private Object[] values;
+		private int count;
+
+		Builder(Attributes attributes, int additional) {
+			present = attributes.present;
+			booleans = attributes.booleans;
+			ints = attributes.ints;
+			count = attributes.keys.length;
+			keys = Arrays.copyOf(attributes.keys, count + additional);
+			values = Arrays.copyOf(attributes.values, count + additional);
+		}
+
+		void remove(Object key) {
+			int index = wellKnownIndex(key);
+			if (index >= 0)
+				present &= ~(1 << index);
+			for (int i = 0; i < count; i++) {
+				if (keys[i].equals(key)) {
+					count--;
+					System.arraycopy(keys, i + 1, keys, i, count - i);
+					System.arraycopy(values, i + 1, values, i, count - i);
+					keys[count] = null;
+					values[count] = null;
+					return;
+				}
+			}
+		}
+
+		void put(String key, Object value) {
+			remove(key);
+			int index = wellKnownIndex(key);
+			if (index >= 0 && index < INT_COUNT && value instanceof Integer) {
+				// the array of the original snapshot must not be modified
+				if (!intsCopied) {
+					ints = ints.length == 0 ? new int[INT_COUNT] : ints.clone();
+					intsCopied = true;
+				}
+				ints[index] = ((Integer) value).intValue();
+				present |= 1 << index;
+			} else if (index >= INT_COUNT && value instanceof Boolean) {
+				int bit = 1 << index;
+				booleans = ((Boolean) value).booleanValue() ? booleans | bit : booleans & ~bit;
+				present |= bit;
+			} else {
+				if (count == keys.length) {
+					keys = Arrays.copyOf(keys, count + 1);
+					values = Arrays.copyOf(values, count + 1);
+				}
+				keys[count] = index >= 0 ? WELL_KNOWN[index] : key.intern();
+				values[count] = value;
+				count++;
+			}
+		}
+
+		Attributes build() {
+			if (present == 0 && count == 0)
+				return EMPTY;
+			return new Attributes(present, booleans & present, (present & INT_MASK) == 0 ? NO_INTS : ints,
+					count == 0 ? NO_KEYS : count == keys.length ? keys : Arrays.copyOf(keys, count),
+					count == 0 ? NO_VALUES : count == values.length ? values : Arrays.copyOf(values, count));
+		}
+	}
+
 	/**
 	 * Creates a new marker attribute map of default size
 	 */
@@ -53,7 +238,7 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 */
 	public MarkerAttributeMap(int initialCapacity) {
 		// ignore initialCapacity - a copy on write datastructure will be copied anyway.
-		mapRef = new AtomicReference<>(Map.of());
+		ref = new AtomicReference<>(EMPTY);
 	}
 
 	/**
@@ -61,7 +246,8 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * contain null keys or null values, or keys that are not interned.
 	 */
 	public MarkerAttributeMap(MarkerAttributeMap m) {
-		mapRef = new AtomicReference<>(copy(m.getMap()));
+		// the snapshots are immutable and can be shared
+		ref = new AtomicReference<>(m.ref.get());
 	}
 
 	/**
@@ -69,7 +255,7 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * values are silently ignored.
 	 */
 	public MarkerAttributeMap(Map<String, ? extends Object> map, boolean validate) {
-		mapRef = new AtomicReference<>(copy(map, validate));
+		ref = new AtomicReference<>(with(EMPTY, map, validate));
 	}
 
 	/**
@@ -77,13 +263,7 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * are not allowed. Entries with null values are silently ignored.
 	 */
 	public void setAttributes(Map<String, ? extends Object> map, boolean validate) {
-		mapRef.set(copy(map, validate));
-	}
-
-	private Map<String, Object> copy(Map<String, ? extends Object> map, boolean validate) {
-		Map<String, Object> target = new HashMap<>();
-		putAll(target, map, validate);
-		return target;
+		ref.set(with(EMPTY, map, validate));
 	}
 
 	/**
@@ -91,17 +271,14 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	 * Entries with null values are silently ignored.
 	 */
 	public void putAll(Map<String, ? extends Object> map, boolean validate) {
-		mapRef.getAndUpdate(old -> {
-			Map<String, Object> copy = copy(old);
-			putAll(copy, map, validate);
-			return copy;
-		});
+		ref.getAndUpdate(old -> with(old, map, validate));
 	}
 
-	private void putAll(Map<String, Object> target, Map<String, ? extends Object> source, boolean validate) {
-		if (source == null) {
-			return;
+	private static Attributes with(Attributes attributes, Map<String, ? extends Object> source, boolean validate) {
+		if (source == null || source.isEmpty()) {
+			return attributes;
 		}
+		Builder builder = new Builder(attributes, source.size());
 		for (Entry<String, ? extends Object> e : source.entrySet()) {
 			String key = e.getKey();
 			Objects.requireNonNull(key, "insert of null key not allowed"); //$NON-NLS-1$
@@ -110,27 +287,31 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 				value = MarkerInfo.checkValidAttribute(value);
 			}
 			if (value != null) { // null values => ignore
-				target.put(e.getKey().intern(), value);
+				builder.put(key, value);
 			}
 		}
-	}
-
-	private Map<String, Object> copy(Map<String, ? extends Object> map) {
-		return new HashMap<>(map);
-	}
-
-	private Map<String, Object> getMap() {
-		return mapRef.get();
+		return builder.build();
 	}
 
 	/** creates a copy that fulfills the java.util.Map interface **/
 	public Map<String, Object> toMap() {
-		return copy(this.getMap());
+		Attributes attributes = ref.get();
+		Map<String, Object> map = new HashMap<>(Math.max(16, attributes.size() * 2));
+		attributes.forEach(map::put);
+		return map;
+	}
+
+	/**
+	 * Passes each attribute of a snapshot of this map to the given visitor,
+	 * without copying the attributes into a new map.
+	 */
+	public <E extends Exception> void forEach(AttributeVisitor<E> visitor) throws E {
+		ref.get().forEach(visitor);
 	}
 
 	/** @see java.util.Map#entrySet **/
 	public Set<Map.Entry<String, Object>> entrySet() {
-		return getMap().entrySet();
+		return Collections.unmodifiableMap(toMap()).entrySet();
 	}
 
 	/**
@@ -140,20 +321,22 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 	public void put(String k, Object value) {
 		Objects.requireNonNull(k, "insert of null key not allowed"); //$NON-NLS-1$
 		Objects.requireNonNull(value, "insert of null value not allowed"); //$NON-NLS-1$
-		mapRef.getAndUpdate(map -> {
-			Map<String, Object> m = copy(map);
-			m.put(k.intern(), value);
-			return m;
+		ref.getAndUpdate(old -> {
+			Builder builder = new Builder(old, 1);
+			builder.put(k, value);
+			return builder.build();
 		});
 	}
 
 	@Override
 	public void shareStrings(StringPool set) {
 		// don't share keys because they are already interned
-		for (java.util.Map.Entry<String, Object> e : getMap().entrySet()) {
-			Object o = e.getValue();
+		Object[] values = ref.get().values;
+		for (int i = 0; i < values.length; i++) {
+			Object o = values[i];
 			if (o instanceof String) {
-				e.setValue(set.add((String) o));
+				// replacing a value by an equal one does not change the snapshot
+				values[i] = set.add((String) o);
 			} else if (o instanceof IStringPoolParticipant) {
 				((IStringPoolParticipant) o).shareStrings(set);
 			}
@@ -162,22 +345,29 @@ public class MarkerAttributeMap implements IStringPoolParticipant {
 
 	/** @see java.util.Map#isEmpty **/
 	public boolean isEmpty() {
-		return getMap().isEmpty();
+		return ref.get().size() == 0;
 	}
 
 	/** @see java.util.Map#remove **/
 	public Object remove(Object key) {
-		return getMap().remove(key);
+		Attributes old = ref.getAndUpdate(attributes -> {
+			if (attributes.get(key) == null)
+				return attributes;
+			Builder builder = new Builder(attributes, 0);
+			builder.remove(key);
+			return builder.build();
+		});
+		return old.get(key);
 	}
 
 	/** @see java.util.Map#get **/
 	public Object get(Object key) {
-		return getMap().get(key);
+		return ref.get().get(key);
 	}
 
 	/** @see java.util.Map#size **/
 	public int size() {
-		return getMap().size();
+		return ref.get().size();
 	}
 
 }
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A secondary index of the resources that have markers, by marker type. It
+ * lets searches for markers of a type visit only the resources that have such
+ * markers, instead of every resource below the search root.
+ * <p>
+ * The paths of the resources with markers of a type are kept in a tree of
+ * path segments, so a search only walks the indexed resources below its root.
+ * The children of a node are sorted by name like in the element tree, so a
+ * search finds the resources in the order of the element tree.
+ * </p>
+ * <p>
+ * The index may contain resources that no longer have markers of a type, so
+ * callers must check the markers of the resources it returns. It must however
+ * contain every resource that has markers, so it is updated by the marker
+ * manager for every marker change, and for every subtree whose markers are
+ * restored or copied without changes. Updates are serialized by the index,
+ * while searches may run concurrently.
+ * </p>
+ */
+class MarkerIndex {
+	/**
+	 * A node of the tree of path segments. A node is marked if the resource at
+	 * its path has markers of the type of the tree.
+	 */
+	private static final class Node {
+		final ConcurrentSkipListMap<String, Node> children = new ConcurrentSkipListMap<>();
+		volatile boolean marked;
+	}
+
+	/**
+	 * Mapping of marker types to the root nodes of the trees of the resources
+	 * with markers of that type.
+	 */
+	private final Map<String, Node> rootsByType = new ConcurrentHashMap<>();
+
+	/**
+	 * Orders paths like a pre-order traversal of the element tree, where the
+	 * children of a node are sorted by name.
+	 */
+	private static final Comparator<IPath> TREE_ORDER = (path1, path2) -> {
+		int count1 = path1.segmentCount();
+		int count2 = path2.segmentCount();
+		for (int i = 0, count = Math.min(count1, count2); i < count; i++) {
+			int compare = path1.segment(i).compareTo(path2.segment(i));
+			if (compare != 0)
+				return compare;
+		}
+		return count1 - count2;
+	};
+
+	/**
+	 * Records that the resource at the given path has markers of the given type.
+	 */
+	synchronized void add(String type, IPath path) {
+		Node node = rootsByType.computeIfAbsent(type, key -> new Node());
+		for (int i = 0, count = path.segmentCount(); i < count; i++)
+			node = node.children.computeIfAbsent(path.segment(i), key -> new Node());
+		node.marked = true;
+	}
+
+	/**
+	 * Records that the resource at the given path has no markers of the given
+	 * type, and removes the nodes that no longer lead to such a resource.
+	 */
+	private synchronized void remove(String type, IPath path) {
+		Node root = rootsByType.get(type);
+		if (root == null)
+			return;
+		int count = path.segmentCount();
+		Node[] nodes = new Node[count + 1];
+		nodes[0] = root;
+		for (int i = 0; i < count; i++) {
+			nodes[i + 1] = nodes[i].children.get(path.segment(i));
+			if (nodes[i + 1] == null)
+				return;
+		}
+		nodes[count].marked = false;
+		for (int i = count; i > 0 && !nodes[i].marked && nodes[i].children.isEmpty(); i--)
+			nodes[i - 1].children.remove(path.segment(i - 1));
+	}
+
+	/**
+	 * Records all markers of the given set for the resource at the given path.
+	 */
+	void addAll(MarkerSet markers, IPath path) {
+		for (IMarkerSetElement element : markers.elements())
+			add(((MarkerInfo) element).getType(), path);
+	}
+
+	/**
+	 * Updates the index for the given changes of the markers of the resource at
+	 * the given path. The given markers are the markers of the resource after
+	 * the changes, or <code>null</code> if it has none.
+	 */
+	void changed(IPath path, IMarkerSetElement[] changes, MarkerSet markers) {
+		for (IMarkerSetElement change : changes) {
+			MarkerDelta delta = (MarkerDelta) change;
+			String type = delta.getType();
+			if (delta.getKind() == IResourceDelta.ADDED) {
+				add(type, path);
+			} else if (delta.getKind() == IResourceDelta.REMOVED && !hasType(markers, type)) {
+				remove(type, path);
+			}
+		}
+	}
+
+	private static boolean hasType(MarkerSet markers, String type) {
+		if (markers == null)
+			return false;
+		for (IMarkerSetElement element : markers.elements()) {
+			if (((MarkerInfo) element).getType().equals(type))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the paths of the resources at or below the given path that may
+	 * have markers of the types accepted by the given filter, in the order of
+	 * the element tree.
+	 */
+	List<IPath> find(IPath root, Predicate<String> typeFilter) {
+		List<List<IPath>> found = new ArrayList<>();
+		for (Map.Entry<String, Node> entry : rootsByType.entrySet()) {
+			if (!typeFilter.test(entry.getKey()))
+				continue;
+			Node node = entry.getValue();
+			for (int i = 0, count = root.segmentCount(); node != null && i < count; i++)
+				node = node.children.get(root.segment(i));
+			if (node != null) {
+				List<IPath> paths = new ArrayList<>();
+				collect(node, root, paths);
+				if (!paths.isEmpty())
+					found.add(paths);
+			}
+		}
+		if (found.size() == 1)
+			return found.get(0);
+		// merge the resources with markers of several types
+		Set<IPath> result = new TreeSet<>(TREE_ORDER);
+		for (List<IPath> paths : found)
+			result.addAll(paths);
+		return new ArrayList<>(result);
+	}
+
+	/**
+	 * Adds the marked paths of the subtree of the given node in pre-order.
+	 */
+	private static void collect(Node node, IPath path, List<IPath> result) {
+		if (node.marked)
+			result.add(path);
+		for (Map.Entry<String, Node> child : node.children.entrySet())
+			collect(child.getValue(), path.append(child.getKey()), result);
+	}
+}
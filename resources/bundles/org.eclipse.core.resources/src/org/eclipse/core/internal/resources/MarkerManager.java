@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ package org.eclipse.core.internal.resources;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import org.eclipse.core.internal.localstore.SafeChunkyInputStream;
 import org.eclipse.core.internal.localstore.SafeFileInputStream;
 import org.eclipse.core.internal.utils.Messages;
@@ -29,8 +30,15 @@ import org.eclipse.osgi.util.NLS;
 
 /**
  * A marker manager stores and retrieves markers on resources in the workspace.
+ * <p>
+ * If the system property <code>org.eclipse.core.resources.markers.index</code>
+ * is set to <code>true</code>, the manager maintains a {@link MarkerIndex} of
+ * the resources with markers, which deep searches and severity queries use
+ * instead of visiting every resource below the search root.
+ * </p>
  */
 public class MarkerManager implements IManager {
+	private static final boolean INDEXED = Boolean.getBoolean("org.eclipse.core.resources.markers.index"); //$NON-NLS-1$
 
 	// singletons
 	private static final MarkerInfo[] NO_MARKER_INFO = new MarkerInfo[0];
@@ -39,6 +47,7 @@ public class MarkerManager implements IManager {
 	private final AtomicLong changeId = new AtomicLong();
 	protected volatile Map<IPath, MarkerSet> currentDeltas = null;
 	protected final MarkerDeltaManager deltaManager = new MarkerDeltaManager();
+	private volatile MarkerIndex index = INDEXED ? new MarkerIndex() : null;
 
 	protected final Workspace workspace;
 	protected final MarkerWriter writer = new MarkerWriter(this);
@@ -56,6 +65,17 @@ public class MarkerManager implements IManager {
 	 * @see IResource#createMarker(String)
 	 */
 	public void add(IResource resource, MarkerInfo newMarker) throws CoreException {
+		add(resource, new MarkerInfo[] {newMarker});
+	}
+
+	/**
+	 * Adds the given markers to the given resource. The resource info is
+	 * modified once and a single marker change is recorded for all markers.
+	 *
+	 * @see IResource#createMarkers(String, List)
+	 */
+	public void add(IResource resource, MarkerInfo[] newMarkers) throws CoreException {
+		ensureRestored(resource);
 		Resource target = (Resource) resource;
 		ResourceInfo info = workspace.getResourceInfo(target.getFullPath(), false, false);
 		target.checkExists(target.getFlags(info), false);
@@ -65,13 +85,17 @@ public class MarkerManager implements IManager {
 			return;
 		// set the M_MARKERS_SNAP_DIRTY flag to indicate that this
 		// resource's markers have changed since the last snapshot
-		if (isPersistent(newMarker))
-			info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+		for (MarkerInfo newMarker : newMarkers) {
+			if (isPersistent(newMarker)) {
+				info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+				break;
+			}
+		}
 		// Concurrency: copy the marker set on modify
 		MarkerSet markers = info.getMarkers(true);
 		if (markers == null)
-			markers = new MarkerSet(1);
-		basicAdd(resource, markers, newMarker);
+			markers = new MarkerSet(newMarkers.length);
+		basicAdd(resource, markers, newMarkers);
 		if (!markers.isEmpty())
 			info.setMarkers(markers);
 	}
@@ -81,13 +105,23 @@ public class MarkerManager implements IManager {
 	 * associated with the specified resource.IMarkerDeltas for Added markers are
 	 * generated.
 	 */
-	private void basicAdd(IResource resource, MarkerSet markers, MarkerInfo newMarker) {
-		markers.add(newMarker);
-		IMarkerSetElement[] changes = new IMarkerSetElement[1];
-		changes[0] = new MarkerDelta(IResourceDelta.ADDED, resource, newMarker);
+	private void basicAdd(IResource resource, MarkerSet markers, MarkerInfo[] newMarkers) {
+		IMarkerSetElement[] changes = new IMarkerSetElement[newMarkers.length];
+		for (int i = 0; i < newMarkers.length; i++) {
+			markers.add(newMarkers[i]);
+			changes[i] = new MarkerDelta(IResourceDelta.ADDED, resource, newMarkers[i]);
+		}
 		changedMarkers(resource, changes);
 	}
 
+	/**
+	 * Restores the markers of the project of the given resource, or of all
+	 * projects for the workspace root, if restoring them was deferred.
+	 */
+	private void ensureRestored(IResource resource) {
+		workspace.getSaveManager().getDeferredRestore().ensureRestored(resource);
+	}
+
 	/**
 	 * Returns the markers in the given set of markers which match the given type.
 	 */
@@ -235,6 +269,84 @@ public class MarkerManager implements IManager {
 		ResourceInfo info = workspace.getResourceInfo(path, false, true);
 		if (info != null)
 			info.incrementMarkerGenerationCount();
+		MarkerIndex markerIndex = index;
+		if (markerIndex != null)
+			markerIndex.changed(path, changes, info == null ? null : info.getMarkers(false));
+	}
+
+	/**
+	 * Sets whether the manager maintains an index of the resources with
+	 * markers, regardless of the system property. A new index is built from
+	 * the markers in the tree, so this must be called while no markers change.
+	 * Used by tests.
+	 * @see TestingSupport#setMarkerIndex(boolean)
+	 */
+	void setIndexed(boolean indexed) {
+		if (!indexed) {
+			index = null;
+		} else if (index == null) {
+			MarkerIndex markerIndex = new MarkerIndex();
+			indexMarkers(markerIndex, Path.ROOT);
+			index = markerIndex;
+		}
+	}
+
+	/**
+	 * Rebuilds the index from the markers in the tree, if there is one. Must
+	 * be called while no markers change. Used by tests.
+	 */
+	void reindex() {
+		if (index != null) {
+			index = null;
+			setIndexed(true);
+		}
+	}
+
+	/**
+	 * Returns a filter that accepts the marker types matching the given type.
+	 */
+	private Predicate<String> typeFilter(String type, boolean includeSubtypes) {
+		if (type == null)
+			return markerType -> true;
+		if (includeSubtypes)
+			return markerType -> cache.isSubtype(markerType, type);
+		return type::equals;
+	}
+
+	/**
+	 * Adds the markers of the subtree at the given path to the index, if there
+	 * is one. Must be called when markers are put into the tree without
+	 * generating changes, like when they are restored or copied.
+	 */
+	void indexMarkers(IPath path) {
+		MarkerIndex markerIndex = index;
+		if (markerIndex != null)
+			indexMarkers(markerIndex, path);
+	}
+
+	private void indexMarkers(MarkerIndex markerIndex, IPath path) {
+		IElementContentVisitor visitor = (tree, requestor, elementContents) -> {
+			ResourceInfo info = (ResourceInfo) elementContents;
+			if (info == null)
+				return false;
+			MarkerSet markers = info.getMarkers(false);
+			if (markers != null)
+				markerIndex.addAll(markers, requestor.requestPath());
+			return true;
+		};
+		new ElementTreeIterator(workspace.getElementTree(), path).iterate(visitor);
+	}
+
+	/**
+	 * Adds the markers of the given info of the resource at the given path to
+	 * the index, if there is one.
+	 * @see #indexMarkers(IPath)
+	 */
+	void indexMarkers(IPath path, ResourceInfo info) {
+		MarkerIndex markerIndex = index;
+		MarkerSet markers = info.getMarkers(false);
+		if (markerIndex != null && markers != null)
+			markerIndex.addAll(markers, path);
 	}
 
 	/**
@@ -249,6 +361,7 @@ public class MarkerManager implements IManager {
 	 * Returns the marker with the given id or <code>null</code> if none is found.
 	 */
 	public MarkerInfo findMarkerInfo(IResource resource, long id) {
+		ensureRestored(resource);
 		ResourceInfo info = workspace.getResourceInfo(resource.getFullPath(), false, false);
 		if (info == null)
 			return null;
@@ -279,6 +392,7 @@ public class MarkerManager implements IManager {
 	 */
 	public void doFindMarkers(IResource target, ArrayList<IMarker> result, final String type,
 			final boolean includeSubtypes, int depth) {
+		ensureRestored(target);
 		// optimize the deep searches with an element tree visitor
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			visitorFindMarkers(target.getFullPath(), result, type, includeSubtypes);
@@ -291,6 +405,7 @@ public class MarkerManager implements IManager {
 	 * option to search the target's children.
 	 */
 	public int findMaxProblemSeverity(IResource target, String type, boolean includeSubtypes, int depth) {
+		ensureRestored(target);
 		// optimize the deep searches with an element tree visitor
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			return visitorFindMaxSeverity(target.getFullPath(), type, includeSubtypes);
@@ -346,6 +461,7 @@ public class MarkerManager implements IManager {
 	}
 
 	public void moved(final IResource source, final IResource destination, int depth) throws CoreException {
+		ensureRestored(source);
 		final int count = destination.getFullPath().segmentCount();
 
 		// we removed from the source and added to the destination
@@ -506,6 +622,7 @@ public class MarkerManager implements IManager {
 	 * <code>null</code> is a wildcard.
 	 */
 	public void removeMarkers(IResource target, final String type, final boolean includeSubtypes, int depth) {
+		ensureRestored(target);
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
 			visitorRemoveMarkers(target.getFullPath(), type, includeSubtypes);
 		else
@@ -524,6 +641,7 @@ public class MarkerManager implements IManager {
 		// first try and load the last saved file, then apply the snapshots
 		restoreFromSave(resource, generateDeltas);
 		restoreFromSnap(resource);
+		indexMarkers(resource.getFullPath());
 	}
 
 	protected void restoreFromSave(IResource resource, boolean generateDeltas) throws CoreException {
@@ -585,6 +703,16 @@ public class MarkerManager implements IManager {
 	 */
 	private void visitorFindMarkers(IPath path, final ArrayList<IMarker> list, final String type,
 			final boolean includeSubtypes) {
+		MarkerIndex markerIndex = index;
+		if (markerIndex != null) {
+			for (IPath candidate : markerIndex.find(path, typeFilter(type, includeSubtypes))) {
+				ResourceInfo info = workspace.getResourceInfo(candidate, true, false);
+				MarkerSet markers = info == null ? null : info.getMarkers(false);
+				if (markers != null)
+					buildMarkers(basicFindMatching(markers, type, includeSubtypes), candidate, info.getType(), list);
+			}
+			return;
+		}
 		IElementContentVisitor visitor = (tree, requestor, elementContents) -> {
 			ResourceInfo info = (ResourceInfo) elementContents;
 			if (info == null)
@@ -609,6 +737,20 @@ public class MarkerManager implements IManager {
 	 * Finds the max severity across problem markers for a subtree of resources.
 	 */
 	private int visitorFindMaxSeverity(IPath path, final String type, final boolean includeSubtypes) {
+		MarkerIndex markerIndex = index;
+		if (markerIndex != null) {
+			int max = -1;
+			for (IPath candidate : markerIndex.find(path, typeFilter(type, includeSubtypes))) {
+				ResourceInfo info = workspace.getResourceInfo(candidate, true, false);
+				MarkerSet markers = info == null ? null : info.getMarkers(false);
+				if (markers != null) {
+					max = Math.max(max, basicFindMaxSeverity(markers, type, includeSubtypes));
+					if (max >= IMarker.SEVERITY_ERROR)
+						break;
+				}
+			}
+			return max;
+		}
 		class MaxSeverityVisitor implements IElementContentVisitor {
 			int max = -1;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -170,30 +170,30 @@ public class MarkerWriter {
 	 * Write out the given marker attributes to the given output stream.
 	 */
 	private void write(MarkerAttributeMap markerAttributeMap, DataOutputStream output) throws IOException {
-		output.writeShort(markerAttributeMap.size());
-		for (Map.Entry<String, Object> e : markerAttributeMap.entrySet()) {
-			String key = e.getKey();
+		// a copy shares the current snapshot, so the count matches the attributes written
+		MarkerAttributeMap snapshot = new MarkerAttributeMap(markerAttributeMap);
+		output.writeShort(snapshot.size());
+		snapshot.forEach((key, value) -> {
 			output.writeUTF(key);
-			Object value = e.getValue();
 			if (value instanceof Integer) {
 				output.writeByte(ATTRIBUTE_INTEGER);
 				output.writeInt(((Integer) value).intValue());
-				continue;
+				return;
 			}
 			if (value instanceof Boolean) {
 				output.writeByte(ATTRIBUTE_BOOLEAN);
 				output.writeBoolean(((Boolean) value).booleanValue());
-				continue;
+				return;
 			}
 			if (value instanceof String) {
 				output.writeByte(ATTRIBUTE_STRING);
 				output.writeUTF((String) value);
-				continue;
+				return;
 			}
 			// otherwise we came across an attribute of an unknown type
 			// so just write out null since we don't know how to marshal it.
 			output.writeByte(ATTRIBUTE_NULL);
-		}
+		});
 	}
 
 	private void write(MarkerInfo info, DataOutputStream output, List<String> writtenTypes) throws IOException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2022 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -548,6 +548,8 @@ public class Project extends Container implements IProject {
 				final ISchedulingRule projectBuildRule = workspace.getBuildManager().getRule(config, trigger,
 						builderName, args);
 				final boolean relaxed = Job.getJobManager().currentRule() == null && workspace.isRelaxedRule(projectBuildRule);
+				// builders that run concurrently acquire their own rules, like in a relaxed workspace build
+				final ISchedulingRule buildRule = relaxed && builderName == null && workspace.getBuildManager().hasConcurrentBuilders(config) ? null : projectBuildRule;
 
 				// PRE + POST_BUILD, and the build itself are allowed to modify resources, so require the current thread's scheduling rule
 				// to either contain the WR or be null. Therefore, if not null, ensure it contains the WR rule...
@@ -565,7 +567,7 @@ public class Project extends Container implements IProject {
 					}
 					try {
 						IStatus result;
-						workspace.prepareOperation(projectBuildRule, innerMonitor);
+						workspace.prepareOperation(buildRule, innerMonitor);
 						// don't open the tree eagerly because it will be wasted if no build occurs
 						workspace.beginOperation(false);
 						result = workspace.getBuildManager().build(config, trigger, builderName, args,
@@ -573,7 +575,7 @@ public class Project extends Container implements IProject {
 						if (!result.isOK())
 							throw new ResourceException(result);
 					} finally {
-						workspace.endOperation(projectBuildRule, false);
+						workspace.endOperation(buildRule, false);
 						try {
 							workspace.prepareOperation(notificationsRule, innerMonitor);
 							// don't open the tree eagerly because it will be wasted if no change occurs
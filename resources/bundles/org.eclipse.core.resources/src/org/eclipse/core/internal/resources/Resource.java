@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -37,11 +37,10 @@ import org.eclipse.core.internal.watson.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.resources.team.IMoveDeleteHook;
 import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
-import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.core.runtime.jobs.*;
 import org.eclipse.osgi.util.NLS;
 
-public abstract class Resource extends PlatformObject implements IResource, ICoreConstants, Cloneable, IPathRequestor {
+public abstract class Resource extends PlatformObject implements IResource, ICoreConstants, Cloneable, IPathRequestor, IPathSchedulingRule {
 	final IPath path;
 	final Workspace workspace;
 
@@ -715,6 +714,35 @@ public abstract class Resource extends PlatformObject implements IResource, ICor
 			workspace.endOperation(rule, false);
 		}
 	}
+
+	@Override
+	public IMarker[] createMarkers(String type, List<? extends Map<String, ? extends Object>> attributes) throws CoreException {
+		Assert.isNotNull(type);
+		Assert.isNotNull(attributes);
+		final ISchedulingRule rule = workspace.getRuleFactory().markerRule(this);
+		try {
+			workspace.prepareOperation(rule, null);
+			checkAccessible(getFlags(getResourceInfo(false, false)));
+			workspace.beginOperation(true);
+			MarkerManager manager = workspace.getMarkerManager();
+			boolean validate = manager.isPersistentType(type);
+			long creationTime = System.currentTimeMillis();
+			MarkerInfo[] markerInfos = new MarkerInfo[attributes.size()];
+			int i = 0;
+			for (Map<String, ? extends Object> markerAttributes : attributes) {
+				markerInfos[i++] = new MarkerInfo(markerAttributes, validate, creationTime, type, workspace.nextMarkerId());
+			}
+			manager.add(this, markerInfos);
+			IMarker[] result = new IMarker[markerInfos.length];
+			for (i = 0; i < markerInfos.length; i++) {
+				result[i] = new Marker(this, markerInfos[i].getId());
+			}
+			return result;
+		} finally {
+			workspace.endOperation(rule, false);
+		}
+	}
+
 	@Override
 	public IResourceProxy createProxy() {
 		ResourceProxy result = new ResourceProxy();
@@ -1073,6 +1101,15 @@ public abstract class Resource extends PlatformObject implements IResource, ICor
 		return path;
 	}
 
+	/**
+	 * Resources are scheduling rules for the subtree of their workspace below
+	 * their path, see {@link #isConflicting(ISchedulingRule)}.
+	 */
+	@Override
+	public Object getPathScope() {
+		return workspace;
+	}
+
 	public FileSystemResourceManager getLocalManager() {
 		return workspace.getFileSystemManager();
 	}
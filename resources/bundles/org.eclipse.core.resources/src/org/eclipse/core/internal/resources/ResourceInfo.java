@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,11 +26,53 @@ import org.eclipse.core.runtime.QualifiedName;
 
 /**
  * A data structure containing the in-memory state of a resource in the workspace.
+ * <p>
+ * There is one info per resource, so the info only holds primitive state
+ * directly. The file store root, markers, session properties and sync info are
+ * only present on few resources and are kept in separate {@link Attachments},
+ * which are not allocated for the others.
+ * </p>
  */
 public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPoolParticipant {
 	protected static final int LOWER = 0xFFFF;
 	protected static final int UPPER = 0xFFFF0000;
 
+	/**
+	 * The rarely present state of a resource info. Attachments are copied
+	 * together with their info, and discarded once they are empty.
+	 * <p>
+	 * The maps are declared as the implementing class rather than the
+	 * interface so we ensure that we get it right since we are making certain
+	 * assumptions about the object type w.r.t. casting.
+	 * </p>
+	 */
+	protected static final class Attachments implements Cloneable {
+		/** The file system root that this resource is stored in */
+		FileStoreRoot fileStoreRoot;
+
+		/** The collection of markers for this resource. */
+		MarkerSet markers;
+
+		/** The properties which are maintained for the lifecycle of the workspace. */
+		ObjectMap<QualifiedName, Object> sessionProperties;
+
+		/** The table of sync information. */
+		ObjectMap<QualifiedName, Object> syncInfo;
+
+		boolean isEmpty() {
+			return fileStoreRoot == null && markers == null && sessionProperties == null && syncInfo == null;
+		}
+
+		@Override
+		protected Attachments clone() {
+			try {
+				return (Attachments) super.clone();
+			} catch (CloneNotSupportedException e) {
+				return null; // never gets here.
+			}
+		}
+	}
+
 	/**
 	 * This field stores the resource modification stamp in the lower two bytes,
 	 * and the character set generation count in the higher two bytes.
@@ -38,9 +80,11 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	protected volatile int charsetAndContentId;
 
 	/**
-	 * The file system root that this resource is stored in
+	 * The file store root, markers, session properties and sync info, or
+	 * <code>null</code> if the resource has none of them. The attachments are
+	 * only modified while holding the lock of this info.
 	 */
-	protected FileStoreRoot fileStoreRoot;
+	protected volatile Attachments attachments;
 
 	/** Set of flags which reflect various states of the info (used, derived, ...). */
 	protected int flags;
@@ -55,9 +99,6 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	protected volatile int markerAndSyncStamp;
 
-	/** The collection of markers for this resource. */
-	protected MarkerSet markers;
-
 	/** Modification stamp */
 	protected long modStamp;
 
@@ -65,24 +106,6 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	// thread safety: (Concurrency004)
 	protected volatile long nodeId;
 
-	/**
-	 * The properties which are maintained for the lifecycle of the workspace.
-	 * <p>
-	 * This field is declared as the implementing class rather than the
-	 * interface so we ensure that we get it right since we are making certain
-	 * assumptions about the object type w.r.t. casting.
-	 */
-	protected ObjectMap<QualifiedName, Object> sessionProperties;
-
-	/**
-	 * The table of sync information.
-	 * <p>
-	 * This field is declared as the implementing class rather than the
-	 * interface so we ensure that we get it right since we are making certain
-	 * assumptions about the object type w.r.t. casting.
-	 */
-	protected ObjectMap<QualifiedName, Object> syncInfo;
-
 	/**
 	 * Default constructor (for easier debugging)
 	 */
@@ -128,18 +151,46 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	}
 
 	public synchronized void clearSessionProperties() {
-		sessionProperties = null;
+		Attachments temp = attachments;
+		if (temp == null)
+			return;
+		temp.sessionProperties = null;
+		trimAttachments(temp);
 	}
 
 	@Override
 	public Object clone() {
 		try {
-			return super.clone();
+			ResourceInfo copy = (ResourceInfo) super.clone();
+			Attachments temp = attachments;
+			if (temp != null)
+				copy.attachments = temp.clone();
+			return copy;
 		} catch (CloneNotSupportedException e) {
 			return null; // never gets here.
 		}
 	}
 
+	/**
+	 * Returns the attachments of this info for modification, creating them if
+	 * necessary. Must be called while holding the lock of this info.
+	 */
+	private Attachments modifyAttachments() {
+		Attachments temp = attachments;
+		if (temp == null)
+			attachments = temp = new Attachments();
+		return temp;
+	}
+
+	/**
+	 * Discards the given attachments if they have become empty. Must be called
+	 * while holding the lock of this info.
+	 */
+	private void trimAttachments(Attachments temp) {
+		if (temp.isEmpty() && attachments == temp)
+			attachments = null;
+	}
+
 	public int getCharsetGenerationCount() {
 		return charsetAndContentId >> 16;
 	}
@@ -149,7 +200,8 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	}
 
 	public FileStoreRoot getFileStoreRoot() {
-		return fileStoreRoot;
+		Attachments temp = attachments;
+		return temp == null ? null : temp.fileStoreRoot;
 	}
 
 	/**
@@ -187,6 +239,8 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 * <code>null</code> is returned if there are none.
 	 */
 	public MarkerSet getMarkers(boolean makeCopy) {
+		Attachments temp = attachments;
+		MarkerSet markers = temp == null ? null : temp.markers;
 		if (markers == null)
 			return null;
 		return makeCopy ? (MarkerSet) markers.clone() : markers;
@@ -214,11 +268,11 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	@SuppressWarnings({"unchecked"})
 	public Map<QualifiedName, Object> getSessionProperties() {
 		// thread safety: (Concurrency001)
-		ObjectMap<QualifiedName, Object> temp = sessionProperties;
+		ObjectMap<QualifiedName, Object> temp = getSessionPropertiesMap();
 		if (temp == null)
 			temp = new ObjectMap<>(5);
 		else
-			temp = (ObjectMap<QualifiedName, Object>) sessionProperties.clone();
+			temp = (ObjectMap<QualifiedName, Object>) temp.clone();
 		return temp;
 	}
 
@@ -227,12 +281,17 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	public Object getSessionProperty(QualifiedName name) {
 		// thread safety: (Concurrency001)
-		Map<QualifiedName, Object> temp = sessionProperties;
+		Map<QualifiedName, Object> temp = getSessionPropertiesMap();
 		if (temp == null)
 			return null;
 		return temp.get(name);
 	}
 
+	private ObjectMap<QualifiedName, Object> getSessionPropertiesMap() {
+		Attachments temp = attachments;
+		return temp == null ? null : temp.sessionProperties;
+	}
+
 	/**
 	 * The parameter to this method is the implementing class rather than the
 	 * interface so we ensure that we get it right since we are making certain
@@ -240,6 +299,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	@SuppressWarnings({"unchecked"})
 	public synchronized ObjectMap<QualifiedName, Object> getSyncInfo(boolean makeCopy) {
+		ObjectMap<QualifiedName, Object> syncInfo = getSyncInfoMap();
 		if (syncInfo == null)
 			return null;
 		return makeCopy ? (ObjectMap<QualifiedName, Object>) syncInfo.clone() : syncInfo;
@@ -248,12 +308,18 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	public synchronized byte[] getSyncInfo(QualifiedName id, boolean makeCopy) {
 		// thread safety: (Concurrency001)
 		byte[] b;
+		ObjectMap<QualifiedName, Object> syncInfo = getSyncInfoMap();
 		if (syncInfo == null)
 			return null;
 		b = (byte[]) syncInfo.get(id);
 		return b == null ? null : (makeCopy ? (byte[]) b.clone() : b);
 	}
 
+	private ObjectMap<QualifiedName, Object> getSyncInfoMap() {
+		Attachments temp = attachments;
+		return temp == null ? null : temp.syncInfo;
+	}
+
 	/**
 	 * Returns the sync information generation count.
 	 * The count is incremented whenever sync info on the resource changes.
@@ -352,8 +418,12 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 		flags = temp;
 	}
 
-	public void setFileStoreRoot(FileStoreRoot fileStoreRoot) {
-		this.fileStoreRoot = fileStoreRoot;
+	public synchronized void setFileStoreRoot(FileStoreRoot fileStoreRoot) {
+		if (fileStoreRoot == null && attachments == null)
+			return;
+		Attachments temp = modifyAttachments();
+		temp.fileStoreRoot = fileStoreRoot;
+		trimAttachments(temp);
 	}
 
 	/**
@@ -374,8 +444,12 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 * Sets the collection of makers for this resource.
 	 * <code>null</code> is passed in if there are no markers.
 	 */
-	public void setMarkers(MarkerSet value) {
-		markers = value;
+	public synchronized void setMarkers(MarkerSet value) {
+		if (value == null && attachments == null)
+			return;
+		Attachments temp = modifyAttachments();
+		temp.markers = value;
+		trimAttachments(temp);
 	}
 
 	/**
@@ -410,15 +484,15 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	@SuppressWarnings({"unchecked"})
 	public synchronized void setSessionProperty(QualifiedName name, Object value) {
 		// thread safety: (Concurrency001)
+		ObjectMap<QualifiedName, Object> sessionProperties = getSessionPropertiesMap();
 		if (value == null) {
 			if (sessionProperties == null)
 				return;
 			ObjectMap<QualifiedName, Object> temp = (ObjectMap<QualifiedName, Object>) sessionProperties.clone();
 			temp.remove(name);
-			if (temp.isEmpty())
-				sessionProperties = null;
-			else
-				sessionProperties = temp;
+			Attachments attached = modifyAttachments();
+			attached.sessionProperties = temp.isEmpty() ? null : temp;
+			trimAttachments(attached);
 		} else {
 			ObjectMap<QualifiedName, Object> temp = sessionProperties;
 			if (temp == null)
@@ -426,7 +500,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 			else
 				temp = (ObjectMap<QualifiedName, Object>) sessionProperties.clone();
 			temp.put(name, value);
-			sessionProperties = temp;
+			modifyAttachments().sessionProperties = temp;
 		}
 	}
 
@@ -435,22 +509,27 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 * interface so we ensure that we get it right since we are making certain
 	 * assumptions about the object type w.r.t. casting.
 	 */
-	protected void setSyncInfo(ObjectMap<QualifiedName, Object> syncInfo) {
-		this.syncInfo = syncInfo;
+	protected synchronized void setSyncInfo(ObjectMap<QualifiedName, Object> syncInfo) {
+		if (syncInfo == null && attachments == null)
+			return;
+		Attachments temp = modifyAttachments();
+		temp.syncInfo = syncInfo;
+		trimAttachments(temp);
 	}
 
 	public synchronized void setSyncInfo(QualifiedName id, byte[] value) {
+		ObjectMap<QualifiedName, Object> syncInfo = getSyncInfoMap();
 		if (value == null) {
 			//delete sync info
 			if (syncInfo == null)
 				return;
 			syncInfo.remove(id);
 			if (syncInfo.isEmpty())
-				syncInfo = null;
+				setSyncInfo(null);
 		} else {
 			//add sync info
 			if (syncInfo == null)
-				syncInfo = new ObjectMap<>(5);
+				setSyncInfo(syncInfo = new ObjectMap<>(5));
 			syncInfo.put(id, value.clone());
 		}
 	}
@@ -468,13 +547,16 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	@Override
 	public void shareStrings(StringPool set) {
-		ObjectMap<QualifiedName, Object> map = syncInfo;
+		Attachments temp = attachments;
+		if (temp == null)
+			return;
+		ObjectMap<QualifiedName, Object> map = temp.syncInfo;
 		if (map != null)
 			map.shareStrings(set);
-		map = sessionProperties;
+		map = temp.sessionProperties;
 		if (map != null)
 			map.shareStrings(set);
-		MarkerSet markerSet = markers;
+		MarkerSet markerSet = temp.markers;
 		if (markerSet != null)
 			markerSet.shareStrings(set);
 	}
@@ -492,6 +574,6 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	/** for debugging only **/
 	@Override
 	public String toString() {
-		return "" + fileStoreRoot + " modStamp=" + modStamp; //$NON-NLS-1$ //$NON-NLS-2$
+		return "" + getFileStoreRoot() + " modStamp=" + modStamp; //$NON-NLS-1$ //$NON-NLS-2$
 	}
 }
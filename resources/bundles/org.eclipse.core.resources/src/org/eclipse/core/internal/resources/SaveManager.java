@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -76,6 +76,12 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 */
 	private static final long MIN_SNAPSHOT_DELAY = 1000 * 30L; //30 seconds
 
+	/**
+	 * Whether snapshots of markers and sync info only visit the resources that
+	 * changed since the last snapshot, instead of the entire workspace.
+	 */
+	private static final boolean SNAPSHOT_JOURNAL = Boolean.getBoolean("org.eclipse.core.resources.snapshot.journal"); //$NON-NLS-1$
+
 	/**
 	 * The number of empty operations that are equivalent to a single non-
 	 * trivial operation.
@@ -126,6 +132,18 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 */
 	protected Map<String, ISaveParticipant> saveParticipants;
 
+	/**
+	 * Projects whose saved tree could not be restored completely. They are
+	 * refreshed from the file system once the workspace is open.
+	 */
+	private final Set<IProject> projectsToRefresh = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Restores the markers and sync info of projects after startup, if
+	 * enabled.
+	 */
+	private final DeferredProjectRestore deferredRestore;
+
 	protected final DelayedSnapshotJob snapshotJob;
 
 	protected volatile boolean snapshotRequested;
@@ -143,6 +161,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		this.workspace = workspace;
 		this.masterTable = new MasterTable();
 		this.snapshotJob = new DelayedSnapshotJob(this, workspace);
+		this.deferredRestore = new DeferredProjectRestore(workspace);
 		snapshotRequested = false;
 		snapshotRequestor = null;
 		saveParticipants = Collections.synchronizedMap(new HashMap<>(10));
@@ -634,6 +653,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		String[] candidates = target.list(filter);
 		if (candidates != null)
 			removeFiles(target, candidates, valuables);
+		WorkspaceTreeShards.removeUnusedShards(target, location);
 
 		// projects
 		IProject[] projects = workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
@@ -652,6 +672,27 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			Policy.log(snapshotRequestor);
 	}
 
+	/**
+	 * Requests the given project to be refreshed once the workspace is open.
+	 */
+	void requestRefresh(IProject project) {
+		projectsToRefresh.add(project);
+	}
+
+	/**
+	 * Returns the projects that have been requested to be refreshed since the
+	 * last call, and forgets about them.
+	 */
+	IProject[] takeProjectsToRefresh() {
+		IProject[] result = projectsToRefresh.toArray(new IProject[0]);
+		projectsToRefresh.removeAll(Arrays.asList(result));
+		return result;
+	}
+
+	DeferredProjectRestore getDeferredRestore() {
+		return deferredRestore;
+	}
+
 	public void requestSnapshot() {
 		snapshotRequested = true;
 	}
@@ -714,6 +755,11 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				restoreTree(Policy.subMonitorFor(monitor, 10));
 				restoreSnapshots(Policy.subMonitorFor(monitor, 10));
 
+				if (DeferredProjectRestore.ENABLED) {
+					for (IProject project : workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN))
+						if (project.isAccessible())
+							deferredRestore.defer(project);
+				}
 				// tolerate failure for non-critical information
 				// if startup fails, the entire workspace is shot
 				try {
@@ -831,7 +877,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject project : projects)
-			if (project.isAccessible())
+			if (project.isAccessible() && !deferredRestore.isPending(project))
 				markerManager.restore(project, generateDeltas, monitor);
 		if (Policy.DEBUG_RESTORE_MARKERS) {
 			Policy.debug("Restore Markers for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1019,7 +1065,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject project : projects)
-			if (project.isAccessible())
+			if (project.isAccessible() && !deferredRestore.isPending(project))
 				synchronizer.restore(project, monitor);
 		if (Policy.DEBUG_RESTORE_SYNCINFO) {
 			Policy.debug("Restore SyncInfo for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1159,6 +1205,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			message = Messages.resources_saveWarnings;
 			MultiStatus warnings = new MultiStatus(ResourcesPlugin.PI_RESOURCES, IStatus.WARNING, message, null);
 			ISchedulingRule rule = project != null ? (IResource) project : workspace.getRoot();
+			// markers and sync info that were never restored must not be saved as empty
+			if (kind != ISaveContext.SNAPSHOT)
+				deferredRestore.ensureRestored(project != null ? project : workspace.getRoot());
 			try {
 				workspace.prepareOperation(rule, monitor);
 				workspace.beginOperation(false);
@@ -1201,11 +1250,15 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 							saveMetaInfo(warnings, Policy.subMonitorFor(monitor, 1));
 							break;
 						case ISaveContext.SNAPSHOT :
+							ElementTree previousSnap = lastSnap;
 							snapTree(workspace.getElementTree(), Policy.subMonitorFor(monitor, 1));
 							// snapshot the markers and sync info for the workspace
 							persistMarkers = 0l;
 							persistSyncInfo = 0l;
-							visitAndSnap(workspace.getRoot());
+							if (SNAPSHOT_JOURNAL)
+								visitAndSnap(workspace.getRoot(), previousSnap);
+							else
+								visitAndSnap(workspace.getRoot());
 							monitor.worked(1);
 							if (Policy.DEBUG_SAVE) {
 								Policy.debug("Total Snap Markers: " + persistMarkers + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1391,8 +1444,13 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			try (
 				DataOutputStream output = new DataOutputStream(new SafeFileOutputStream(treeLocation.toOSString(), tempLocation.toOSString()));
 			) {
-				output.writeInt(ICoreConstants.WORKSPACE_TREE_VERSION_2);
-				writeTree(computeStatesToSave(contexts, workspace.getElementTree()), output, monitor);
+				if (WorkspaceTreeShards.ENABLED) {
+					output.writeInt(ICoreConstants.WORKSPACE_TREE_VERSION_3);
+					writeTree(computeStatesToSave(contexts, workspace.getElementTree()), output, WorkspaceTreeShards.getShardsLocation(treeLocation), monitor);
+				} else {
+					output.writeInt(ICoreConstants.WORKSPACE_TREE_VERSION_2);
+					writeTree(computeStatesToSave(contexts, workspace.getElementTree()), output, monitor);
+				}
 			}
 		} catch (Exception e) {
 			String msg = NLS.bind(Messages.resources_writeWorkspaceMeta, treeLocation);
@@ -1429,6 +1487,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			snapshotJob.run(SubMonitor.convert(monitor));
 		// cancel the snapshot job
 		snapshotJob.cancel();
+		deferredRestore.shutdown();
 	}
 
 	/**
@@ -1797,11 +1856,49 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * FIXME: This method is ugly. Fix it up and look at merging with #visitAndSnap
 	 */
 	public void visitAndSnap(final IResource root) throws CoreException {
+		visitAndSnap(root, null, null);
+	}
+
+	/**
+	 * Writes out the markers and sync info of the workspace that changed since
+	 * the given snapshot of the workspace tree. Markers and sync info can only
+	 * change together with the element data of their resource, so only the
+	 * resources in the deltas between that snapshot and the current tree are
+	 * visited. Falls back to visiting all resources if the snapshot is not
+	 * part of the delta chain of the current tree.
+	 */
+	protected void visitAndSnap(IWorkspaceRoot root, ElementTree previousSnap) throws CoreException {
+		ElementTree current = workspace.getElementTree();
+		Set<IPath> changed = new HashSet<>();
+		Set<IPath> deleted = new HashSet<>();
+		if (previousSnap == null || !previousSnap.getDataTree().collectChangedKeys(current.getDataTree(), changed, deleted)) {
+			visitAndSnap(root);
+			return;
+		}
+		visitAndSnap(root, groupByProject(changed), groupByProject(deleted));
+	}
+
+	private static Map<String, List<IPath>> groupByProject(Set<IPath> paths) {
+		Map<String, List<IPath>> result = new HashMap<>();
+		for (IPath path : paths)
+			result.computeIfAbsent(path.segment(0), k -> new ArrayList<>()).add(path);
+		return result;
+	}
+
+	/**
+	 * Visits the given resource and writes out the markers and sync info.
+	 * If changes are given by project name, only the changed resources of a
+	 * project and the subtrees below the deleted ones are visited.
+	 */
+	private void visitAndSnap(final IResource root, Map<String, List<IPath>> changed, Map<String, List<IPath>> deleted) throws CoreException {
 		// Ensure we have either a project or the workspace root
 		Assert.isLegal(root.getType() == IResource.ROOT || root.getType() == IResource.PROJECT);
 		// only write out info for accessible resources
 		if (!root.isAccessible())
 			return;
+		// nothing to write for projects without changes
+		if (changed != null && root.getType() == IResource.PROJECT && !changed.containsKey(root.getName()) && !deleted.containsKey(root.getName()))
+			return;
 
 		// Setup variables
 		final Synchronizer synchronizer = (Synchronizer) workspace.getSynchronizer();
@@ -1869,7 +1966,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		try {
 			// Call the visitor
 			try {
-				new ElementTreeIterator(workspace.getElementTree(), root.getFullPath()).iterate(visitor);
+				if (changed == null || root.getType() == IResource.ROOT)
+					new ElementTreeIterator(workspace.getElementTree(), root.getFullPath()).iterate(visitor);
+				else
+					visitChanges(changed.get(root.getName()), deleted.get(root.getName()), visitor);
 			} catch (WrappedRuntimeException e) {
 				throw (IOException) e.getTargetException();
 			}
@@ -1897,7 +1997,40 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			return;
 		IProject[] projects = ((IWorkspaceRoot) root).getProjects(IContainer.INCLUDE_HIDDEN);
 		for (IProject project : projects)
-			visitAndSnap(project);
+			visitAndSnap(project, changed, deleted);
+	}
+
+	/**
+	 * Calls the visitor for the given changed resources, and for all resources
+	 * in the subtrees below the given deleted ones that exist again.
+	 */
+	private void visitChanges(List<IPath> changed, List<IPath> deleted, IElementContentVisitor visitor) {
+		ElementTree tree = workspace.getElementTree();
+		if (changed != null) {
+			for (IPath path : changed) {
+				ResourceInfo info = workspace.getResourceInfo(path, true, false);
+				if (info == null)
+					continue;
+				IPathRequestor requestor = new IPathRequestor() {
+					@Override
+					public String requestName() {
+						return path.lastSegment();
+					}
+
+					@Override
+					public IPath requestPath() {
+						return path;
+					}
+				};
+				visitor.visitElement(tree, requestor, info);
+			}
+		}
+		if (deleted != null) {
+			for (IPath path : deleted) {
+				if (tree.includes(path))
+					new ElementTreeIterator(tree, path).iterate(visitor);
+			}
+		}
 	}
 
 	/**
@@ -2003,6 +2136,19 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 */
 	protected void writeTree(Map<String, ElementTree> statesToSave, DataOutputStream output, IProgressMonitor monitor)
 			throws IOException, CoreException {
+		writeTree(statesToSave, output, null, monitor);
+	}
+
+	/**
+	 * Writes the workspace trees like {@link #writeTree(Map, DataOutputStream, IProgressMonitor)}.
+	 * If a shards directory is given, the trees are split into project shards
+	 * written to that directory, for WorkspaceTreeReader version 3.
+	 *
+	 * @see WorkspaceTreeShards
+	 * @see WorkspaceTreeReader_3
+	 */
+	private void writeTree(Map<String, ElementTree> statesToSave, DataOutputStream output, java.io.File shardsLocation, IProgressMonitor monitor)
+			throws IOException, CoreException {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, 10);
 		boolean wasImmutable = false;
 		try {
@@ -2051,8 +2197,12 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			/* save the forest! */
 			ElementTreeWriter writer = new ElementTreeWriter(this);
 			ElementTree[] treesToSave = trees.toArray(new ElementTree[trees.size()]);
-			writer.writeDeltaChain(treesToSave, Path.ROOT, ElementTreeWriter.D_INFINITE, output,
-					ResourceComparator.getSaveComparator());
+			if (shardsLocation == null)
+				writer.writeDeltaChain(treesToSave, Path.ROOT, ElementTreeWriter.D_INFINITE, output,
+						ResourceComparator.getSaveComparator());
+			else
+				new WorkspaceTreeShards(workspace).write(writer, treesToSave, shardsLocation, output,
+						ResourceComparator.getSaveComparator());
 			subMonitor.worked(4);
 
 			// Since 3.7: Save the additional builders info
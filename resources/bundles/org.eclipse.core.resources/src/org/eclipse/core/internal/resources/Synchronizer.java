@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -49,6 +49,7 @@ public class Synchronizer implements ISynchronizer {
 		Assert.isLegal(partner != null);
 		Assert.isLegal(resource != null);
 		Assert.isLegal(visitor != null);
+		workspace.getSaveManager().getDeferredRestore().ensureRestored(resource);
 
 		// if we don't have sync info for the given identifier, then skip it
 		if (getSyncInfo(partner, resource) != null) {
@@ -103,6 +104,7 @@ public class Synchronizer implements ISynchronizer {
 	 */
 	@Override
 	public QualifiedName[] getPartners() {
+		// the partners are read with the workspace tree, they are never deferred
 		return registry.toArray(new QualifiedName[registry.size()]);
 	}
 
@@ -126,6 +128,7 @@ public class Synchronizer implements ISynchronizer {
 			throw new ResourceException(new ResourceStatus(IResourceStatus.PARTNER_NOT_REGISTERED, message));
 		}
 
+		workspace.getSaveManager().getDeferredRestore().ensureRestored(resource);
 		// namespace check, if the resource doesn't exist then return null
 		ResourceInfo info = workspace.getResourceInfo(resource.getFullPath(), true, false);
 		return (info == null) ? null : info.getSyncInfo(partner, true);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,12 @@
  *******************************************************************************/
 package org.eclipse.core.internal.resources;
 
+import java.util.List;
 import java.util.Properties;
-import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.internal.dtree.DeltaDataTree;
+import org.eclipse.core.internal.events.ResourceDeltaFactory;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.refresh.IRefreshMonitor;
 
 /**
  * Provides special internal access to the workspace resource implementation.
@@ -43,6 +47,66 @@ public class TestingSupport {
 		}
 	}
 
+	/**
+	 * Sets whether operations confined to projects release the workspace lock
+	 * while they write file contents, regardless of the
+	 * <code>org.eclipse.core.resources.projectConcurrency</code> system property.
+	 * @since 3.19
+	 */
+	public static void setProjectConcurrency(boolean value) {
+		WorkManager.setProjectConcurrency(value);
+	}
+
+	/**
+	 * Sets whether the marker manager maintains an index of the resources with
+	 * markers, regardless of the
+	 * <code>org.eclipse.core.resources.markers.index</code> system property.
+	 * Must be called while no markers change.
+	 * @since 3.19
+	 */
+	public static void setMarkerIndex(boolean value) {
+		((Workspace) ResourcesPlugin.getWorkspace()).getMarkerManager().setIndexed(value);
+	}
+
+	/**
+	 * Forgets the markers and sync info of the given project, and restores
+	 * them from the workspace metadata when they are next accessed, like with
+	 * the <code>org.eclipse.core.resources.lazyProjectRestore</code> system
+	 * property. The workspace must have been saved with a full save, and the
+	 * project must not change until this method returns.
+	 * @since 3.19
+	 */
+	public static void deferRestore(IProject project) {
+		((Workspace) ResourcesPlugin.getWorkspace()).getSaveManager().getDeferredRestore().unload(project);
+	}
+
+	/**
+	 * Sets the number of changed resources above which the projects and their
+	 * members are compared and their deltas created concurrently, and returns
+	 * the previous number.
+	 * @since 3.19
+	 */
+	public static int setParallelDeltaThreshold(int threshold) {
+		return DeltaDataTree.setParallelThreshold(threshold);
+	}
+
+	/**
+	 * Returns the number of resource deltas whose children were created
+	 * concurrently so far.
+	 * @since 3.19
+	 */
+	public static long getConcurrentDeltaCount() {
+		return ResourceDeltaFactory.getConcurrentNodeCount();
+	}
+
+	/**
+	 * Returns the refresh monitors that are installed on the given resource.
+	 * @since 3.19
+	 */
+	public static List<IRefreshMonitor> getRefreshMonitors(IResource resource) {
+		return ((Workspace) ResourcesPlugin.getWorkspace()).getRefreshManager().getMonitors(resource);
+	}
+
 	/*
 	 * Class cannot be instantiated.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,8 +33,16 @@ import org.eclipse.core.runtime.jobs.*;
  * This class also tracks operation state for each thread that is involved in an
  * operation. This includes prepared and running operation depth, auto-build
  * strategy and cancel state.
+ * <p>
+ * If the system property <code>org.eclipse.core.resources.projectConcurrency</code>
+ * is set to <code>true</code>, operations whose scheduling rule is confined to
+ * projects release the lock while they transfer file contents, see
+ * {@link #beginUnprotectedWrite(IResource)}.
+ * </p>
  */
 public class WorkManager implements IManager {
+	private static volatile boolean projectConcurrency = Boolean.getBoolean("org.eclipse.core.resources.projectConcurrency"); //$NON-NLS-1$
+
 	/**
 	 * Scheduling rule for use during resource change notification. This rule
 	 * must always be allowed to nest within a resource rule of any granularity
@@ -82,6 +90,15 @@ public class WorkManager implements IManager {
 
 	private NotifyRule notifyRule = new NotifyRule();
 
+	/**
+	 * Guards the number of threads that write file contents without holding
+	 * the lock, and the number of threads without a scheduling rule that wait
+	 * for them before acquiring the lock.
+	 */
+	private final Object unprotectedWrites = new Object();
+	private int unprotectedWriters = 0;
+	private int waitingUnruledThreads = 0;
+
 	private boolean operationCanceled = false;
 
 	/**
@@ -110,6 +127,88 @@ public class WorkManager implements IManager {
 		return depth;
 	}
 
+	/**
+	 * Releases the workspace lock like {@link #beginUnprotected()} while the
+	 * current thread transfers the contents of the given resource to or from
+	 * the file system, if project concurrency is enabled and the scheduling
+	 * rule of the thread contains the resource but not the workspace root. The
+	 * rule then keeps other writers away from the resource, while operations on
+	 * other projects can modify the tree in the meantime. As with any lock
+	 * released during an operation, their changes are broadcast together with
+	 * the changes of the enclosing top level operation.
+	 * <p>
+	 * Threads without a scheduling rule are not confined to any part of the
+	 * tree, so they don't acquire the lock until all unprotected writes have
+	 * ended, and no unprotected write begins while one of them is waiting.
+	 * </p>
+	 * @return the old lock depth to pass to {@link #endUnprotectedWrite(int)},
+	 * or <code>-1</code> if the lock was not released
+	 */
+	public int beginUnprotectedWrite(IResource resource) {
+		if (!projectConcurrency || workspace.isTreeLocked() || lock.getDepth() == 0)
+			return -1;
+		ISchedulingRule rule = jobManager.currentRule();
+		if (rule == null || !rule.contains(resource) || rule.contains(workspace.getRoot()))
+			return -1;
+		synchronized (unprotectedWrites) {
+			if (waitingUnruledThreads > 0)
+				return -1;
+			unprotectedWriters++;
+		}
+		return beginUnprotected();
+	}
+
+	/**
+	 * Re-acquires the workspace lock released by
+	 * {@link #beginUnprotectedWrite(IResource)}. Has no effect if the depth is
+	 * negative.
+	 */
+	public void endUnprotectedWrite(int depth) {
+		if (depth < 0)
+			return;
+		try {
+			endUnprotected(depth);
+		} finally {
+			synchronized (unprotectedWrites) {
+				if (--unprotectedWriters == 0)
+					unprotectedWrites.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Acquires the workspace lock. A thread without a scheduling rule that does
+	 * not hold the lock yet first waits for the unprotected writes to end.
+	 * @see #beginUnprotectedWrite(IResource)
+	 */
+	private void acquireLock() {
+		if (!projectConcurrency || lock.getDepth() > 0 || jobManager.currentRule() != null) {
+			lock.acquire();
+			return;
+		}
+		boolean interrupted = false;
+		synchronized (unprotectedWrites) {
+			waitingUnruledThreads++;
+			while (unprotectedWriters > 0) {
+				try {
+					unprotectedWrites.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		try {
+			lock.acquire();
+		} finally {
+			//only allow new unprotected writes once this thread owns the lock
+			synchronized (unprotectedWrites) {
+				waitingUnruledThreads--;
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * An operation calls this method and it only returns when the operation is
 	 * free to run.
@@ -122,7 +221,7 @@ public class WorkManager implements IManager {
 				throw new ResourceException(IResourceStatus.WORKSPACE_LOCKED, null, msg, null);
 			}
 			jobManager.beginRule(rule, monitor);
-			lock.acquire();
+			acquireLock();
 			incrementPreparedOperations();
 			success = true;
 		} finally {
@@ -187,7 +286,7 @@ public class WorkManager implements IManager {
 	 */
 	public void endUnprotected(int depth) {
 		for (int i = 0; i < depth; i++)
-			lock.acquire();
+			acquireLock();
 	}
 
 	/**
@@ -332,4 +431,13 @@ public class WorkManager implements IManager {
 			jobManager.endRule(workspace.getRoot());
 		}
 	}
+
+	/**
+	 * Sets whether operations confined to projects release the lock while they
+	 * transfer file contents. Used by tests.
+	 * @see TestingSupport#setProjectConcurrency(boolean)
+	 */
+	static void setProjectConcurrency(boolean value) {
+		projectConcurrency = value;
+	}
 }
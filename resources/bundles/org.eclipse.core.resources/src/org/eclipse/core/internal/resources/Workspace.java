@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2022 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -361,12 +361,15 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		if (workManager.getPreparedOperationDepth() > 1) {
 			if (createNewTree && tree.isImmutable())
 				newWorkingTree();
-			return;
+		} else {
+			// stash the current tree as the basis for this operation.
+			operationTree = tree;
+			if (createNewTree && tree.isImmutable())
+				newWorkingTree();
 		}
-		// stash the current tree as the basis for this operation.
-		operationTree = tree;
-		if (createNewTree && tree.isImmutable())
-			newWorkingTree();
+		// restore what this operation may change before it changes it
+		if (createNewTree)
+			saveManager.getDeferredRestore().restoreConflictingWithCurrentRule();
 	}
 
 	public void broadcastBuildEvent(Object source, int type, int buildTrigger) {
@@ -1103,6 +1106,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		// info for the destination resource. This will help us generate the proper deltas,
 		// indicating a move rather than a add/delete
 		newInfo.setNodeId(sourceInfo.getNodeId());
+		// the markers of the source are copied along without changes
+		markerManager.indexMarkers(destination, newInfo);
 
 		// preserve local sync info but not location info
 		newInfo.setFlags(newInfo.getFlags() | (sourceInfo.getFlags() & M_LOCAL_EXISTS));
@@ -1463,6 +1468,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 	 */
 	void deleteResource(IResource resource) {
 		IPath path = resource.getFullPath();
+		if (contentDescriptionManager != null)
+			contentDescriptionManager.resourceDeleted(resource);
 		if (path.equals(Path.ROOT)) {
 			IProject[] children = getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
 			for (IProject element : children)
@@ -1555,6 +1562,11 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		return buildManager;
 	}
 
+	@Override
+	public IBuildStatistics getBuildStatistics() {
+		return buildManager.getStatistics();
+	}
+
 	/**
 	 * Returns the order in which open projects in this workspace will be built.
 	 * The result returned is a list of project buildConfigs, that need to be built
@@ -2253,6 +2265,9 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		// restart the notification manager so it is initialized with the right tree
 		notificationManager.startup(null);
 		openFlag = true;
+		saveManager.getDeferredRestore().schedule();
+		// projects whose saved tree could not be restored completely
+		IProject[] incomplete = saveManager.takeProjectsToRefresh();
 		if (crashed || refreshRequested()) {
 			try {
 				refreshManager.refresh(getRoot());
@@ -2260,6 +2275,9 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 				//don't fail entire open if refresh failed, just report as warning
 				return new ResourceStatus(IResourceStatus.INTERNAL_ERROR, Path.ROOT, Messages.resources_errorMultiRefresh, e);
 			}
+		} else {
+			for (IProject project : incomplete)
+				refreshManager.refresh(project);
 		}
 		//finally register a string pool participant
 		stringPoolJob = new StringPoolJob();
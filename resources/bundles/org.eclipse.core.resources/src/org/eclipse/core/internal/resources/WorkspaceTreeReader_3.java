@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Reads version 3 of the workspace tree file format.
+ * <p>
+ * This version differs from version 2 only in how the chain of workspace
+ * trees is stored: everything below the project nodes is split into one
+ * shard per project, see {@link WorkspaceTreeShards}. Project tree files
+ * are still written in version 2.
+ * </p>
+ */
+public class WorkspaceTreeReader_3 extends WorkspaceTreeReader_2 {
+
+	public WorkspaceTreeReader_3(Workspace workspace) {
+		super(workspace);
+	}
+
+	@Override
+	protected int getVersion() {
+		return ICoreConstants.WORKSPACE_TREE_VERSION_3;
+	}
+
+	@Override
+	protected ElementTree[] readTrees(IPath root, DataInputStream input, IProgressMonitor monitor) throws IOException {
+		if (!root.isRoot())
+			return super.readTrees(root, input, monitor);
+		monitor = Policy.monitorFor(monitor);
+		try {
+			String message = Messages.resources_reading;
+			monitor.beginTask(message, 4);
+			ElementTree[] trees = new WorkspaceTreeShards(workspace).read(input, Policy.subMonitorFor(monitor, 3));
+			//The last tree in the chain is the complete tree.
+			ElementTree newTree = trees[trees.length - 1];
+			newTree.setTreeData(workspace.tree.getTreeData());
+			workspace.tree = newTree;
+			monitor.worked(1);
+			return trees;
+		} finally {
+			monitor.done();
+		}
+	}
+}
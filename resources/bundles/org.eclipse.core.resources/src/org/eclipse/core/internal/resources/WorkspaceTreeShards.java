@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
+import org.eclipse.core.internal.dtree.DeltaDataTree;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.internal.watson.*;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.runtime.*;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Writes and reads the delta chain of the workspace trees split into shards,
+ * one per project. The tree file keeps a manifest and the top level of the
+ * chain, that is the root and the project nodes. Everything below a project
+ * node is written to a separate file in a directory next to the tree file.
+ * The shards are written and read concurrently on a small pool of threads,
+ * and merged into the trees by the calling thread.
+ * <p>
+ * The manifest records the length and a CRC32 checksum of every shard. A shard
+ * that is missing or does not match is skipped when reading. Its project is
+ * restored without children and refreshed from the file system once the
+ * workspace is open.
+ * </p>
+ * <p>
+ * The format is written only if the system property
+ * <code>org.eclipse.core.resources.tree.sharded</code> is set to
+ * <code>true</code>, see {@link WorkspaceTreeReader_3}.
+ * </p>
+ */
+class WorkspaceTreeShards {
+	static final boolean ENABLED = Boolean.getBoolean("org.eclipse.core.resources.tree.sharded"); //$NON-NLS-1$
+
+	/**
+	 * Suffix of the directory with the shards of a tree file.
+	 */
+	static final String F_SHARDS = ".shards"; //$NON-NLS-1$
+
+	private static final int MAX_THREADS = 8;
+
+	private final Workspace workspace;
+
+	WorkspaceTreeShards(Workspace workspace) {
+		this.workspace = workspace;
+	}
+
+	/**
+	 * Returns the directory for the shards of the given tree file.
+	 */
+	static File getShardsLocation(IPath treeLocation) {
+		return new File(treeLocation.toFile().getParentFile(), treeLocation.lastSegment() + F_SHARDS);
+	}
+
+	/**
+	 * Deletes the shard directories in the given directory, except for the
+	 * one of the given tree file.
+	 */
+	static void removeUnusedShards(File directory, IPath treeLocation) {
+		String valuable = getShardsLocation(treeLocation).getName();
+		File[] candidates = directory.listFiles((dir, name) -> name.endsWith(F_SHARDS) && !name.equals(valuable));
+		if (candidates == null)
+			return;
+		for (File candidate : candidates)
+			delete(candidate);
+	}
+
+	private static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files)
+				file.delete();
+		}
+		directory.delete();
+	}
+
+	private static ExecutorService newExecutor(String name) {
+		int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, name + ' ' + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Writes the given chain of trees, with the shards going to the given
+	 * directory. Any previous contents of the directory are removed.
+	 */
+	void write(ElementTreeWriter writer, ElementTree[] trees, File directory, DataOutputStream output, IElementComparator comparator) throws IOException {
+		ByteArrayOutputStream topLevel = new ByteArrayOutputStream();
+		DeltaDataTree[] chain = writer.writeDeltaChainTopLevel(trees, new DataOutputStream(topLevel), comparator);
+		String[] names = ElementTreeWriter.getTopLevelNames(chain).toArray(new String[0]);
+
+		delete(directory);
+		if (!directory.mkdirs() && !directory.isDirectory())
+			throw new IOException(NLS.bind(Messages.resources_writeWorkspaceMeta, directory));
+		long[][] results = new long[names.length][];
+		ExecutorService executor = newExecutor("Workspace tree writer"); //$NON-NLS-1$
+		try {
+			List<Future<long[]>> futures = new ArrayList<>(names.length);
+			for (int i = 0; i < names.length; i++) {
+				String name = names[i];
+				File file = new File(directory, Integer.toString(i));
+				futures.add(executor.submit(() -> writeShard(writer, chain, name, file)));
+			}
+			for (int i = 0; i < names.length; i++)
+				results[i] = get(futures.get(i));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// the manifest, followed by the top level of the chain
+		output.writeUTF(directory.getName());
+		output.writeInt(names.length);
+		for (int i = 0; i < names.length; i++) {
+			output.writeUTF(names[i]);
+			output.writeLong(results[i][0]);
+			output.writeLong(results[i][1]);
+		}
+		topLevel.writeTo(output);
+	}
+
+	/**
+	 * Writes one shard and returns its length and checksum.
+	 */
+	private static long[] writeShard(ElementTreeWriter writer, DeltaDataTree[] chain, String name, File file) throws IOException {
+		CRC32 checksum = new CRC32();
+		long length;
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(new FileOutputStream(file), checksum)))) {
+			writer.writeDeltaChainBelowTopLevel(chain, name, output);
+			output.flush();
+			length = output.size();
+		}
+		return new long[] {length, checksum.getValue()};
+	}
+
+	private static <T> T get(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Reads a chain of trees written by {@link #write}. Projects whose shard
+	 * could not be read are logged and registered with the save manager to be
+	 * refreshed.
+	 */
+	ElementTree[] read(DataInputStream input, IProgressMonitor monitor) throws IOException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
+		File directory = workspace.getMetaArea().locationFor(workspace.getRoot()).append(input.readUTF()).toFile();
+		int shardCount = input.readInt();
+		String[] names = new String[shardCount];
+		long[] lengths = new long[shardCount];
+		long[] checksums = new long[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			names[i] = input.readUTF();
+			lengths[i] = input.readLong();
+			checksums[i] = input.readLong();
+		}
+
+		ElementTreeReader reader = new ElementTreeReader(workspace.getSaveManager());
+		Map<String, AbstractDataTreeNode[][]> shards = new HashMap<>();
+		List<String> damaged = new ArrayList<>();
+		ExecutorService executor = newExecutor("Workspace tree reader"); //$NON-NLS-1$
+		try {
+			List<Future<AbstractDataTreeNode[][]>> futures = new ArrayList<>(shardCount);
+			for (int i = 0; i < shardCount; i++) {
+				String name = names[i];
+				File file = new File(directory, Integer.toString(i));
+				long length = lengths[i];
+				long checksum = checksums[i];
+				futures.add(executor.submit(() -> readShard(reader, name, file, length, checksum)));
+			}
+			for (int i = 0; i < shardCount; i++) {
+				try {
+					shards.put(names[i], get(futures.get(i)));
+				} catch (InterruptedIOException e) {
+					throw e;
+				} catch (IOException e) {
+					IProject project = workspace.getRoot().getProject(names[i]);
+					String message = NLS.bind(Messages.resources_readProjectShard, names[i]);
+					Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, project.getFullPath(), message, e));
+					damaged.add(names[i]);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		subMonitor.worked(1);
+
+		ElementTree[] trees = reader.readDeltaChain(input, shards);
+		for (String name : damaged)
+			workspace.getSaveManager().requestRefresh(workspace.getRoot().getProject(name));
+		subMonitor.worked(1);
+		return trees;
+	}
+
+	private static AbstractDataTreeNode[][] readShard(ElementTreeReader reader, String name, File file, long length, long checksum) throws IOException {
+		byte[] contents = Files.readAllBytes(file.toPath());
+		CRC32 crc = new CRC32();
+		crc.update(contents);
+		if (contents.length != length || crc.getValue() != checksum)
+			throw new IOException(NLS.bind(Messages.resources_readMeta, file));
+		return reader.readDeltaChainBelowTopLevel(new DataInputStream(new ByteArrayInputStream(contents)), name);
+	}
+}
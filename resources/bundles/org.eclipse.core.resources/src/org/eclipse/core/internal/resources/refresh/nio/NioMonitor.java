@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources.refresh.nio;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.refresh.IRefreshMonitor;
+import org.eclipse.core.resources.refresh.IRefreshResult;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.osgi.framework.Bundle;
+
+/**
+ * A monitor based on <code>java.nio.file.WatchService</code>. Every directory
+ * below a monitored root is registered with its own watch key, since the
+ * service does not support recursive watches on Linux. Events that arrive
+ * while the job sleeps are coalesced into one refresh request per changed
+ * directory. When the service reports an overflow, the whole root is
+ * refreshed to depth infinite.
+ * <p>
+ * The number of watch keys held by this monitor is bounded by the system
+ * property <code>org.eclipse.core.resources.refresh.nio.maxWatches</code>.
+ * Roots that do not fit into that budget are handed back to the polling
+ * monitor.
+ * </p>
+ */
+public class NioMonitor extends Job implements IRefreshMonitor {
+	/**
+	 * The delay between invocations of the monitor job. Events that arrive
+	 * in the meantime are queued by the watch service and coalesced.
+	 */
+	private static final long RESCHEDULE_DELAY = 1000;
+	/**
+	 * The time to wait for the first watch key in one invocation of the job.
+	 */
+	private static final long POLL_TIMEOUT = 1000;
+	/**
+	 * The maximum number of watch keys (inotify watch descriptors) this
+	 * monitor will hold at the same time.
+	 */
+	private static final int MAX_WATCHES = Integer.getInteger("org.eclipse.core.resources.refresh.nio.maxWatches", 8192); //$NON-NLS-1$
+	private static final String DEBUG_PREFIX = "NioRefreshMonitor: "; //$NON-NLS-1$
+
+	/**
+	 * A directory registered with the watch service, and the monitored root
+	 * it belongs to.
+	 */
+	private static final class WatchedDirectory {
+		final IContainer root;
+		final Path rootPath;
+		final Path directory;
+
+		WatchedDirectory(IContainer root, Path rootPath, Path directory) {
+			this.root = root;
+			this.rootPath = rootPath;
+			this.directory = directory;
+		}
+
+		/**
+		 * Returns the resource corresponding to the given directory below the root.
+		 */
+		IContainer getContainer(Path path) {
+			Path relative = rootPath.relativize(path);
+			if (relative.toString().isEmpty())
+				return root;
+			return root.getFolder(org.eclipse.core.runtime.Path.fromOSString(relative.toString()));
+		}
+	}
+
+	/**
+	 * Thrown when the watch key budget is exhausted.
+	 */
+	private static final class BudgetExceededException extends IOException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Any errors that have occurred
+	 */
+	private MultiStatus errors;
+	private final IRefreshResult refreshResult;
+	/**
+	 * The watch service, created lazily. Guarded by <code>this</code>.
+	 */
+	private WatchService watchService;
+	/**
+	 * Mapping of watch keys to the directory they watch. Guarded by <code>this</code>.
+	 */
+	private final Map<WatchKey, WatchedDirectory> keys = new HashMap<>();
+	/**
+	 * Mapping of monitored roots to their watch keys. Guarded by <code>this</code>.
+	 */
+	private final Map<IContainer, Set<WatchKey>> roots = new HashMap<>();
+	/**
+	 * The maximum number of watch keys held by this monitor.
+	 */
+	private final int maxWatches;
+
+	public NioMonitor(IRefreshResult result) {
+		this(result, MAX_WATCHES);
+	}
+
+	/**
+	 * Creates a monitor that holds at most the given number of watch keys.
+	 * Used by tests.
+	 */
+	public NioMonitor(IRefreshResult result, int maxWatches) {
+		super(Messages.NIO_jobName);
+		this.refreshResult = result;
+		this.maxWatches = maxWatches;
+		setPriority(Job.DECORATE);
+		setSystem(true);
+	}
+
+	/**
+	 * Logs an exception
+	 */
+	private synchronized void addException(String message, Throwable t) {
+		if (errors == null) {
+			String msg = Messages.WM_errors;
+			errors = new MultiStatus(ResourcesPlugin.PI_RESOURCES, 1, msg, null);
+		}
+		errors.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, 1, message, t));
+	}
+
+	/**
+	 * Adds a resource to be monitored by this monitor. Returns <code>false</code>
+	 * if the resource cannot be monitored, either because the watch service is
+	 * not available or the watch key budget would be exceeded.
+	 */
+	public boolean monitor(IResource resource, IProgressMonitor progressMonitor) {
+		IPath location = resource.getLocation();
+		if (location == null) {
+			// cannot monitor remotely managed containers
+			return false;
+		}
+		IContainer root = (IContainer) resource;
+		Path rootPath = location.toFile().toPath();
+		synchronized (this) {
+			if (roots.containsKey(root))
+				return true;
+			try {
+				if (watchService == null)
+					watchService = rootPath.getFileSystem().newWatchService();
+				roots.put(root, new HashSet<>());
+				registerTree(root, rootPath, rootPath);
+			} catch (IOException e) {
+				// the polling monitor takes over, so don't report budget problems as errors
+				if (!(e instanceof BudgetExceededException))
+					addException(NLS.bind(Messages.NIO_errRegister, rootPath), e);
+				removeRoot(root);
+				return false;
+			}
+		}
+		//make sure the job is running
+		schedule(RESCHEDULE_DELAY);
+		if (Policy.DEBUG_AUTO_REFRESH)
+			Policy.debug(DEBUG_PREFIX + " added monitor for: " + resource); //$NON-NLS-1$
+		return true;
+	}
+
+	/**
+	 * Registers the given directory and all directories below it. Symbolic links
+	 * are not followed, which prevents cycles; linked resources are monitored as
+	 * roots of their own.
+	 */
+	private void registerTree(IContainer root, Path rootPath, Path start) throws IOException {
+		Set<WatchKey> rootKeys = roots.get(root);
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (keys.size() >= maxWatches)
+					throw new BudgetExceededException();
+				WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+				if (keys.put(key, new WatchedDirectory(root, rootPath, dir)) == null)
+					rootKeys.add(key);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				// directory vanished or is not readable, its parent reports any later change
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Cancels all watch keys of the given root. Must be called while holding <code>this</code>.
+	 */
+	private void removeRoot(IContainer root) {
+		Set<WatchKey> rootKeys = roots.remove(root);
+		if (rootKeys == null)
+			return;
+		for (WatchKey key : rootKeys) {
+			key.cancel();
+			keys.remove(key);
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = -System.currentTimeMillis();
+		if (Policy.DEBUG_AUTO_REFRESH)
+			Policy.debug(DEBUG_PREFIX + "job started."); //$NON-NLS-1$
+		Map<IResource, IContainer> toRefresh = new LinkedHashMap<>();
+		Set<IContainer> overflowed = new HashSet<>();
+		Set<IContainer> failed = new HashSet<>();
+		try {
+			WatchService service;
+			synchronized (this) {
+				service = watchService;
+			}
+			if (service == null)
+				return Status.OK_STATUS;
+			WatchKey key = service.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+			// drain everything that queued up, so events are coalesced per directory
+			while (key != null) {
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				processKey(key, toRefresh, overflowed, failed);
+				key = service.poll();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			return Status.CANCEL_STATUS;
+		} finally {
+			postRefreshRequests(toRefresh, overflowed, failed);
+			start += System.currentTimeMillis();
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + "job finished in: " + start + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final Bundle bundle = Platform.getBundle(ResourcesPlugin.PI_RESOURCES);
+		//if the bundle is null then the framework has shutdown - just bail out completely (bug 98219)
+		if (bundle == null)
+			return Status.OK_STATUS;
+		//don't reschedule the job if the resources plugin has been shut down
+		if (bundle.getState() == Bundle.ACTIVE && shouldRun())
+			schedule(RESCHEDULE_DELAY);
+		MultiStatus result;
+		synchronized (this) {
+			result = errors;
+			errors = null;
+		}
+		//just log refresh monitor failures
+		if (result != null && !result.isOK())
+			ResourcesPlugin.getPlugin().getLog().log(result);
+		return Status.OK_STATUS;
+	}
+
+	private synchronized void processKey(WatchKey key, Map<IResource, IContainer> toRefresh, Set<IContainer> overflowed, Set<IContainer> failed) {
+		WatchedDirectory watched = keys.get(key);
+		if (watched == null) {
+			// root was unmonitored in the meantime
+			key.cancel();
+			return;
+		}
+		for (WatchEvent<?> event : key.pollEvents()) {
+			WatchEvent.Kind<?> kind = event.kind();
+			if (kind == OVERFLOW) {
+				overflowed.add(watched.root);
+				continue;
+			}
+			toRefresh.put(watched.getContainer(watched.directory), watched.root);
+			Path child = watched.directory.resolve((Path) event.context());
+			if (kind == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && !failed.contains(watched.root)) {
+				try {
+					registerTree(watched.root, watched.rootPath, child);
+				} catch (BudgetExceededException e) {
+					failed.add(watched.root);
+				} catch (IOException e) {
+					// directory was removed again, its deletion is reported on the parent
+				}
+			}
+		}
+		if (!key.reset()) {
+			// the directory is no longer accessible
+			keys.remove(key);
+			Set<WatchKey> rootKeys = roots.get(watched.root);
+			if (rootKeys != null)
+				rootKeys.remove(key);
+		}
+	}
+
+	private void postRefreshRequests(Map<IResource, IContainer> toRefresh, Set<IContainer> overflowed, Set<IContainer> failed) {
+		for (IContainer root : overflowed) {
+			if (failed.contains(root))
+				continue;
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + "event overflow, refreshing: " + root); //$NON-NLS-1$
+			// events were lost, so directories created in the meantime may not be registered yet
+			IPath location = root.getLocation();
+			synchronized (this) {
+				if (location != null && roots.containsKey(root)) {
+					try {
+						Path rootPath = location.toFile().toPath();
+						registerTree(root, rootPath, rootPath);
+					} catch (BudgetExceededException e) {
+						failed.add(root);
+						continue;
+					} catch (IOException e) {
+						// already registered keys keep working, the refresh below catches up
+					}
+				}
+			}
+			refreshResult.refresh(root);
+		}
+		for (IContainer root : failed) {
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + "watch budget of " + maxWatches + " exceeded, falling back to polling for: " + root); //$NON-NLS-1$ //$NON-NLS-2$
+			synchronized (this) {
+				removeRoot(root);
+			}
+			refreshResult.monitorFailed(this, root);
+			refreshResult.refresh(root);
+		}
+		for (Map.Entry<IResource, IContainer> entry : toRefresh.entrySet()) {
+			IResource resource = entry.getKey();
+			IContainer root = entry.getValue();
+			if (overflowed.contains(root) || failed.contains(root))
+				continue;
+			//the watch service reports changes even if the resource was changed within workspace
+			if (!resource.isSynchronized(IResource.DEPTH_ONE))
+				refreshResult.refresh(resource);
+		}
+	}
+
+	/**
+	 * Handles an overflow of the events of the given root like the job does
+	 * when the watch service reports one. Used by tests.
+	 */
+	public void handleOverflow(IContainer root) {
+		postRefreshRequests(Collections.emptyMap(), Collections.singleton(root), new HashSet<>());
+	}
+
+	/**
+	 * Returns the number of watch keys held by this monitor. Used by tests.
+	 */
+	public synchronized int getWatchCount() {
+		return keys.size();
+	}
+
+	@Override
+	public boolean shouldRun() {
+		synchronized (this) {
+			return !keys.isEmpty();
+		}
+	}
+
+	@Override
+	public void unmonitor(IResource resource) {
+		synchronized (this) {
+			if (resource == null) {
+				// resource == null means stop monitoring all resources
+				for (IContainer root : new ArrayList<>(roots.keySet()))
+					removeRoot(root);
+			} else {
+				removeRoot((IContainer) resource);
+			}
+			if (!keys.isEmpty())
+				return;
+			if (watchService != null) {
+				try {
+					watchService.close();
+				} catch (IOException e) {
+					addException(Messages.WM_errors, e);
+				}
+				watchService = null;
+			}
+		}
+		//stop the job if there are no more keys
+		cancel();
+	}
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources.refresh.nio;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.refresh.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * The <code>NioRefreshProvider</code> creates monitors based on the
+ * <code>java.nio.file.WatchService</code>. It is only active on Linux, where the
+ * JDK implementation is backed by inotify. Other platforms either have a native
+ * refresh provider or a polling based <code>WatchService</code> that would not
+ * perform better than the default <code>PollingMonitor</code>.
+ * <p>
+ * The provider can be disabled by setting the system property
+ * <code>org.eclipse.core.resources.refresh.nio.disable</code> to <code>true</code>.
+ * </p>
+ *
+ * @see RefreshProvider
+ */
+public class NioRefreshProvider extends RefreshProvider {
+	private static final boolean DISABLED = Boolean.getBoolean("org.eclipse.core.resources.refresh.nio.disable"); //$NON-NLS-1$
+
+	private NioMonitor monitor;
+
+	/**
+	 * Creates a <code>WatchService</code> based monitor if the given resource is
+	 * a local container.
+	 *
+	 * @see RefreshProvider#installMonitor(IResource,IRefreshResult, IProgressMonitor)
+	 */
+	@Override
+	public IRefreshMonitor installMonitor(IResource resource, IRefreshResult result, IProgressMonitor progressMonitor) {
+		if (DISABLED || !Platform.OS_LINUX.equals(Platform.getOS()))
+			return null;
+		if (resource.getLocation() == null || !resource.exists() || resource.getType() == IResource.FILE)
+			return null;
+		synchronized (this) {
+			if (monitor == null)
+				monitor = new NioMonitor(result);
+		}
+		if (monitor.monitor(resource, progressMonitor))
+			return monitor;
+		return null;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -262,6 +262,7 @@ public class Messages extends NLS {
 	public static String resources_readOnly;
 	public static String resources_readOnly2;
 	public static String resources_readProjectMeta;
+	public static String resources_readProjectShard;
 	public static String resources_readProjectTree;
 	public static String resources_readSync;
 	public static String resources_readWorkspaceMeta;
@@ -273,6 +274,7 @@ public class Messages extends NLS {
 	public static String resources_resetMarkers;
 	public static String resources_resetSync;
 	public static String resources_resourcePath;
+	public static String resources_restoringProjects;
 	public static String resources_saveOp;
 	public static String resources_saveProblem;
 	public static String resources_saveWarnings;
@@ -333,6 +335,10 @@ public class Messages extends NLS {
 	public static String WM_nativeErr;
 	public static String WM_mutexAbandoned;
 
+	// auto-refresh java.nio.file.WatchService
+	public static String NIO_errRegister;
+	public static String NIO_jobName;
+
 	public static String updateUnknownNatureMarkers;
 
 	static {
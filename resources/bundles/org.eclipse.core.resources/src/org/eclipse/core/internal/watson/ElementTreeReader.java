@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,8 +15,8 @@
 package org.eclipse.core.internal.watson;
 
 import java.io.*;
-import org.eclipse.core.internal.dtree.DataTreeReader;
-import org.eclipse.core.internal.dtree.IDataFlattener;
+import java.util.Map;
+import org.eclipse.core.internal.dtree.*;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.runtime.*;
 
@@ -115,6 +115,35 @@ public class ElementTreeReader {
 		return realReader.readDeltaChain(input, newProjectName);
 	}
 
+	/**
+	 * Reads the top level of a chain of element trees, as written by
+	 * {@link ElementTreeWriter#writeDeltaChainTopLevel}, and completes the
+	 * trees with the subtrees below the top-level nodes.
+	 *
+	 * @param belowTopLevel the subtrees below the top-level nodes as returned by
+	 * {@link #readDeltaChainBelowTopLevel(DataInput, String)}, by name of the
+	 * top-level node. Top-level nodes without an entry remain without children.
+	 */
+	public ElementTree[] readDeltaChain(DataInput input, Map<String, AbstractDataTreeNode[][]> belowTopLevel) throws IOException {
+		/* Dispatch to the appropriate reader. */
+		ElementTreeReader realReader = getReader(readNumber(input));
+		return realReader.readDeltaChain(input, belowTopLevel);
+	}
+
+	/**
+	 * Reads the subtrees below a top-level node for each tree of a chain, as
+	 * written by {@link ElementTreeWriter#writeDeltaChainBelowTopLevel}. This
+	 * method may be called concurrently for different parts of a chain.
+	 *
+	 * @return the children of the top-level node for each tree in the written
+	 * order, <code>null</code> where a tree does not have the node
+	 */
+	public AbstractDataTreeNode[][] readDeltaChainBelowTopLevel(DataInput input, String name) throws IOException {
+		/* Dispatch to the appropriate reader, which has its own data tree reader. */
+		ElementTreeReader realReader = getReader(readNumber(input));
+		return realReader.readDeltaChainBelowTopLevel(input, name);
+	}
+
 	/**
 	 * Reads an integer stored in compact format.  Numbers between
 	 * 0 and 254 inclusive occupy 1 byte; other numbers occupy 5 bytes,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,7 +16,9 @@ package org.eclipse.core.internal.watson;
 
 import java.io.DataInput;
 import java.io.IOException;
-import org.eclipse.core.internal.dtree.DeltaDataTree;
+import java.util.Map;
+import org.eclipse.core.internal.dtree.*;
+import org.eclipse.core.internal.utils.Messages;
 
 /** <code>ElementTreeReader_1</code> is an implementation
  * of the <code>ElementTreeReader</code> for format version 1.
@@ -45,7 +47,13 @@ import org.eclipse.core.internal.dtree.DeltaDataTree;
 	public ElementTree readDelta(ElementTree parentTree, DataInput input) throws IOException {
 		DeltaDataTree complete = parentTree.getDataTree();
 		DeltaDataTree delta = dataTreeReader.readTree(complete, input, ""); //$NON-NLS-1$
+		return newDeltaTree(parentTree, delta);
+	}
 
+	/**
+	 * Returns an element tree for the given delta on the given tree.
+	 */
+	private ElementTree newDeltaTree(ElementTree parentTree, DeltaDataTree delta) {
 		//if the delta is empty, just return the parent
 		if (delta.isEmptyDelta())
 			return parentTree;
@@ -92,6 +100,70 @@ import org.eclipse.core.internal.dtree.DeltaDataTree;
 		return results;
 	}
 
+	@Override
+	public ElementTree[] readDeltaChain(DataInput input, Map<String, AbstractDataTreeNode[][]> belowTopLevel) throws IOException {
+		/* read the number of trees */
+		int treeCount = readNumber(input);
+		ElementTree[] results = new ElementTree[treeCount];
+
+		if (treeCount <= 0) {
+			return results;
+		}
+
+		/* read the sort order */
+		int[] order = new int[treeCount];
+		for (int i = 0; i < treeCount; i++) {
+			order[i] = readNumber(input);
+		}
+
+		/* read the top level of the complete tree */
+		readFormat(input);
+		DeltaDataTree complete = dataTreeReader.readTree(null, input, ""); //$NON-NLS-1$
+		setChildrenOfTopLevelNodes(complete, 0, treeCount, belowTopLevel);
+		results[order[0]] = new ElementTree(complete);
+
+		/* reconstitute each of the remaining trees from their written deltas,
+		 * which are only known to be empty once their subtrees are attached */
+		for (int i = 1; i < treeCount; i++) {
+			readFormat(input);
+			ElementTree parentTree = results[order[i - 1]];
+			DeltaDataTree delta = dataTreeReader.readTree(parentTree.getDataTree(), input, ""); //$NON-NLS-1$
+			setChildrenOfTopLevelNodes(delta, i, treeCount, belowTopLevel);
+			results[order[i]] = newDeltaTree(parentTree, delta);
+		}
+
+		return results;
+	}
+
+	@Override
+	public AbstractDataTreeNode[][] readDeltaChainBelowTopLevel(DataInput input, String name) throws IOException {
+		int treeCount = readNumber(input);
+		AbstractDataTreeNode[][] results = new AbstractDataTreeNode[treeCount][];
+		for (int i = 0; i < treeCount; i++) {
+			results[i] = dataTreeReader.readBelowTopLevel(name, input);
+		}
+		return results;
+	}
+
+	private static void readFormat(DataInput input) throws IOException {
+		if (readNumber(input) != 1)
+			throw new IOException(Messages.watson_unknown);
+	}
+
+	/**
+	 * Sets the children of the top-level nodes of the tree at the given
+	 * position in the written chain.
+	 */
+	private static void setChildrenOfTopLevelNodes(DeltaDataTree tree, int position, int treeCount, Map<String, AbstractDataTreeNode[][]> belowTopLevel) throws IOException {
+		for (Map.Entry<String, AbstractDataTreeNode[][]> entry : belowTopLevel.entrySet()) {
+			AbstractDataTreeNode[][] children = entry.getValue();
+			if (children.length != treeCount)
+				throw new IOException(Messages.watson_unknown);
+			if (children[position] != null)
+				DataTreeReader.setChildrenOfTopLevelNode(tree, entry.getKey(), children[position]);
+		}
+	}
+
 	@Override
 	public ElementTree readTree(DataInput input, String newProjectName) throws IOException {
 
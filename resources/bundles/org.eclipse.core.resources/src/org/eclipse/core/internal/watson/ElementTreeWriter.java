@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -53,6 +53,12 @@ public class ElementTreeWriter {
 	 */
 	protected DataTreeWriter dataTreeWriter;
 
+	/**
+	 * The flattener used by <code>dataTreeWriter</code>, for additional
+	 * writers of parts of a tree that are written concurrently
+	 */
+	private final IDataFlattener dataFlattener;
+
 	/**
 	 * Constructs a new element tree writer that works for
 	 * the given element info flattener.
@@ -75,6 +81,7 @@ public class ElementTreeWriter {
 				return null;
 			}
 		};
+		dataFlattener = f;
 		dataTreeWriter = new DataTreeWriter(f);
 	}
 
@@ -172,6 +179,74 @@ public class ElementTreeWriter {
 		}
 	}
 
+	/**
+	 * Writes the top level of a chain of ElementTrees, that is the root and the
+	 * top-level nodes of each tree. The trees are sorted and written as complete
+	 * tree and deltas like in {@link #writeDeltaChain}. The subtrees below the
+	 * top-level nodes are written separately with
+	 * {@link #writeDeltaChainBelowTopLevel(DeltaDataTree[], String, DataOutput)},
+	 * passing the data trees returned by this method.
+	 *
+	 * @return the data trees that were written, in the order they were written
+	 * @see ElementTreeReader#readDeltaChain(DataInput, Map)
+	 */
+	public DeltaDataTree[] writeDeltaChainTopLevel(ElementTree[] trees, DataOutput output, IElementComparator comparator) throws IOException {
+		/* Write the format version number */
+		writeNumber(CURRENT_FORMAT, output);
+
+		/* Write the number of trees */
+		int treeCount = trees.length;
+		writeNumber(treeCount, output);
+
+		DeltaDataTree[] written = new DeltaDataTree[treeCount];
+		if (treeCount <= 0) {
+			return written;
+		}
+
+		ElementTree[] sortedTrees = writeSortedTrees(trees, output);
+
+		/* The complete tree, followed by the deltas for each of the remaining trees */
+		written[0] = new DeltaDataTree(sortedTrees[0].getDataTree().copyCompleteSubtree(Path.ROOT));
+		for (int i = 1; i < treeCount; i++) {
+			written[i] = sortedTrees[i - 1].getDataTree().forwardDeltaWith(sortedTrees[i].getDataTree(), comparator);
+		}
+		for (DeltaDataTree tree : written) {
+			writeNumber(CURRENT_FORMAT, output);
+			dataTreeWriter.writeTree(tree, Path.ROOT, 1, output);
+		}
+		return written;
+	}
+
+	/**
+	 * Writes the subtrees below the top-level node with the given name for each
+	 * tree of a chain written by
+	 * {@link #writeDeltaChainTopLevel(ElementTree[], DataOutput, IElementComparator)}.
+	 * This method may be called concurrently for different names.
+	 *
+	 * @see ElementTreeReader#readDeltaChainBelowTopLevel(DataInput, String)
+	 */
+	public void writeDeltaChainBelowTopLevel(DeltaDataTree[] chain, String name, DataOutput output) throws IOException {
+		writeNumber(CURRENT_FORMAT, output);
+		writeNumber(chain.length, output);
+		// the shared data tree writer keeps the output in a field
+		DataTreeWriter writer = new DataTreeWriter(dataFlattener);
+		for (DeltaDataTree tree : chain) {
+			writer.writeBelowTopLevel(tree, name, output);
+		}
+	}
+
+	/**
+	 * Returns the names of all top-level nodes in a chain of data trees
+	 * returned by {@link #writeDeltaChainTopLevel}, in sorted order.
+	 */
+	public static Set<String> getTopLevelNames(DeltaDataTree[] chain) {
+		Set<String> names = new TreeSet<>();
+		for (DeltaDataTree tree : chain) {
+			DataTreeWriter.collectTopLevelNames(tree, names);
+		}
+		return names;
+	}
+
 	/**
 	 * Writes an integer in a compact format biased towards
 	 * small non-negative numbers. Numbers between
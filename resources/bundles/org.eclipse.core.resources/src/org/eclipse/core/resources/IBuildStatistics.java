@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Statistics about the builders run in a workspace: the wall and CPU time of
+ * the builder invocations by builder, project and build trigger, the sizes of
+ * the resource deltas computed for builders, the number of canceled builder
+ * invocations and the number of times the autobuild was interrupted.
+ * <p>
+ * The statistics are always collected, and are updated concurrently while
+ * builds run. If the <code>org.eclipse.core.resources.buildStatistics</code>
+ * system property is set to a file name, they are also written to that file
+ * as JSON when the workspace shuts down.
+ * </p>
+ *
+ * @see IWorkspace#getBuildStatistics()
+ * @since 3.19
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface IBuildStatistics {
+
+	/**
+	 * A histogram of non-negative values, with one bucket for every power of
+	 * two.
+	 *
+	 * @noimplement This interface is not intended to be implemented by clients.
+	 */
+	interface Histogram {
+		/**
+		 * Returns the number of recorded values.
+		 *
+		 * @return the number of recorded values
+		 */
+		long getCount();
+
+		/**
+		 * Returns the sum of the recorded values.
+		 *
+		 * @return the sum of the recorded values
+		 */
+		long getSum();
+
+		/**
+		 * Returns the largest recorded value, or 0 if there is none.
+		 *
+		 * @return the largest recorded value
+		 */
+		long getMax();
+
+		/**
+		 * Returns an upper bound of the given percentile of the recorded
+		 * values, which is exact up to a factor of two.
+		 *
+		 * @param percentile a percentile between 0 and 100
+		 * @return an upper bound of the percentile, or 0 if no value was
+		 * recorded
+		 */
+		long getPercentile(double percentile);
+	}
+
+	/**
+	 * The statistics of the builder invocations of a builder, a project or a
+	 * build trigger.
+	 *
+	 * @noimplement This interface is not intended to be implemented by clients.
+	 */
+	interface Entry {
+		/**
+		 * Returns the wall time of the builder invocations, in nanoseconds.
+		 *
+		 * @return the wall times
+		 */
+		Histogram getWallTime();
+
+		/**
+		 * Returns the CPU time the builders used in the thread they were
+		 * invoked in, in nanoseconds. Empty if the VM can't measure it.
+		 *
+		 * @return the CPU times
+		 */
+		Histogram getCpuTime();
+
+		/**
+		 * Returns the number of changed resources in the deltas computed for
+		 * the builders.
+		 *
+		 * @return the delta sizes
+		 */
+		Histogram getDeltaSize();
+
+		/**
+		 * Returns the number of builder invocations that were canceled.
+		 *
+		 * @return the number of canceled invocations
+		 */
+		long getCancellations();
+	}
+
+	/**
+	 * Returns the statistics by builder id.
+	 *
+	 * @return an unmodifiable view of the statistics by builder id
+	 */
+	Map<String, ? extends Entry> getBuilderStatistics();
+
+	/**
+	 * Returns the statistics by project name.
+	 *
+	 * @return an unmodifiable view of the statistics by project name
+	 */
+	Map<String, ? extends Entry> getProjectStatistics();
+
+	/**
+	 * Returns the statistics by build trigger, such as <code>FULL_BUILD</code>
+	 * or <code>AUTO_BUILD</code>.
+	 *
+	 * @return an unmodifiable view of the statistics by build trigger
+	 */
+	Map<String, ? extends Entry> getTriggerStatistics();
+
+	/**
+	 * Returns the number of times the autobuild was interrupted.
+	 *
+	 * @return the number of autobuild interruptions
+	 */
+	long getAutoBuildInterruptions();
+
+	/**
+	 * Discards all statistics collected so far.
+	 */
+	void reset();
+
+	/**
+	 * Writes the statistics as a JSON object to the given writer.
+	 *
+	 * @param writer the writer to write to
+	 * @exception IOException if writing fails
+	 */
+	void writeJson(Writer writer) throws IOException;
+}
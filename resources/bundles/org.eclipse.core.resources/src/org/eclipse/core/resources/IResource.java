@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@
 package org.eclipse.core.resources;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
@@ -979,6 +980,47 @@ public interface IResource extends IAdaptable, ISchedulingRule {
 		return marker;
 	}
 
+	/**
+	 * Creates and returns markers with the specified type on this resource, one
+	 * for each of the given attribute maps. All markers are added in a single
+	 * workspace modification and reported in a single resource change event,
+	 * which is considerably cheaper than creating them one by one. Marker type
+	 * ids should be the id of an extension installed in the
+	 * <code>org.eclipse.core.resources.markers</code> extension point. The
+	 * specified type string must not be <code>null</code>.
+	 *
+	 * <p>
+	 * Note: default implementation is provided for backwards compatibility only and
+	 * is not optimized for performance.
+	 *
+	 * @param type       the type of the markers to create
+	 * @param attributes a list of maps of attribute names to attribute values
+	 *                   (key type : <code>String</code> value type :
+	 *                   <code>String</code>, <code>Integer</code>, or
+	 *                   <code>Boolean</code>) or <code>null</code>, one for each
+	 *                   marker to create
+	 * @return the handles of the new markers, in the order of the given
+	 *         attribute maps
+	 * @exception CoreException if this method fails. Reasons include:
+	 *                          <ul>
+	 *                          <li>This resource does not exist.</li>
+	 *                          <li>This resource is a project that is not
+	 *                          open.</li>
+	 *                          </ul>
+	 * @see #createMarker(String, Map)
+	 * @see IResourceRuleFactory#markerRule(IResource)
+	 *
+	 * @since 3.19
+	 */
+	default IMarker[] createMarkers(String type, List<? extends Map<String, ? extends Object>> attributes) throws CoreException {
+		IMarker[] markers = new IMarker[attributes.size()];
+		int i = 0;
+		for (Map<String, ? extends Object> markerAttributes : attributes) {
+			markers[i++] = createMarker(type, markerAttributes);
+		}
+		return markers;
+	}
+
 	/**
 	 * Creates a resource proxy representing the current state of this resource.
 	 * <p>
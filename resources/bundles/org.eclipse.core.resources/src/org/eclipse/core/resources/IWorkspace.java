@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -1810,4 +1810,14 @@ public interface IWorkspace extends IAdaptable {
 	 * @since 2.1
 	 */
 	IPathVariableManager getPathVariableManager();
+
+	/**
+	 * Returns the statistics of the builders run in this workspace since it was
+	 * opened, or since the statistics were last reset.
+	 *
+	 * @return the build statistics of this workspace
+	 * @see IBuildStatistics
+	 * @since 3.19
+	 */
+	IBuildStatistics getBuildStatistics();
 }
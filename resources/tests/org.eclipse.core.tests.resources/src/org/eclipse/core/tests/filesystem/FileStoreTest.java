@@ -105,6 +105,69 @@ public class FileStoreTest extends LocalStoreTest {
 		return tempDirs;
 	}
 
+	public void testCopyPreservesLastModified() throws Throwable {
+		IFileStore temp = createDir(getWorkspace().getRoot().getLocation().append("temp").toString(), true);
+		IFileStore source = temp.getChild("source");
+		createDir(source, true);
+		// several children at several levels, so that they are copied in parallel
+		List<IPath> files = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			createDir(source.getChild("folder" + i), true);
+			for (int j = 0; j < 4; j++) {
+				files.add(new Path("folder" + i).append("file" + j));
+				files.add(new Path("file" + i + j));
+			}
+		}
+		for (IPath path : files) {
+			IFileStore file = source.getFileStore(path);
+			createFile(file, getRandomString());
+			IFileInfo info = file.fetchInfo();
+			info.setLastModified(info.getLastModified() - 10_000);
+			file.putInfo(info, EFS.SET_LAST_MODIFIED, null);
+		}
+
+		IFileStore destination = temp.getChild("destination");
+		source.copy(destination, EFS.NONE, getMonitor());
+		assertEquals("1.0", source.childNames(EFS.NONE, null).length, destination.childNames(EFS.NONE, null).length);
+		for (IPath path : files) {
+			IFileStore file = source.getFileStore(path);
+			IFileStore copy = destination.getFileStore(path);
+			assertTrue("2.0." + path, compareContent(file.openInputStream(EFS.NONE, null), copy.openInputStream(EFS.NONE, null)));
+			assertEquals("2.1." + path, file.fetchInfo().getLastModified(), copy.fetchInfo().getLastModified());
+		}
+
+		/* take out the trash */
+		temp.delete(EFS.NONE, null);
+	}
+
+	/**
+	 * Tests that copying a directory fails if one of its children can't be
+	 * copied, and that the failure of that child is reported.
+	 */
+	public void testCopyDirectoryWithFailingChild() throws Throwable {
+		IFileStore temp = createDir(getWorkspace().getRoot().getLocation().append("temp").toString(), true);
+		IFileStore source = temp.getChild("source");
+		createDir(source, true);
+		for (int i = 0; i < 8; i++)
+			createFile(source.getChild("file" + i), getRandomString());
+		// the copy of an existing file fails without EFS.OVERWRITE
+		IFileStore destination = temp.getChild("destination");
+		createDir(destination, true);
+		IFileStore existing = destination.getChild("file3");
+		createFile(existing, "existing");
+
+		try {
+			source.copy(destination, EFS.NONE, getMonitor());
+			fail("1.0");
+		} catch (CoreException e) {
+			assertEquals("1.1", EFS.ERROR_EXISTS, e.getStatus().getCode());
+		}
+		assertTrue("2.0", compareContent(getContents("existing"), existing.openInputStream(EFS.NONE, null)));
+
+		/* take out the trash */
+		temp.delete(EFS.NONE, null);
+	}
+
 	/**
 	 * Basically this is a test for the Windows Platform.
 	 */
@@ -389,6 +452,36 @@ public class FileStoreTest extends LocalStoreTest {
 
 	}
 
+	public void testChildInfos() throws Exception {
+		IPath root = getWorkspace().getRoot().getLocation().append("" + new Date().getTime());
+		IFileStore temp = createDir(root.toString(), true);
+		try {
+			IFileStore folder = createDir(temp.getChild("folder"), true);
+			IFileStore file = temp.getChild("file");
+			try (OutputStream out = file.openOutputStream(EFS.NONE, null)) {
+				out.write(5);
+			}
+
+			IFileInfo[] infos = temp.childInfos(EFS.NONE, getMonitor());
+			assertEquals("1.0", 2, infos.length);
+			for (IFileInfo info : infos) {
+				IFileInfo expected = temp.getChild(info.getName()).fetchInfo();
+				assertTrue("2.0", info.exists());
+				assertEquals("2.1", expected.isDirectory(), info.isDirectory());
+				assertEquals("2.2", expected.getLength(), info.getLength());
+				assertEquals("2.3", expected.getLastModified(), info.getLastModified());
+				assertEquals("2.4", expected.getAttribute(EFS.ATTRIBUTE_READ_ONLY), info.getAttribute(EFS.ATTRIBUTE_READ_ONLY));
+			}
+
+			// a file and a missing directory have no children
+			assertEquals("3.0", 0, file.childInfos(EFS.NONE, getMonitor()).length);
+			assertEquals("3.1", 0, folder.getChild("missing").childInfos(EFS.NONE, getMonitor()).length);
+		} finally {
+			/* remove trash */
+			temp.delete(EFS.NONE, null);
+		}
+	}
+
 	public void testGetStat() throws CoreException {
 		/* evaluate test environment */
 		IPath root = getWorkspace().getRoot().getLocation().append("" + new Date().getTime());
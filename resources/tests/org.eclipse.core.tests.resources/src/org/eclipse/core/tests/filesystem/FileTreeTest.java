@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.filesystem;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import org.eclipse.core.filesystem.*;
+
+/**
+ * Tests the {@link IFileTree} snapshot of the local file system.
+ */
+public class FileTreeTest extends FileSystemTest {
+
+	private IFileStore root;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		root = localFileBaseStore;
+		ensureExists(root, true);
+	}
+
+	public void testSnapshotMatchesFileSystem() throws Exception {
+		IFileStore dir = root.getChild("dir");
+		IFileStore subDir = dir.getChild("subDir");
+		IFileStore file = dir.getChild("file.txt");
+		IFileStore subFile = subDir.getChild("subFile.txt");
+		ensureExists(dir, true);
+		ensureExists(subDir, true);
+		ensureExists(file, false);
+		ensureExists(subFile, false);
+
+		IFileTree tree = root.getFileSystem().fetchFileTree(root, getMonitor());
+		assertNotNull("1.0", tree);
+		assertEquals("1.1", root, tree.getTreeRoot());
+		assertTrue("1.2", tree.getFileInfo(root).isDirectory());
+
+		assertInfosEqual("2.0", dir.childInfos(EFS.NONE, getMonitor()), tree.getChildInfos(dir));
+		assertInfosEqual("2.1", subDir.childInfos(EFS.NONE, getMonitor()), tree.getChildInfos(subDir));
+		assertEquals("2.2", 2, tree.getChildStores(dir).length);
+
+		IFileInfo info = tree.getFileInfo(subFile);
+		assertTrue("3.0", info.exists());
+		assertEquals("3.1", subFile.fetchInfo().getLength(), info.getLength());
+		assertEquals("3.2", subFile.fetchInfo().getLastModified(), info.getLastModified());
+	}
+
+	public void testNotADirectory() throws Exception {
+		IFileStore file = root.getChild("file.txt");
+		ensureExists(file, false);
+		assertNull("1.0", file.getFileSystem().fetchFileTree(file, getMonitor()));
+	}
+
+	private void assertInfosEqual(String message, IFileInfo[] expected, IFileInfo[] actual) {
+		Comparator<IFileInfo> byName = Comparator.comparing(IFileInfo::getName);
+		expected = expected.clone();
+		actual = actual.clone();
+		Arrays.sort(expected, byName);
+		Arrays.sort(actual, byName);
+		assertEquals(message + ".length", expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(message + ".name", expected[i].getName(), actual[i].getName());
+			assertEquals(message + ".directory", expected[i].isDirectory(), actual[i].isDirectory());
+			assertEquals(message + ".length", expected[i].getLength(), actual[i].getLength());
+			assertEquals(message + ".lastModified", expected[i].getLastModified(), actual[i].getLastModified());
+		}
+	}
+}
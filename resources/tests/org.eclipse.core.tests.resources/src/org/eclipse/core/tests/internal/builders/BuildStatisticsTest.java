@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Tests the statistics collected about builder invocations.
+ */
+public class BuildStatisticsTest extends AbstractBuilderTest {
+
+	public BuildStatisticsTest(String name) {
+		super(name);
+	}
+
+	public void testBuilderStatistics() throws CoreException, IOException {
+		IBuildStatistics statistics = getWorkspace().getBuildStatistics();
+		setAutoBuilding(false);
+		IProject project = getWorkspace().getRoot().getProject("PROJECT");
+		IFile file = project.getFile("file.txt");
+		ensureExistsInWorkspace(file, true);
+		IProjectDescription description = project.getDescription();
+		description.setBuildSpec(new ICommand[] {createCommand(description, "Build0")});
+		project.setDescription(description, getMonitor());
+		statistics.reset();
+
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		dirty(file);
+		project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+
+		IBuildStatistics.Entry builder = statistics.getBuilderStatistics().get(SortBuilder.BUILDER_NAME);
+		assertNotNull("1.0", builder);
+		assertEquals("1.1", 2, builder.getWallTime().getCount());
+		assertEquals("1.2", 0, builder.getCancellations());
+		assertEquals("1.3", 1, builder.getDeltaSize().getCount());
+		assertTrue("1.4", builder.getDeltaSize().getMax() >= 1);
+		assertEquals("2.0", 2, statistics.getProjectStatistics().get(project.getName()).getWallTime().getCount());
+		assertEquals("3.0", 1, statistics.getTriggerStatistics().get("FULL_BUILD").getWallTime().getCount());
+		assertEquals("3.1", 1, statistics.getTriggerStatistics().get("INCREMENTAL_BUILD").getWallTime().getCount());
+
+		StringWriter writer = new StringWriter();
+		statistics.writeJson(writer);
+		String json = writer.toString();
+		assertTrue("4.0", json.startsWith("{\"autoBuildInterruptions\":"));
+		assertTrue("4.1", json.contains("\"" + SortBuilder.BUILDER_NAME + "\":{\"invocations\":2,"));
+
+		statistics.reset();
+		assertTrue("5.0", statistics.getBuilderStatistics().isEmpty());
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.*;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+
+/**
+ * A builder that declares it supports parallel builds. It builds one folder
+ * of its project, given by the {@link #FOLDER_ARG} argument, and holds that
+ * folder as its scheduling rule. It records the kind of each build and whether
+ * its delta contains the file <code>input</code> of its folder, and writes the
+ * file <code>output</code> of its folder.
+ */
+public class ConcurrentBuilder extends IncrementalProjectBuilder {
+	public static final String BUILDER_NAME = "org.eclipse.core.tests.resources.concurrentbuilder";
+	public static final String FOLDER_ARG = "folder";
+	public static final String FORGET_STATE_ARG = "forgetState";
+	public static final String INPUT = "input";
+	public static final String OUTPUT = "output";
+
+	private static int currentBuilds = 0;
+	private static int maxSimultaneousBuilds = 0;
+	private static CyclicBarrier barrier;
+
+	/**
+	 * The results of the last builds, by the path of the built folder.
+	 */
+	public static final Map<String, String> results = new ConcurrentHashMap<>();
+
+	@Override
+	protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
+		IFolder folder = getProject().getFolder(args.get(FOLDER_ARG));
+		CyclicBarrier currentBarrier;
+		synchronized (ConcurrentBuilder.class) {
+			currentBuilds++;
+			maxSimultaneousBuilds = Math.max(currentBuilds, maxSimultaneousBuilds);
+			currentBarrier = barrier;
+		}
+		try {
+			if (currentBarrier != null)
+				// only passes if enough builders run at the same time
+				currentBarrier.await(30, TimeUnit.SECONDS);
+			else
+				Thread.sleep(100);
+			IResourceDelta delta = getDelta(getProject());
+			String deltaResult = delta == null ? "no delta" : delta.findMember(folder.getFile(INPUT).getProjectRelativePath()) == null ? "unchanged" : "changed";
+			results.put(folder.getFullPath().toString(), kind + " " + deltaResult);
+		} catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+			results.put(folder.getFullPath().toString(), "not concurrent");
+		} finally {
+			synchronized (ConcurrentBuilder.class) {
+				currentBuilds--;
+			}
+		}
+		// changing the workspace needs the workspace lock
+		IFile output = folder.getFile(OUTPUT);
+		ByteArrayInputStream contents = new ByteArrayInputStream(Integer.toString(kind).getBytes());
+		if (output.exists())
+			output.setContents(contents, IResource.FORCE, null);
+		else
+			output.create(contents, IResource.FORCE, null);
+		if (Boolean.parseBoolean(args.get(FORGET_STATE_ARG)))
+			forgetLastBuiltState();
+		return null;
+	}
+
+	@Override
+	public ISchedulingRule getRule(int kind, Map<String, String> args) {
+		if (args == null || args.get(FOLDER_ARG) == null)
+			return getProject();
+		return getProject().getFolder(args.get(FOLDER_ARG));
+	}
+
+	/**
+	 * Sets the number of builders that must run at the same time for a build
+	 * to pass, or 0 if builders need not run at the same time.
+	 */
+	public static void setConcurrentBuilds(int count) {
+		synchronized (ConcurrentBuilder.class) {
+			barrier = count == 0 ? null : new CyclicBarrier(count);
+		}
+	}
+
+	public static int getMaxSimultaneousBuilds() {
+		synchronized (ConcurrentBuilder.class) {
+			return maxSimultaneousBuilds;
+		}
+	}
+
+	public static void reset() {
+		synchronized (ConcurrentBuilder.class) {
+			currentBuilds = 0;
+			maxSimultaneousBuilds = 0;
+			barrier = null;
+			results.clear();
+		}
+	}
+}
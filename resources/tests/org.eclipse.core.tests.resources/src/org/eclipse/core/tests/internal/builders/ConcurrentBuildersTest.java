@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import java.util.Map;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Tests that the builders of a project that declare they support parallel
+ * builds run concurrently.
+ *
+ * The builders write to the workspace while they run concurrently, so these
+ * tests also hang if the build does not release the workspace lock while it
+ * waits for them.
+ */
+public class ConcurrentBuildersTest extends AbstractBuilderTest {
+
+	public ConcurrentBuildersTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(4);
+		getWorkspace().setDescription(description);
+		setAutoBuilding(false);
+		ConcurrentBuilder.reset();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		ConcurrentBuilder.reset();
+		super.tearDown();
+		getWorkspace().getRoot().delete(true, null);
+	}
+
+	private ICommand createConcurrentCommand(IProjectDescription description, String folder, boolean forgetState) {
+		ICommand command = description.newCommand();
+		command.setBuilderName(ConcurrentBuilder.BUILDER_NAME);
+		Map<String, String> args = command.getArguments();
+		args.put(ConcurrentBuilder.FOLDER_ARG, folder);
+		args.put(ConcurrentBuilder.FORGET_STATE_ARG, Boolean.toString(forgetState));
+		command.setArguments(args);
+		return command;
+	}
+
+	private IProject createProject(String name, boolean forgetState) throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject(name);
+		ensureExistsInWorkspace(new IResource[] {project, project.getFile("a/" + ConcurrentBuilder.INPUT), project.getFile("b/" + ConcurrentBuilder.INPUT)}, true);
+		IProjectDescription description = project.getDescription();
+		description.setBuildSpec(new ICommand[] {createConcurrentCommand(description, "a", false), createConcurrentCommand(description, "b", forgetState)});
+		project.setDescription(description, getMonitor());
+		return project;
+	}
+
+	private String getResult(IProject project, String folder) {
+		return ConcurrentBuilder.results.get(project.getFolder(folder).getFullPath().toString());
+	}
+
+	public void testProjectBuild() throws CoreException {
+		// the second builder forgets its state, so it always runs full builds
+		IProject project = createProject("Project", true);
+		ConcurrentBuilder.setConcurrentBuilds(2);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("1.0", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "a"));
+		assertEquals("1.1", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "b"));
+		assertEquals("1.2", 2, ConcurrentBuilder.getMaxSimultaneousBuilds());
+		assertTrue("1.3", project.getFile("a/" + ConcurrentBuilder.OUTPUT).exists());
+		assertTrue("1.4", project.getFile("b/" + ConcurrentBuilder.OUTPUT).exists());
+
+		// each builder gets the delta for its own last built state
+		dirty(project.getFile("a/" + ConcurrentBuilder.INPUT));
+		dirty(project.getFile("b/" + ConcurrentBuilder.INPUT));
+		ConcurrentBuilder.results.clear();
+		project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, getMonitor());
+		assertEquals("2.0", IncrementalProjectBuilder.INCREMENTAL_BUILD + " changed", getResult(project, "a"));
+		assertEquals("2.1", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "b"));
+	}
+
+	public void testWorkspaceBuild() throws CoreException {
+		IProject project1 = createProject("Project1", false);
+		IProject project2 = createProject("Project2", false);
+		// both projects are built in parallel, each with both of its builders
+		ConcurrentBuilder.setConcurrentBuilds(4);
+		getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		for (IProject project : new IProject[] {project1, project2}) {
+			assertEquals("1.0 " + project, IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "a"));
+			assertEquals("1.1 " + project, IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "b"));
+		}
+		assertEquals("1.2", 4, ConcurrentBuilder.getMaxSimultaneousBuilds());
+
+		dirty(project1.getFile("a/" + ConcurrentBuilder.INPUT));
+		ConcurrentBuilder.results.clear();
+		ConcurrentBuilder.setConcurrentBuilds(2);
+		getWorkspace().build(new IBuildConfiguration[] {project1.getActiveBuildConfig()}, IncrementalProjectBuilder.INCREMENTAL_BUILD, false, getMonitor());
+		assertEquals("2.0", IncrementalProjectBuilder.INCREMENTAL_BUILD + " changed", getResult(project1, "a"));
+		// the delta of the project is not empty, but the input of the folder is unchanged
+		assertEquals("2.1", IncrementalProjectBuilder.INCREMENTAL_BUILD + " unchanged", getResult(project1, "b"));
+		assertNull("2.2", getResult(project2, "a"));
+	}
+
+	/**
+	 * Tests that builders that don't declare they support parallel builds
+	 * separate the builders that do.
+	 */
+	public void testSupportsParallelBuild() throws CoreException {
+		IProject project = createProject("Project", false);
+		IProjectDescription description = project.getDescription();
+		ICommand[] commands = description.getBuildSpec();
+		ICommand timerCommand = description.newCommand();
+		timerCommand.setBuilderName(TimerBuilder.BUILDER_NAME);
+		Map<String, String> args = timerCommand.getArguments();
+		args.put(TimerBuilder.DURATION_ARG, "0");
+		args.put(TimerBuilder.RULE_TYPE_ARG, TimerBuilder.RuleType.NO_CONFLICT.toString());
+		timerCommand.setArguments(args);
+		description.setBuildSpec(new ICommand[] {commands[0], timerCommand, commands[1]});
+		project.setDescription(description, getMonitor());
+
+		TimerBuilder.reset();
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("1.0", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "a"));
+		assertEquals("1.1", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "b"));
+		assertEquals("1.2", 1, TimerBuilder.getTotalBuilds());
+		assertEquals("1.3", 1, ConcurrentBuilder.getMaxSimultaneousBuilds());
+	}
+
+	/**
+	 * Tests that builders run one after the other if only one build may run
+	 * at a time.
+	 */
+	public void testMaxConcurrentBuilds() throws CoreException {
+		IWorkspaceDescription description = getWorkspace().getDescription();
+		description.setMaxConcurrentBuilds(1);
+		getWorkspace().setDescription(description);
+		IProject project = createProject("Project", false);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		assertEquals("1.0", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "a"));
+		assertEquals("1.1", IncrementalProjectBuilder.FULL_BUILD + " no delta", getResult(project, "b"));
+		assertEquals("1.2", 1, ConcurrentBuilder.getMaxSimultaneousBuilds());
+	}
+}
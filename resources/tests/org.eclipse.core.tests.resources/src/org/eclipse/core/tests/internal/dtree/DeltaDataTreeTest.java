@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.HashSet;
+import java.util.Set;
 import org.eclipse.core.internal.dtree.*;
 import org.eclipse.core.internal.watson.DefaultElementComparator;
 import org.eclipse.core.runtime.IPath;
@@ -1056,6 +1058,74 @@ public class DeltaDataTreeTest {
 
 	}
 
+	/**
+	 * Tests collecting the keys changed in the deltas between two trees
+	 */
+	@Test
+	public void testCollectChangedKeys() {
+		tree.immutable();
+		DeltaDataTree first = tree.newEmptyDeltaTree();
+		first.createChild(leftKey, "new");
+		first.immutable();
+		DeltaDataTree second = first.newEmptyDeltaTree();
+		second.deleteChild(leftKey, "one");
+		second.immutable();
+		second.reroot();
+
+		Set<IPath> changed = new HashSet<>();
+		Set<IPath> deleted = new HashSet<>();
+		assertTrue(tree.collectChangedKeys(second, changed, deleted));
+		/* after rerooting, the older trees are backward deltas */
+		assertTrue(changed.contains(leftKey));
+		assertTrue(changed.contains(leftKey.append("one")));
+		assertTrue(deleted.contains(leftKey.append("new")));
+		assertFalse(changed.contains(rightKey));
+
+		/* the newer tree is not reachable from the older one the other way round */
+		assertFalse(second.collectChangedKeys(tree, new HashSet<>(), new HashSet<>()));
+	}
+
+	/**
+	 * Tests single creates, data changes and deletes on a node with many
+	 * children, in both complete and delta trees.
+	 */
+	@Test
+	public void testWideNode() {
+		IPath wideKey = rootKey.append("wide");
+		tree.createChild(rootKey, "wide");
+		for (int i = 999; i >= 0; i -= 2) {
+			tree.createChild(wideKey, Integer.toString(i), "data" + i);
+		}
+		tree.immutable();
+		DeltaDataTree delta = tree.newEmptyDeltaTree();
+		for (int i = 0; i < 1000; i += 2) {
+			delta.createChild(wideKey, Integer.toString(i));
+		}
+		for (int i = 0; i < 1000; i += 3) {
+			delta.setData(wideKey.append(Integer.toString(i)), "changed" + i);
+		}
+		for (int i = 0; i < 1000; i += 5) {
+			delta.deleteChild(wideKey, Integer.toString(i));
+		}
+		delta.immutable();
+
+		String[] names = delta.getNamesOfChildren(wideKey);
+		assertEquals(800, names.length);
+		for (int i = 1; i < names.length; i++) {
+			assertTrue(names[i - 1].compareTo(names[i]) < 0);
+		}
+		assertFalse(delta.includes(wideKey.append("995")));
+		assertEquals("changed3", delta.getData(wideKey.append("3")));
+		assertEquals("data7", delta.getData(wideKey.append("7")));
+		assertNull(delta.getData(wideKey.append("8")));
+		assertEquals(500, tree.getChildCount(wideKey));
+
+		delta.reroot();
+		assertEquals(800, delta.getChildCount(wideKey));
+		assertEquals(500, tree.getChildCount(wideKey));
+		assertEquals("data3", tree.getData(wideKey.append("3")));
+	}
+
 	/**
 	 * Tests that the setUp() method is doing what it should
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -171,4 +171,53 @@ public class BlobStoreTest extends LocalStoreTest {
 		}
 		assertTrue("2.5", compareContent(getContents(content), input));
 	}
+
+	public void testContentAddressed() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64, true, false);
+		assertTrue("1.0", store.isContentAddressed());
+
+		String content = "nothing important........tnatropmi gnihton";
+		IFileStore target = root.getChild("target");
+		createFile(target, content);
+		UniversalUniqueIdentifier uuid1 = store.addBlob(target, false);
+		assertTrue("1.1", target.fetchInfo().exists());
+		createFile(target, content);
+		UniversalUniqueIdentifier uuid2 = store.addBlob(target, true);
+		assertEquals("1.2", uuid1, uuid2);
+		assertTrue("1.3", !target.fetchInfo().exists());
+		assertTrue("1.4", store.exists(uuid1));
+
+		createFile(target, content + "changed");
+		UniversalUniqueIdentifier uuid3 = store.addBlob(target, true);
+		assertTrue("2.0", !uuid1.equals(uuid3));
+		assertTrue("2.1", compareContent(getContents(content), store.getBlob(uuid1)));
+		assertTrue("2.2", compareContent(getContents(content + "changed"), store.getBlob(uuid3)));
+
+		store.deleteBlob(uuid1);
+		assertTrue("3.0", !store.exists(uuid1));
+		assertTrue("3.1", store.exists(uuid3));
+	}
+
+	public void testCompressed() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64, true, true);
+
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 1000; i++)
+			content.append("nothing important........tnatropmi gnihton");
+		IFileStore target = root.getChild("target");
+		createFile(target, content.toString());
+		UniversalUniqueIdentifier uuid = store.addBlob(target, true);
+		assertTrue("1.0", store.exists(uuid));
+		assertTrue("1.1", !store.fileFor(uuid).fetchInfo().exists());
+		assertTrue("1.2", compareContent(getContents(content.toString()), store.getBlob(uuid)));
+
+		// blobs written compressed are readable by an uncompressed store
+		BlobStore plainStore = new BlobStore(root, 64, true, false);
+		assertTrue("2.0", compareContent(getContents(content.toString()), plainStore.getBlob(uuid)));
+
+		store.deleteBlob(uuid);
+		assertTrue("3.0", !store.exists(uuid));
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2004, 2015 IBM Corporation and others.
+ *  Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -173,6 +173,46 @@ public class BucketTreeTests extends ResourceTest {
 		}
 	}
 
+	public void testEntriesInBucket() throws CoreException {
+		SimpleBucket bucket = new SimpleBucket();
+		BucketTree tree = new BucketTree((Workspace) getWorkspace(), bucket);
+		IProject project = getWorkspace().getRoot().getProject("proj1");
+		IFolder folder = project.getFolder("folder");
+		ensureExistsInWorkspace(folder, true);
+		tree.loadBucketFor(folder.getFile("any.txt").getFullPath());
+		// add in reverse order, the bucket keeps them sorted
+		List<IPath> expected = new ArrayList<>();
+		for (int i = 99; i >= 0; i--) {
+			IPath path = folder.getFile("file" + i + ".txt").getFullPath();
+			bucket.set(path, "path", path.toString());
+			bucket.set(path, "segments", Integer.toString(path.segmentCount()));
+			expected.add(path);
+		}
+		// a sibling sharing the string prefix of the folder, but not the path prefix
+		IPath sibling = project.getFile("folder.txt").getFullPath();
+		tree.loadBucketFor(sibling);
+		bucket.set(sibling, "path", sibling.toString());
+		bucket.set(sibling, "segments", Integer.toString(sibling.segmentCount()));
+		bucket.save();
+
+		tree.loadBucketFor(folder.getFile("any.txt").getFullPath());
+		assertEquals("1.0", 100, bucket.getEntryCount());
+		assertNotNull("1.1", bucket.getEntryValue(expected.get(42).toString()));
+		assertNull("1.2", bucket.getEntryValue(folder.getFile("file100.txt").getFullPath().toString()));
+
+		// remove one entry, then read it back from disk
+		bucket.set(expected.get(42), "path", null);
+		bucket.set(expected.get(42), "segments", null);
+		assertNull("2.0", bucket.getEntryValue(expected.get(42).toString()));
+		assertEquals("2.1", 99, bucket.getEntryCount());
+		bucket.save();
+		// a new bucket has nothing cached yet
+		tree = new BucketTree((Workspace) getWorkspace(), new SimpleBucket());
+		expected.remove(42);
+		verify(tree, "3.0", folder.getFullPath(), BucketTree.DEPTH_INFINITE, expected);
+		verify(tree, "3.1", sibling, BucketTree.DEPTH_ZERO, Arrays.asList(sibling));
+	}
+
 	public void verify(BucketTree tree, final String tag, IPath root, int depth, final Collection<IPath> expected) {
 		final Set<IPath> visited = new HashSet<>();
 		SimpleBucket.Visitor verifier = new SimpleBucket.Visitor() {
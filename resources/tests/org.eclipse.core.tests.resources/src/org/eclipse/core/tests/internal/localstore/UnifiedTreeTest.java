@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2017 IBM Corporation and others.
+ *  Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,7 @@ import java.util.Hashtable;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.internal.localstore.IUnifiedTreeVisitor;
+import org.eclipse.core.internal.localstore.ParallelFileTree;
 import org.eclipse.core.internal.localstore.UnifiedTree;
 import org.eclipse.core.internal.resources.Resource;
 import org.eclipse.core.internal.resources.Workspace;
@@ -231,6 +232,44 @@ public class UnifiedTreeTest extends LocalStoreTest {
 		assertTrue("2.0", set.isEmpty());
 	}
 
+	/**
+	 * Creates some resources in the file system and some in the workspace,
+	 * also below a linked folder. After that, makes sure the visitor is going
+	 * to walk through all of them when the file system is read in parallel.
+	 */
+	public void testTraverseMechanismWithParallelFileTree() throws Throwable {
+		IProject project = projects[0];
+		final Hashtable<String, String> set = new Hashtable<>();
+		createResourcesInWorkspace(project, set);
+		createResourcesInFileSystem(((Resource) project).getStore(), set);
+
+		/* create a linked folder with some file system structure */
+		IFileStore linkStore = getTempStore();
+		linkStore.mkdir(EFS.NONE, null);
+		IFolder link = project.getFolder("link");
+		link.createLink(linkStore.toURI(), IResource.NONE, null);
+		set.put(link.getLocation().toOSString(), "");
+		createResourcesInFileSystem(linkStore, set);
+
+		IUnifiedTreeVisitor visitor = node -> {
+			final IResource resource = node.getResource();
+			IFileStore store = ((Resource) resource).getStore();
+			if (node.existsInFileSystem()) {
+				assertEquals("1.0", store.fetchInfo().getName(), node.getLocalName());
+			}
+			assertEquals("1.1", store, node.getStore());
+			set.remove(resource.getLocation().toOSString());
+			return true;
+		};
+
+		ParallelFileTree fileTree = ParallelFileTree.fetch((Resource) project, getMonitor());
+		assertNotNull("2.0", fileTree);
+		UnifiedTree tree = new UnifiedTree(project, fileTree);
+		tree.accept(visitor);
+
+		assertTrue("3.0", set.isEmpty());
+	}
+
 	/**
 	 * Regression test for 342968 - Resource layers asks IFileTree for info of linked resources
 	 */
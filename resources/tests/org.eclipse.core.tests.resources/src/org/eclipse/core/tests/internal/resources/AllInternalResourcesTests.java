@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,6 +25,6 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ ModelObjectReaderWriterTest.class, ProjectPreferencesTest.class,
 		ResourceInfoTest.class,
 		WorkspaceConcurrencyTest.class, WorkspacePreferencesTest.class, ProjectReferencesTest.class,
-		ProjectDynamicReferencesTest.class, ProjectBuildConfigsTest.class, Bug544975Test.class, })
+		ProjectDynamicReferencesTest.class, ProjectBuildConfigsTest.class, Bug544975Test.class, DeferredProjectRestoreTest.class, })
 public class AllInternalResourcesTests {
 }
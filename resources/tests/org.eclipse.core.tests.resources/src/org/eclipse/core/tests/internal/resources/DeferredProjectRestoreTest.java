@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.resources;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.internal.resources.TestingSupport;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests that the markers and sync info of a project whose restore was deferred
+ * are restored when they are queried, whether the tree is locked or not, and
+ * without waiting for the workspace lock.
+ */
+public class DeferredProjectRestoreTest extends ResourceTest {
+	private static final QualifiedName PARTNER = new QualifiedName("org.eclipse.core.tests.resources", "deferred");
+	private static final byte[] SYNC_BYTES = "sync".getBytes();
+
+	private IProject project;
+	private IProject other;
+	private IFile file;
+	private long markerId;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = getWorkspace().getRoot().getProject("Project");
+		other = getWorkspace().getRoot().getProject("Other");
+		file = project.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {project, file, other, other.getFile("file.txt")}, true);
+		IMarker marker = file.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		markerId = marker.getId();
+		ISynchronizer synchronizer = getWorkspace().getSynchronizer();
+		synchronizer.add(PARTNER);
+		synchronizer.setSyncInfo(PARTNER, file, SYNC_BYTES);
+		getWorkspace().save(true, getMonitor());
+		TestingSupport.deferRestore(project);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getWorkspace().getSynchronizer().remove(PARTNER);
+		super.tearDown();
+	}
+
+	/**
+	 * Asserts that the marker and the sync info of the file are found.
+	 */
+	private void assertRestored(String message) throws CoreException {
+		IMarker[] markers = file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertEquals(message + ".0", 1, markers.length);
+		assertEquals(message + ".1", markerId, markers[0].getId());
+		assertEquals(message + ".2", IMarker.SEVERITY_ERROR, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertTrue(message + ".3", Arrays.equals(SYNC_BYTES, getWorkspace().getSynchronizer().getSyncInfo(PARTNER, file)));
+	}
+
+	private List<IResource> acceptSyncInfo(IResource resource) throws CoreException {
+		List<IResource> visited = new ArrayList<>();
+		getWorkspace().getSynchronizer().accept(PARTNER, resource, r -> visited.add(r), IResource.DEPTH_INFINITE);
+		return visited;
+	}
+
+	public void testQueryBeforeOperation() throws CoreException {
+		IMarker[] markers = getWorkspace().getRoot().findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		assertEquals("1.0", 1, markers.length);
+		assertEquals("1.1", file, markers[0].getResource());
+		assertRestored("2");
+	}
+
+	public void testAcceptBeforeOperation() throws CoreException {
+		assertEquals("1.0", Collections.singletonList(file), acceptSyncInfo(project));
+		assertRestored("2");
+	}
+
+	/**
+	 * Tests queries in a resource change listener, while the tree is locked,
+	 * and after the notification.
+	 */
+	public void testQueryDuringNotification() throws CoreException {
+		List<Object> results = new ArrayList<>();
+		IResourceChangeListener listener = event -> {
+			if (!results.isEmpty())
+				return;
+			try {
+				results.add(getWorkspace().isTreeLocked());
+				results.add(file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO).length);
+				results.add(getWorkspace().getSynchronizer().getSyncInfo(PARTNER, file));
+				results.add(acceptSyncInfo(project));
+			} catch (CoreException e) {
+				results.add(e);
+			}
+		};
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			// changing another project does not restore this one
+			other.getFile("file.txt").setContents(getContents("changed"), IResource.NONE, getMonitor());
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		assertEquals("1.0", 4, results.size());
+		assertEquals("1.1", Boolean.TRUE, results.get(0));
+		assertEquals("1.2", 1, results.get(1));
+		assertTrue("1.3", Arrays.equals(SYNC_BYTES, (byte[]) results.get(2)));
+		assertEquals("1.4", Collections.singletonList(file), results.get(3));
+		assertRestored("2");
+	}
+
+	/**
+	 * Tests that queries don't wait for an operation that holds the workspace
+	 * lock in another thread. The operation only changes another project, so
+	 * it does not restore the project itself.
+	 */
+	public void testQueryWhileWorkspaceLocked() throws Exception {
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		Thread operation = new Thread(() -> {
+			try {
+				getWorkspace().run((IWorkspaceRunnable) monitor -> {
+					locked.countDown();
+					try {
+						release.await(30, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}, other, IResource.NONE, null);
+			} catch (CoreException e) {
+				errors.add(e);
+			}
+		}, "DeferredProjectRestoreTest operation");
+		operation.start();
+		try {
+			assertTrue("1.0", locked.await(30, TimeUnit.SECONDS));
+			CountDownLatch queried = new CountDownLatch(1);
+			Thread query = new Thread(() -> {
+				try {
+					assertRestored("2");
+				} catch (CoreException | AssertionError e) {
+					errors.add(e);
+				} finally {
+					queried.countDown();
+				}
+			}, "DeferredProjectRestoreTest query");
+			query.start();
+			assertTrue("3.0", queried.await(30, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			operation.join();
+		}
+		assertEquals("4.0", Collections.emptyList(), errors);
+	}
+}
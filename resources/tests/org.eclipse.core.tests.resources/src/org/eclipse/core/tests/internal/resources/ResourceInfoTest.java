@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,7 @@ package org.eclipse.core.tests.internal.resources;
 
 import java.io.*;
 import java.util.Map;
+import org.eclipse.core.internal.resources.MarkerSet;
 import org.eclipse.core.internal.resources.ResourceInfo;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.tests.resources.ResourceTest;
@@ -123,4 +124,27 @@ public class ResourceInfoTest extends ResourceTest {
 		}
 		assertEquals("2.2", info, newInfo);
 	}
+
+	public void testCloneCopiesAttachments() {
+		QualifiedName qname = new QualifiedName("org.eclipse.core.tests", "myTest");
+		ResourceInfo info = new ResourceInfo();
+		info.setSessionProperty(qname, "value");
+		MarkerSet markers = new MarkerSet();
+		info.setMarkers(markers);
+
+		ResourceInfo copy = (ResourceInfo) info.clone();
+		assertEquals("1.0", "value", copy.getSessionProperty(qname));
+		assertSame("1.1", markers, copy.getMarkers(false));
+
+		copy.setSessionProperty(qname, null);
+		copy.setMarkers(null);
+		assertNull("2.0", copy.getSessionProperty(qname));
+		assertNull("2.1", copy.getMarkers(false));
+		assertEquals("2.2", "value", info.getSessionProperty(qname));
+		assertSame("2.3", markers, info.getMarkers(false));
+
+		copy.setMarkers(new MarkerSet());
+		assertSame("3.0", markers, info.getMarkers(false));
+		assertNull("3.1", copy.getSessionProperty(qname));
+	}
 }
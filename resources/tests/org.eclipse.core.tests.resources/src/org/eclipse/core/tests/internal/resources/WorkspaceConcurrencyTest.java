@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2017 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,7 +13,12 @@
  *******************************************************************************/
 package org.eclipse.core.tests.internal.resources;
 
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.eclipse.core.internal.resources.TestingSupport;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
@@ -271,6 +276,74 @@ public class WorkspaceConcurrencyTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that a writer confined to a project releases the workspace lock
+	 * while it writes file contents, so that a writer in another project can
+	 * proceed, while an operation without a scheduling rule waits until the
+	 * write has ended.
+	 */
+	public void testUnprotectedWrites() throws Exception {
+		final IWorkspace workspace = getWorkspace();
+		final IProject project1 = workspace.getRoot().getProject("testUnprotectedWrites1");
+		final IProject project2 = workspace.getRoot().getProject("testUnprotectedWrites2");
+		final IFile file1 = project1.getFile("file.txt");
+		final IFile file2 = project2.getFile("file.txt");
+		ensureExistsInWorkspace(new IResource[] {file1, file2}, true);
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicBoolean released = new AtomicBoolean();
+		final AtomicBoolean unruledRanDuringWrite = new AtomicBoolean();
+		// blocks the first read until released
+		ByteArrayInputStream contents = new ByteArrayInputStream(new byte[] {1, 2, 3}) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				if (writing.getCount() > 0) {
+					writing.countDown();
+					try {
+						released.set(release.await(10, TimeUnit.SECONDS));
+					} catch (InterruptedException e) {
+						// read on
+					}
+				}
+				return super.read(b, off, len);
+			}
+		};
+		TestingSupport.setProjectConcurrency(true);
+		try {
+			Job writer1 = Job.create("writer1", (ICoreRunnable) monitor -> file1.setContents(contents, IResource.NONE, monitor));
+			writer1.schedule();
+			assertTrue("1.0", writing.await(10, TimeUnit.SECONDS));
+
+			// an operation without a rule may modify any project
+			Job unruled = Job.create("unruled", (ICoreRunnable) monitor -> workspace.run((IWorkspaceRunnable) m -> {
+				unruledRanDuringWrite.set(release.getCount() > 0);
+				project1.getFile("other.txt").create(getRandomContents(), IResource.NONE, m);
+			}, null, IResource.NONE, monitor));
+			unruled.schedule();
+			sleep(500);
+
+			// a writer in another project does not wait for the first writer
+			Job writer2 = Job.create("writer2", (ICoreRunnable) monitor -> file2.setContents(getRandomContents(), IResource.NONE, monitor));
+			writer2.schedule();
+			waitForCompletion(writer2);
+			assertEquals("2.0", 1, release.getCount());
+
+			release.countDown();
+			waitForCompletion(writer1);
+			waitForCompletion(unruled);
+			assertTrue("3.0", released.get());
+			assertFalse("3.1", unruledRanDuringWrite.get());
+			for (Job job : new Job[] {writer1, writer2, unruled}) {
+				IStatus result = job.getResult();
+				if (!result.isOK())
+					fail("3.2", new CoreException(result));
+			}
+		} finally {
+			release.countDown();
+			TestingSupport.setProjectConcurrency(Boolean.getBoolean("org.eclipse.core.resources.projectConcurrency"));
+		}
+	}
+
 	private void waitForCompletion(Job job) {
 		int i = 0;
 		while (job.getState() != Job.NONE) {
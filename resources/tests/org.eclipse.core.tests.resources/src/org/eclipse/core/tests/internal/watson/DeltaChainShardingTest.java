@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.watson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.*;
+import java.util.*;
+import org.eclipse.core.internal.dtree.AbstractDataTreeNode;
+import org.eclipse.core.internal.dtree.DeltaDataTree;
+import org.eclipse.core.internal.watson.*;
+import org.eclipse.core.runtime.IPath;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests writing a delta chain split into its top level and the subtrees below
+ * each top-level node, and reading it back.
+ */
+public class DeltaChainShardingTest implements IPathConstants {
+	private static final IPath other = root.append("other");
+
+	private ElementTree[] fDeltaChain;
+
+	private final IElementInfoFlattener flattener = new IElementInfoFlattener() {
+		@Override
+		public void writeElement(IPath path, Object data, DataOutput output) throws IOException {
+			output.writeUTF(data == null ? "null" : (String) data);
+		}
+
+		@Override
+		public Object readElement(IPath path, DataInput input) throws IOException {
+			String data = input.readUTF();
+			return "null".equals(data) ? null : data;
+		}
+	};
+
+	@Before
+	public void setUp() throws Exception {
+		ElementTree tree = TestUtil.createTestElementTree();
+		tree.createElement(other, "other");
+		tree.createElement(other.append("child"), "child");
+		fDeltaChain = TestUtil.doManyRoutineOperations(tree, project1);
+		TestUtil.scramble(fDeltaChain);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		ElementTree[] refried = writeAndRead(Collections.emptySet());
+		for (int i = 0; i < refried.length; i++) {
+			TestUtil.assertEqualTrees("Same after sharded delta chain serialize", fDeltaChain[i], refried[i]);
+		}
+	}
+
+	@Test
+	public void testMissingShard() throws IOException {
+		ElementTree[] refried = writeAndRead(Collections.singleton("solution"));
+		for (int i = 0; i < refried.length; i++) {
+			assertTrue(refried[i].includes(solution));
+			assertEquals(0, refried[i].getChildCount(solution));
+			TestUtil.assertEqualTrees("Unaffected shard", fDeltaChain[i], refried[i], other);
+		}
+	}
+
+	/**
+	 * Writes the delta chain in parts and reads it back, leaving out the parts
+	 * of the given top-level nodes.
+	 */
+	private ElementTree[] writeAndRead(Set<String> omitted) throws IOException {
+		ElementTreeWriter writer = new ElementTreeWriter(flattener);
+		ByteArrayOutputStream topLevel = new ByteArrayOutputStream();
+		DeltaDataTree[] chain = writer.writeDeltaChainTopLevel(fDeltaChain, new DataOutputStream(topLevel), DefaultElementComparator.getComparator());
+		Set<String> names = ElementTreeWriter.getTopLevelNames(chain);
+		assertEquals(new TreeSet<>(Arrays.asList("other", "solution")), names);
+
+		ElementTreeReader reader = new ElementTreeReader(flattener);
+		Map<String, AbstractDataTreeNode[][]> shards = new HashMap<>();
+		for (String name : names) {
+			ByteArrayOutputStream shard = new ByteArrayOutputStream();
+			writer.writeDeltaChainBelowTopLevel(chain, name, new DataOutputStream(shard));
+			if (!omitted.contains(name)) {
+				shards.put(name, reader.readDeltaChainBelowTopLevel(new DataInputStream(new ByteArrayInputStream(shard.toByteArray())), name));
+			}
+		}
+		return reader.readDeltaChain(new DataInputStream(new ByteArrayInputStream(topLevel.toByteArray())), shards);
+	}
+}
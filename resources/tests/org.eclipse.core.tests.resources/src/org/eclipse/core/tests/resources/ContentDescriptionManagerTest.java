@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -448,4 +448,29 @@ public class ContentDescriptionManagerTest extends ResourceTest {
 
 	}
 
+	/**
+	 * Ensure a change of an unrelated content type leaves descriptions intact.
+	 */
+	public void testUnrelatedContentTypeChange() throws CoreException {
+		IProject project = getWorkspace().getRoot().getProject("MyProject");
+		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
+		IContentType xml = contentTypeManager.getContentType("org.eclipse.core.runtime.xml");
+		IContentType properties = contentTypeManager.getContentType("org.eclipse.core.runtime.properties");
+		IFile file = project.getFile("file.xml");
+		ensureExistsInWorkspace(file, getContents(CharsetTest.SAMPLE_XML_ISO_8859_1_ENCODING));
+		IContentDescription description = getDescription("1.0", file);
+		assertEquals("1.1", xml, description.getContentType());
+		assertEquals("1.2", "ISO-8859-1", description.getCharset());
+
+		String newExtension = "properties_unrelated";
+		properties.addFileSpec(newExtension, IContentType.FILE_EXTENSION_SPEC);
+		try {
+			description = getDescription("2.0", file);
+			assertEquals("2.1", xml, description.getContentType());
+			assertEquals("2.2", "ISO-8859-1", description.getCharset());
+			assertEquals("2.3", "ISO-8859-1", file.getCharset());
+		} finally {
+			properties.removeFileSpec(newExtension, IContentType.FILE_EXTENSION_SPEC);
+		}
+	}
 }
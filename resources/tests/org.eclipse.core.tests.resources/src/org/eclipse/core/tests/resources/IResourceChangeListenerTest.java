@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,9 +16,9 @@ package org.eclipse.core.tests.resources;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.Dictionary;
-import java.util.Hashtable;
+import java.util.*;
 import java.util.function.BooleanSupplier;
+import org.eclipse.core.internal.resources.TestingSupport;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -553,6 +553,116 @@ public class IResourceChangeListenerTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests a delta that is large enough to be compared and created
+	 * concurrently for the projects and their members, with a lowered
+	 * threshold. The delta must be the same as the one of the sequential path,
+	 * in particular the order of the children, the marker deltas and the
+	 * phantoms.
+	 */
+	public void testLargeDelta() throws CoreException {
+		final int projectCount = 3;
+		final int folderCount = 2;
+		final int fileCount = 500;
+		final IWorkspace workspace = getWorkspace();
+		final ISynchronizer synchronizer = workspace.getSynchronizer();
+		final QualifiedName partner = new QualifiedName(PI_RESOURCES_TESTS, "testLargeDelta");
+		List<IFolder> folders = new ArrayList<>();
+		List<IResource> resources = new ArrayList<>();
+		for (int p = 0; p < projectCount; p++) {
+			IProject project = workspace.getRoot().getProject("testLargeDelta" + p);
+			resources.add(project);
+			for (int f = 0; f < folderCount; f++) {
+				IFolder folder = project.getFolder("folder" + f);
+				folders.add(folder);
+				resources.add(folder);
+				for (int i = 0; i < fileCount; i++)
+					resources.add(folder.getFile("file" + i));
+			}
+		}
+		ensureExistsInWorkspace(resources.toArray(new IResource[resources.size()]), true);
+		waitForBuild();
+
+		final Map<IPath, Integer> expected = new HashMap<>();
+		final Set<IPath> expectedMarked = new HashSet<>();
+		final Map<IPath, Integer> actual = new HashMap<>();
+		final Set<IPath> actualMarked = new HashSet<>();
+		final List<IPath> unordered = new ArrayList<>();
+		final boolean[] notified = new boolean[1];
+		IResourceDeltaVisitor visitor = delta -> {
+			IResourceDelta[] children = delta.getAffectedChildren(IResourceDelta.ALL_WITH_PHANTOMS, IContainer.INCLUDE_PHANTOMS);
+			for (int i = 1; i < children.length; i++) {
+				if (children[i - 1].getResource().getName().compareTo(children[i].getResource().getName()) >= 0)
+					unordered.add(delta.getFullPath());
+			}
+			if (delta.getResource().getType() == IResource.FILE) {
+				actual.put(delta.getFullPath(), delta.getKind());
+				if (delta.getMarkerDeltas().length > 0)
+					actualMarked.add(delta.getFullPath());
+			}
+			return true;
+		};
+		IResourceChangeListener listener = event -> {
+			if (notified[0])
+				return;
+			notified[0] = true;
+			try {
+				event.getDelta().accept(visitor, IContainer.INCLUDE_PHANTOMS);
+			} catch (CoreException e) {
+				fail("1.0", e);
+			}
+		};
+		synchronizer.add(partner);
+		workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		// each project has more changed members than the threshold
+		int threshold = TestingSupport.setParallelDeltaThreshold(fileCount);
+		long concurrentDeltas = TestingSupport.getConcurrentDeltaCount();
+		try {
+			workspace.run((IWorkspaceRunnable) monitor -> {
+				for (IFolder folder : folders) {
+					for (int i = 0; i < fileCount; i++) {
+						IFile file = folder.getFile("file" + i);
+						switch (i % 4) {
+							case 0 :
+								file.touch(null);
+								expected.put(file.getFullPath(), IResourceDelta.CHANGED);
+								break;
+							case 1 :
+								file.delete(true, null);
+								expected.put(file.getFullPath(), IResourceDelta.REMOVED);
+								break;
+							case 2 :
+								file.createMarker(IMarker.PROBLEM);
+								expected.put(file.getFullPath(), IResourceDelta.CHANGED);
+								expectedMarked.add(file.getFullPath());
+								break;
+							default :
+								// unchanged
+						}
+					}
+					for (int i = 0; i < fileCount / 10; i++) {
+						IFile file = folder.getFile("new" + i);
+						file.create(getRandomContents(), true, null);
+						expected.put(file.getFullPath(), IResourceDelta.ADDED);
+						IFile phantom = folder.getFile("phantom" + i);
+						synchronizer.setSyncInfo(partner, phantom, new byte[] {1});
+						expected.put(phantom.getFullPath(), IResourceDelta.ADDED_PHANTOM);
+					}
+				}
+			}, null);
+			assertTrue("2.0", notified[0]);
+			assertEquals("2.1", expected, actual);
+			assertEquals("2.2", expectedMarked, actualMarked);
+			assertEquals("2.3", Collections.emptyList(), unordered);
+			// the root and each project
+			assertTrue("3.0", TestingSupport.getConcurrentDeltaCount() - concurrentDeltas >= projectCount + 1);
+		} finally {
+			TestingSupport.setParallelDeltaThreshold(threshold);
+			workspace.removeResourceChangeListener(listener);
+			synchronizer.remove(partner);
+		}
+	}
+
 	public void testChangeFileToFolder() {
 		try {
 			/* change file1 into a folder */
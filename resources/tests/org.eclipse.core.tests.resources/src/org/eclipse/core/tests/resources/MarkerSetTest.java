@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,8 +14,8 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources;
 
-import java.util.Arrays;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.resources.IMarker;
 
@@ -151,4 +151,64 @@ public class MarkerSetTest extends ResourceTest {
 		map2.put(null, 1); // allowed for clients using IMarker.getAttributes()
 		map2.put("0", null);// allowed for clients
 	}
+
+	public void testMarkerAttributeMapWellKnownAttributes() {
+		MarkerAttributeMap map = new MarkerAttributeMap();
+		map.put(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		map.put(IMarker.LINE_NUMBER, 100_000);
+		map.put(IMarker.DONE, Boolean.TRUE);
+		map.put(IMarker.MESSAGE, "message");
+		assertEquals(4, map.size());
+		assertEquals(IMarker.SEVERITY_WARNING, map.get(IMarker.SEVERITY));
+		assertEquals(100_000, map.get(IMarker.LINE_NUMBER));
+		assertEquals(Boolean.TRUE, map.get(IMarker.DONE));
+		assertEquals("message", map.get(IMarker.MESSAGE));
+		assertNull(map.get(IMarker.CHAR_START));
+
+		// copies are not affected by changes
+		MarkerAttributeMap copy = new MarkerAttributeMap(map);
+		map.put(IMarker.LINE_NUMBER, 1);
+		map.put(IMarker.DONE, Boolean.FALSE);
+		assertEquals(100_000, copy.get(IMarker.LINE_NUMBER));
+		assertEquals(Boolean.TRUE, copy.get(IMarker.DONE));
+		assertEquals(1, map.get(IMarker.LINE_NUMBER));
+		assertEquals(Boolean.FALSE, map.get(IMarker.DONE));
+
+		// values of other types are kept as they are
+		map.put(IMarker.SEVERITY, "high");
+		assertEquals("high", map.get(IMarker.SEVERITY));
+		assertEquals(4, map.size());
+		assertEquals(Map.of(IMarker.SEVERITY, "high", IMarker.LINE_NUMBER, 1, IMarker.DONE, Boolean.FALSE, IMarker.MESSAGE, "message"), map.toMap());
+
+		assertEquals(1, map.remove(IMarker.LINE_NUMBER));
+		assertEquals("high", map.remove(IMarker.SEVERITY));
+		assertNull(map.remove(IMarker.SEVERITY));
+		assertEquals(2, map.size());
+		assertEquals(4, copy.size());
+	}
+
+	public void testMarkerAttributeMapForEach() {
+		MarkerAttributeMap map = new MarkerAttributeMap();
+		map.put(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		map.put(IMarker.TRANSIENT, Boolean.FALSE);
+		map.put(IMarker.MESSAGE, "message");
+		map.put(IMarker.CHAR_START, "start");
+		Map<String, Object> visited = new HashMap<>();
+		map.forEach((key, value) -> assertNull(key, visited.put(key, value)));
+		assertEquals(map.toMap(), visited);
+		assertEquals(Map.of(IMarker.SEVERITY, IMarker.SEVERITY_ERROR, IMarker.TRANSIENT, Boolean.FALSE, IMarker.MESSAGE, "message", IMarker.CHAR_START, "start"), visited);
+		for (Map.Entry<String, Object> entry : visited.entrySet())
+			assertSame(entry.getKey().intern(), entry.getKey());
+
+		// exceptions of the visitor are passed on
+		IOException exception = new IOException();
+		try {
+			map.forEach((key, value) -> {
+				throw exception;
+			});
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertSame(exception, e);
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2017 IBM Corporation and others.
+ *  Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -542,6 +542,41 @@ public class MarkerTest extends ResourceTest {
 		removeResourceChangeListener(listener);
 	}
 
+	public void testCreateMarkers() {
+		MarkersNumberOfDeltasChangeListener deltas = new MarkersNumberOfDeltasChangeListener();
+		getWorkspace().addResourceChangeListener(deltas);
+		MarkersChangeListener listener = new MarkersChangeListener();
+		addResourceChangeListener(listener);
+
+		for (IResource resource : resources) {
+			listener.reset();
+			deltas.reset();
+			List<Map<String, Object>> attributes = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				attributes.add(Map.of(IMarker.MESSAGE, "Problem " + i, IMarker.LINE_NUMBER, i, IMarker.SEVERITY, IMarker.SEVERITY_ERROR));
+			}
+			IMarker[] markers = null;
+			try {
+				markers = resource.createMarkers(TEST_PROBLEM_MARKER, attributes);
+				assertExists("Markers do not exist" + resource.getFullPath(), markers);
+				for (int i = 0; i < markers.length; i++) {
+					assertEquals("Problem " + i, markers[i].getAttribute(IMarker.MESSAGE));
+					assertEquals(i, markers[i].getAttribute(IMarker.LINE_NUMBER));
+					assertEquals(IMarker.SEVERITY_ERROR, markers[i].getAttribute(IMarker.SEVERITY));
+				}
+			} catch (CoreException e) {
+				fail("Failed to created markers for resource" + resource.getFullPath(), e);
+			}
+			assertEquals(1, deltas.numberOfChanges());
+			assertEquals(1, listener.numAffectedResources());
+			assertTrue(listener.checkChanges(resource, markers, null, null));
+		}
+
+		// cleanup
+		removeResourceChangeListener(listener);
+		getWorkspace().removeResourceChangeListener(deltas);
+	}
+
 	public void testCreateNullMarkerWithAttributesShouldFail() {
 		// create markers on our hierarchy of resources
 		for (IResource resource : resources) {
@@ -786,6 +821,93 @@ public class MarkerTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that finding markers through the marker index returns the same
+	 * markers as visiting each resource, after markers are created and deleted
+	 * and after resources with markers are moved, copied and restored.
+	 */
+	public void testFindMarkersIndexed() {
+		IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("P");
+		// a project whose name starts with the name of the other one
+		IProject project2 = root.getProject("P2");
+		IFolder folder = project.getFolder("a");
+		IFolder subfolder = folder.getFolder("b");
+		IFolder folder2 = project.getFolder("ab");
+		IResource[] hierarchy = new IResource[] {project, folder, subfolder, subfolder.getFile("1"), folder.getFile("2"), folder2, folder2.getFile("3"), project2, project2.getFile("4")};
+		ensureExistsInWorkspace(hierarchy, true);
+		TestingSupport.setMarkerIndex(true);
+		try {
+			IMarker bookmark = null;
+			try {
+				createMarkers(hierarchy, TEST_PROBLEM_MARKER);
+				createMarkers(new IResource[] {subfolder.getFile("1"), folder2}, IMarker.TASK);
+				bookmark = folder.getFile("2").createMarker(IMarker.BOOKMARK);
+			} catch (CoreException e) {
+				fail("0.0", e);
+			}
+			assertFindMarkersIndexed("1", new IResource[] {root, project, folder, project2});
+
+			try {
+				bookmark.delete();
+				subfolder.getFile("1").deleteMarkers(IMarker.TASK, false, IResource.DEPTH_ZERO);
+				folder2.getFile("3").delete(true, getMonitor());
+			} catch (CoreException e) {
+				fail("2.0", e);
+			}
+			assertFindMarkersIndexed("2", new IResource[] {root, project, folder, folder2, project2});
+
+			IFolder moved = project2.getFolder("a");
+			try {
+				folder.move(moved.getFullPath(), true, getMonitor());
+				moved.copy(folder2.getFolder("a").getFullPath(), true, getMonitor());
+			} catch (CoreException e) {
+				fail("3.0", e);
+			}
+			assertFindMarkersIndexed("3", new IResource[] {root, project, folder2, project2, moved});
+
+			try {
+				project2.close(getMonitor());
+			} catch (CoreException e) {
+				fail("4.0", e);
+			}
+			assertFindMarkersIndexed("4", new IResource[] {root, project});
+			try {
+				project2.open(getMonitor());
+			} catch (CoreException e) {
+				fail("5.0", e);
+			}
+			assertFindMarkersIndexed("5", new IResource[] {root, project, folder2, project2, moved});
+		} finally {
+			TestingSupport.setMarkerIndex(false);
+		}
+	}
+
+	/**
+	 * Asserts that finding markers in the given subtrees returns the markers
+	 * that visiting each resource of the subtrees finds.
+	 */
+	private void assertFindMarkersIndexed(String message, IResource[] subtrees) {
+		String[] types = new String[] {null, IMarker.MARKER, IMarker.PROBLEM, TEST_PROBLEM_MARKER, IMarker.TASK, IMarker.BOOKMARK};
+		for (IResource subtree : subtrees) {
+			for (String type : types) {
+				for (boolean includeSubtypes : new boolean[] {false, true}) {
+					String detail = message + " " + subtree.getFullPath() + " " + type + " " + includeSubtypes;
+					List<IMarker> expected = new ArrayList<>();
+					try {
+						subtree.accept(resource -> {
+							Collections.addAll(expected, resource.findMarkers(type, includeSubtypes, IResource.DEPTH_ZERO));
+							return true;
+						});
+						assertEquals(detail, expected.toArray(new IMarker[expected.size()]), subtree.findMarkers(type, includeSubtypes, IResource.DEPTH_INFINITE));
+					} catch (CoreException e) {
+						fail(detail, e);
+					}
+				}
+			}
+		}
+	}
+
 	/*
 	 * Bug 35300 - ClassCastException if marker transient attribute is set to a non-boolean
 	 */
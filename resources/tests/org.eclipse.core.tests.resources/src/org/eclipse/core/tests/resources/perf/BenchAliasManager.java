@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.perf;
+
+import org.eclipse.core.internal.resources.*;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Benchmarks the alias manager in a workspace with many linked folders.
+ */
+public class BenchAliasManager extends ResourceTest {
+	private static final int LINK_COUNT = 10_000;
+
+	private IProject project;
+	private IPath linkRoot;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = getWorkspace().getRoot().getProject("BenchAliasManager");
+		ensureExistsInWorkspace(project, true);
+		linkRoot = getRandomLocation();
+		deleteOnTearDown(linkRoot);
+	}
+
+	private AliasManager getAliasManager() {
+		return ((Workspace) getWorkspace()).getAliasManager();
+	}
+
+	/**
+	 * Creates the linked folders in a single operation.
+	 */
+	private IFolder[] createLinks() throws CoreException {
+		IFolder[] links = new IFolder[LINK_COUNT];
+		getWorkspace().run(monitor -> {
+			for (int i = 0; i < LINK_COUNT; i++) {
+				links[i] = project.getFolder("link" + i);
+				links[i].createLink(linkRoot.append(Integer.toString(i)), IResource.ALLOW_MISSING_LOCAL, null);
+			}
+		}, getMonitor());
+		return links;
+	}
+
+	/**
+	 * Benchmarks creating and deleting the links, including the update of the
+	 * alias manager for the whole batch of new links.
+	 */
+	public void testCreateDeleteLinks() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					IFolder[] links = createLinks();
+					assertNull(getAliasManager().computeAliases(links[0], ((Folder) links[0]).getStore()));
+					getWorkspace().run(monitor -> {
+						for (IFolder link : links)
+							link.delete(IResource.NONE, null);
+					}, getMonitor());
+				} catch (CoreException e) {
+					fail("1.0", e);
+				}
+			}
+		}.run(this, 5, 1);
+	}
+
+	/**
+	 * Benchmarks computing the aliases of every link in a project where all
+	 * links have an alias.
+	 */
+	public void testComputeAliases() throws CoreException {
+		IFolder[] links = createLinks();
+		// a link to the parent location of the other links aliases all of them
+		project.getFolder("parent").createLink(linkRoot, IResource.ALLOW_MISSING_LOCAL, getMonitor());
+		AliasManager aliasManager = getAliasManager();
+		IResource[] aliases = aliasManager.computeAliases(links[0], ((Folder) links[0]).getStore());
+		assertNotNull("1.0", aliases);
+		assertEquals("1.1", 1, aliases.length);
+		assertEquals("1.2", project.getFolder("parent").getFolder("0"), aliases[0]);
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				for (IFolder link : links)
+					aliasManager.computeAliases(link, ((Folder) link).getStore());
+			}
+		}.run(this, 10, 10);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -61,6 +61,34 @@ public class BenchElementTree extends OldCorePerformanceTest {
 		}.run(this, 10, 400);
 	}
 
+	/**
+	 * Tests the performance of adding, looking up and removing the children
+	 * of a very wide folder, as found in folders with generated files.
+	 */
+	public void testWideFolder() {
+		final int width = 20000;
+		IPath[] wideFiles = new IPath[width];
+		for (int i = 0; i < width; i++) {
+			wideFiles[i] = folder.append("Generated" + i + ".java");
+		}
+		Object data = new Object();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				ElementTree tree = createTestTree(false);
+				for (IPath file : wideFiles) {
+					tree.createElement(file, data);
+				}
+				for (IPath file : wideFiles) {
+					tree.getElementData(file);
+				}
+				for (IPath file : wideFiles) {
+					tree.deleteElement(file);
+				}
+			}
+		}.run(this, 10, 1);
+	}
+
 	/**
 	 * Tests the performance of the deleteElement operation.
 	 */
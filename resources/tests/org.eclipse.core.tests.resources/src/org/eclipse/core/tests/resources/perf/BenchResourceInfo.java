@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.perf;
+
+import org.eclipse.core.internal.resources.MarkerSet;
+import org.eclipse.core.internal.resources.ResourceInfo;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.core.tests.resources.OldCorePerformanceTest;
+
+/**
+ * Benchmarks for the memory footprint and copying of <code>ResourceInfo</code>.
+ */
+public class BenchResourceInfo extends OldCorePerformanceTest {
+	private static final int INFO_COUNT = 500_000;
+	/** Every n-th info has markers and a session property, as in a typical workspace. */
+	private static final int ATTACHED_EVERY = 100;
+
+	private static final QualifiedName PROPERTY = new QualifiedName("org.eclipse.core.tests", "bench");
+
+	public BenchResourceInfo() {
+		super();
+	}
+
+	public BenchResourceInfo(String name) {
+		super(name);
+	}
+
+	private static ResourceInfo[] createInfos() {
+		ResourceInfo[] infos = new ResourceInfo[INFO_COUNT];
+		for (int i = 0; i < infos.length; i++) {
+			ResourceInfo info = new ResourceInfo();
+			info.setNodeId(i);
+			if (i % ATTACHED_EVERY == 0) {
+				info.setMarkers(new MarkerSet());
+				info.setSessionProperty(PROPERTY, Boolean.TRUE);
+			}
+			infos[i] = info;
+		}
+		return infos;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Logs the average number of heap bytes retained per info.
+	 */
+	public void testFootprint() {
+		long before = usedMemory();
+		ResourceInfo[] infos = createInfos();
+		long after = usedMemory();
+		perfLog("Bytes per resource info: " + (after - before) / infos.length);
+		assertEquals(INFO_COUNT - 1, infos[INFO_COUNT - 1].getNodeId());
+	}
+
+	/**
+	 * Tests the performance of cloning infos, which happens whenever a
+	 * resource is modified in a new tree.
+	 */
+	public void testClone() {
+		ResourceInfo[] infos = createInfos();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				for (ResourceInfo info : infos)
+					info.clone();
+			}
+		}.run(this, 10, 5);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,12 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources.perf;
 
+import org.eclipse.core.internal.events.ResourceDeltaFactory;
 import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.tests.harness.PerformanceTestRunner;
 import org.eclipse.core.tests.resources.ResourceTest;
 
@@ -184,6 +187,29 @@ public class BenchWorkspace extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests computing the resource delta after all resources have changed.
+	 */
+	public void testComputeDelta() {
+		final Workspace workspace = (Workspace) getWorkspace();
+		final ElementTree oldTree = workspace.getElementTree();
+		try {
+			workspace.run((IWorkspaceRunnable) monitor -> workspace.getRoot().accept(resource -> {
+				resource.touch(null);
+				return true;
+			}), getMonitor());
+		} catch (CoreException e) {
+			fail("1.0", e);
+		}
+		final ElementTree newTree = workspace.getElementTree();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				ResourceDeltaFactory.computeDelta(workspace, oldTree, newTree, Path.ROOT, -1);
+			}
+		}.run(this, 10, 10);
+	}
+
 	/**
 	 * Tests computing max marker severity
 	 */
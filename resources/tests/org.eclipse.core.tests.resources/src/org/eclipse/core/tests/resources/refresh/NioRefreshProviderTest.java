@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.refresh;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import org.eclipse.core.internal.resources.TestingSupport;
+import org.eclipse.core.internal.resources.refresh.nio.NioMonitor;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.refresh.IRefreshMonitor;
+import org.eclipse.core.resources.refresh.IRefreshResult;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests the <code>WatchService</code> based refresh provider. The provider is
+ * only active on Linux, the tests do nothing on other platforms.
+ */
+public class NioRefreshProviderTest extends ResourceTest {
+
+	private static final long TIMEOUT = 10000;
+
+	private boolean originalRefreshSetting;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(ResourcesPlugin.PI_RESOURCES);
+		originalRefreshSetting = prefs.getBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, false);
+		prefs.putBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		IEclipsePreferences prefs = InstanceScope.INSTANCE.getNode(ResourcesPlugin.PI_RESOURCES);
+		prefs.putBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, originalRefreshSetting);
+		super.tearDown();
+	}
+
+	/**
+	 * Records the requests of a monitor.
+	 */
+	private static class RefreshResult implements IRefreshResult {
+		final List<IResource> refreshed = Collections.synchronizedList(new ArrayList<>());
+		final List<IResource> failed = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void monitorFailed(IRefreshMonitor monitor, IResource resource) {
+			failed.add(resource);
+		}
+
+		@Override
+		public void refresh(IResource resource) {
+			refreshed.add(resource);
+		}
+	}
+
+	/**
+	 * Files created outside of the workspace, also in directories created
+	 * after the monitor was installed, must show up without an explicit refresh.
+	 */
+	public void testExternalChangesInNewDirectory() throws Exception {
+		if (!Platform.getOS().equals(Platform.OS_LINUX)) {
+			return;
+		}
+		IProject project = getWorkspace().getRoot().getProject(getName());
+		ensureExistsInWorkspace(project, true);
+		// the monitors are installed asynchronously
+		waitFor(() -> !TestingSupport.getRefreshMonitors(project).isEmpty());
+		List<IRefreshMonitor> monitors = TestingSupport.getRefreshMonitors(project);
+		assertEquals("0.0", 1, monitors.size());
+		assertTrue("0.1", monitors.get(0) instanceof NioMonitor);
+		IFolder folder = project.getFolder("folder");
+		IFile file = folder.getFile("file.txt");
+
+		assertTrue("1.0", folder.getLocation().toFile().mkdir());
+		waitForExistence(folder);
+		assertTrue("1.1", folder.exists());
+
+		createFileInFileSystem(file.getLocation());
+		waitForExistence(file);
+		assertTrue("2.0", file.exists());
+
+		ensureDoesNotExistInFileSystem(file);
+		waitForDeletion(file);
+		assertFalse("3.0", file.exists());
+	}
+
+	/**
+	 * After an overflow, directories created while the events were lost must be
+	 * watched, and the root must be refreshed.
+	 */
+	public void testOverflow() throws Exception {
+		if (!Platform.getOS().equals(Platform.OS_LINUX)) {
+			return;
+		}
+		IProject project = getWorkspace().getRoot().getProject(getName());
+		ensureExistsInWorkspace(project, true);
+		RefreshResult result = new RefreshResult();
+		NioMonitor monitor = new NioMonitor(result, 100);
+		try {
+			assertTrue("1.0", monitor.monitor(project, getMonitor()));
+			// stop the job, so that it does not register the new directories itself
+			monitor.cancel();
+			monitor.join();
+			int watches = monitor.getWatchCount();
+			assertTrue("1.1", watches > 0);
+
+			assertTrue("2.0", project.getLocation().append("folder/child").toFile().mkdirs());
+			assertEquals("2.1", watches, monitor.getWatchCount());
+			monitor.handleOverflow(project);
+			assertEquals("2.2", watches + 2, monitor.getWatchCount());
+			assertEquals("2.3", Collections.singletonList(project), result.refreshed);
+			assertEquals("2.4", Collections.emptyList(), result.failed);
+
+			// the new directories report changes
+			result.refreshed.clear();
+			monitor.schedule();
+			createFileInFileSystem(project.getLocation().append("folder/child/file.txt"));
+			IFolder child = project.getFolder("folder/child");
+			waitFor(() -> result.refreshed.contains(child));
+			assertTrue("3.0", result.refreshed.contains(child));
+		} finally {
+			monitor.unmonitor(null);
+		}
+	}
+
+	/**
+	 * Roots that do not fit into the watch budget are not monitored, and roots
+	 * that outgrow it are handed back to the polling monitor.
+	 */
+	public void testWatchBudget() throws Exception {
+		if (!Platform.getOS().equals(Platform.OS_LINUX)) {
+			return;
+		}
+		IProject project = getWorkspace().getRoot().getProject(getName());
+		IFolder folder = project.getFolder("folder");
+		ensureExistsInWorkspace(new IResource[] {project, folder}, true);
+		RefreshResult result = new RefreshResult();
+		NioMonitor monitor = new NioMonitor(result, 100);
+		int directories;
+		try {
+			assertTrue("0.0", monitor.monitor(project, getMonitor()));
+			directories = monitor.getWatchCount();
+		} finally {
+			monitor.unmonitor(null);
+		}
+
+		monitor = new NioMonitor(result, directories - 1);
+		try {
+			assertFalse("1.0", monitor.monitor(project, getMonitor()));
+			assertEquals("1.1", 0, monitor.getWatchCount());
+			assertEquals("1.2", Collections.emptyList(), result.failed);
+		} finally {
+			monitor.unmonitor(null);
+		}
+
+		monitor = new NioMonitor(result, directories);
+		try {
+			assertTrue("2.0", monitor.monitor(project, getMonitor()));
+			assertEquals("2.1", directories, monitor.getWatchCount());
+			// another directory exceeds the budget
+			assertTrue("2.2", folder.getLocation().append("child").toFile().mkdir());
+			waitFor(() -> result.refreshed.contains(project));
+			assertEquals("2.3", Collections.singletonList(project), result.failed);
+			assertEquals("2.4", 0, monitor.getWatchCount());
+			assertTrue("2.5", result.refreshed.contains(project));
+		} finally {
+			monitor.unmonitor(null);
+		}
+	}
+
+	private void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while (!condition.getAsBoolean() && System.currentTimeMillis() - start < TIMEOUT) {
+			Thread.sleep(50);
+		}
+	}
+
+	private void waitForExistence(IResource resource) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while (!resource.exists() && System.currentTimeMillis() - start < TIMEOUT) {
+			Thread.sleep(50);
+		}
+	}
+
+	private void waitForDeletion(IResource resource) throws InterruptedException {
+		long start = System.currentTimeMillis();
+		while (resource.exists() && System.currentTimeMillis() - start < TIMEOUT) {
+			Thread.sleep(50);
+		}
+	}
+}
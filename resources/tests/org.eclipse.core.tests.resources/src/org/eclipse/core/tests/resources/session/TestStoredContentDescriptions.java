@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.session;
+
+import junit.framework.Test;
+import org.eclipse.core.internal.resources.ContentDescriptionManager;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.tests.resources.WorkspaceSessionTest;
+import org.eclipse.core.tests.session.WorkspaceSessionTestSuite;
+
+/**
+ * Tests that the content descriptions read by describers are kept across
+ * sessions, but not those of files that were deleted or moved.
+ *
+ * Like {@link TestBug93473}, this test is sensitive to the platform state
+ * stamp, as the stored descriptions are only read back if it has not changed.
+ */
+public class TestStoredContentDescriptions extends WorkspaceSessionTest {
+	private static final String SAMPLE_XML = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><org.eclipse.core.resources.tests.root/>";
+
+	public static Test suite() {
+		return new WorkspaceSessionTestSuite(PI_RESOURCES_TESTS, TestStoredContentDescriptions.class);
+	}
+
+	private ContentDescriptionManager getContentDescriptionManager() {
+		return ((Workspace) getWorkspace()).getContentDescriptionManager();
+	}
+
+	public void test1stSession() {
+		IProject project = getWorkspace().getRoot().getProject("proj1");
+		IFile kept = project.getFile("kept.xml");
+		IFile deleted = project.getFile("deleted.xml");
+		IFile moved = project.getFile("moved.xml");
+		IFolder folder = project.getFolder("folder");
+		IFile inFolder = folder.getFile("file.xml");
+		IFile[] files = new IFile[] {kept, deleted, moved, inFolder};
+		for (IFile file : files) {
+			ensureExistsInWorkspace(file, getContents(SAMPLE_XML));
+			try {
+				assertEquals("1.0 " + file, "ISO-8859-1", file.getContentDescription().getCharset());
+			} catch (CoreException e) {
+				fail("1.1 " + file, e);
+			}
+			assertTrue("1.2 " + file, getContentDescriptionManager().hasStoredDescription(file));
+		}
+
+		try {
+			deleted.delete(true, getMonitor());
+			moved.move(project.getFile("target.xml").getFullPath(), true, getMonitor());
+			folder.delete(true, getMonitor());
+		} catch (CoreException e) {
+			fail("2.0", e);
+		}
+		assertTrue("2.1", getContentDescriptionManager().hasStoredDescription(kept));
+		assertFalse("2.2", getContentDescriptionManager().hasStoredDescription(deleted));
+		assertFalse("2.3", getContentDescriptionManager().hasStoredDescription(moved));
+		assertFalse("2.4", getContentDescriptionManager().hasStoredDescription(inFolder));
+
+		try {
+			getWorkspace().save(true, getMonitor());
+		} catch (CoreException e) {
+			fail("3.0", e);
+		}
+	}
+
+	public void test2ndSession() {
+		IProject project = getWorkspace().getRoot().getProject("proj1");
+		IFile kept = project.getFile("kept.xml");
+		// the description read in the previous session is reused
+		assertTrue("1.0", getContentDescriptionManager().hasStoredDescription(kept));
+		assertFalse("1.1", getContentDescriptionManager().hasStoredDescription(project.getFile("deleted.xml")));
+		assertFalse("1.2", getContentDescriptionManager().hasStoredDescription(project.getFile("moved.xml")));
+		assertFalse("1.3", getContentDescriptionManager().hasStoredDescription(project.getFile("target.xml")));
+		try {
+			IContentDescription description = kept.getContentDescription();
+			assertEquals("2.0", "org.eclipse.core.runtime.xml", description.getContentType().getId());
+			assertEquals("2.1", "ISO-8859-1", description.getCharset());
+		} catch (CoreException e) {
+			fail("2.2", e);
+		}
+
+		// a changed file is described again
+		try {
+			kept.setContents(getContents(SAMPLE_XML.replace("ISO-8859-1", "US-ASCII")), true, false, getMonitor());
+			assertEquals("3.0", "US-ASCII", kept.getContentDescription().getCharset());
+		} catch (CoreException e) {
+			fail("3.1", e);
+		}
+		assertTrue("3.2", getContentDescriptionManager().hasStoredDescription(kept));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2014 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -71,6 +71,23 @@ public abstract class InternalJob extends PlatformObject implements Comparable<I
 	 */
 	private static final int M_RUN_CANCELED = 0x0800;
 
+	private static final Object[] NO_FAMILIES = new Object[0];
+
+	/**
+	 * Whether the jobs of a class override {@link Job#belongsTo(Object)}, so
+	 * that they may belong to families they don't declare.
+	 */
+	private static final ClassValue<Boolean> OVERRIDES_BELONGS_TO = new ClassValue<>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return type.getMethod("belongsTo", Object.class).getDeclaringClass() != Job.class; //$NON-NLS-1$
+			} catch (NoSuchMethodException e) {
+				return Boolean.TRUE;
+			}
+		}
+	};
+
 	private static int nextJobNumber = 0;
 	protected static final JobManager manager = JobManager.getInstance();
 
@@ -94,6 +111,10 @@ public abstract class InternalJob extends PlatformObject implements Comparable<I
 
 	private volatile IProgressMonitor monitor;
 	private String name;
+	/**
+	 * The families this job was declared to belong to at construction. Never null.
+	 */
+	private final Object[] families;
 	private JobGroup jobGroup;
 	/**
 	 * The job ahead of me in a queue or list.
@@ -138,6 +159,13 @@ public abstract class InternalJob extends PlatformObject implements Comparable<I
 	 */
 	private long waitQueueStamp = T_NONE;
 
+	/**
+	 * The entry of this job in the queues of jobs whose state is not guarded by
+	 * the manager lock, or <code>null</code> if it is not in these queues.
+	 * @GuardedBy("JobManager.stripeFor(this)")
+	 */
+	volatile LockFreeJobQueue.Entry lockFreeEntry;
+
 	/*
 	 * The thread that is currently running this job
 	 */
@@ -168,8 +196,16 @@ public abstract class InternalJob extends PlatformObject implements Comparable<I
 	}
 
 	protected InternalJob(String name) {
+		this(name, NO_FAMILIES);
+	}
+
+	protected InternalJob(String name, Object[] families) {
 		Assert.isNotNull(name);
+		Assert.isNotNull(families);
+		for (Object family : families)
+			Assert.isNotNull(family);
 		this.name = name;
+		this.families = families.length == 0 ? NO_FAMILIES : families.clone();
 	}
 
 	protected void addJobChangeListener(IJobChangeListener listener) {
@@ -192,9 +228,28 @@ public abstract class InternalJob extends PlatformObject implements Comparable<I
 	}
 
 	protected boolean belongsTo(Object family) {
+		for (Object declared : families) {
+			if (declared.equals(family))
+				return true;
+		}
 		return false;
 	}
 
+	/**
+	 * Returns the families this job was declared to belong to at construction.
+	 */
+	final Object[] getDeclaredFamilies() {
+		return families;
+	}
+
+	/**
+	 * Returns whether this job may belong to families it does not declare,
+	 * because its class overrides {@link Job#belongsTo(Object)}.
+	 */
+	final boolean hasUndeclaredFamilies() {
+		return OVERRIDES_BELONGS_TO.get(getClass());
+	}
+
 	protected boolean cancel() {
 		return manager.cancel(this);
 	}
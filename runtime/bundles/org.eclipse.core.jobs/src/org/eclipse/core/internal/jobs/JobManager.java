@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2022 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,7 +25,10 @@
 package org.eclipse.core.internal.jobs;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import org.eclipse.core.internal.runtime.RuntimeLog;
 import org.eclipse.core.runtime.*;
@@ -47,7 +50,14 @@ import org.eclipse.osgi.util.NLS;
  * order that locks must be acquired.
  *
  * WorkerPool -&gt; JobManager.implicitJobs -&gt; JobManager.lock -&gt;
- * InternalJob.jobStateLock or InternalJobGroup.jobGroupStateLock
+ * JobManager.stripes -&gt; InternalJob.jobStateLock or
+ * InternalJobGroup.jobGroupStateLock
+ *
+ * If lock free scheduling is enabled, the state of jobs without a scheduling
+ * rule and without a job group is guarded by the stripe lock of the job
+ * instead of the lock, see {@link #isLockFree(InternalJob)}. Code holding the
+ * lock may change the state of such jobs after acquiring their stripe lock.
+ * The stripe locks are acquired in ascending order when more than one is held.
  *
  * @ThreadSafe
  */
@@ -79,6 +89,17 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	private static final String OPTION_LOCKS = PI_JOBS + "/jobs/locks"; //$NON-NLS-1$
 	private static final String OPTION_SHUTDOWN = PI_JOBS + "/jobs/shutdown"; //$NON-NLS-1$
 
+	/**
+	 * The system property that enables lock free scheduling.
+	 * @see #isLockFree(InternalJob)
+	 */
+	private static final String PROP_LOCK_FREE = "eclipse.jobs.lockFree"; //$NON-NLS-1$
+
+	/**
+	 * The number of stripe locks, a power of two.
+	 */
+	private static final int STRIPES = 16;
+
 	static DebugTrace DEBUG_TRACE;
 	static boolean DEBUG = false;
 	static boolean DEBUG_BEGIN_END = false;
@@ -155,14 +176,17 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	private WorkerPool pool;
 
 	/**
-	 * @GuardedBy("lock")
+	 * The locks guarding the state of the jobs that are scheduled without the
+	 * lock, by the identity hash code of the job.
 	 */
-	private ProgressProvider progressProvider = null;
+	private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+	private volatile ProgressProvider progressProvider = null;
 	/**
 	 * Jobs that are currently running. Should only be modified from changeState
-	 * @GuardedBy("lock")
+	 * @GuardedBy("lock") or the stripe lock of a lock free job
 	 */
-	private final HashSet<InternalJob> running;
+	private final Set<InternalJob> running;
 
 	/**
 	 * Jobs that are currently yielding. Should only be modified from changeState
@@ -170,6 +194,19 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 */
 	private final HashSet<InternalJob> yielding;
 
+	/**
+	 * The rules of the running jobs. Should only be modified from changeState
+	 * @GuardedBy("lock")
+	 */
+	private final RuleIndex runningRules = new RuleIndex();
+
+	/**
+	 * The rules of the jobs that are blocked by running jobs. Should only be
+	 * modified from changeState
+	 * @GuardedBy("lock")
+	 */
+	private final RuleIndex blockedRules = new RuleIndex();
+
 	/**
 	 * Jobs that are sleeping.  Some sleeping jobs are scheduled to wake
 	 * up at a given start time, while others will sleep indefinitely until woken.
@@ -184,7 +221,15 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * is called.
 	 * @GuardedBy("lock")
 	 */
-	private boolean suspended = false;
+	private volatile boolean suspended = false;
+
+	/**
+	 * Whether jobs without a scheduling rule and without a job group are
+	 * scheduled and started without acquiring the lock. Enabled by setting the
+	 * system property <code>eclipse.jobs.lockFree</code> to <code>true</code>.
+	 * Only changes while holding the lock and all stripe locks.
+	 */
+	private volatile boolean lockFreeScheduling = Boolean.getBoolean(PROP_LOCK_FREE);
 
 	/**
 	 * jobs that are waiting to be run. Should only be modified from changeState
@@ -192,6 +237,48 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 */
 	private final JobQueue waiting;
 
+	/**
+	 * Whether {@link #waiting} is not empty, for reading without the lock.
+	 * @GuardedBy("lock")
+	 */
+	private volatile boolean hasWaitingJobs;
+
+	/**
+	 * The start time of the first job in {@link #sleeping}, for reading
+	 * without the lock.
+	 * @GuardedBy("lock")
+	 */
+	private volatile long nextWakeUp = InternalJob.T_INFINITE;
+
+	/**
+	 * The scheduled jobs of the families declared by jobs, by family. Should
+	 * only be modified from changeState
+	 * @GuardedBy("lock") or the stripe lock of a lock free job
+	 */
+	private final Map<Object, Set<InternalJob>> familyMembers = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of scheduled jobs that may belong to families they don't
+	 * declare. {@link #familyMembers} is only complete while there are none.
+	 * Should only be modified from changeState
+	 * @GuardedBy("lock") or the stripe lock of a lock free job
+	 */
+	private final AtomicInteger undeclaredFamilyJobs = new AtomicInteger();
+
+	/**
+	 * The number of waiting jobs that are not in the background lane of the
+	 * worker pool, see {@link WorkerPool#isBackground(int)}. Should only be
+	 * modified from changeState and setPriority
+	 * @GuardedBy("lock") or the stripe lock of a lock free job
+	 */
+	private final AtomicInteger waitingInteractiveJobs = new AtomicInteger();
+
+	/**
+	 * The waiting and sleeping jobs that are scheduled without the lock.
+	 * Should only be modified from changeState
+	 */
+	private final LockFreeJobQueue lockFreeJobs = new LockFreeJobQueue();
+
 	/**
 	 * ThreadJobs that are waiting to be run. Should only be modified from changeState
 	 * @GuardedBy("lock")
@@ -290,15 +377,20 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	private JobManager() {
 		currentTimeInMs = new AtomicLong(lifeTimeInMs());
 		instance = this;
+		for (int i = 0; i < STRIPES; i++)
+			stripes[i] = new ReentrantLock();
 		synchronized (lock) {
 			waiting = new JobQueue(false);
 			waitingThreadJobs = new JobQueue(false, false);
 			sleeping = new JobQueue(true);
-			running = new HashSet<>(10);
+			running = ConcurrentHashMap.newKeySet();
 			yielding = new HashSet<>(10);
 			pool = new WorkerPool(this);
 		}
 		pool.setDaemon(JobOSGiUtils.getDefault().useDaemonThreads());
+		pool.setVirtualThreads(JobOSGiUtils.getDefault().useVirtualThreads());
+		pool.setMaxThreads(JobOSGiUtils.getDefault().maxWorkerThreads(WorkerPool.MAX_THREADS));
+		pool.setAdaptive(JobOSGiUtils.getDefault().useAdaptiveWorkerPool());
 		internalWorker = new InternalWorker(this);
 		internalWorker.setDaemon(JobOSGiUtils.getDefault().useDaemonThreads());
 		internalWorker.start();
@@ -391,7 +483,8 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * necessary queues or sets.
 	 */
 	private void changeState(InternalJob job, int newState) {
-		assert Thread.holdsLock(lock);
+		boolean lockFree = isLockFree(job);
+		assert Thread.holdsLock(lock) || lockFree && stripeFor(job).isHeldByCurrentThread();
 		boolean blockedJobs = false;
 		int oldJobState;
 		synchronized (job.jobStateLock) {
@@ -407,8 +500,13 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			case InternalJob.BLOCKED:
 				// remove this job from the linked list of blocked jobs
 				job.remove();
+				blockedRules.remove(job);
 				break;
 			case Job.WAITING:
+				if (lockFree) {
+					lockFreeJobs.remove(job);
+					break;
+				}
 				try {
 					waiting.remove(job);
 				} catch (RuntimeException e) {
@@ -416,6 +514,10 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				}
 				break;
 			case Job.SLEEPING:
+				if (lockFree) {
+					lockFreeJobs.remove(job);
+					break;
+				}
 				try {
 					sleeping.remove(job);
 				} catch (RuntimeException e) {
@@ -425,6 +527,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			case Job.RUNNING:
 			case InternalJob.ABOUT_TO_RUN:
 				running.remove(job);
+				runningRules.remove(job);
 				// add any blocked jobs back to the wait queue
 				InternalJob blocked = job.previous();
 				job.remove();
@@ -438,18 +541,41 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			default:
 				Assert.isLegal(false, "Invalid job state: " + job + ", state: " + oldState); //$NON-NLS-1$ //$NON-NLS-2$
 			}
+			if (oldState == Job.WAITING && !WorkerPool.isBackground(job.getPriority())) {
+				waitingInteractiveJobs.decrementAndGet();
+			}
+			if (oldState == Job.WAITING && newState == InternalJob.ABOUT_TO_RUN) {
+				pool.recordWait(job.getPriority(), now() - job.getStartTime());
+			}
 			job.internalSetState(newState);
+			if (newState == Job.WAITING && !WorkerPool.isBackground(job.getPriority())) {
+				waitingInteractiveJobs.incrementAndGet();
+			}
+			if (oldState == Job.NONE && newState != Job.NONE)
+				addFamilyMember(job);
+			else if (oldState != Job.NONE && newState == Job.NONE)
+				removeFamilyMember(job);
 			switch (newState) {
 			case Job.NONE:
 				job.setStartTime(InternalJob.T_NONE);
 				job.setWaitQueueStamp(InternalJob.T_NONE);
 				job.setRunCanceled(false);
+				break;
 			case InternalJob.BLOCKED:
+				if (job.getRule() != null)
+					blockedRules.add(job);
 				break;
 			case Job.WAITING:
-				waiting.enqueue(job);
+				if (lockFree)
+					lockFreeJobs.enqueueWaiting(job);
+				else
+					waiting.enqueue(job);
 				break;
 			case Job.SLEEPING:
+				if (lockFree) {
+					lockFreeJobs.enqueueSleeping(job);
+					break;
+				}
 				try {
 					sleeping.enqueue(job);
 				} catch (RuntimeException e) {
@@ -462,6 +588,8 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				job.setStartTime(InternalJob.T_NONE);
 				job.setWaitQueueStamp(InternalJob.T_NONE);
 				running.add(job);
+				if (job.getRule() != null)
+					runningRules.add(job);
 				break;
 			case InternalJob.YIELDING:
 				yielding.add(job);
@@ -470,6 +598,8 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			default:
 				Assert.isLegal(false, "Invalid job state: " + job + ", state: " + newState); //$NON-NLS-1$ //$NON-NLS-2$
 			}
+			if (!lockFree)
+				updateQueueState();
 		}
 
 		InternalJobGroup jobGroup = job.getJobGroup();
@@ -482,6 +612,24 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			pool.jobQueued();
 	}
 
+	private void addFamilyMember(InternalJob job) {
+		if (job.hasUndeclaredFamilies())
+			undeclaredFamilyJobs.incrementAndGet();
+		for (Object family : job.getDeclaredFamilies())
+			familyMembers.computeIfAbsent(family, f -> ConcurrentHashMap.newKeySet()).add(job);
+	}
+
+	private void removeFamilyMember(InternalJob job) {
+		if (job.hasUndeclaredFamilies())
+			undeclaredFamilyJobs.decrementAndGet();
+		for (Object family : job.getDeclaredFamilies()) {
+			familyMembers.computeIfPresent(family, (f, members) -> {
+				members.remove(job);
+				return members.isEmpty() ? null : members;
+			});
+		}
+	}
+
 	/**
 	 * Returns a new progress monitor for this job, belonging to the given
 	 * progress group.  Returns null if it is not a valid time to set the job's group.
@@ -503,22 +651,159 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	}
 
 	/**
-	 * Waits till all Events send, synchronizes on lock and then sends new Events
+	 * Returns whether the state of the given job is guarded by its stripe lock
+	 * instead of the lock. This is the case for jobs without a scheduling rule
+	 * and without a job group if lock free scheduling is enabled, since they
+	 * never block or are blocked by other jobs. Their rule and group can't
+	 * change while they are scheduled.
+	 */
+	boolean isLockFree(InternalJob job) {
+		return lockFreeScheduling && job.getRule() == null && job.getJobGroup() == null && !(job instanceof ThreadJob);
+	}
+
+	/**
+	 * Returns whether the current thread holds the lock guarding the state of
+	 * the given job.
+	 */
+	private boolean holdsLockFor(InternalJob job) {
+		return isLockFree(job) ? stripeFor(job).isHeldByCurrentThread() : Thread.holdsLock(lock);
+	}
+
+	/**
+	 * Sets whether jobs without a scheduling rule and without a job group are
+	 * lock free, regardless of the <code>eclipse.jobs.lockFree</code> system
+	 * property, and moves their waiting and sleeping jobs to the queues of the
+	 * new mode. Running jobs end in either mode. Used by tests.
+	 *
+	 * @param value whether lock free scheduling is enabled
+	 */
+	public static void setLockFreeScheduling(boolean value) {
+		getInstance().internalSetLockFreeScheduling(value);
+	}
+
+	private void internalSetLockFreeScheduling(boolean value) {
+		synchronized (lock) {
+			lockStripes();
+			try {
+				if (lockFreeScheduling == value)
+					return;
+				List<InternalJob> moved = new ArrayList<>();
+				if (lockFreeScheduling) {
+					lockFreeJobs.addJobs(moved, true, true);
+					lockFreeJobs.clear();
+				} else {
+					for (JobQueue queue : new JobQueue[] {waiting, sleeping}) {
+						for (InternalJob job : queue) {
+							if (job.getRule() == null && job.getJobGroup() == null && !(job instanceof ThreadJob))
+								moved.add(job);
+						}
+					}
+					for (InternalJob job : moved) {
+						if (job.internalGetState() == Job.WAITING)
+							waiting.remove(job);
+						else
+							sleeping.remove(job);
+					}
+				}
+				lockFreeScheduling = value;
+				for (InternalJob job : moved) {
+					boolean isWaiting = job.internalGetState() == Job.WAITING;
+					if (value && isWaiting)
+						lockFreeJobs.enqueueWaiting(job);
+					else if (value)
+						lockFreeJobs.enqueueSleeping(job);
+					else if (isWaiting)
+						waiting.enqueue(job);
+					else
+						sleeping.enqueue(job);
+				}
+				updateQueueState();
+			} finally {
+				unlockStripes();
+			}
+		}
+		pool.jobQueued();
+	}
+
+	/**
+	 * Sets whether jobs marked as I/O bound run on virtual threads, regardless
+	 * of the {@link IJobManager#PROP_USE_VIRTUAL_THREADS} property. Virtual
+	 * threads are only used if the runtime supports them. Used by tests.
+	 *
+	 * @param value whether I/O bound jobs run on virtual threads
+	 * @return whether I/O bound jobs ran on virtual threads before
+	 */
+	public static boolean setVirtualThreads(boolean value) {
+		return getInstance().pool.setVirtualThreads(value);
+	}
+
+	/**
+	 * Sets whether the worker pool is adaptive, regardless of the
+	 * {@link IJobManager#PROP_ADAPTIVE_WORKER_POOL} property. This resets the
+	 * limit of the background lane. Used by tests.
+	 *
+	 * @param value whether the worker pool is adaptive
+	 * @return whether the worker pool was adaptive before
+	 */
+	public static boolean setAdaptiveWorkerPool(boolean value) {
+		return getInstance().pool.setAdaptive(value);
+	}
+
+	private ReentrantLock stripeFor(InternalJob job) {
+		return stripes[System.identityHashCode(job) & (STRIPES - 1)];
+	}
+
+	/**
+	 * Acquires all stripe locks, so that no job changes its state.
+	 */
+	private void lockStripes() {
+		for (ReentrantLock stripe : stripes)
+			stripe.lock();
+	}
+
+	private void unlockStripes() {
+		for (int i = STRIPES - 1; i >= 0; i--)
+			stripes[i].unlock();
+	}
+
+	/**
+	 * Publishes the state of the waiting and sleeping queues for reading
+	 * without the lock.
+	 */
+	private void updateQueueState() {
+		assert Thread.holdsLock(lock);
+		hasWaitingJobs = !waiting.isEmpty();
+		InternalJob next = sleeping.peek();
+		nextWakeUp = next == null ? InternalJob.T_INFINITE : next.getStartTime();
+	}
+
+	/**
+	 * Waits till all Events send, synchronizes on lock (or the stripe lock of a
+	 * lock free job) and then sends new Events
 	 */
 	private <T, J extends InternalJob> T withWriteLock(J job, Function<J, T> function) {
 		do {
 			// Need to wait till all events for this job are send.
 			jobListeners.waitAndSendEvents(job, false);
 			T result;
-			synchronized (lock) {
-				// Must not send events while holding lock, because that
-				// could result in a deadlock. see
-				// https://github.com/eclipse-platform/eclipse.platform/issues/193#issuecomment-1286837139
-				// If there are still/again events to send we need to leave lock first
-				if (JobListeners.getJobListenerTimeout() != 0 && !job.eventQueue.isEmpty()) {
-					continue;
+			if (isLockFree(job)) {
+				ReentrantLock stripe = stripeFor(job);
+				stripe.lock();
+				try {
+					if (!canApply(job, true)) {
+						continue;
+					}
+					result = function.apply(job);
+				} finally {
+					stripe.unlock();
+				}
+			} else {
+				synchronized (lock) {
+					if (!canApply(job, false)) {
+						continue;
+					}
+					result = function.apply(job);
 				}
-				result = function.apply(job);
 			}
 			// finally send new events:
 			jobListeners.waitAndSendEvents(job, true);
@@ -526,9 +811,25 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		} while (true); // retry until eventQueue is empty
 	}
 
+	/**
+	 * Returns whether the function of {@link #withWriteLock(InternalJob, Function)}
+	 * can be applied while holding the lock of the job.
+	 */
+	private boolean canApply(InternalJob job, boolean lockFree) {
+		// Must not send events while holding lock, because that
+		// could result in a deadlock. see
+		// https://github.com/eclipse-platform/eclipse.platform/issues/193#issuecomment-1286837139
+		// If there are still/again events to send we need to leave lock first
+		if (JobListeners.getJobListenerTimeout() != 0 && !job.eventQueue.isEmpty()) {
+			return false;
+		}
+		// the rule or group of the job may have been set before we got the lock
+		return isLockFree(job) == lockFree;
+	}
+
 	/**
 	 * Returns a new progress monitor for this job.  Never returns null.
-	 * @GuardedBy("lock")
+	 * @GuardedBy("lock") or the stripe lock of a lock free job
 	 */
 	private IProgressMonitor createMonitor(Job job) {
 		IProgressMonitor monitor = null;
@@ -546,11 +847,27 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		return new NullProgressMonitor();
 	}
 
+	/**
+	 * Returns whether jobs that don't run in the background lane of the worker
+	 * pool are waiting.
+	 */
+	boolean hasWaitingInteractiveJobs() {
+		return waitingInteractiveJobs.get() > 0;
+	}
+
+	@Override
+	public IWorkerPoolMetrics getWorkerPoolMetrics() {
+		return pool.getMetrics();
+	}
+
 	@Override
 	public Job currentJob() {
 		Thread current = Thread.currentThread();
 		if (current instanceof Worker)
 			return ((Worker) current).currentJob();
+		Job virtualJob = VirtualWorker.currentJob();
+		if (virtualJob != null)
+			return virtualJob;
 		synchronized (lock) {
 			for (InternalJob internalJob : running) {
 				Job job = (Job) internalJob;
@@ -602,7 +919,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * @return true on success, false if cancelled, or scheduled by another thread
 	 */
 	private boolean doSchedule(InternalJob job, long delay) {
-		assert Thread.holdsLock(lock);
+		assert holdsLockFor(job);
 		boolean cancelling = false;
 		// job may have been canceled already
 		int state = job.internalGetState();
@@ -654,6 +971,13 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 			//discard any jobs that have not yet started running
 			sleeping.clear();
 			waiting.clear();
+			updateQueueState();
+			lockStripes();
+			try {
+				lockFreeJobs.clear();
+			} finally {
+				unlockStripes();
+			}
 		}
 
 		// Give running jobs a chance to finish. Wait 0.1 seconds for up to 3 times.
@@ -709,6 +1033,10 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		synchronized (lock) {
 			//discard reference to any jobs still running at this point
 			running.clear();
+			runningRules.clear();
+			blockedRules.clear();
+			familyMembers.clear();
+			undeclaredFamilyJobs.set(0);
 		}
 
 		pool.shutdown();
@@ -796,29 +1124,12 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		synchronized (lock) {
 			if (running.isEmpty())
 				return null;
-			//check the running jobs
-			boolean hasBlockedJobs = false;
-			for (InternalJob job : running) {
-				if (waitingJob.isConflicting(job))
-					return job;
-				if (!hasBlockedJobs)
-					hasBlockedJobs = job.previous() != null;
-			}
-			//there are no blocked jobs, so we are done
-			if (!hasBlockedJobs)
-				return null;
-			//check all jobs blocked by running jobs
-			for (InternalJob job : running) {
-				while (true) {
-					job = job.previous();
-					if (job == null)
-						break;
-					if (waitingJob.isConflicting(job))
-						return job;
-				}
-			}
+			//check the running jobs, then all jobs blocked by running jobs
+			InternalJob blocker = runningRules.findConflicting(waitingJob);
+			if (blocker == null)
+				blocker = blockedRules.findConflicting(waitingJob);
+			return blocker;
 		}
-		return null;
 	}
 
 	/**
@@ -905,7 +1216,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	@Override
 	public boolean isIdle() {
 		synchronized (lock) {
-			return running.isEmpty() && waiting.isEmpty();
+			return running.isEmpty() && waiting.isEmpty() && !lockFreeJobs.hasWaiting();
 		}
 	}
 
@@ -930,27 +1241,35 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		final IJobChangeListener listener;
 		final Semaphore barrier;
 		synchronized (lock) {
-			int state = job.getState();
-			if (state == Job.NONE)
-				return true;
-			//don't join a waiting or sleeping job when suspended (deadlock risk)
-			if (suspended && state != Job.RUNNING)
-				return true;
-			//it's an error for a job to join itself
-			if (state == Job.RUNNING && job.getThread() == Thread.currentThread())
-				throw new IllegalStateException("Job attempted to join itself"); //$NON-NLS-1$
-			//the semaphore will be released when the job is done
-			barrier = new Semaphore(null);
-			listener = new JobChangeAdapter() {
-				@Override
-				public void done(IJobChangeEvent event) {
-					barrier.release();
-				}
-			};
-			job.addJobChangeListener(listener);
+			// a lock free job must not finish before the listener is added
+			ReentrantLock stripe = stripeFor(job);
+			stripe.lock();
+			try {
+				int state = job.getState();
+				if (state == Job.NONE)
+					return true;
+				//don't join a waiting or sleeping job when suspended (deadlock risk)
+				if (suspended && state != Job.RUNNING)
+					return true;
+				//it's an error for a job to join itself
+				if (state == Job.RUNNING && job.getThread() == Thread.currentThread())
+					throw new IllegalStateException("Job attempted to join itself"); //$NON-NLS-1$
+				//the semaphore will be released when the job is done
+				barrier = new Semaphore(null);
+				listener = new JobChangeAdapter() {
+					@Override
+					public void done(IJobChangeEvent event) {
+						barrier.release();
+					}
+				};
+				job.addJobChangeListener(listener);
+			} finally {
+				stripe.unlock();
+			}
 		}
 
 		//wait until listener notifies this thread.
+		pool.workerBlocked();
 		try {
 			boolean canBlock = lockManager.canBlock();
 			while (true) {
@@ -979,6 +1298,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				}
 			}
 		} finally {
+			pool.workerUnblocked();
 			lockManager.aboutToRelease();
 			job.removeJobChangeListener(listener);
 		}
@@ -992,59 +1312,65 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 		final Set<InternalJob> jobs;
 		int jobCount;
 		synchronized (lock) {
-			//don't join a waiting or sleeping job when suspended (deadlock risk)
-			int states = suspended ? Job.RUNNING : Job.RUNNING | Job.WAITING | Job.SLEEPING;
-			jobs = Collections.synchronizedSet(new HashSet<>(select(family, states)));
-			jobCount = jobs.size();
-			if (jobCount > 0) {
-				listener = new JobChangeAdapter() {
-					@Override
-					public void done(IJobChangeEvent event) {
-						Job job = event.getJob();
-						if (family == null || job.belongsTo(family)) {
-							// don't remove from list if job is being rescheduled
-							if (((JobChangeEvent) event).reschedule) {
-								return;
-							}
-							boolean removed = jobs.remove(job);
-							assert removed;
-							if (removed && jobs.isEmpty()) { // minimal notification
-								synchronized (jobs) {
-									jobs.notifyAll();
+			// no lock free job may finish before the listener is added
+			lockStripes();
+			try {
+				//don't join a waiting or sleeping job when suspended (deadlock risk)
+				int states = suspended ? Job.RUNNING : Job.RUNNING | Job.WAITING | Job.SLEEPING;
+				jobs = Collections.synchronizedSet(new HashSet<>(select(family, states)));
+				jobCount = jobs.size();
+				if (jobCount > 0) {
+					listener = new JobChangeAdapter() {
+						@Override
+						public void done(IJobChangeEvent event) {
+							Job job = event.getJob();
+							if (family == null || job.belongsTo(family)) {
+								// don't remove from list if job is being rescheduled
+								if (((JobChangeEvent) event).reschedule) {
+									return;
+								}
+								boolean removed = jobs.remove(job);
+								assert removed;
+								if (removed && jobs.isEmpty()) { // minimal notification
+									synchronized (jobs) {
+										jobs.notifyAll();
+									}
 								}
 							}
 						}
-					}
 
-					@Override
-					public void running(IJobChangeEvent event) {
-						Job job = event.getJob();
-						if (family == null || job.belongsTo(family)) {
-							// Rarely really adds, as it was in most cases already was added by scheduled().
-							// But may happen - for example in
-							// IJobManagerTest.testJobFamilyJoinLockListener():
-							jobs.add(job);
-							// no notification upon increased size
+						@Override
+						public void running(IJobChangeEvent event) {
+							Job job = event.getJob();
+							if (family == null || job.belongsTo(family)) {
+								// Rarely really adds, as it was in most cases already was added by scheduled().
+								// But may happen - for example in
+								// IJobManagerTest.testJobFamilyJoinLockListener():
+								jobs.add(job);
+								// no notification upon increased size
+							}
 						}
-					}
 
-					@Override
-					public void scheduled(IJobChangeEvent event) {
-						Job job = event.getJob();
-						if (family == null || job.belongsTo(family)) {
-							// don't add to list if job is being rescheduled
-							if (((JobChangeEvent) event).reschedule)
-								return;
-							// if job manager is suspended we only wait for running jobs
-							if (isSuspended())
-								return;
-							boolean added = jobs.add(job);
-							assert added;
-							// no notification upon increased size
+						@Override
+						public void scheduled(IJobChangeEvent event) {
+							Job job = event.getJob();
+							if (family == null || job.belongsTo(family)) {
+								// don't add to list if job is being rescheduled
+								if (((JobChangeEvent) event).reschedule)
+									return;
+								// if job manager is suspended we only wait for running jobs
+								if (isSuspended())
+									return;
+								boolean added = jobs.add(job);
+								assert added;
+								// no notification upon increased size
+							}
 						}
-					}
-				};
-				addJobChangeListener(listener);
+					};
+					addJobChangeListener(listener);
+				}
+			} finally {
+				unlockStripes();
 			}
 		}
 		if (jobCount == 0) {
@@ -1197,6 +1523,17 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * removed from the queue, it is moved to the running jobs list.
 	 */
 	private Job nextJob() {
+		if (lockFreeScheduling && !suspended) {
+			long now = now();
+			wakeUpLockFreeJobs(now);
+			// only take the lock if a job with a rule or group may be ready to run
+			if (!hasWaitingJobs && nextWakeUp >= now) {
+				InternalJob job = nextLockFreeJob(InternalJob.T_INFINITE);
+				if (job != null && JobManager.DEBUG)
+					JobManager.debug("Starting job: " + job); //$NON-NLS-1$
+				return (Job) job;
+			}
+		}
 		synchronized (lock) {
 			// do nothing if the job manager is suspended
 			if (suspended)
@@ -1210,6 +1547,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				changeState(job, Job.WAITING);
 				job = sleeping.peek();
 			}
+			wakeUpLockFreeJobs(now);
 			InternalJobGroup jobGroup = null;
 			// process the wait queue until we find a job whose rules are satisfied.
 			job = waiting.peek();
@@ -1232,17 +1570,66 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 				// the maximum number of jobs from the same group are already running.
 				job = nextWaitingJob == waiting.dummy ? null : nextWaitingJob;
 			}
-			// the job to run must be in the running list before we exit
-			// the sync block, otherwise two jobs with conflicting rules could start at once
-			if (job != null) {
+			// a lock free job that should start earlier goes first
+			InternalJob lockFreeJob = nextLockFreeJob(job == null ? InternalJob.T_INFINITE : job.getStartTime());
+			if (lockFreeJob != null) {
+				job = lockFreeJob;
+			} else if (job != null) {
+				// the job to run must be in the running list before we exit
+				// the sync block, otherwise two jobs with conflicting rules could start at once
 				changeState(job, InternalJob.ABOUT_TO_RUN);
-				if (JobManager.DEBUG)
-					JobManager.debug("Starting job: " + job); //$NON-NLS-1$
 			}
+			if (job != null && JobManager.DEBUG)
+				JobManager.debug("Starting job: " + job); //$NON-NLS-1$
 			return (Job) job;
 		}
 	}
 
+	/**
+	 * Moves the lock free job with the earliest start time to the running
+	 * jobs and returns it, if that start time is before the given time.
+	 */
+	private InternalJob nextLockFreeJob(long before) {
+		LockFreeJobQueue.Entry entry;
+		while ((entry = lockFreeJobs.peekWaiting(before)) != null) {
+			InternalJob job = entry.job;
+			ReentrantLock stripe = stripeFor(job);
+			stripe.lock();
+			try {
+				// the job may have been started, canceled or put to sleep in the meantime
+				if (entry.isStale())
+					continue;
+				changeState(job, InternalJob.ABOUT_TO_RUN);
+				return job;
+			} finally {
+				stripe.unlock();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Moves the lock free jobs that wake up before the given time to the
+	 * waiting jobs.
+	 */
+	private void wakeUpLockFreeJobs(long now) {
+		LockFreeJobQueue.Entry entry;
+		while ((entry = lockFreeJobs.peekSleeping(now)) != null) {
+			InternalJob job = entry.job;
+			ReentrantLock stripe = stripeFor(job);
+			stripe.lock();
+			try {
+				if (entry.isStale())
+					continue;
+				job.setStartTime(now + delayFor(job.getPriority()));
+				job.setWaitQueueStamp(getNextWaitQueueStamp());
+				changeState(job, Job.WAITING);
+			} finally {
+				stripe.unlock();
+			}
+		}
+	}
+
 	/**
 	 * Calculates some relative time value in milliseconds. This value does not
 	 * represent wall clock time and can only be used to compare it with another
@@ -1298,6 +1685,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * @see #reportUnblocked
 	 */
 	final void reportBlocked(IProgressMonitor monitor, Collection<InternalJob> blockingJobs) {
+		pool.workerBlocked();
 		IStatus reason;
 		InternalJob blockingJob = blockingJobs.stream().sorted(Comparator.comparing(InternalJob::isSystem)).findFirst()
 				.orElse(null);
@@ -1317,6 +1705,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * @see #reportBlocked
 	 */
 	final void reportUnblocked(IProgressMonitor monitor) {
+		pool.workerUnblocked();
 		monitor.clearBlocked();
 	}
 
@@ -1379,7 +1768,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	}
 
 	protected boolean scheduleInternal(InternalJob job, long delay, boolean reschedule) {
-		assert Thread.holdsLock(lock);
+		assert holdsLockFor(job);
 		if (!active)
 			throw new IllegalStateException("Job manager has been shut down."); //$NON-NLS-1$
 		Assert.isNotNull(job, "Job is null"); //$NON-NLS-1$
@@ -1434,19 +1823,44 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	private List<InternalJob> select(Object family, int stateMask) {
 		List<InternalJob> members = new ArrayList<>();
 		synchronized (lock) {
-			if ((stateMask & Job.RUNNING) != 0) {
-				for (InternalJob internalJob : running) {
-					select(members, family, internalJob, stateMask);
+			// lock free jobs must not move between the queues while they are read
+			lockStripes();
+			try {
+				if (family != null && undeclaredFamilyJobs.get() == 0) {
+					// every scheduled job only belongs to the families it declares
+					Set<InternalJob> declared = familyMembers.get(family);
+					if (declared != null) {
+						for (InternalJob internalJob : declared) {
+							if ((internalJob.getState() & stateMask) != 0)
+								members.add(internalJob);
+						}
+					}
+					return members;
 				}
-			}
-			if ((stateMask & Job.WAITING) != 0) {
-				select(members, family, waiting.peek(), stateMask);
-				for (InternalJob internalJob : yielding) {
-					select(members, family, internalJob, stateMask);
+				if ((stateMask & Job.RUNNING) != 0) {
+					for (InternalJob internalJob : running) {
+						select(members, family, internalJob, stateMask);
+					}
+				}
+				if ((stateMask & Job.WAITING) != 0) {
+					select(members, family, waiting.peek(), stateMask);
+					for (InternalJob internalJob : yielding) {
+						select(members, family, internalJob, stateMask);
+					}
 				}
+				if ((stateMask & Job.SLEEPING) != 0)
+					select(members, family, sleeping.peek(), stateMask);
+				if (lockFreeScheduling) {
+					List<InternalJob> lockFree = new ArrayList<>();
+					lockFreeJobs.addJobs(lockFree, (stateMask & Job.WAITING) != 0, (stateMask & Job.SLEEPING) != 0);
+					for (InternalJob internalJob : lockFree) {
+						if (family == null || internalJob.belongsTo(family))
+							members.add(internalJob);
+					}
+				}
+			} finally {
+				unlockStripes();
 			}
-			if ((stateMask & Job.SLEEPING) != 0)
-				select(members, family, sleeping.peek(), stateMask);
 		}
 		return members;
 	}
@@ -1461,15 +1875,31 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 */
 	protected void setPriority(InternalJob job, int newPriority) {
 		synchronized (lock) {
-			int oldPriority = job.getPriority();
-			if (oldPriority == newPriority)
-				return;
-			job.internalSetPriority(newPriority);
-			//if the job is waiting to run, re-shuffle the queue
-			if (job.getState() == Job.WAITING) {
-				long oldStart = job.getStartTime();
-				job.setStartTime(oldStart + (delayFor(newPriority) - delayFor(oldPriority)));
-				waiting.resort(job);
+			ReentrantLock stripe = stripeFor(job);
+			stripe.lock();
+			try {
+				int oldPriority = job.getPriority();
+				if (oldPriority == newPriority)
+					return;
+				job.internalSetPriority(newPriority);
+				//if the job is waiting to run, re-shuffle the queue
+				if (job.getState() == Job.WAITING) {
+					boolean background = WorkerPool.isBackground(newPriority);
+					if (background != WorkerPool.isBackground(oldPriority)) {
+						waitingInteractiveJobs.addAndGet(background ? -1 : 1);
+					}
+					long oldStart = job.getStartTime();
+					job.setStartTime(oldStart + (delayFor(newPriority) - delayFor(oldPriority)));
+					if (!isLockFree(job)) {
+						waiting.resort(job);
+					} else if (job.lockFreeEntry != null) {
+						// move the job to the queue of its new priority
+						lockFreeJobs.remove(job);
+						lockFreeJobs.enqueueWaiting(job);
+					}
+				}
+			} finally {
+				stripe.unlock();
 			}
 		}
 	}
@@ -1481,10 +1911,17 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 
 	public void setRule(InternalJob job, ISchedulingRule rule) {
 		synchronized (lock) {
-			//cannot change the rule of a job that is already running
-			Assert.isLegal(job.getState() == Job.NONE);
-			validateRule(rule);
-			job.internalSetRule(rule);
+			// a lock free job may be scheduled concurrently
+			ReentrantLock stripe = stripeFor(job);
+			stripe.lock();
+			try {
+				//cannot change the rule of a job that is already running
+				Assert.isLegal(job.getState() == Job.NONE);
+				validateRule(rule);
+				job.internalSetRule(rule);
+			} finally {
+				stripe.unlock();
+			}
 		}
 	}
 
@@ -1533,18 +1970,17 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	 * there are no sleeping or waiting jobs.
 	 */
 	protected long sleepHint() {
-		synchronized (lock) {
-			//wait forever if job manager is suspended
-			if (suspended)
-				return InternalJob.T_INFINITE;
-			if (!waiting.isEmpty())
-				return 0L;
-			//return the anticipated time that the next sleeping job will wake
-			InternalJob next = sleeping.peek();
-			if (next == null)
-				return InternalJob.T_INFINITE;
-			return next.getStartTime() - now();
-		}
+		// the lock is not needed since the state of the queues is published
+		//wait forever if job manager is suspended
+		if (suspended)
+			return InternalJob.T_INFINITE;
+		if (hasWaitingJobs || lockFreeJobs.hasWaiting())
+			return 0L;
+		//return the anticipated time that the next sleeping job will wake
+		long next = Math.min(nextWakeUp, lockFreeJobs.nextWakeUp());
+		if (next == InternalJob.T_INFINITE)
+			return InternalJob.T_INFINITE;
+		return next - now();
 	}
 
 	/**
@@ -1761,7 +2197,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 						if (shouldReallyRun && !internal.isAboutToRunCanceled()) {
 							internal.setProgressMonitor(createMonitor(j));
 							//change from ABOUT_TO_RUN to RUNNING
-							internal.setThread(worker);
+							internal.setThread(pool.threadFor(internal, worker));
 							internal.internalSetState(Job.RUNNING);
 							internal.jobStateLock.notifyAll();
 							jobListeners.queueRunning(j);
@@ -1949,7 +2385,7 @@ public class JobManager implements IJobManager, DebugOptionsListener {
 	public String toString() {
 		synchronized (lock) {
 			return "waiting: " + waiting + "\nsleeping: " + sleeping + "\nrunnning: " + running + "\nyielding: " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
-					+ yielding;
+					+ yielding + "\nlock free " + lockFreeJobs; //$NON-NLS-1$
 		}
 	}
 }
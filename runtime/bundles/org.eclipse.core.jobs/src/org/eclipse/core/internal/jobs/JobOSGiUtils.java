@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2017 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -108,4 +108,45 @@ class JobOSGiUtils {
 			return false;
 		return "true".equalsIgnoreCase(value); //$NON-NLS-1$
 	}
+
+	/**
+	 * Calculates whether the job plugin should run I/O bound jobs on virtual
+	 * threads.
+	 * @return <code>true</code> if I/O bound jobs should run on virtual threads,
+	 * and <code>false</code> otherwise.
+	 */
+	boolean useVirtualThreads() {
+		return "true".equalsIgnoreCase(getProperty(IJobManager.PROP_USE_VIRTUAL_THREADS)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Calculates whether the job plugin should size the worker pool
+	 * adaptively.
+	 * @return <code>true</code> if the worker pool should be adaptive, and
+	 * <code>false</code> otherwise.
+	 */
+	boolean useAdaptiveWorkerPool() {
+		return "true".equalsIgnoreCase(getProperty(IJobManager.PROP_ADAPTIVE_WORKER_POOL)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the maximum number of worker threads, or the given default if the
+	 * property is absent or not a positive number.
+	 */
+	int maxWorkerThreads(int defaultValue) {
+		String value = getProperty(IJobManager.PROP_MAX_WORKER_THREADS);
+		if (value == null)
+			return defaultValue;
+		try {
+			int max = Integer.parseInt(value.trim());
+			return max > 0 ? max : defaultValue;
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private String getProperty(String key) {
+		BundleContext context = JobActivator.getContext();
+		return context == null ? System.getProperty(key) : context.getProperty(key);
+	}
 }
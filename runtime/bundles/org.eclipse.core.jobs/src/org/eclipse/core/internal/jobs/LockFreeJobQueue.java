@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.jobs;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * The waiting and sleeping jobs whose state is not guarded by the job manager
+ * lock, see {@link JobManager#isLockFree(InternalJob)}. The queues can be read
+ * concurrently, but a job is only added or removed while holding the stripe
+ * lock of the job. A thread that wants to start or wake up a job therefore
+ * peeks at its entry, takes the stripe lock of the job and only then claims
+ * the job by changing its state, so that a thread holding all stripe locks
+ * sees every waiting and sleeping job.
+ * <p>
+ * The waiting jobs are kept in one queue per priority. The start time of a
+ * waiting job is the time it was queued plus a delay that only depends on its
+ * priority, so every queue is in the order of the start times of its jobs, and
+ * the job with the earliest start time is at the head of one of the queues,
+ * like in {@link JobQueue}. The sleeping jobs are sorted by the time they wake
+ * up.
+ * </p>
+ * <p>
+ * A job that leaves the waiting queues is not removed from its queue, but its
+ * entry becomes stale and is discarded once it reaches the head of the queue.
+ * </p>
+ */
+final class LockFreeJobQueue {
+	/**
+	 * The entry of a job in one of the queues.
+	 */
+	static final class Entry {
+		final InternalJob job;
+		/**
+		 * The start time of the job when it was queued. The start time of the
+		 * job itself is only changed when it moves to another entry.
+		 */
+		final long startTime;
+		final long stamp;
+		final boolean sleeping;
+
+		Entry(InternalJob job, long stamp, boolean sleeping) {
+			this.job = job;
+			this.startTime = job.getStartTime();
+			this.stamp = stamp;
+			this.sleeping = sleeping;
+		}
+
+		boolean isStale() {
+			return job.lockFreeEntry != this;
+		}
+
+		@Override
+		public String toString() {
+			return job.toString();
+		}
+	}
+
+	private static final Comparator<Entry> ORDER = Comparator.<Entry> comparingLong(e -> e.startTime).thenComparingLong(e -> e.stamp);
+
+	private static final int[] PRIORITIES = {Job.INTERACTIVE, Job.SHORT, Job.LONG, Job.BUILD, Job.DECORATE};
+
+	private final List<Queue<Entry>> waiting = new ArrayList<>(PRIORITIES.length);
+
+	private final ConcurrentSkipListSet<Entry> sleeping = new ConcurrentSkipListSet<>(ORDER);
+
+	/**
+	 * The number of jobs in the waiting queues, without the stale entries.
+	 */
+	private final AtomicInteger waitingCount = new AtomicInteger();
+
+	private final AtomicLong stamps = new AtomicLong();
+
+	LockFreeJobQueue() {
+		for (int i = 0; i < PRIORITIES.length; i++)
+			waiting.add(new ConcurrentLinkedQueue<>());
+	}
+
+	private Queue<Entry> waitingQueue(int priority) {
+		for (int i = 0; i < PRIORITIES.length - 1; i++) {
+			if (priority <= PRIORITIES[i])
+				return waiting.get(i);
+		}
+		return waiting.get(PRIORITIES.length - 1);
+	}
+
+	/**
+	 * Adds a job that changed to the WAITING state.
+	 */
+	void enqueueWaiting(InternalJob job) {
+		Entry entry = new Entry(job, stamps.getAndIncrement(), false);
+		job.lockFreeEntry = entry;
+		waitingCount.incrementAndGet();
+		waitingQueue(job.getPriority()).add(entry);
+	}
+
+	/**
+	 * Adds a job that changed to the SLEEPING state.
+	 */
+	void enqueueSleeping(InternalJob job) {
+		Entry entry = new Entry(job, stamps.getAndIncrement(), true);
+		job.lockFreeEntry = entry;
+		sleeping.add(entry);
+	}
+
+	/**
+	 * Removes a job that leaves the WAITING or SLEEPING state.
+	 */
+	void remove(InternalJob job) {
+		Entry entry = job.lockFreeEntry;
+		if (entry == null)
+			return;
+		job.lockFreeEntry = null;
+		if (entry.sleeping)
+			sleeping.remove(entry);
+		else
+			waitingCount.decrementAndGet();
+	}
+
+	boolean hasWaiting() {
+		return waitingCount.get() > 0;
+	}
+
+	/**
+	 * Returns the head of the given queue, discarding stale entries.
+	 */
+	private static Entry peek(Queue<Entry> queue) {
+		Entry head;
+		while ((head = queue.peek()) != null && head.isStale())
+			queue.remove(head);
+		return head;
+	}
+
+	/**
+	 * Returns the entry of the waiting job with the earliest start time, if
+	 * that is before the given time. The entry stays in its queue until the
+	 * job leaves the WAITING state, so the caller must check that the entry is
+	 * not stale once it holds the stripe lock of the job.
+	 */
+	Entry peekWaiting(long before) {
+		if (!hasWaiting())
+			return null;
+		Entry first = null;
+		for (Queue<Entry> queue : waiting) {
+			Entry head = peek(queue);
+			if (head != null && (first == null || head.startTime < first.startTime))
+				first = head;
+		}
+		return first == null || first.startTime >= before ? null : first;
+	}
+
+	private Entry firstSleeping() {
+		Iterator<Entry> it = sleeping.iterator();
+		return it.hasNext() ? it.next() : null;
+	}
+
+	/**
+	 * Returns the entry of the sleeping job that wakes up first, if that is
+	 * before the given time. The entry stays in the queue until the job leaves
+	 * the SLEEPING state, so the caller must check that the entry is not stale
+	 * once it holds the stripe lock of the job.
+	 */
+	Entry peekSleeping(long before) {
+		Entry first = firstSleeping();
+		return first == null || first.startTime >= before ? null : first;
+	}
+
+	/**
+	 * Returns the time the first sleeping job wakes up, or
+	 * {@link InternalJob#T_INFINITE} if there are no sleeping jobs.
+	 */
+	long nextWakeUp() {
+		Entry first = firstSleeping();
+		return first == null ? InternalJob.T_INFINITE : first.startTime;
+	}
+
+	/**
+	 * Adds the waiting or sleeping jobs to the given collection.
+	 */
+	void addJobs(Collection<InternalJob> jobs, boolean addWaiting, boolean addSleeping) {
+		if (addWaiting) {
+			for (Queue<Entry> queue : waiting) {
+				for (Entry entry : queue) {
+					if (!entry.isStale())
+						jobs.add(entry.job);
+				}
+			}
+		}
+		if (addSleeping) {
+			for (Entry entry : sleeping) {
+				if (!entry.isStale())
+					jobs.add(entry.job);
+			}
+		}
+	}
+
+	/**
+	 * Discards all jobs. The caller must hold all stripe locks.
+	 */
+	void clear() {
+		List<InternalJob> jobs = new ArrayList<>();
+		addJobs(jobs, true, true);
+		for (InternalJob job : jobs)
+			job.lockFreeEntry = null;
+		for (Queue<Entry> queue : waiting)
+			queue.clear();
+		sleeping.clear();
+		waitingCount.set(0);
+	}
+
+	@Override
+	public String toString() {
+		List<InternalJob> jobs = new ArrayList<>();
+		addJobs(jobs, true, false);
+		StringBuilder buf = new StringBuilder("waiting: ").append(jobs); //$NON-NLS-1$
+		jobs.clear();
+		addJobs(jobs, false, true);
+		return buf.append("\nsleeping: ").append(jobs).toString(); //$NON-NLS-1$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2003, 2014 IBM Corporation and others.
+ *  Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -220,7 +220,7 @@ public class LockManager {
 		//all job threads have to be treated as lock owners because UI thread
 		//may try to join a job
 		Thread current = Thread.currentThread();
-		if (current instanceof Worker)
+		if (current instanceof Worker || VirtualWorker.currentJob() != null)
 			return true;
 		DeadlockDetector tempLocks = locks;
 		if (tempLocks == null)
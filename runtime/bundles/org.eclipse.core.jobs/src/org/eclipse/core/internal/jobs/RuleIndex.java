@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.jobs;
+
+import java.util.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.jobs.*;
+
+/**
+ * An index of jobs by their scheduling rules, used to find a job whose rule
+ * conflicts with the rule of another job without asking every rule.
+ * <p>
+ * Path rules are stored in a tree of path segments per scope, so that the
+ * rules conflicting with a path rule are found along its path and below it.
+ * Multi rules are indexed by their children. Jobs with other rules are kept
+ * in a list that is always scanned, and jobs with such rules are checked
+ * against every job in the index.
+ * </p>
+ * <p>
+ * The rule of a job can't change while it is indexed, since jobs are only
+ * indexed while they are running or blocked.
+ * </p>
+ * @GuardedBy("JobManager.lock")
+ */
+class RuleIndex {
+	private static final class Node {
+		final Node parent;
+		final String segment;
+		final Map<String, Node> children = new HashMap<>(4);
+		/**
+		 * The jobs with a rule for exactly this path.
+		 */
+		final List<InternalJob> jobs = new ArrayList<>(2);
+		/**
+		 * The number of jobs of this node and its descendants.
+		 */
+		int count;
+
+		Node(Node parent, String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+	}
+
+	/**
+	 * The root node of every scope.
+	 */
+	private final Map<Object, Node> roots = new HashMap<>();
+
+	/**
+	 * The jobs with a rule that is not a path rule, or that has such a child.
+	 */
+	private final Set<InternalJob> others = new LinkedHashSet<>();
+
+	private int size;
+
+	/**
+	 * Returns the path rules of the given rule, or <code>null</code> if it is
+	 * not a path rule or a multi rule of path rules only.
+	 */
+	private static IPathSchedulingRule[] getPathRules(ISchedulingRule rule) {
+		if (rule instanceof IPathSchedulingRule)
+			return new IPathSchedulingRule[] {(IPathSchedulingRule) rule};
+		if (rule.getClass() != MultiRule.class)
+			return null;
+		ISchedulingRule[] children = ((MultiRule) rule).getChildren();
+		if (children.length == 0)
+			return null;
+		IPathSchedulingRule[] pathRules = new IPathSchedulingRule[children.length];
+		for (int i = 0; i < children.length; i++) {
+			if (!(children[i] instanceof IPathSchedulingRule))
+				return null;
+			pathRules[i] = (IPathSchedulingRule) children[i];
+		}
+		return pathRules;
+	}
+
+	private Node find(IPathSchedulingRule rule, boolean create) {
+		Object scope = rule.getPathScope();
+		Node node = roots.get(scope);
+		if (node == null) {
+			if (!create)
+				return null;
+			node = new Node(null, null);
+			roots.put(scope, node);
+		}
+		IPath path = rule.getFullPath();
+		for (int i = 0, count = path.segmentCount(); i < count; i++) {
+			String segment = path.segment(i);
+			Node child = node.children.get(segment);
+			if (child == null) {
+				if (!create)
+					return null;
+				child = new Node(node, segment);
+				node.children.put(segment, child);
+			}
+			node = child;
+		}
+		return node;
+	}
+
+	/**
+	 * Adds the given job, which must have a rule.
+	 */
+	void add(InternalJob job) {
+		IPathSchedulingRule[] pathRules = getPathRules(job.getRule());
+		size++;
+		if (pathRules == null) {
+			others.add(job);
+			return;
+		}
+		for (IPathSchedulingRule rule : pathRules) {
+			Node node = find(rule, true);
+			node.jobs.add(job);
+			for (; node != null; node = node.parent)
+				node.count++;
+		}
+	}
+
+	/**
+	 * Removes the given job, if it is in the index.
+	 */
+	void remove(InternalJob job) {
+		if (job.getRule() == null)
+			return;
+		IPathSchedulingRule[] pathRules = getPathRules(job.getRule());
+		if (pathRules == null) {
+			if (others.remove(job))
+				size--;
+			return;
+		}
+		boolean removed = false;
+		for (IPathSchedulingRule rule : pathRules) {
+			Node node = find(rule, false);
+			if (node == null || !node.jobs.remove(job))
+				continue;
+			removed = true;
+			for (; node != null; node = node.parent) {
+				node.count--;
+				// prune empty nodes, but keep the roots of the scopes
+				if (node.count == 0 && node.parent != null)
+					node.parent.children.remove(node.segment);
+			}
+		}
+		if (removed)
+			size--;
+	}
+
+	void clear() {
+		roots.clear();
+		others.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns a job in the index whose rule conflicts with the rule of the
+	 * given job, or <code>null</code> if there is none.
+	 */
+	InternalJob findConflicting(InternalJob waitingJob) {
+		if (size == 0)
+			return null;
+		for (InternalJob job : others) {
+			if (waitingJob.isConflicting(job))
+				return job;
+		}
+		IPathSchedulingRule[] pathRules = getPathRules(waitingJob.getRule());
+		if (pathRules == null) {
+			// a rule the index knows nothing about, ask every job
+			for (Node root : roots.values()) {
+				InternalJob job = findConflictingBelow(root, waitingJob);
+				if (job != null)
+					return job;
+			}
+			return null;
+		}
+		for (IPathSchedulingRule rule : pathRules) {
+			InternalJob job = findConflicting(rule, waitingJob);
+			if (job != null)
+				return job;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a job conflicting with the given job whose rule is at, above or
+	 * below the given path rule of the job.
+	 */
+	private InternalJob findConflicting(IPathSchedulingRule rule, InternalJob waitingJob) {
+		Node node = roots.get(rule.getPathScope());
+		IPath path = rule.getFullPath();
+		for (int i = 0, count = path.segmentCount(); node != null; i++) {
+			for (InternalJob job : node.jobs) {
+				if (waitingJob.isConflicting(job))
+					return job;
+			}
+			if (i == count) {
+				for (Node child : node.children.values()) {
+					InternalJob job = findConflictingBelow(child, waitingJob);
+					if (job != null)
+						return job;
+				}
+				return null;
+			}
+			node = node.children.get(path.segment(i));
+		}
+		return null;
+	}
+
+	private static InternalJob findConflictingBelow(Node node, InternalJob waitingJob) {
+		if (node.count == 0)
+			return null;
+		for (InternalJob job : node.jobs) {
+			if (waitingJob.isConflicting(job))
+				return job;
+		}
+		for (Node child : node.children.values()) {
+			InternalJob job = findConflictingBelow(child, waitingJob);
+			if (job != null)
+				return job;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.jobs;
+
+import java.util.concurrent.ThreadFactory;
+import org.eclipse.core.internal.runtime.RuntimeLog;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Runs a single I/O bound job on a virtual thread, so that the job does not
+ * occupy one of the worker threads of the pool while it waits. The job is
+ * started by a worker like any other job, which then hands it over to the
+ * virtual thread.
+ * <p>
+ * Only jobs without a scheduling rule run on virtual threads, so they hold
+ * no rule when they start. Rules that the job begins itself are tracked by
+ * the implicit jobs by thread like for workers: the lock manager records the
+ * virtual thread in its lock graph while it holds or waits for a rule, so
+ * deadlocks with other threads are detected and resolved the same way, and
+ * the rules are released when the job ends.
+ * </p>
+ * <p>
+ * Virtual threads require Java 21, so they are created reflectively.
+ * </p>
+ */
+class VirtualWorker implements Runnable {
+	/**
+	 * The job running in the current virtual thread, if any.
+	 */
+	private static final ThreadLocal<InternalJob> CURRENT_JOB = new ThreadLocal<>();
+
+	private final JobManager manager;
+	private final InternalJob job;
+
+	/**
+	 * Returns a factory of virtual threads, or <code>null</code> if the runtime
+	 * does not support them.
+	 */
+	static ThreadFactory createThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null); //$NON-NLS-1$
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual"); //$NON-NLS-1$
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "Worker-V-", 0L); //$NON-NLS-1$ //$NON-NLS-2$
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder); //$NON-NLS-1$
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			//this doesn't need to be translated because it's just being logged
+			String msg = "Virtual threads are not available, I/O bound jobs run on worker threads"; //$NON-NLS-1$
+			RuntimeLog.log(new Status(IStatus.WARNING, JobManager.PI_JOBS, JobManager.PLUGIN_ERROR, msg, e));
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the job running in the current thread if it is the virtual
+	 * thread of a job, and <code>null</code> otherwise.
+	 */
+	static Job currentJob() {
+		return (Job) CURRENT_JOB.get();
+	}
+
+	VirtualWorker(JobManager manager, InternalJob job) {
+		this.manager = manager;
+		this.job = job;
+	}
+
+	@Override
+	public void run() {
+		Thread thread = Thread.currentThread();
+		String name = job.getName();
+		if (name == null || name.trim().isEmpty())
+			name = "<unnamed job: " + job.getClass().getName() + ">"; //$NON-NLS-1$ //$NON-NLS-2$
+		thread.setName(thread.getName() + ": " + name); //$NON-NLS-1$
+		CURRENT_JOB.set(job);
+		IStatus result = Status.OK_STATUS;
+		IProgressMonitor monitor = job.getProgressMonitor();
+		try {
+			result = job.run(monitor);
+		} catch (OperationCanceledException e) {
+			result = Status.CANCEL_STATUS;
+		} catch (Exception | Error e) {
+			result = Worker.handleException(job, e);
+		} finally {
+			if (result != Job.ASYNC_FINISH && monitor != null) {
+				monitor.done();
+			}
+			// result must not be null
+			if (result == null) {
+				String message = NLS.bind(JobMessages.jobs_returnNoStatus, job.getClass().getName());
+				result = Worker.handleException(job, new NullPointerException(message));
+			}
+			try {
+				manager.endJob(job, result, true, false);
+				//ensure this thread no longer owns any scheduling rules
+				manager.implicitJobs.endJob(job);
+			} finally {
+				CURRENT_JOB.remove();
+			}
+		}
+	}
+}
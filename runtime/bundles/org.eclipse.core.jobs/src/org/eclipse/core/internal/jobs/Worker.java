@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2003, 2014 IBM Corporation and others.
+ *  Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -29,6 +29,13 @@ public class Worker extends Thread {
 	private volatile InternalJob currentJob;
 	private final WorkerPool pool;
 	private final String generalName;
+	/**
+	 * Whether the current job runs in the background lane of the pool, and how
+	 * often the worker is blocked in it.
+	 * @GuardedBy("pool")
+	 */
+	boolean background;
+	int blocked;
 
 	public Worker(WorkerPool pool) {
 		super("Worker-" + nextWorkerNumber++); //$NON-NLS-1$
@@ -46,7 +53,7 @@ public class Worker extends Thread {
 		return (Job) currentJob;
 	}
 
-	private IStatus handleException(InternalJob job, Throwable t) {
+	static IStatus handleException(InternalJob job, Throwable t) {
 		String message = NLS.bind(JobMessages.jobs_internalError, job.getName());
 		return new Status(IStatus.ERROR, JobManager.PI_JOBS, JobManager.PLUGIN_ERROR, message, t);
 	}
@@ -56,6 +63,12 @@ public class Worker extends Thread {
 		setNormPriority();
 		try {
 			while ((currentJob = pool.startJob(this)) != null) {
+				if (currentJob.getThread() != this) {
+					// the job runs on a virtual thread, look for the next one
+					pool.startVirtual(currentJob);
+					currentJob = null;
+					continue;
+				}
 				IStatus result = Status.OK_STATUS;
 				IProgressMonitor monitor = currentJob.getProgressMonitor();
 				try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2003, 2012 IBM Corporation and others.
+ *  Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -14,8 +14,15 @@
  *******************************************************************************/
 package org.eclipse.core.internal.jobs;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.IWorkerPoolMetrics;
 import org.eclipse.core.runtime.jobs.Job;
 
 /**
@@ -27,6 +34,17 @@ import org.eclipse.core.runtime.jobs.Job;
  * by the instance's object monitor.  To avoid deadlock with third party code,
  * this lock is never held when calling methods outside this class that may in
  * turn use locks.
+ *
+ * An adaptive pool does not create new workers for background jobs (see
+ * {@link #isBackground(int)}) once the workers running background jobs reach
+ * the limit of the background lane. The limit starts at the number of
+ * available processors, and is raised while background jobs wait longer than
+ * their priority tolerates and the system is not overloaded. Interactive jobs
+ * always get a worker, and workers that are blocked on a rule or a join don't
+ * count against the limit. Background jobs can also wait for each other in
+ * ways the pool does not see, for example with a latch. Deferred jobs that
+ * still wait for a worker after {@link #DEFER_TIMEOUT} therefore get a new
+ * worker regardless of the limit, so they eventually run.
  */
 class WorkerPool {
 	/**
@@ -38,12 +56,94 @@ class WorkerPool {
 	 */
 	private static final int MIN_THREADS = 1;
 
+	/**
+	 * Default soft limit on the maximum number of workers in the pool, see
+	 * {@link #maxThreads}.
+	 */
+	static final int MAX_THREADS = 50;
+
+	/**
+	 * The lower bound of the limit of the background lane of an adaptive pool.
+	 */
+	private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * An adaptive pool raises the limit of the background lane while background
+	 * jobs wait longer than this many milliseconds on average beyond the delay
+	 * of their priority, and lowers it while they wait less than a quarter.
+	 */
+	private static final long WAIT_THRESHOLD = 100;
+
+	/**
+	 * The minimum number of milliseconds between two adjustments of the limit
+	 * of the background lane.
+	 */
+	private static final long ADJUST_INTERVAL = 100;
+
+	/**
+	 * The number of milliseconds after which a worker is created for deferred
+	 * background jobs that are still waiting, regardless of the limit.
+	 */
+	private static final long DEFER_TIMEOUT = 2000;
+
+	private static final OperatingSystemMXBean OS = ManagementFactory.getOperatingSystemMXBean();
+
 	/**
 	 * Soft limit on the maximum number of workers in the pool. An idle worker
 	 * is not put back in the pool if the total number of workers is more than
-	 * MAX_THREADS.
+	 * maxThreads.
+	 */
+	private int maxThreads = MAX_THREADS;
+
+	/**
+	 * Records whether the background lane of the pool is limited.
+	 */
+	private boolean adaptive = false;
+
+	/**
+	 * The number of workers running a background job, and how many of them are
+	 * blocked.
+	 */
+	private int backgroundThreads = 0;
+	private int blockedBackgroundThreads = 0;
+
+	/**
+	 * The number of runnable background jobs for which an adaptive pool creates
+	 * workers.
+	 */
+	private int backgroundLimit = MAX_THREADS;
+
+	/**
+	 * The time of the last adjustment of the background limit.
+	 */
+	private long lastAdjustment = 0;
+
+	/**
+	 * Records whether a worker was not created for a queued job because the
+	 * background lane was full.
+	 */
+	private boolean deferred = false;
+
+	/**
+	 * The time a job was first deferred since a worker was last created or
+	 * woken for queued jobs.
+	 */
+	private long deferredSince = 0;
+
+	/**
+	 * Re-checks the deferred jobs after {@link #DEFER_TIMEOUT}. Created when a
+	 * job is first deferred.
 	 */
-	private static final int MAX_THREADS = 50;
+	private Timer recheckTimer;
+	private boolean recheckScheduled = false;
+
+	/**
+	 * The moving averages of the milliseconds that interactive and background
+	 * jobs waited beyond the delay of their priority. These are updated while
+	 * holding the job manager lock, so they are not guarded by the pool.
+	 */
+	private final AtomicLong interactiveWait = new AtomicLong();
+	private final AtomicLong backgroundWait = new AtomicLong();
 
 	/**
 	 * Use the busy thread count to avoid starting new threads when a living
@@ -61,6 +161,12 @@ class WorkerPool {
 	 */
 	private boolean isDaemon = false;
 
+	/**
+	 * Creates the virtual threads to run I/O bound jobs in, or <code>null</code>
+	 * if these jobs run on worker threads.
+	 */
+	private volatile ThreadFactory virtualThreads;
+
 	private final JobManager manager;
 	/**
 	 * The number of workers in the threads array
@@ -118,7 +224,12 @@ class WorkerPool {
 			//ensure this thread no longer owns any scheduling rules
 			manager.implicitJobs.endJob(job);
 		} finally {
-			decrementBusyThreads();
+			synchronized (this) {
+				Thread thread = Thread.currentThread();
+				if (thread instanceof Worker)
+					leaveBackgroundLane((Worker) thread);
+				decrementBusyThreads();
+			}
 		}
 	}
 
@@ -140,28 +251,121 @@ class WorkerPool {
 		}
 	}
 
+	/**
+	 * Returns whether jobs of the given priority run in the background lane.
+	 */
+	static boolean isBackground(int priority) {
+		return priority >= Job.BUILD;
+	}
+
+	/**
+	 * Returns whether the background lane has room for another worker, after
+	 * adjusting its limit to the wait time of background jobs and the system
+	 * load.
+	 */
+	private synchronized boolean hasBackgroundCapacity() {
+		long now = manager.now();
+		if (now - lastAdjustment >= ADJUST_INTERVAL) {
+			lastAdjustment = now;
+			long wait = backgroundWait.get();
+			boolean overloaded = OS.getSystemLoadAverage() >= PROCESSORS;
+			if (wait > WAIT_THRESHOLD && !overloaded)
+				backgroundLimit = Math.min(backgroundLimit + 1, maxThreads);
+			else if (wait < WAIT_THRESHOLD / 4 || overloaded)
+				backgroundLimit = Math.max(backgroundLimit - 1, coreThreads());
+		}
+		return backgroundThreads - blockedBackgroundThreads < backgroundLimit;
+	}
+
+	/**
+	 * Returns the number of workers that don't expire when idle.
+	 */
+	private int coreThreads() {
+		return adaptive ? Math.min(PROCESSORS, maxThreads) : MIN_THREADS;
+	}
+
 	/**
 	 * Notification that a job has been added to the queue. Wake a worker,
-	 * creating a new worker if necessary. The provided job may be null.
+	 * creating a new worker if necessary.
 	 */
 	protected synchronized void jobQueued() {
 		//if there is a sleeping thread, wake it up
 		if (sleepingThreads > 0) {
+			deferred = false;
 			notify();
 			return;
 		}
 		//create a thread if all threads are busy
 		if (busyThreads >= numThreads) {
-			Worker worker = new Worker(this);
-			worker.setDaemon(isDaemon);
-			add(worker);
-			if (JobManager.DEBUG)
-				JobManager.debug("worker added to pool: " + worker); //$NON-NLS-1$
-			worker.start();
+			//unless only background jobs are waiting and their lane is full
+			if (adaptive && !manager.hasWaitingInteractiveJobs() && !hasBackgroundCapacity()) {
+				if (!deferred) {
+					deferred = true;
+					deferredSince = manager.now();
+				}
+				scheduleRecheck();
+				return;
+			}
+			deferred = false;
+			createWorker();
 			return;
 		}
 	}
 
+	private synchronized void createWorker() {
+		Worker worker = new Worker(this);
+		worker.setDaemon(isDaemon);
+		add(worker);
+		if (JobManager.DEBUG)
+			JobManager.debug("worker added to pool: " + worker); //$NON-NLS-1$
+		worker.start();
+	}
+
+	/**
+	 * Schedules a re-check of the deferred jobs, unless one is scheduled.
+	 */
+	private synchronized void scheduleRecheck() {
+		if (recheckScheduled || !manager.isActive())
+			return;
+		if (recheckTimer == null)
+			recheckTimer = new Timer("Worker Pool Recheck", true); //$NON-NLS-1$
+		recheckScheduled = true;
+		recheckTimer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				recheckDeferred();
+			}
+		}, DEFER_TIMEOUT);
+	}
+
+	/**
+	 * Creates a worker for the deferred jobs if they still wait after
+	 * {@link #DEFER_TIMEOUT}, although the background lane is full. The running
+	 * background jobs may be waiting for them.
+	 */
+	private void recheckDeferred() {
+		// reads the published queue state, so this doesn't take the job manager lock
+		boolean waiting = manager.sleepHint() == 0;
+		synchronized (this) {
+			recheckScheduled = false;
+			if (!deferred || !manager.isActive())
+				return;
+			if (!waiting || busyThreads < numThreads) {
+				// the jobs were started, or an idle worker will find them
+				deferred = false;
+				return;
+			}
+			if (manager.now() - deferredSince < DEFER_TIMEOUT) {
+				scheduleRecheck();
+				return;
+			}
+			if (JobManager.DEBUG)
+				JobManager.debug("background jobs deferred for more than " + DEFER_TIMEOUT + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			deferred = false;
+			createWorker();
+		}
+	}
+
 	/**
 	 * Remove a worker thread from our list.
 	 * @return true if a worker was removed, and false otherwise.
@@ -177,6 +381,91 @@ class WorkerPool {
 		return false;
 	}
 
+	/**
+	 * Records the time in milliseconds that a job of the given priority waited
+	 * for a worker beyond the delay its priority tolerates. Called while holding
+	 * the job manager lock, so this must not synchronize on the pool.
+	 */
+	void recordWait(int priority, long wait) {
+		AtomicLong average = isBackground(priority) ? backgroundWait : interactiveWait;
+		average.accumulateAndGet(Math.max(0, wait), (avg, w) -> avg + Math.floorDiv(w - avg, 8));
+	}
+
+	/**
+	 * Notification that the current thread blocks on a scheduling rule or
+	 * while joining jobs, until the matching {@link #workerUnblocked()}. A
+	 * blocked worker doesn't count against the limit of the background lane,
+	 * so a worker is created for deferred jobs that it may be waiting for.
+	 */
+	void workerBlocked() {
+		Thread thread = Thread.currentThread();
+		if (!(thread instanceof Worker))
+			return;
+		synchronized (this) {
+			Worker worker = (Worker) thread;
+			if (worker.blocked++ > 0 || !worker.background)
+				return;
+			blockedBackgroundThreads++;
+			if (!deferred)
+				return;
+		}
+		jobQueued();
+	}
+
+	/**
+	 * Notification that the current thread is no longer blocked.
+	 * @see #workerBlocked()
+	 */
+	void workerUnblocked() {
+		Thread thread = Thread.currentThread();
+		if (!(thread instanceof Worker))
+			return;
+		synchronized (this) {
+			Worker worker = (Worker) thread;
+			if (worker.blocked == 0 || --worker.blocked > 0 || !worker.background)
+				return;
+			blockedBackgroundThreads--;
+		}
+	}
+
+	/**
+	 * Removes the worker from the background lane when its job ends.
+	 */
+	private synchronized void leaveBackgroundLane(Worker worker) {
+		if (worker.background && worker.blocked > 0)
+			blockedBackgroundThreads--;
+		if (worker.background)
+			backgroundThreads--;
+		worker.background = false;
+		worker.blocked = 0;
+	}
+
+	/**
+	 * Returns a snapshot of the metrics of the pool.
+	 */
+	synchronized IWorkerPoolMetrics getMetrics() {
+		return new Metrics(numThreads, busyThreads, backgroundThreads, blockedBackgroundThreads, adaptive ? backgroundLimit : maxThreads, maxThreads, interactiveWait.get(), backgroundWait.get());
+	}
+
+	/**
+	 * Sets whether the background lane of the pool is limited. Returns whether
+	 * it was before.
+	 */
+	synchronized boolean setAdaptive(boolean value) {
+		boolean previous = adaptive;
+		this.adaptive = value;
+		this.backgroundLimit = coreThreads();
+		return previous;
+	}
+
+	/**
+	 * Sets the soft limit on the maximum number of workers in the pool.
+	 */
+	synchronized void setMaxThreads(int value) {
+		this.maxThreads = value;
+		this.backgroundLimit = coreThreads();
+	}
+
 	/**
 	 * Sets whether threads created in the worker pool should be daemon threads.
 	 */
@@ -184,7 +473,43 @@ class WorkerPool {
 		this.isDaemon = value;
 	}
 
+	/**
+	 * Sets whether jobs marked as I/O bound run on virtual threads, if the
+	 * runtime supports them. Returns whether they did before.
+	 */
+	boolean setVirtualThreads(boolean value) {
+		boolean previous = virtualThreads != null;
+		this.virtualThreads = value ? VirtualWorker.createThreadFactory() : null;
+		return previous;
+	}
+
+	/**
+	 * Returns the thread to run the given job in. This is a new virtual thread
+	 * that is not started yet if the job is marked as I/O bound and has no
+	 * scheduling rule, and the given worker otherwise.
+	 */
+	Thread threadFor(InternalJob job, Worker worker) {
+		ThreadFactory factory = virtualThreads;
+		if (factory == null || job.getRule() != null || job instanceof ThreadJob || !Boolean.TRUE.equals(job.getProperty(Job.PROPERTY_IO_BOUND)))
+			return worker;
+		return factory.newThread(new VirtualWorker(manager, job));
+	}
+
+	/**
+	 * Starts the virtual thread of a job returned by {@link #startJob(Worker)}.
+	 * The worker is then no longer busy with the job.
+	 */
+	void startVirtual(InternalJob job) {
+		decrementBusyThreads();
+		job.getThread().start();
+	}
+
 	protected synchronized void shutdown() {
+		if (recheckTimer != null) {
+			recheckTimer.cancel();
+			recheckTimer = null;
+			recheckScheduled = false;
+		}
 		notifyAll();
 	}
 
@@ -232,7 +557,7 @@ class WorkerPool {
 				long hint = manager.sleepHint();
 				if (hint > 0) {
 					synchronized (this) {
-						if (numThreads > MAX_THREADS) {
+						if (numThreads > maxThreads) {
 							endWorker(worker);
 							decrementBusyThreads();
 							busy = false;
@@ -245,7 +570,7 @@ class WorkerPool {
 				//if we were already idle, and there are still no new jobs, then
 				// the thread can expire
 				synchronized (this) {
-					if (job == null && (manager.now() - idleStart > BEST_BEFORE) && (numThreads - busyThreads) > MIN_THREADS) {
+					if (job == null && (manager.now() - idleStart > BEST_BEFORE) && (numThreads - busyThreads) > MIN_THREADS && numThreads > coreThreads()) {
 						//must remove the worker immediately to prevent all threads from expiring
 						endWorker(worker);
 						decrementBusyThreads();
@@ -264,6 +589,12 @@ class WorkerPool {
 					//that this thread waited to get this rule
 					manager.getLockManager().addLockThread(Thread.currentThread(), job.getRule());
 				}
+				if (job.getThread() == worker && isBackground(job.getPriority())) {
+					synchronized (this) {
+						worker.background = true;
+						backgroundThreads++;
+					}
+				}
 				//see if we need to wake another worker
 				if (manager.sleepHint() < InternalJob.T_INFINITE)
 					jobQueued();
@@ -275,4 +606,71 @@ class WorkerPool {
 		}
 		return job;
 	}
+
+	private static final class Metrics implements IWorkerPoolMetrics {
+		private final int workers;
+		private final int busyWorkers;
+		private final int backgroundWorkers;
+		private final int blockedBackgroundWorkers;
+		private final int backgroundLimit;
+		private final int maxWorkers;
+		private final long interactiveWait;
+		private final long backgroundWait;
+
+		Metrics(int workers, int busyWorkers, int backgroundWorkers, int blockedBackgroundWorkers, int backgroundLimit, int maxWorkers, long interactiveWait, long backgroundWait) {
+			this.workers = workers;
+			this.busyWorkers = busyWorkers;
+			this.backgroundWorkers = backgroundWorkers;
+			this.blockedBackgroundWorkers = blockedBackgroundWorkers;
+			this.backgroundLimit = backgroundLimit;
+			this.maxWorkers = maxWorkers;
+			this.interactiveWait = interactiveWait;
+			this.backgroundWait = backgroundWait;
+		}
+
+		@Override
+		public int getWorkerCount() {
+			return workers;
+		}
+
+		@Override
+		public int getBusyWorkerCount() {
+			return busyWorkers;
+		}
+
+		@Override
+		public int getBackgroundWorkerCount() {
+			return backgroundWorkers;
+		}
+
+		@Override
+		public int getBlockedBackgroundWorkerCount() {
+			return blockedBackgroundWorkers;
+		}
+
+		@Override
+		public int getBackgroundWorkerLimit() {
+			return backgroundLimit;
+		}
+
+		@Override
+		public int getMaxWorkerCount() {
+			return maxWorkers;
+		}
+
+		@Override
+		public long getInteractiveWaitTime() {
+			return interactiveWait;
+		}
+
+		@Override
+		public long getBackgroundWaitTime() {
+			return backgroundWait;
+		}
+
+		@Override
+		public String toString() {
+			return "workers: " + workers + ", busy: " + busyWorkers + ", background: " + backgroundWorkers + " (blocked: " + blockedBackgroundWorkers + ", limit: " + backgroundLimit + "), max: " + maxWorkers + ", wait: " + interactiveWait + "ms, background wait: " + backgroundWait + "ms"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+		}
+	}
 }
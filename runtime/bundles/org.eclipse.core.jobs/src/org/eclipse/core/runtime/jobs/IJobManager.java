@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2012 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -49,6 +49,45 @@ public interface IJobManager {
 	 */
 	String PROP_USE_DAEMON_THREADS = "eclipse.jobs.daemon"; //$NON-NLS-1$
 
+	/**
+	 * A system property key indicating whether the job manager should run jobs
+	 * that are marked with {@link Job#PROPERTY_IO_BOUND} and have no scheduling
+	 * rule on virtual threads. Set to <code>true</code> to run such jobs on
+	 * virtual threads, so that jobs waiting for I/O don't occupy the limited
+	 * number of worker threads. Has no effect if the Java runtime does not
+	 * support virtual threads.
+	 * @since 3.14
+	 */
+	String PROP_USE_VIRTUAL_THREADS = "eclipse.jobs.virtualThreads"; //$NON-NLS-1$
+
+	/**
+	 * A system property key for the maximum number of worker threads. Idle
+	 * worker threads are discarded while there are more than this number of
+	 * workers, and an adaptive worker pool never grows its background lane
+	 * beyond it. Interactive jobs may still temporarily use more threads, so
+	 * that jobs that wait for each other cannot deadlock. The default is 50.
+	 * @see #getWorkerPoolMetrics()
+	 * @since 3.14
+	 */
+	String PROP_MAX_WORKER_THREADS = "eclipse.jobs.maxThreads"; //$NON-NLS-1$
+
+	/**
+	 * A system property key indicating whether the job manager should size the
+	 * worker pool adaptively. Set to <code>true</code> to stop creating worker
+	 * threads for background jobs with priority {@link Job#BUILD} or
+	 * {@link Job#DECORATE} once about as many background jobs run as there are
+	 * available processors, raising the limit while background jobs wait for
+	 * workers and the system is not overloaded. Interactive jobs always get a
+	 * worker. Workers blocked on scheduling rules or joins don't count against
+	 * the limit, and background jobs that still wait for a worker after a few
+	 * seconds get one regardless of the limit, so background jobs that wait for
+	 * each other are delayed but eventually run. Idle workers up to the number
+	 * of available processors are kept for bursts of short jobs.
+	 * @see #getWorkerPoolMetrics()
+	 * @since 3.14
+	 */
+	String PROP_ADAPTIVE_WORKER_POOL = "eclipse.jobs.adaptivePool"; //$NON-NLS-1$
+
 	/**
 	 * Registers a job listener with the job manager.
 	 * Has no effect if an identical listener is already registered.
@@ -168,6 +207,16 @@ public interface IJobManager {
 	 */
 	Job currentJob();
 
+	/**
+	 * Returns a snapshot of the state of the worker threads that run jobs,
+	 * for monitoring and tuning the job manager.
+	 *
+	 * @return the current metrics of the worker pool
+	 * @see #PROP_ADAPTIVE_WORKER_POOL
+	 * @since 3.14
+	 */
+	IWorkerPoolMetrics getWorkerPoolMetrics();
+
 	/**
 	 * Ends the application of a rule to the calling thread.  Calls to <code>endRule</code>
 	 * must be preceded by a matching call to <code>beginRule</code> in the same thread
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.runtime.jobs;
+
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A scheduling rule for a node of a hierarchy and all its descendants, like a
+ * resource. The node is identified by its path in the hierarchy, and the
+ * hierarchy by a scope object. Two path rules of the same scope conflict if and
+ * only if the path of one of them is a prefix of the path of the other, and
+ * path rules of different scopes never conflict.
+ * <p>
+ * The job manager relies on this to index the rules of running and blocked
+ * jobs by path, so that it can find the jobs blocking a job without asking
+ * the rules of all other jobs. Implementations must therefore implement
+ * {@link #isConflicting(ISchedulingRule)} consistently with the paths and
+ * scopes of path rules. They may conflict with other rules as needed.
+ * </p>
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ *
+ * @since 3.14
+ */
+public interface IPathSchedulingRule extends ISchedulingRule {
+	/**
+	 * Returns the object that identifies the hierarchy of this rule. Scopes are
+	 * compared with <code>equals</code>.
+	 *
+	 * @return the scope of this rule
+	 */
+	Object getPathScope();
+
+	/**
+	 * Returns the path of the node of this rule in its hierarchy.
+	 *
+	 * @return the path of this rule
+	 */
+	IPath getFullPath();
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.runtime.jobs;
+
+/**
+ * A snapshot of the state of the worker threads that run jobs, as returned by
+ * {@link IJobManager#getWorkerPoolMetrics()}.
+ * <p>
+ * The job manager distinguishes two lanes of jobs: background jobs have the
+ * priority {@link Job#BUILD} or {@link Job#DECORATE}, all other jobs are
+ * interactive. The wait times are moving averages of how much longer than
+ * their priority tolerates the jobs of a lane waited for a worker thread.
+ * </p>
+ *
+ * @see IJobManager#PROP_ADAPTIVE_WORKER_POOL
+ * @since 3.14
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ */
+public interface IWorkerPoolMetrics {
+	/**
+	 * Returns the number of worker threads in the pool.
+	 *
+	 * @return the number of worker threads
+	 */
+	int getWorkerCount();
+
+	/**
+	 * Returns the number of worker threads that are running a job or looking
+	 * for one.
+	 *
+	 * @return the number of busy worker threads
+	 */
+	int getBusyWorkerCount();
+
+	/**
+	 * Returns the number of worker threads that are running a background job.
+	 *
+	 * @return the number of worker threads running background jobs
+	 */
+	int getBackgroundWorkerCount();
+
+	/**
+	 * Returns the number of worker threads that are running a background job
+	 * but are blocked, waiting for a scheduling rule or joining other jobs.
+	 *
+	 * @return the number of blocked worker threads running background jobs
+	 */
+	int getBlockedBackgroundWorkerCount();
+
+	/**
+	 * Returns the number of background jobs that may run at the same time
+	 * before no more worker threads are created for them. This limit only
+	 * applies if the worker pool is adaptive, and is otherwise the maximum
+	 * number of worker threads.
+	 *
+	 * @return the current limit of the background lane
+	 * @see IJobManager#PROP_ADAPTIVE_WORKER_POOL
+	 */
+	int getBackgroundWorkerLimit();
+
+	/**
+	 * Returns the configured upper bound of the number of worker threads.
+	 *
+	 * @return the maximum number of worker threads
+	 * @see IJobManager#PROP_MAX_WORKER_THREADS
+	 */
+	int getMaxWorkerCount();
+
+	/**
+	 * Returns the average time in milliseconds that interactive jobs waited
+	 * for a worker thread beyond the delay their priority tolerates.
+	 *
+	 * @return the average wait time of interactive jobs
+	 */
+	long getInteractiveWaitTime();
+
+	/**
+	 * Returns the average time in milliseconds that background jobs waited
+	 * for a worker thread beyond the delay their priority tolerates.
+	 *
+	 * @return the average wait time of background jobs
+	 */
+	long getBackgroundWaitTime();
+}
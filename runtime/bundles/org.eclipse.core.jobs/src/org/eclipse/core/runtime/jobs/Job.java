@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2018 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -137,6 +137,22 @@ public abstract class Job extends InternalJob {
 	 */
 	public static final int RUNNING = 0x04;
 
+	/**
+	 * Job property key for marking a job that spends most of its time waiting
+	 * for I/O, such as network or file system access. Set the property to
+	 * {@link Boolean#TRUE} to mark the job.
+	 * <p>
+	 * If the job manager is configured to use virtual threads (see
+	 * {@link IJobManager#PROP_USE_VIRTUAL_THREADS}), marked jobs without a
+	 * scheduling rule run on virtual threads. They then don't count against the
+	 * limit of worker threads, and don't delay other jobs while they wait.
+	 * </p>
+	 *
+	 * @see #setProperty(QualifiedName, Object)
+	 * @since 3.14
+	 */
+	public static final QualifiedName PROPERTY_IO_BOUND = new QualifiedName(JobManager.PI_JOBS, "ioBound"); //$NON-NLS-1$
+
 	/**
 	 * Returns the job manager.
 	 *
@@ -244,6 +260,29 @@ public abstract class Job extends InternalJob {
 		super(name);
 	}
 
+	/**
+	 * Creates a new job with the specified name that belongs to the given
+	 * families. Families are compared with <code>equals</code>.
+	 * <p>
+	 * The default implementation of {@link #belongsTo(Object)} returns
+	 * <code>true</code> for the declared families. The job manager keeps an
+	 * index of the scheduled jobs of declared families, so that queries for a
+	 * family, such as {@link IJobManager#find(Object)},
+	 * {@link IJobManager#cancel(Object)} and
+	 * {@link IJobManager#join(Object, IProgressMonitor)}, don't need to ask
+	 * every job whether it belongs to the family while no scheduled job
+	 * overrides {@link #belongsTo(Object)}.
+	 * </p>
+	 *
+	 * @param name the name of the job.
+	 * @param families the families the job belongs to, must not contain
+	 * <code>null</code>
+	 * @since 3.14
+	 */
+	public Job(String name, Object... families) {
+		super(name, families);
+	}
+
 	/**
 	 * Registers a job listener with this job
 	 * Has no effect if an identical listener is already registered.
@@ -261,9 +300,11 @@ public abstract class Job extends InternalJob {
 	 * by the job manager.  Thus, a job can choose to belong to any number of
 	 * families.
 	 * <p>
-	 * Clients may override this method.  This default implementation always returns
-	 * <code>false</code>.  Overriding implementations must return <code>false</code>
-	 * for families they do not recognize.
+	 * Clients may override this method.  This default implementation returns
+	 * <code>true</code> for the families declared when the job was created, see
+	 * {@link #Job(String, Object...)}, and <code>false</code> otherwise.
+	 * Overriding implementations must return <code>false</code> for families
+	 * they do not recognize.
 	 * </p>
 	 *
 	 * @param family the job family identifier
@@ -272,7 +313,7 @@ public abstract class Job extends InternalJob {
 	 */
 	@Override
 	public boolean belongsTo(Object family) {
-		return false;
+		return super.belongsTo(family);
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2018 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -824,6 +824,107 @@ public class IJobManagerTest extends AbstractJobManagerTest {
 		allJobs.clear();
 	}
 
+	/**
+	 * Tests finding, canceling and joining a family declared at job construction.
+	 */
+	public void testJobFamilyDeclared() throws Exception {
+		final Object family = new Object();
+		final Object other = new Object();
+		final Semaphore release = new Semaphore(0);
+		final int JOB_COUNT = 20;
+		Job[] jobs = new Job[JOB_COUNT];
+		for (int i = 0; i < JOB_COUNT; i++) {
+			final boolean member = i % 4 != 0;
+			jobs[i] = new Job("testJobFamilyDeclared", family, other) {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					release.acquireUninterruptibly();
+					return Status.OK_STATUS;
+				}
+
+				@Override
+				public boolean belongsTo(Object f) {
+					// a declared family can still be rejected
+					return f == family ? member : super.belongsTo(f);
+				}
+			};
+			jobs[i].schedule(i < JOB_COUNT / 2 ? 0 : 1000000);
+		}
+		assertTrue("1.0", jobs[1].belongsTo(other));
+		assertTrue("1.1", !jobs[1].belongsTo(new Object()));
+		assertEquals("1.2", JOB_COUNT, manager.find(other).length);
+		assertEquals("1.3", JOB_COUNT - JOB_COUNT / 4, manager.find(family).length);
+		//cancel the sleeping jobs of the family
+		int canceled = 0;
+		for (Job job : manager.find(family)) {
+			if (job.getState() == Job.SLEEPING && job.cancel())
+				canceled++;
+		}
+		assertEquals("1.4", JOB_COUNT - JOB_COUNT / 4 - canceled, manager.find(family).length);
+		manager.cancel(other);
+		release.release(JOB_COUNT);
+		manager.join(other, null);
+		assertEquals("1.5", 0, manager.find(other).length);
+		assertEquals("1.6", 0, manager.find(family).length);
+	}
+
+	/**
+	 * Tests finding and canceling a family whose jobs declare it, or only
+	 * belong to it through an override of belongsTo.
+	 */
+	public void testJobFamilyDeclaredMixed() throws Exception {
+		final Object family = new Object();
+		final Object other = new Object();
+		List<Job> members = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+			members.add(new DeclaredFamilyJob("testJobFamilyDeclaredMixed-declared", family));
+		for (int i = 0; i < 5; i++) {
+			members.add(new DeclaredFamilyJob("testJobFamilyDeclaredMixed-overridden") {
+				@Override
+				public boolean belongsTo(Object f) {
+					return f == family;
+				}
+			});
+		}
+		// declares another family, but also belongs to this one
+		members.add(new DeclaredFamilyJob("testJobFamilyDeclaredMixed-both", other) {
+			@Override
+			public boolean belongsTo(Object f) {
+				return f == family || super.belongsTo(f);
+			}
+		});
+		Job outsider = new DeclaredFamilyJob("testJobFamilyDeclaredMixed-outsider", other);
+		for (Job job : members)
+			job.schedule(1000000);
+		outsider.schedule(1000000);
+		try {
+			assertEquals("1.0", new HashSet<>(members), new HashSet<>(Arrays.asList(manager.find(family))));
+			assertEquals("1.1", 2, manager.find(other).length);
+			manager.cancel(family);
+			for (Job job : members)
+				assertState("1.2", job, Job.NONE);
+			assertState("1.3", outsider, Job.SLEEPING);
+			assertEquals("1.4", 0, manager.find(family).length);
+			assertEquals("1.5", Collections.singletonList(outsider), Arrays.asList(manager.find(other)));
+		} finally {
+			outsider.cancel();
+		}
+	}
+
+	/**
+	 * A job that does nothing, and belongs to the given families.
+	 */
+	private static class DeclaredFamilyJob extends Job {
+		DeclaredFamilyJob(String name, Object... families) {
+			super(name, families);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			return Status.OK_STATUS;
+		}
+	}
+
 	public void testJobFamilyJoin() {
 		//test the join method on a family of jobs
 		final AtomicIntegerArray status = new AtomicIntegerArray(new int[1]);
@@ -1817,6 +1918,50 @@ public class IJobManagerTest extends AbstractJobManagerTest {
 		assertTrue("1.0", !failure[0]);
 	}
 
+	/**
+	 * Tests that jobs with and without rules scheduled from several threads at
+	 * once all run exactly once.
+	 */
+	public void testScheduleConcurrently() throws Exception {
+		final int THREADS = 4;
+		final int JOBS_PER_THREAD = 250;
+		final Object family = new Object();
+		final AtomicIntegerArray runs = new AtomicIntegerArray(THREADS * JOBS_PER_THREAD);
+		final int[] priorities = {Job.INTERACTIVE, Job.SHORT, Job.LONG, Job.BUILD, Job.DECORATE};
+		final ISchedulingRule rule = new IdentityRule();
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t * JOBS_PER_THREAD;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < JOBS_PER_THREAD; i++) {
+					final int index = offset + i;
+					Job job = new Job("testScheduleConcurrently") {
+						@Override
+						protected IStatus run(IProgressMonitor monitor) {
+							runs.incrementAndGet(index);
+							return Status.OK_STATUS;
+						}
+
+						@Override
+						public boolean belongsTo(Object f) {
+							return f == family;
+						}
+					};
+					job.setPriority(priorities[index % priorities.length]);
+					if (index % 10 == 0)
+						job.setRule(rule);
+					job.schedule(index % 7 == 0 ? 10 : 0);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		manager.join(family, null);
+		for (int i = 0; i < runs.length(); i++)
+			assertEquals("1." + i, 1, runs.get(i));
+	}
+
 	public void testSimple() {
 		final int JOB_COUNT = 10;
 		for (int i = 0; i < JOB_COUNT; i++) {
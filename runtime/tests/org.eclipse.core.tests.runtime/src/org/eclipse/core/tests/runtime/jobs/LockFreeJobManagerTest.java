@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.runtime.jobs;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.eclipse.core.internal.jobs.JobManager;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Runs the tests of the job manager with lock free scheduling of the jobs
+ * without a scheduling rule and without a job group, and tests changing the
+ * state of such jobs while they wait or sleep.
+ */
+@SuppressWarnings("restriction")
+public class LockFreeJobManagerTest extends IJobManagerTest {
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		JobManager.setLockFreeScheduling(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		try {
+			super.tearDown();
+		} finally {
+			JobManager.setLockFreeScheduling(false);
+		}
+	}
+
+	private Job[] createJobs(String name, Object family, AtomicIntegerArray runs) {
+		Job[] jobs = new Job[runs.length()];
+		for (int i = 0; i < jobs.length; i++) {
+			final int index = i;
+			jobs[i] = new Job(name + i) {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					runs.incrementAndGet(index);
+					return Status.OK_STATUS;
+				}
+
+				@Override
+				public boolean belongsTo(Object f) {
+					return f == family;
+				}
+			};
+		}
+		return jobs;
+	}
+
+	/**
+	 * Tests sleeping, waking up, changing the priority of and canceling lock
+	 * free jobs while they wait.
+	 */
+	public void testChangeWaitingJobs() throws Exception {
+		final Object family = new Object();
+		AtomicIntegerArray runs = new AtomicIntegerArray(10);
+		Job[] jobs = createJobs("testChangeWaitingJobs", family, runs);
+		manager.suspend();
+		try {
+			for (Job job : jobs)
+				job.schedule();
+			for (Job job : jobs)
+				assertState("1.0", job, Job.WAITING);
+			assertEquals("1.1", jobs.length, manager.find(family).length);
+
+			jobs[0].setPriority(Job.DECORATE);
+			jobs[1].setPriority(Job.INTERACTIVE);
+			assertState("2.0", jobs[0], Job.WAITING);
+			assertState("2.1", jobs[1], Job.WAITING);
+
+			assertTrue("3.0", jobs[2].sleep());
+			assertState("3.1", jobs[2], Job.SLEEPING);
+			manager.sleep(family);
+			for (Job job : jobs)
+				assertState("3.2", job, Job.SLEEPING);
+			jobs[3].wakeUp();
+			assertState("3.3", jobs[3], Job.WAITING);
+			manager.wakeUp(family);
+			for (Job job : jobs)
+				assertState("3.4", job, Job.WAITING);
+
+			assertTrue("4.0", jobs[4].cancel());
+			assertState("4.1", jobs[4], Job.NONE);
+			assertEquals("4.2", jobs.length - 1, manager.find(family).length);
+		} finally {
+			manager.resume();
+		}
+		manager.join(family, null);
+		for (int i = 0; i < jobs.length; i++)
+			assertEquals("5." + i, i == 4 ? 0 : 1, runs.get(i));
+	}
+
+	/**
+	 * Tests that sleeping lock free jobs move to the queues of locked jobs and
+	 * back when lock free scheduling is switched.
+	 */
+	public void testSwitchWithSleepingJobs() throws Exception {
+		final Object family = new Object();
+		AtomicIntegerArray runs = new AtomicIntegerArray(4);
+		Job[] jobs = createJobs("testSwitchWithSleepingJobs", family, runs);
+		for (Job job : jobs)
+			job.schedule(60000);
+		JobManager.setLockFreeScheduling(false);
+		assertEquals("1.0", jobs.length, manager.find(family).length);
+		JobManager.setLockFreeScheduling(true);
+		assertEquals("1.1", jobs.length, manager.find(family).length);
+		assertTrue("2.0", jobs[0].cancel());
+		manager.wakeUp(family);
+		manager.join(family, null);
+		for (int i = 0; i < jobs.length; i++)
+			assertEquals("3." + i, i == 0 ? 0 : 1, runs.get(i));
+	}
+
+	/**
+	 * Tests that jobs that are about to start are still found, so that joining
+	 * their family waits for them.
+	 */
+	public void testJoinWhileStarting() throws Exception {
+		final Object family = new Object();
+		for (int round = 0; round < 20; round++) {
+			AtomicIntegerArray runs = new AtomicIntegerArray(50);
+			Job[] jobs = createJobs("testJoinWhileStarting", family, runs);
+			for (Job job : jobs)
+				job.schedule();
+			manager.join(family, null);
+			for (int i = 0; i < jobs.length; i++)
+				assertEquals("1." + round + "." + i, 1, runs.get(i));
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 IBM Corporation and others.
+ * Copyright (c) 2008, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,9 @@
  *******************************************************************************/
 package org.eclipse.core.tests.runtime.jobs;
 
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
-import org.eclipse.core.runtime.jobs.MultiRule;
+import java.util.concurrent.CountDownLatch;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.*;
 
 /**
  * Tests for {@link MultiRule}.
@@ -78,4 +79,51 @@ public class MultiRuleTest extends AbstractJobTest {
 		assertTrue("1.5", multi2.isConflicting(multi1));
 		assertTrue("1.6", multi1.isConflicting(multi1));
 	}
+
+	private static Job newJob(ISchedulingRule rule, CountDownLatch started, CountDownLatch release) {
+		Job job = Job.create("MultiRuleTest", monitor -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Status.OK_STATUS;
+		});
+		job.setRule(rule);
+		job.setSystem(true);
+		return job;
+	}
+
+	/**
+	 * Tests that jobs are blocked by the path rules, multi rules and other rules
+	 * of running jobs, as the job manager finds them in its index of rules.
+	 */
+	public void testBlockingJobs() throws InterruptedException {
+		IdentityRule identity = new IdentityRule();
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		Job[] running = {newJob(new PathRule("/a/b"), started, release), newJob(identity, started, release)};
+		for (Job job : running)
+			job.schedule();
+		started.await();
+
+		CountDownLatch none = new CountDownLatch(0);
+		Job[] blocked = {newJob(new PathRule("/a"), none, none), newJob(new PathRule("/a/b/c"), none, none), newJob(identity, none, none), newJob(new MultiRule(new ISchedulingRule[] {new PathRule("/x"), new PathRule("/a/b/d")}), none, none)};
+		Job[] free = {newJob(new PathRule("/a/c"), none, none), newJob(new IdentityRule(), none, none), newJob(new MultiRule(new ISchedulingRule[] {new PathRule("/x"), new PathRule("/y")}), none, none)};
+		for (Job job : blocked)
+			job.schedule();
+		for (Job job : free)
+			job.schedule();
+		for (Job job : free)
+			job.join();
+		for (int i = 0; i < blocked.length; i++)
+			assertEquals("1." + i, Job.WAITING, blocked[i].getState());
+
+		release.countDown();
+		for (Job job : running)
+			job.join();
+		for (Job job : blocked)
+			job.join();
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2015 IBM Corporation and others.
+ * Copyright (c) 2003, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,7 @@ package org.eclipse.core.tests.runtime.jobs;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.IPathSchedulingRule;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
 /**
@@ -22,7 +23,7 @@ import org.eclipse.core.runtime.jobs.ISchedulingRule;
  * rule if its path is a prefix of the other rule's path.  A path rule is conflicting
  * with another rule if either one is a prefix of the other.
  */
-public class PathRule implements ISchedulingRule {
+public class PathRule implements IPathSchedulingRule {
 	private IPath path;
 
 	public PathRule(IPath path) {
@@ -50,10 +51,16 @@ public class PathRule implements ISchedulingRule {
 		return path.isPrefixOf(otherPath) || otherPath.isPrefixOf(path);
 	}
 
+	@Override
 	public IPath getFullPath() {
 		return path;
 	}
 
+	@Override
+	public Object getPathScope() {
+		return PathRule.class;
+	}
+
 	@Override
 	public String toString() {
 		return "PathRule(" + path + ")";
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 salesforce.com.
+ * Copyright (c) 2017, 2023 salesforce.com and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,12 +13,18 @@
  *******************************************************************************/
 package org.eclipse.core.tests.runtime.jobs;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.internal.jobs.JobManager;
 import org.eclipse.core.internal.jobs.Worker;
 import org.eclipse.core.runtime.*;
-import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.*;
 import org.junit.Test;
 
 @SuppressWarnings("restriction")
@@ -68,4 +74,224 @@ public class WorkerPoolTest {
 		assertTrue("Too many worker threads active: " + wcount + ", must be <= " + MAX_THREADS, wcount <= MAX_THREADS);
 	}
 
+	@Test
+	public void testIoBoundJobs() throws Exception {
+		assumeTrue("Virtual threads are not supported", supportsVirtualThreads());
+		boolean virtualThreads = JobManager.setVirtualThreads(true);
+		try {
+			runIoBoundJobs();
+		} finally {
+			JobManager.setVirtualThreads(virtualThreads);
+		}
+	}
+
+	private void runIoBoundJobs() throws Exception {
+		// more jobs than the pool has worker threads
+		final int count = 200;
+		final Object family = new Object();
+		final CountDownLatch started = new CountDownLatch(count);
+		final AtomicInteger correct = new AtomicInteger();
+		for (int i = 0; i < count; i++) {
+			Job job = new Job("testIoBoundJobs-" + i) {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					started.countDown();
+					try {
+						// wait like a job blocked on I/O until all jobs run
+						started.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						return Status.CANCEL_STATUS;
+					}
+					if (Job.getJobManager().currentJob() == this && getThread() == Thread.currentThread() && isVirtual(Thread.currentThread()))
+						correct.incrementAndGet();
+					return Status.OK_STATUS;
+				}
+
+				@Override
+				public boolean belongsTo(Object f) {
+					return f == family;
+				}
+			};
+			job.setProperty(Job.PROPERTY_IO_BOUND, Boolean.TRUE);
+			job.schedule();
+		}
+		assertTrue("Jobs did not run concurrently", started.await(10, TimeUnit.SECONDS));
+		Job.getJobManager().join(family, null);
+		assertEquals(count, correct.get());
+	}
+
+	/**
+	 * Tests that an I/O bound job on a virtual thread waits for a rule that it
+	 * begins, and releases it when it ends it.
+	 */
+	@Test
+	public void testIoBoundJobBeginRule() throws Exception {
+		assumeTrue("Virtual threads are not supported", supportsVirtualThreads());
+		final ISchedulingRule rule = new PathRule("testIoBoundJobBeginRule");
+		final CountDownLatch beginning = new CountDownLatch(1);
+		final AtomicBoolean acquired = new AtomicBoolean();
+		final AtomicBoolean virtual = new AtomicBoolean();
+		Job job = new Job("testIoBoundJobBeginRule") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				virtual.set(isVirtual(Thread.currentThread()));
+				beginning.countDown();
+				Job.getJobManager().beginRule(rule, monitor);
+				try {
+					acquired.set(Job.getJobManager().currentRule() == rule);
+				} finally {
+					Job.getJobManager().endRule(rule);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setProperty(Job.PROPERTY_IO_BOUND, Boolean.TRUE);
+		boolean virtualThreads = JobManager.setVirtualThreads(true);
+		Job.getJobManager().beginRule(rule, null);
+		try {
+			job.schedule();
+			assertTrue("Job did not start", beginning.await(10, TimeUnit.SECONDS));
+			Thread.sleep(100);
+			assertFalse("Job acquired a rule held by another thread", acquired.get());
+		} finally {
+			Job.getJobManager().endRule(rule);
+			JobManager.setVirtualThreads(virtualThreads);
+		}
+		assertTrue("Job did not end", job.join(10000, null));
+		assertTrue("Job did not run on a virtual thread", virtual.get());
+		assertTrue("Job did not acquire the rule", acquired.get());
+		// the rule is released, so this thread can begin it again
+		Job.getJobManager().beginRule(rule, null);
+		Job.getJobManager().endRule(rule);
+	}
+
+	private static boolean supportsVirtualThreads() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (ReflectiveOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Tests that an adaptive pool defers background jobs beyond the limit of
+	 * the background lane, while interactive jobs and background jobs blocked
+	 * in a join still get a worker, and that deferred jobs get a worker after
+	 * a while even if the running background jobs never end.
+	 */
+	@Test
+	public void testWorkerPoolMetrics() throws Exception {
+		final Object family = new Object();
+		final CountDownLatch release = new CountDownLatch(1);
+		boolean adaptive = JobManager.setAdaptiveWorkerPool(true);
+		try {
+			// occupy the idle workers, so that jobs only run on new workers
+			IWorkerPoolMetrics metrics = Job.getJobManager().getWorkerPoolMetrics();
+			Job filler = null;
+			for (int i = 0; i < 200 && (filler == null || metrics.getBusyWorkerCount() < metrics.getWorkerCount()); i++) {
+				filler = startJob("testWorkerPoolMetrics-filler-" + i, Job.INTERACTIVE, family, release);
+				Thread.sleep(50);
+				metrics = Job.getJobManager().getWorkerPoolMetrics();
+			}
+			assertEquals(metrics.toString(), metrics.getWorkerCount(), metrics.getBusyWorkerCount());
+
+			// a background job blocked joining a filler doesn't count against the limit
+			final Job joined = filler;
+			final CountDownLatch joining = new CountDownLatch(1);
+			Job joiner = new Job("testWorkerPoolMetrics-joiner") {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					joining.countDown();
+					try {
+						joined.join();
+					} catch (InterruptedException e) {
+						return Status.CANCEL_STATUS;
+					}
+					return Status.OK_STATUS;
+				}
+
+				@Override
+				public boolean belongsTo(Object f) {
+					return f == family;
+				}
+			};
+			joiner.setPriority(Job.BUILD);
+			joiner.schedule();
+			assertTrue("Joiner did not start", joining.await(10, TimeUnit.SECONDS));
+			for (int i = 0; i < 100 && metrics.getBlockedBackgroundWorkerCount() == 0; i++) {
+				Thread.sleep(50);
+				metrics = Job.getJobManager().getWorkerPoolMetrics();
+			}
+			assertEquals(metrics.toString(), 1, metrics.getBlockedBackgroundWorkerCount());
+
+			// background jobs get new workers up to the limit
+			int limit = metrics.getBackgroundWorkerLimit();
+			assertTrue(metrics.toString(), limit >= 1 && limit <= metrics.getMaxWorkerCount());
+			for (int i = 0; i < limit; i++) {
+				CountDownLatch started = new CountDownLatch(1);
+				newJob("testWorkerPoolMetrics-background-" + i, family, started, release, Job.BUILD).schedule();
+				assertTrue("Background job " + i + " did not start", started.await(5, TimeUnit.SECONDS));
+			}
+			metrics = Job.getJobManager().getWorkerPoolMetrics();
+			assertEquals(metrics.toString(), limit + 1, metrics.getBackgroundWorkerCount());
+
+			// the next background job is deferred, but gets a worker after a while
+			CountDownLatch deferredStarted = new CountDownLatch(1);
+			newJob("testWorkerPoolMetrics-deferred", family, deferredStarted, release, Job.BUILD).schedule();
+			assertFalse("Background job was not deferred", deferredStarted.await(1200, TimeUnit.MILLISECONDS));
+			assertTrue("Deferred background job did not start", deferredStarted.await(10, TimeUnit.SECONDS));
+
+			// interactive jobs get a worker while a background job is deferred,
+			// the worker may then run the deferred job first
+			deferredStarted = new CountDownLatch(1);
+			newJob("testWorkerPoolMetrics-deferred-2", family, deferredStarted, release, Job.BUILD).schedule();
+			assertFalse("Background job was not deferred", deferredStarted.await(1200, TimeUnit.MILLISECONDS));
+			CountDownLatch interactiveStarted = new CountDownLatch(1);
+			newJob("testWorkerPoolMetrics-interactive", family, interactiveStarted, release, Job.INTERACTIVE).schedule();
+			assertTrue("Interactive job did not start", interactiveStarted.await(500, TimeUnit.MILLISECONDS));
+		} finally {
+			release.countDown();
+			Job.getJobManager().join(family, null);
+			JobManager.setAdaptiveWorkerPool(adaptive);
+		}
+	}
+
+	private static Job startJob(String name, int priority, Object family, CountDownLatch release) throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		Job job = newJob(name, family, started, release, priority);
+		job.schedule();
+		assertTrue(name + " did not start", started.await(10, TimeUnit.SECONDS));
+		return job;
+	}
+
+	private static Job newJob(String name, Object family, CountDownLatch started, CountDownLatch release, int priority) {
+		Job job = new Job(name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				started.countDown();
+				try {
+					release.await(60, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return Status.CANCEL_STATUS;
+				}
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object f) {
+				return f == family;
+			}
+		};
+		job.setPriority(priority);
+		return job;
+	}
 }
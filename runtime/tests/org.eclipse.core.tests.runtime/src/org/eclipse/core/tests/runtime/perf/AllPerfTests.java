@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2018 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -45,6 +45,7 @@ public class AllPerfTests extends TestCase {
 
 		suite.addTest(new UIPerformanceSessionTestSuite(RuntimeTestsPlugin.PI_RUNTIME_TESTS, 5, UIStartupTest.class));
 		suite.addTestSuite(BenchPath.class);
+		suite.addTestSuite(BenchJobRules.class);
 		suite.addTest(ContentTypePerformanceTest.suite());
 		suite.addTestSuite(PreferencePerformanceTest.class);
 		return suite;
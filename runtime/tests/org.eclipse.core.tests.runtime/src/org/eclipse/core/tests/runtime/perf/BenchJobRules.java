@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Contributors to the Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.runtime.perf;
+
+import java.util.concurrent.CountDownLatch;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.core.tests.runtime.RuntimeTest;
+import org.eclipse.core.tests.runtime.jobs.PathRule;
+
+/**
+ * Benchmarks scheduling jobs with scheduling rules while many jobs are queued.
+ */
+public class BenchJobRules extends RuntimeTest {
+	private static final int JOB_COUNT = 10_000;
+
+	public BenchJobRules() {
+		super();
+	}
+
+	public BenchJobRules(String testName) {
+		super(testName);
+	}
+
+	private static Job newJob(ISchedulingRule rule, CountDownLatch started, CountDownLatch release) {
+		Job job = Job.create("BenchJobRules", monitor -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Status.OK_STATUS;
+		});
+		job.setRule(rule);
+		job.setSystem(true);
+		return job;
+	}
+
+	/**
+	 * Queues 10,000 jobs behind a running job with a conflicting rule, then
+	 * runs 10,000 jobs with rules that conflict with none of them. Each of these
+	 * jobs has to be checked against all queued jobs.
+	 */
+	public void testScheduleWithQueuedJobs() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				CountDownLatch none = new CountDownLatch(0);
+				CountDownLatch started = new CountDownLatch(1);
+				CountDownLatch release = new CountDownLatch(1);
+				Job holder = newJob(new PathRule("/queued"), started, release);
+				holder.schedule();
+				Job[] queued = new Job[JOB_COUNT];
+				Job[] free = new Job[JOB_COUNT];
+				try {
+					started.await();
+					for (int i = 0; i < JOB_COUNT; i++) {
+						queued[i] = newJob(new PathRule("/queued/" + i), none, none);
+						queued[i].schedule();
+					}
+					for (int i = 0; i < JOB_COUNT; i++) {
+						free[i] = newJob(new PathRule("/free/" + i), none, none);
+						free[i].schedule();
+					}
+					for (Job job : free)
+						job.join();
+					release.countDown();
+					holder.join();
+					for (Job job : queued)
+						job.join();
+				} catch (InterruptedException e) {
+					fail("1.0", e);
+				}
+			}
+		}.run(this, 5, 1);
+	}
+}